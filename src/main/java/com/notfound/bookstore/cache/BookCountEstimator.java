@@ -0,0 +1,53 @@
+package com.notfound.bookstore.cache;
+
+import com.notfound.bookstore.config.CacheConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Tổng số sách gần đúng cho chế độ phân trang không đếm (count=approximate).
+ * Trả về kết quả của lần đếm trước cho cùng bộ lọc (key đã chuẩn hóa) từ cache bookCounts;
+ * khi chưa có thì trả về null và chạy truy vấn COUNT ở nền, nên request hiện tại không phải chờ đếm.
+ * Mỗi key chỉ có một lần đếm chạy cùng lúc.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookCountEstimator {
+
+    private final TwoLevelCacheManager cacheManager;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public Long estimate(String key, Supplier<Long> counter) {
+        TwoLevelCache cache = cacheManager.getCache(CacheConfig.BOOK_COUNTS);
+        Long cached = cache.get(key, Long.class);
+        if (cached != null || !pending.add(key)) {
+            return cached;
+        }
+        executor.execute(() -> {
+            try {
+                cache.get(key, counter::get);
+            } catch (Exception e) {
+                log.warn("Failed to count books for {}: {}", key, e.getMessage());
+            } finally {
+                pending.remove(key);
+            }
+        });
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package com.notfound.bookstore.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Phát và nhận thông điệp invalidate cache giữa các node.
+ * Mỗi thông điệp mang số phiên bản toàn cục; thông điệp trùng lặp hoặc đến muộn
+ * (phiên bản không lớn hơn phiên bản đã xử lý của cùng entity) sẽ bị bỏ qua.
+ * Thông điệp hợp lệ từ node khác được phát lại thành CatalogChangedEvent với remote = true.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationBus {
+
+    private static final int MAX_TRACKED_ENTITIES = 10_000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheInvalidationTransport transport;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // entity -> phiên bản lớn nhất đã xử lý (LRU có giới hạn)
+    private final Map<String, Long> lastVersions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_TRACKED_ENTITIES;
+        }
+    };
+
+    public record InvalidationMessage(String origin, long version, CatalogChangedEvent.EntityType entityType,
+                                      UUID entityId, CatalogChangedEvent.Action action) {
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Gửi thay đổi của node hiện tại cho các node khác; lỗi chỉ được ghi log (cache local vẫn hết hạn theo TTL)
+    public void publish(CatalogChangedEvent event) {
+        try {
+            long version = transport.nextVersion();
+            markApplied(entityKey(event.entityType(), event.entityId()), version);
+            InvalidationMessage message = new InvalidationMessage(
+                    nodeId, version, event.entityType(), event.entityId(), event.action());
+            transport.publish(objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation for {} {}: {}",
+                    event.entityType(), event.entityId(), e.getMessage());
+        }
+    }
+
+    public void receive(String payload) {
+        InvalidationMessage message;
+        try {
+            message = objectMapper.readValue(payload, InvalidationMessage.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed cache invalidation message: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(message.origin())) {
+            return;
+        }
+        if (!markApplied(entityKey(message.entityType(), message.entityId()), message.version())) {
+            log.debug("Dropping stale cache invalidation {} for {} {}",
+                    message.version(), message.entityType(), message.entityId());
+            return;
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                message.entityType(), message.entityId(), message.action(), true));
+    }
+
+    // Trả về false nếu đã xử lý phiên bản bằng hoặc mới hơn cho entity này
+    private boolean markApplied(String entityKey, long version) {
+        synchronized (lastVersions) {
+            Long last = lastVersions.get(entityKey);
+            if (last != null && last >= version) {
+                return false;
+            }
+            lastVersions.put(entityKey, version);
+            return true;
+        }
+    }
+
+    private static String entityKey(CatalogChangedEvent.EntityType entityType, UUID entityId) {
+        return entityType + ":" + entityId;
+    }
+}
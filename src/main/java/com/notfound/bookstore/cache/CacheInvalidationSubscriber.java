@@ -0,0 +1,62 @@
+package com.notfound.bookstore.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Nhận thông điệp invalidate cache từ các node khác qua Redis pub/sub.
+ * Việc đăng ký kênh chạy ở luồng nền để ứng dụng vẫn khởi động được khi Redis chưa sẵn sàng;
+ * sau khi đăng ký thành công, container tự kết nối lại khi mất kết nối.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationSubscriber {
+
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    public CacheInvalidationSubscriber(RedisConnectionFactory connectionFactory, CacheInvalidationBus invalidationBus) {
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> invalidationBus.receive(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(RedisCacheInvalidationTransport.CHANNEL));
+        container.afterPropertiesSet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        Thread.ofVirtual().name("cache-invalidation-subscriber").start(this::startWithRetry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        container.destroy();
+    }
+
+    private void startWithRetry() {
+        while (!container.isRunning()) {
+            try {
+                container.start();
+                log.info("Subscribed to cache invalidation channel");
+            } catch (Exception e) {
+                log.warn("Cannot subscribe to cache invalidation channel, retrying in {} ms: {}",
+                        RETRY_DELAY_MILLIS, e.getMessage());
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.notfound.bookstore.cache;
+
+/**
+ * Kênh truyền thông điệp invalidate cache giữa các node.
+ * Bản chạy thật dùng Redis pub/sub; khi kiểm thử có thể thay bằng bản trong bộ nhớ.
+ */
+public interface CacheInvalidationTransport {
+
+    // Cấp số phiên bản tăng dần, dùng chung cho mọi node
+    long nextVersion();
+
+    void publish(String payload);
+}
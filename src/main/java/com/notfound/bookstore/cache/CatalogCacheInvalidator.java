@@ -0,0 +1,76 @@
+package com.notfound.bookstore.cache;
+
+import com.notfound.bookstore.config.CacheConfig;
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Xóa các mục cache liên quan sau khi dữ liệu danh mục thay đổi (chạy sau khi transaction commit).
+ * Thay đổi trên node hiện tại được xóa ở cả hai tầng rồi gửi qua CacheInvalidationBus;
+ * thay đổi nhận từ node khác chỉ cần xóa tầng local vì node gốc đã xóa trên Redis.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogCacheInvalidator {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final CacheInvalidationBus invalidationBus;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Invalidating caches for {} {} {} (remote: {})",
+                event.entityType(), event.entityId(), event.action(), event.remote());
+        boolean localOnly = event.remote();
+        switch (event.entityType()) {
+            case BOOK, REVIEW, BOOK_IMAGE -> {
+                evict(CacheConfig.BOOK_DETAIL, event.entityId(), localOnly);
+                clear(CacheConfig.BOOK_PAGES, localOnly);
+                clear(CacheConfig.BEST_SELLING_BOOKS, localOnly);
+            }
+            // Tên tác giả chỉ hiển thị trong trang chi tiết
+            case AUTHOR -> clear(CacheConfig.BOOK_DETAIL, localOnly);
+            case CATEGORY -> {
+                clear(CacheConfig.CATEGORIES, localOnly);
+                clear(CacheConfig.BOOK_DETAIL, localOnly);
+            }
+            case PROMOTION -> {
+                clear(CacheConfig.BOOK_DETAIL, localOnly);
+                clear(CacheConfig.BOOK_PAGES, localOnly);
+                clear(CacheConfig.BEST_SELLING_BOOKS, localOnly);
+            }
+        }
+        if (!event.remote()) {
+            invalidationBus.publish(event);
+        }
+    }
+
+    private void evict(String cacheName, UUID id, boolean localOnly) {
+        TwoLevelCache cache = cacheManager.getCache(cacheName);
+        if (cache == null || id == null) {
+            return;
+        }
+        if (localOnly) {
+            cache.evictLocal(id.toString());
+        } else {
+            cache.evict(id.toString());
+        }
+    }
+
+    private void clear(String cacheName, boolean localOnly) {
+        TwoLevelCache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (localOnly) {
+            cache.clearLocal();
+        } else {
+            cache.clear();
+        }
+    }
+}
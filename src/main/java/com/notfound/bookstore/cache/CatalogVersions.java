@@ -0,0 +1,110 @@
+package com.notfound.bookstore.cache;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Phiên bản dữ liệu danh mục dùng cho conditional GET (ETag / Last-Modified).
+ * Mọi thay đổi danh mục (kể cả nhận từ node khác) lấy một số phiên bản mới, tăng dần trên toàn node:
+ * thay đổi sách, đánh giá, ảnh gắn phiên bản đó cho riêng sách; thay đổi tác giả, thể loại, khuyến mãi
+ * gắn cho tất cả sách (giống phạm vi CatalogCacheInvalidator xóa cache chi tiết sách).
+ * Vì phiên bản tăng dần nên phiên bản của một tập sách chỉ cần lấy giá trị lớn nhất.
+ * Phiên bản chỉ có ý nghĩa trong một lần chạy của node (ETag kèm mã khởi động):
+ * client chuyển sang node khác chỉ nhận lại 200 thay vì 304, không bao giờ nhận dữ liệu cũ.
+ */
+@Component
+public class CatalogVersions {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<UUID, Stamp> books = new ConcurrentHashMap<>();
+    private final Stamp bootStamp = new Stamp(0, System.currentTimeMillis());
+    private long counter;
+    private volatile Stamp catalog = bootStamp;
+    private volatile Stamp shared = bootStamp;
+
+    private record Stamp(long version, long modifiedAt) {
+        Stamp max(Stamp other) {
+            return other.version > version ? other : this;
+        }
+    }
+
+    /**
+     * ETag và thời điểm thay đổi cuối của một response.
+     */
+    public record Tag(String etag, long lastModified) {
+
+        // Tag cho response còn phụ thuộc dữ liệu khác ngoài danh mục (ví dụ phiên bản bảng xếp hạng)
+        public Tag with(String suffix) {
+            return new Tag(etag.substring(0, etag.length() - 1) + "-" + suffix + "\"", lastModified);
+        }
+
+        /**
+         * Gắn ETag/Last-Modified vào response và kiểm tra If-None-Match/If-Modified-Since.
+         * true nghĩa là client đã có bản mới nhất: controller trả về null để Spring gửi 304 không có body.
+         */
+        public boolean isNotModified(ServletWebRequest request) {
+            HttpServletResponse response = request.getResponse();
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL.getHeaderValue());
+            }
+            return request.checkNotModified(etag, lastModified);
+        }
+    }
+
+    // Phiên bản của mọi danh sách sách (trang, tìm kiếm, lọc, sắp xếp)
+    public Tag catalog() {
+        return toTag("c", catalog);
+    }
+
+    // Phiên bản chi tiết của một sách
+    public Tag book(String bookId) {
+        return toTag("b", shared.max(books.getOrDefault(UUID.fromString(bookId), bootStamp)));
+    }
+
+    // Phiên bản chi tiết của một tập sách (batch); ID không hợp lệ được bỏ qua vì luôn nằm trong danh sách không tìm thấy
+    public Tag books(Collection<String> bookIds) {
+        Stamp latest = shared;
+        for (String bookId : bookIds) {
+            try {
+                latest = latest.max(books.getOrDefault(UUID.fromString(bookId.trim()), bootStamp));
+            } catch (IllegalArgumentException e) {
+                // ID không hợp lệ không làm thay đổi nội dung response
+            }
+        }
+        return toTag("b", latest);
+    }
+
+    // Chạy sau các listener khác (xóa cache, cập nhật chỉ mục) để ETag mới không đi kèm dữ liệu cũ
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        Stamp stamp = new Stamp(++counter, System.currentTimeMillis());
+        switch (event.entityType()) {
+            case BOOK, REVIEW, BOOK_IMAGE -> {
+                if (event.entityId() != null) {
+                    books.put(event.entityId(), stamp);
+                }
+            }
+            case AUTHOR, CATEGORY, PROMOTION -> shared = stamp;
+        }
+        catalog = stamp;
+    }
+
+    private Tag toTag(String scope, Stamp stamp) {
+        return new Tag("\"" + scope + "-" + bootId + "-" + stamp.version() + "\"", stamp.modifiedAt());
+    }
+}
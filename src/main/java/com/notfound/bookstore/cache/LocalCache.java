@@ -0,0 +1,85 @@
+package com.notfound.bookstore.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache trong heap có giới hạn số phần tử (loại bỏ phần tử ít dùng gần đây nhất - LRU) và thời gian sống (TTL).
+ */
+final class LocalCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+    final LongAdder expirations = new LongAdder();
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    LocalCache(int maxSize, long ttlNanos) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+    }
+
+    synchronized Object get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() - System.nanoTime() <= 0) {
+            entries.remove(key);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    synchronized void put(Object key, Object value) {
+        entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+        if (entries.size() > maxSize) {
+            purgeExpired();
+        }
+        Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    synchronized void evict(Object key) {
+        entries.remove(key);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt() - now <= 0) {
+                iterator.remove();
+                expirations.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.notfound.bookstore.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RedisCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    public static final String CHANNEL = "cache:invalidation";
+    private static final String VERSION_KEY = "cache:invalidation:version";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public long nextVersion() {
+        Long version = redisTemplate.opsForValue().increment(VERSION_KEY);
+        if (version == null) {
+            throw new IllegalStateException("Redis returned no invalidation version");
+        }
+        return version;
+    }
+
+    @Override
+    public void publish(String payload) {
+        redisTemplate.convertAndSend(CHANNEL, payload);
+    }
+}
@@ -0,0 +1,366 @@
+package com.notfound.bookstore.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notfound.bookstore.model.dto.response.cacheresponse.CacheStatsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache hai tầng: tầng 1 là LocalCache trong heap, tầng 2 là Redis (lưu JSON).
+ * Khi Redis lỗi, cache tạm bỏ qua Redis trong một khoảng thời gian và chỉ dùng tầng local.
+ * Mỗi key có một "thế hệ" tăng sau mỗi lần evict/clear: giá trị được nạp trước một lần invalidate
+ * sẽ không được ghi vào cache nữa, tránh hồi sinh dữ liệu cũ.
+ * Tập key trên Redis (để clear() không phải quét) được chia theo khoảng thời gian dài bằng TTL của Redis: key ghi trong
+ * một khoảng hết hạn trước cuối khoảng kế tiếp, nên tập của khoảng đó cũng hết hạn khi ấy thay vì phình mãi.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private static final String KEY_PREFIX = "cache:";
+    private static final long REDIS_RETRY_DELAY_MILLIS = 30_000;
+    // Số key tối đa được theo dõi thế hệ riêng; vượt quá thì chuyển thành một lần clear toàn cache
+    private static final int MAX_TRACKED_KEY_GENERATIONS = 10_000;
+
+    private final String name;
+    private final JavaType valueType;
+    private final LocalCache local;
+    private final Duration redisTtl;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder staleWrites = new LongAdder();
+    private volatile long redisRetryAt;
+
+    private long generationCounter;
+    private long clearGeneration;
+    private final Map<Object, Long> keyGenerations = new HashMap<>();
+    // Thế hệ của key tại lần miss gần nhất trên thread hiện tại (@Cacheable gọi get() rồi put() trên cùng thread)
+    private final ThreadLocal<PendingLoad> pendingLoad = new ThreadLocal<>();
+
+    private record PendingLoad(Object key, long generation) {
+    }
+
+    public TwoLevelCache(String name, JavaType valueType, int localMaxSize, Duration localTtl, Duration redisTtl,
+                         StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.name = name;
+        this.valueType = valueType;
+        this.local = new LocalCache(localMaxSize, localTtl.toNanos());
+        this.redisTtl = redisTtl;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = lookup(key);
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = lookup(key);
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        try {
+            Object value = lookup(key);
+            if (value != null) {
+                return (T) value;
+            }
+            long generation = takePendingGeneration(key);
+            T loaded = valueLoader.call();
+            putIfCurrent(key, loaded, generation);
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            pendingLoad.remove();
+        }
+    }
+
+    /**
+     * Đọc nhiều key trong một lần: tầng local trước, các key còn thiếu lấy từ Redis bằng một lệnh MGET,
+     * phần còn lại nạp bằng một lần gọi loader rồi ghi vào cache (bỏ qua nếu key bị invalidate trong lúc nạp).
+     * Key không có trong kết quả của loader thì không có trong kết quả trả về.
+     */
+    public Map<Object, Object> getAll(Collection<?> keys, Function<Set<Object>, Map<?, ?>> loader) {
+        Map<Object, Object> found = new LinkedHashMap<>();
+        List<Object> missing = new ArrayList<>();
+        for (Object key : keys) {
+            Object value = local.get(key);
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<Object, Long> generations = new HashMap<>();
+        synchronized (this) {
+            missing.forEach(key -> generations.put(key, generationOf(key)));
+        }
+        List<String> jsons = withRedis(() -> redisTemplate.opsForValue()
+                .multiGet(missing.stream().map(this::redisKey).toList()), null);
+        Set<Object> toLoad = new LinkedHashSet<>();
+        for (int i = 0; i < missing.size(); i++) {
+            Object key = missing.get(i);
+            String json = jsons != null ? jsons.get(i) : null;
+            Object value = json != null ? withRedis(() -> objectMapper.readValue(json, valueType), null) : null;
+            if (value == null) {
+                redisMisses.increment();
+                toLoad.add(key);
+                continue;
+            }
+            redisHits.increment();
+            found.put(key, value);
+            synchronized (this) {
+                if (generations.get(key) == generationOf(key)) {
+                    local.put(key, value);
+                }
+            }
+        }
+        if (toLoad.isEmpty()) {
+            return found;
+        }
+
+        Map<?, ?> loaded = loader.apply(toLoad);
+        loaded.forEach((key, value) -> {
+            if (value != null) {
+                putIfCurrent(key, value, generations.getOrDefault(key, -1L));
+                found.put(key, value);
+            }
+        });
+        return found;
+    }
+
+    // Không lưu giá trị null
+    @Override
+    public void put(Object key, Object value) {
+        PendingLoad pending = pendingLoad.get();
+        try {
+            if (pending != null && pending.key().equals(key)) {
+                putIfCurrent(key, value, pending.generation());
+            } else {
+                putIfCurrent(key, value, -1);
+            }
+        } finally {
+            if (pending != null && pending.key().equals(key)) {
+                pendingLoad.remove();
+            }
+        }
+    }
+
+    // generation < 0: không kiểm tra thế hệ (ghi trực tiếp)
+    private void putIfCurrent(Object key, Object value, long generation) {
+        if (value == null) {
+            return;
+        }
+        long writtenGeneration;
+        synchronized (this) {
+            writtenGeneration = generationOf(key);
+            if (generation >= 0 && generation != writtenGeneration) {
+                staleWrites.increment();
+                return;
+            }
+            local.put(key, value);
+        }
+        withRedis(() -> {
+            String redisKey = redisKey(key);
+            redisTemplate.opsForValue().set(redisKey, objectMapper.writeValueAsString(value), redisTtl);
+            // Ghi nhận key vào tập key của khoảng thời gian hiện tại để clear() không phải quét toàn bộ Redis
+            long now = System.currentTimeMillis();
+            long bucket = keyBucket(now);
+            redisTemplate.opsForSet().add(keySetKey(bucket), redisKey);
+            redisTemplate.expire(keySetKey(bucket), Duration.ofMillis((bucket + 2) * redisTtl.toMillis() - now));
+            // Bị invalidate trong lúc đang ghi: xóa lại bản vừa ghi lên Redis
+            if (currentGeneration(key) != writtenGeneration) {
+                staleWrites.increment();
+                redisTemplate.delete(redisKey);
+            }
+            return null;
+        }, null);
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictLocal(key);
+        // Luôn thử xóa trên Redis kể cả khi đang tạm bỏ qua Redis, tránh đọc lại dữ liệu cũ khi Redis hoạt động lại
+        try {
+            redisTemplate.delete(redisKey(key));
+        } catch (RuntimeException e) {
+            onRedisError("evict", e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        try {
+            // Key còn sống chỉ nằm trong tập của khoảng hiện tại và khoảng trước; thêm khoảng sau phòng lệch đồng hồ giữa các node
+            long current = keyBucket(System.currentTimeMillis());
+            for (long bucket = current - 1; bucket <= current + 1; bucket++) {
+                Set<String> keys = redisTemplate.opsForSet().members(keySetKey(bucket));
+                if (keys != null && !keys.isEmpty()) {
+                    redisTemplate.delete(keys);
+                }
+                redisTemplate.delete(keySetKey(bucket));
+            }
+        } catch (RuntimeException e) {
+            onRedisError("clear", e);
+        }
+    }
+
+    // Chỉ xóa ở tầng local (dùng khi node khác đã xóa trên Redis)
+    public synchronized void evictLocal(Object key) {
+        keyGenerations.put(key, ++generationCounter);
+        local.evict(key);
+        if (keyGenerations.size() > MAX_TRACKED_KEY_GENERATIONS) {
+            clearGeneration = ++generationCounter;
+            keyGenerations.clear();
+        }
+    }
+
+    public synchronized void clearLocal() {
+        clearGeneration = ++generationCounter;
+        keyGenerations.clear();
+        local.clear();
+    }
+
+    public CacheStatsResponse getStats() {
+        long localHits = local.hits.sum();
+        long hits = localHits + redisHits.sum();
+        long lookups = localHits + local.misses.sum();
+        return CacheStatsResponse.builder()
+                .name(name)
+                .localSize(local.size())
+                .localMaxSize(local.maxSize())
+                .localHits(localHits)
+                .localMisses(local.misses.sum())
+                .redisHits(redisHits.sum())
+                .redisMisses(redisMisses.sum())
+                .redisErrors(redisErrors.sum())
+                .evictions(local.evictions.sum())
+                .expirations(local.expirations.sum())
+                .staleWrites(staleWrites.sum())
+                .hitRatio(lookups == 0 ? 0.0 : (double) hits / lookups)
+                .build();
+    }
+
+    private Object lookup(Object key) {
+        // Lần nạp trước trên thread này bị lỗi (@Cacheable ném exception nên không gọi put()): bỏ thế hệ còn sót
+        pendingLoad.remove();
+        Object value = local.get(key);
+        if (value != null) {
+            return value;
+        }
+        long generation = currentGeneration(key);
+        value = withRedis(() -> {
+            String json = redisTemplate.opsForValue().get(redisKey(key));
+            return json != null ? objectMapper.readValue(json, valueType) : null;
+        }, null);
+        if (value != null) {
+            redisHits.increment();
+            synchronized (this) {
+                if (generation == generationOf(key)) {
+                    local.put(key, value);
+                }
+            }
+        } else {
+            redisMisses.increment();
+            pendingLoad.set(new PendingLoad(key, generation));
+        }
+        return value;
+    }
+
+    private synchronized long currentGeneration(Object key) {
+        return generationOf(key);
+    }
+
+    private long generationOf(Object key) {
+        return Math.max(clearGeneration, keyGenerations.getOrDefault(key, 0L));
+    }
+
+    private long takePendingGeneration(Object key) {
+        PendingLoad pending = pendingLoad.get();
+        pendingLoad.remove();
+        return pending != null && pending.key().equals(key) ? pending.generation() : currentGeneration(key);
+    }
+
+    private <T> T withRedis(RedisCall<T> call, T fallback) {
+        if (System.currentTimeMillis() < redisRetryAt) {
+            return fallback;
+        }
+        try {
+            return call.run();
+        } catch (Exception e) {
+            onRedisError("access", e);
+            return fallback;
+        }
+    }
+
+    private void onRedisError(String operation, Exception e) {
+        redisErrors.increment();
+        long now = System.currentTimeMillis();
+        if (now >= redisRetryAt) {
+            log.warn("Redis {} failed for cache '{}', using local cache only for {} ms: {}",
+                    operation, name, REDIS_RETRY_DELAY_MILLIS, e.getMessage());
+        }
+        redisRetryAt = now + REDIS_RETRY_DELAY_MILLIS;
+    }
+
+    private String redisKey(Object key) {
+        return KEY_PREFIX + name + "::" + key;
+    }
+
+    private long keyBucket(long epochMillis) {
+        return epochMillis / redisTtl.toMillis();
+    }
+
+    private String keySetKey(long bucket) {
+        return KEY_PREFIX + name + ":keys:" + bucket;
+    }
+
+    @FunctionalInterface
+    private interface RedisCall<T> {
+        T run() throws Exception;
+    }
+}
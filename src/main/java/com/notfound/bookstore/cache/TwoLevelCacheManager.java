@@ -0,0 +1,35 @@
+package com.notfound.bookstore.cache;
+
+import com.notfound.bookstore.model.dto.response.cacheresponse.CacheStatsResponse;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// CacheManager với danh sách cache cố định, khai báo trong CacheConfig
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final Map<String, TwoLevelCache> caches = new LinkedHashMap<>();
+
+    public TwoLevelCacheManager(List<TwoLevelCache> caches) {
+        caches.forEach(cache -> this.caches.put(cache.getName(), cache));
+    }
+
+    @Override
+    public TwoLevelCache getCache(String name) {
+        return caches.get(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    public List<CacheStatsResponse> getStats() {
+        return caches.values().stream()
+                .map(TwoLevelCache::getStats)
+                .toList();
+    }
+}
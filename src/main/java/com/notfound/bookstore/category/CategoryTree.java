@@ -0,0 +1,238 @@
+package com.notfound.bookstore.category;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.CategoryNodeView;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cây thể loại trong bộ nhớ dưới dạng ảnh chụp bất biến: mỗi nút có sẵn danh sách tổ tiên (từ gốc xuống cha)
+ * và tập ID của chính nó cùng mọi thể loại con cháu, nên tra cứu không phải đi qua từng cấp.
+ * Số sách của mỗi nút tính cả các thể loại con (sách thuộc nhiều thể loại trong cùng nhánh chỉ tính một lần).
+ * Thay đổi thể loại dựng lại cây ngay sau khi commit; thay đổi sách chỉ làm lệch số sách nên được gom lại định kỳ.
+ * Chưa dựng được cây lúc khởi động thì chỉ nạp cấu trúc thể loại (bảng nhỏ) để trả lời ngay với số sách bằng 0;
+ * cây đầy đủ được dựng ở luồng nền.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTree {
+
+    private final CategoryRepository categoryRepository;
+    private final BookRepository bookRepository;
+
+    private final AtomicBoolean countsDirty = new AtomicBoolean();
+    private static final Snapshot EMPTY = new Snapshot(Map.of(), List.of());
+
+    private volatile Snapshot snapshot = EMPTY;
+    private volatile boolean ready;
+
+    /**
+     * Một thể loại trong cây. ancestors theo thứ tự từ gốc xuống cha trực tiếp;
+     * subtree gồm chính thể loại và mọi thể loại con cháu.
+     */
+    public record Node(UUID id, String name, UUID parentId, List<UUID> children, List<UUID> ancestors,
+                       Set<UUID> subtree, long directBookCount, long bookCount) {
+    }
+
+    private record Snapshot(Map<UUID, Node> nodes, List<UUID> roots) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<Node> find(UUID categoryId) {
+        return Optional.ofNullable(current().nodes().get(categoryId));
+    }
+
+    // Các thể loại gốc, sắp theo tên
+    public List<Node> roots() {
+        Snapshot current = current();
+        return toNodes(current, current.roots());
+    }
+
+    // Các thể loại con trực tiếp, sắp theo tên
+    public List<Node> children(Node node) {
+        return toNodes(current(), node.children());
+    }
+
+    // Đường dẫn từ gốc đến thể loại (gồm cả chính nó), rỗng nếu không tồn tại
+    public List<Node> path(UUID categoryId) {
+        Snapshot current = current();
+        Node node = current.nodes().get(categoryId);
+        if (node == null) {
+            return List.of();
+        }
+        List<Node> path = new ArrayList<>(toNodes(current, node.ancestors()));
+        path.add(node);
+        return path;
+    }
+
+    // Thể loại và mọi thể loại con cháu, rỗng nếu không tồn tại
+    public Set<UUID> descendantsAndSelf(UUID categoryId) {
+        Node node = current().nodes().get(categoryId);
+        return node != null ? node.subtree() : Set.of();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            countsDirty.set(true);
+            log.error("Failed to build category tree: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.entityType()) {
+            case CATEGORY -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    countsDirty.set(true);
+                    log.warn("Failed to rebuild category tree: {}", e.getMessage());
+                }
+            }
+            case BOOK -> countsDirty.set(true);
+            default -> {
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.category-tree.refresh-delay-ms:5000}")
+    public void refreshIfNeeded() {
+        if (!countsDirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            countsDirty.set(true);
+            log.warn("Failed to rebuild category tree: {}", e.getMessage());
+        }
+    }
+
+    public void rebuild() {
+        build(true);
+    }
+
+    // Chưa có cây đầy đủ: request đầu tiên nạp cấu trúc một lần, các request sau dùng lại cho tới khi luồng nền dựng xong
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (ready || current != EMPTY) {
+            return current;
+        }
+        countsDirty.set(true);
+        synchronized (this) {
+            if (snapshot == EMPTY) {
+                build(false);
+            }
+            return snapshot;
+        }
+    }
+
+    private synchronized void build(boolean withCounts) {
+        long start = System.currentTimeMillis();
+        Map<UUID, CategoryNodeView> views = new HashMap<>();
+        categoryRepository.findAllNodes().forEach(view -> views.put(view.getId(), view));
+
+        // Tổ tiên của từng thể loại; dữ liệu lỗi tạo vòng (A là cha của B và ngược lại) thì coi thể loại là gốc
+        Map<UUID, List<UUID>> ancestors = new HashMap<>();
+        for (UUID id : views.keySet()) {
+            List<UUID> chain = new ArrayList<>();
+            UUID parentId = views.get(id).getParentId();
+            while (parentId != null && views.containsKey(parentId) && !parentId.equals(id) && !chain.contains(parentId)) {
+                chain.add(parentId);
+                parentId = views.get(parentId).getParentId();
+            }
+            if (parentId != null && views.containsKey(parentId)) {
+                log.warn("Category {} is part of a parent cycle, treating it as a root", id);
+                chain.clear();
+            }
+            Collections.reverse(chain);
+            ancestors.put(id, List.copyOf(chain));
+        }
+
+        Map<UUID, Set<UUID>> subtrees = new HashMap<>();
+        Map<UUID, List<UUID>> children = new HashMap<>();
+        List<UUID> roots = new ArrayList<>();
+        for (UUID id : views.keySet()) {
+            subtrees.computeIfAbsent(id, key -> new HashSet<>()).add(id);
+            List<UUID> chain = ancestors.get(id);
+            chain.forEach(ancestorId -> subtrees.computeIfAbsent(ancestorId, key -> new HashSet<>()).add(id));
+            if (chain.isEmpty()) {
+                roots.add(id);
+            } else {
+                children.computeIfAbsent(chain.get(chain.size() - 1), key -> new ArrayList<>()).add(id);
+            }
+        }
+
+        // Liên kết đã gom theo sách: mỗi sách cộng một cho mọi thể loại của nó và tổ tiên của chúng (mỗi nút một lần)
+        Map<UUID, Long> directCounts = new HashMap<>();
+        Map<UUID, Long> subtreeCounts = new HashMap<>();
+        Set<UUID> counted = new HashSet<>();
+        UUID currentBook = null;
+        List<BookCategoryView> links = withCounts ? bookRepository.findAllCategoryLinksOrderByBook() : List.of();
+        for (BookCategoryView link : links) {
+            if (!link.getBookId().equals(currentBook)) {
+                currentBook = link.getBookId();
+                counted.clear();
+            }
+            UUID categoryId = link.getCategoryId();
+            directCounts.merge(categoryId, 1L, Long::sum);
+            if (counted.add(categoryId)) {
+                subtreeCounts.merge(categoryId, 1L, Long::sum);
+            }
+            for (UUID ancestorId : ancestors.getOrDefault(categoryId, List.of())) {
+                if (counted.add(ancestorId)) {
+                    subtreeCounts.merge(ancestorId, 1L, Long::sum);
+                }
+            }
+        }
+
+        Comparator<UUID> byName = Comparator.comparing((UUID id) -> views.get(id).getName(), Comparator.nullsLast(String::compareTo))
+                .thenComparing(Comparator.naturalOrder());
+        roots.sort(byName);
+        Map<UUID, Node> nodes = new HashMap<>();
+        for (CategoryNodeView view : views.values()) {
+            UUID id = view.getId();
+            List<UUID> childIds = new ArrayList<>(children.getOrDefault(id, List.of()));
+            childIds.sort(byName);
+            List<UUID> chain = ancestors.get(id);
+            nodes.put(id, new Node(id, view.getName(), chain.isEmpty() ? null : chain.get(chain.size() - 1),
+                    List.copyOf(childIds), chain, Set.copyOf(subtrees.get(id)),
+                    directCounts.getOrDefault(id, 0L), subtreeCounts.getOrDefault(id, 0L)));
+        }
+
+        snapshot = new Snapshot(Map.copyOf(nodes), List.copyOf(roots));
+        ready = withCounts;
+        log.info("Category tree built{}: {} categories, {} roots in {} ms", withCounts ? "" : " without book counts",
+                nodes.size(), roots.size(), System.currentTimeMillis() - start);
+    }
+
+    // Bỏ qua ID không còn trong ảnh chụp (cây vừa được dựng lại giữa hai lần đọc)
+    private static List<Node> toNodes(Snapshot snapshot, List<UUID> ids) {
+        List<Node> result = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            Node node = snapshot.nodes().get(id);
+            if (node != null) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+}
@@ -1,4 +1,65 @@
 package com.notfound.bookstore.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.notfound.bookstore.cache.TwoLevelCache;
+import com.notfound.bookstore.cache.TwoLevelCacheManager;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.categoryresponse.CategoryResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cấu hình cache hai tầng (heap + Redis) cho dữ liệu danh mục sách
+ */
+@Configuration
+@EnableCaching
 public class CacheConfig {
-}
\ No newline at end of file
+
+    public static final String BOOK_DETAIL = "bookDetail";
+    public static final String BOOK_PAGES = "bookPages";
+    public static final String BEST_SELLING_BOOKS = "bestSellingBooks";
+    public static final String CATEGORIES = "categories";
+    public static final String BOOK_COUNTS = "bookCounts";
+
+    @Value("${app.cache.local.max-size:1000}")
+    private int localMaxSize;
+
+    @Value("${app.cache.local.ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    @Value("${app.cache.redis.ttl-seconds:1800}")
+    private long redisTtlSeconds;
+
+    // Tổng gần đúng không bị xóa khi danh mục thay đổi, chỉ hết hạn theo thời gian
+    @Value("${app.cache.book-counts.ttl-seconds:600}")
+    private long bookCountsTtlSeconds;
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        TypeFactory types = objectMapper.getTypeFactory();
+        Duration localTtl = Duration.ofSeconds(localTtlSeconds);
+        Duration redisTtl = Duration.ofSeconds(redisTtlSeconds);
+
+        return new TwoLevelCacheManager(List.of(
+                new TwoLevelCache(BOOK_DETAIL, types.constructType(BookResponse.class),
+                        localMaxSize, localTtl, redisTtl, redisTemplate, objectMapper),
+                new TwoLevelCache(BOOK_PAGES, types.constructParametricType(PageResponse.class, BookSummaryResponse.class),
+                        localMaxSize, localTtl, redisTtl, redisTemplate, objectMapper),
+                new TwoLevelCache(BEST_SELLING_BOOKS, types.constructCollectionType(List.class, BookSummaryResponse.class),
+                        localMaxSize, localTtl, redisTtl, redisTemplate, objectMapper),
+                new TwoLevelCache(CATEGORIES, types.constructCollectionType(List.class, CategoryResponse.class),
+                        localMaxSize, localTtl, redisTtl, redisTemplate, objectMapper),
+                new TwoLevelCache(BOOK_COUNTS, types.constructType(Long.class), localMaxSize,
+                        Duration.ofSeconds(bookCountsTtlSeconds), Duration.ofSeconds(bookCountsTtlSeconds), redisTemplate, objectMapper)
+        ));
+    }
+}
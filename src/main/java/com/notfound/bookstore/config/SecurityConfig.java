@@ -35,12 +35,15 @@ public class SecurityConfig {
                         "/api/review/book/{bookId}",
                         "/api/auth/introspect",
                         "/api/books/**",
+                        "/api/home/**",
+                        "/api/categories/**",
                         "/api/payment/vnpay/callback",
                         "/api/payment/zalopay/callback",
                         "/api/payment/zalopay/return",
                         "/api/promotions/active",
                         "/api/promotions/book/**",
                         "/api/promotions/validate",
+                        "/api/promotions/best",
         };
 
         @Value("${jwt.signerKey}")
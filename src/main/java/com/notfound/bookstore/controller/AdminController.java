@@ -1,4 +1,137 @@
 package com.notfound.bookstore.controller;
 
+import com.notfound.bookstore.cache.TwoLevelCacheManager;
+import com.notfound.bookstore.export.ExportFormat;
+import com.notfound.bookstore.model.dto.response.ApiResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookImportResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.cacheresponse.CacheStatsResponse;
+import com.notfound.bookstore.ranking.BestSellerRanking;
+import com.notfound.bookstore.service.BookRatingService;
+import com.notfound.bookstore.service.CatalogExportService;
+import com.notfound.bookstore.service.CatalogImportService;
+import com.notfound.bookstore.service.PromotionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AdminController {
+
+    BookRatingService bookRatingService;
+    TwoLevelCacheManager cacheManager;
+    BestSellerRanking bestSellerRanking;
+    CatalogExportService catalogExportService;
+    CatalogImportService catalogImportService;
+    PromotionService promotionService;
+
+    /**
+     * Tính lại tổng hợp đánh giá của sách từ bảng reviews (chạy một lần sau khi nâng cấp)
+     * POST /api/admin/books/ratings/backfill
+     */
+    @PostMapping("/books/ratings/backfill")
+    public ApiResponse<Integer> backfillRatings() {
+        return ApiResponse.<Integer>builder()
+                .code(1000)
+                .message("Cập nhật tổng hợp đánh giá thành công")
+                .result(bookRatingService.backfillRatingAggregates())
+                .build();
+    }
+
+    /**
+     * Kiểm tra các sách có tổng hợp đánh giá bị lệch
+     * GET /api/admin/books/ratings/check
+     */
+    @GetMapping("/books/ratings/check")
+    public ApiResponse<List<UUID>> checkRatings() {
+        return ApiResponse.<List<UUID>>builder()
+                .code(1000)
+                .message("Kiểm tra tổng hợp đánh giá thành công")
+                .result(bookRatingService.findInconsistentBooks())
+                .build();
+    }
+
+    /**
+     * Thống kê hit/miss/eviction của các cache
+     * GET /api/admin/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    public ApiResponse<List<CacheStatsResponse>> getCacheStats() {
+        return ApiResponse.<List<CacheStatsResponse>>builder()
+                .code(1000)
+                .message("Lấy thống kê cache thành công")
+                .result(cacheManager.getStats())
+                .build();
+    }
+
+    /**
+     * Dựng lại bảng xếp hạng sách bán chạy từ các đơn hàng đã hoàn tất
+     * POST /api/admin/books/best-sellers/rebuild
+     */
+    @PostMapping("/books/best-sellers/rebuild")
+    public ApiResponse<Integer> rebuildBestSellers() {
+        return ApiResponse.<Integer>builder()
+                .code(1000)
+                .message("Dựng lại bảng xếp hạng sách bán chạy thành công")
+                .result(bestSellerRanking.rebuild())
+                .build();
+    }
+
+    /**
+     * Lấy sách áp dụng của khuyến mãi (có phân trang)
+     * GET /api/admin/promotions/{id}/books?page=0&size=20
+     */
+    @GetMapping("/promotions/{id}/books")
+    public ApiResponse<PageResponse<BookSummaryResponse>> getPromotionBooks(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ApiResponse.<PageResponse<BookSummaryResponse>>builder()
+                .code(1000)
+                .message("Lấy sách áp dụng khuyến mãi thành công")
+                .result(promotionService.getApplicableBooks(id, page, size))
+                .build();
+    }
+
+    /**
+     * Xuất toàn bộ danh mục sách cho đối tác (ndjson hoặc csv), ghi trực tiếp ra response trong lúc đọc
+     * GET /api/admin/books/export?format=ndjson
+     */
+    @GetMapping("/books/export")
+    public void exportBooks(@RequestParam(defaultValue = "ndjson") String format,
+                            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromCode(format);
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"books." + exportFormat.getCode() + "\"");
+        catalogExportService.exportCatalog(exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * Nhập danh mục sách hàng loạt (cùng định dạng với tệp xuất), đọc trực tiếp từ body của request.
+     * Gửi tệp làm body với Content-Type text/csv hoặc application/x-ndjson (không dùng form/multipart)
+     * POST /api/admin/books/import?format=csv
+     */
+    @PostMapping("/books/import")
+    public ApiResponse<BookImportResponse> importBooks(@RequestParam(defaultValue = "ndjson") String format,
+                                                       HttpServletRequest request) throws IOException {
+        ExportFormat importFormat = ExportFormat.fromCode(format);
+        return ApiResponse.<BookImportResponse>builder()
+                .code(1000)
+                .message("Nhập danh mục sách thành công")
+                .result(catalogImportService.importCatalog(importFormat, request.getInputStream()))
+                .build();
+    }
 }
@@ -1,13 +1,22 @@
 package com.notfound.bookstore.controller;
 
+import com.notfound.bookstore.cache.CatalogVersions;
 import com.notfound.bookstore.model.dto.request.bookrequest.BookFilterRequest;
+import com.notfound.bookstore.model.dto.request.bookrequest.BookScrollRequest;
 import com.notfound.bookstore.model.dto.request.bookrequest.BookSearchRequest;
 import com.notfound.bookstore.model.dto.request.bookrequest.BookSortRequest;
 import com.notfound.bookstore.model.dto.response.ApiResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookBatchResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookDetailResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookFacetsResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.BookResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSuggestionResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.CursorPageResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
 import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.ranking.BestSellerRanking;
+import com.notfound.bookstore.service.BookDetailService;
 import com.notfound.bookstore.service.BookService;
 import com.notfound.bookstore.service.impl.BookServiceImpl;
 import jakarta.validation.Valid;
@@ -19,8 +28,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/books")
@@ -28,11 +39,18 @@ import java.time.LocalDate;
 public class BookController {
 
     private final BookService bookService;
+    private final BookDetailService bookDetailService;
+    private final CatalogVersions catalogVersions;
+    private final BestSellerRanking bestSellerRanking;
 
     // Tìm kiếm sách theo từ khóa (tên sách, tác giả, hoặc thể loại)
     @GetMapping("/search")
-    public ApiResponse<PageResponse<BookSummaryResponse>> searchBooks(@ModelAttribute BookSearchRequest request)
-    {
+    public ApiResponse<PageResponse<BookSummaryResponse>> searchBooks(
+            @ModelAttribute BookSearchRequest request,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().isNotModified(webRequest)) {
+            return null;
+        }
         return ApiResponse.<PageResponse<BookSummaryResponse>>builder()
                 .code(1000)
                 .message("Tìm kiếm sách thành công")
@@ -43,7 +61,11 @@ public class BookController {
     // Lọc sách theo các tiêu chí: giá, đánh giá trung bình và ngày phát hành
     @GetMapping("/filter")
     public ApiResponse<PageResponse<BookSummaryResponse>> filterBooks(
-            @Valid @ModelAttribute BookFilterRequest request) {
+            @Valid @ModelAttribute BookFilterRequest request,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().isNotModified(webRequest)) {
+            return null;
+        }
         return ApiResponse.<PageResponse<BookSummaryResponse>>builder()
                 .code(1000)
                 .message("Lọc sách thành công")
@@ -51,9 +73,29 @@ public class BookController {
                 .build();
     }
 
+    // Đếm số sách theo thể loại, tác giả, khoảng giá, mức đánh giá cho bộ lọc hiện tại
+    @GetMapping("/facets")
+    public ApiResponse<BookFacetsResponse> getFilterFacets(
+            @Valid @ModelAttribute BookFilterRequest request,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().isNotModified(webRequest)) {
+            return null;
+        }
+        return ApiResponse.<BookFacetsResponse>builder()
+                .code(1000)
+                .message("Lấy số lượng theo bộ lọc thành công")
+                .result(bookService.getFilterFacets(request))
+                .build();
+    }
+
     // Lấy danh sách sách được sắp xếp theo loại sắp xếp được chỉ định
     @GetMapping("/sorted")
-    public ApiResponse<PageResponse<BookSummaryResponse>> getSortedBooks(@ModelAttribute BookSortRequest request) {
+    public ApiResponse<PageResponse<BookSummaryResponse>> getSortedBooks(
+            @ModelAttribute BookSortRequest request,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().isNotModified(webRequest)) {
+            return null;
+        }
         return ApiResponse.<PageResponse<BookSummaryResponse>>builder()
                 .code(1000)
                 .message("Sắp xếp sách thành công")
@@ -61,9 +103,29 @@ public class BookController {
                 .build();
     }
 
+    // Cuộn danh sách sách theo con trỏ (infinite scroll): truyền nextCursor của trang trước để lấy trang tiếp theo
+    @GetMapping("/scroll")
+    public ApiResponse<CursorPageResponse<BookSummaryResponse>> scrollBooks(
+            @Valid @ModelAttribute BookScrollRequest request,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().isNotModified(webRequest)) {
+            return null;
+        }
+        return ApiResponse.<CursorPageResponse<BookSummaryResponse>>builder()
+                .code(1000)
+                .message("Lấy danh sách sách thành công")
+                .result(bookService.scrollBooks(request))
+                .build();
+    }
+
     // Lấy tất cả sách với phân trang
     @GetMapping
-    public ApiResponse<PageResponse<BookSummaryResponse>> getAllBooks(@ModelAttribute BookSearchRequest request) {
+    public ApiResponse<PageResponse<BookSummaryResponse>> getAllBooks(
+            @ModelAttribute BookSearchRequest request,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().isNotModified(webRequest)) {
+            return null;
+        }
         return ApiResponse.<PageResponse<BookSummaryResponse>>builder()
                 .code(1000)
                 .message("Lấy danh sách sách thành công")
@@ -71,9 +133,96 @@ public class BookController {
                 .build();
     }
 
+    // Lấy danh sách sách mới nhất
+    @GetMapping("/newest")
+    public ApiResponse<PageResponse<BookSummaryResponse>> getNewestBooks(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String count,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().isNotModified(webRequest)) {
+            return null;
+        }
+        return ApiResponse.<PageResponse<BookSummaryResponse>>builder()
+                .code(1000)
+                .message("Lấy danh sách sách mới nhất thành công")
+                .result(bookService.getNewestBooks(page, size, count))
+                .build();
+    }
+
+    // Lấy danh sách sách bán chạy nhất
+    @GetMapping("/best-selling")
+    public ApiResponse<List<BookSummaryResponse>> getBestSellingBooks(
+            @RequestParam(defaultValue = "all") String window,
+            @RequestParam(defaultValue = "10") int size,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.catalog().with("r" + bestSellerRanking.version()).isNotModified(webRequest)) {
+            return null;
+        }
+        return ApiResponse.<List<BookSummaryResponse>>builder()
+                .code(1000)
+                .message("Lấy danh sách sách bán chạy thành công")
+                .result(bookService.getBestSellingBooks(window, size))
+                .build();
+    }
+
+    // Gợi ý khi gõ ô tìm kiếm
+    @GetMapping("/suggest")
+    public ApiResponse<List<BookSuggestionResponse>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.<List<BookSuggestionResponse>>builder()
+                .code(1000)
+                .message("Lấy gợi ý tìm kiếm thành công")
+                .result(bookService.suggest(q, size))
+                .build();
+    }
+
+    // Lấy thông tin nhiều cuốn sách trong một lần gọi (ids cách nhau bởi dấu phẩy, tối đa 100)
+    @GetMapping("/batch")
+    public ApiResponse<BookBatchResponse> getBooksByIds(
+            @RequestParam List<String> ids,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.books(ids).isNotModified(webRequest)) {
+            return null;
+        }
+        return ApiResponse.<BookBatchResponse>builder()
+                .code(1000)
+                .message("Lấy danh sách sách thành công")
+                .result(bookService.getBooksByIds(ids))
+                .build();
+    }
+
+    // Lấy danh sách sách liên quan của một cuốn sách
+    @GetMapping("/{id}/related")
+    public ApiResponse<List<BookSummaryResponse>> getRelatedBooks(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "8") int size) {
+        return ApiResponse.<List<BookSummaryResponse>>builder()
+                .code(1000)
+                .message("Lấy danh sách sách liên quan thành công")
+                .result(bookService.getRelatedBooks(id, size))
+                .build();
+    }
+
+    // Lấy toàn bộ dữ liệu trang chi tiết sách trong một lần gọi (phần nào lỗi được liệt kê trong unavailableSections)
+    @GetMapping("/{id}/detail")
+    public ApiResponse<BookDetailResponse> getBookDetail(@PathVariable String id) {
+        return ApiResponse.<BookDetailResponse>builder()
+                .code(1000)
+                .message("Lấy chi tiết sách thành công")
+                .result(bookDetailService.getBookDetail(id))
+                .build();
+    }
+
     // Lấy thông tin chi tiết của một cuốn sách dựa trên ID
     @GetMapping("/{id}")
-    public ApiResponse<BookResponse> getBookById(@PathVariable String id) {
+    public ApiResponse<BookResponse> getBookById(
+            @PathVariable String id,
+            ServletWebRequest webRequest) {
+        if (catalogVersions.book(id).isNotModified(webRequest)) {
+            return null;
+        }
         return ApiResponse.<BookResponse>builder()
                 .code(1000)
                 .message("Lấy thông tin sách thành công")
@@ -0,0 +1,71 @@
+package com.notfound.bookstore.controller;
+
+import com.notfound.bookstore.model.dto.response.ApiResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.categoryresponse.CategoryResponse;
+import com.notfound.bookstore.model.dto.response.categoryresponse.CategoryTreeResponse;
+import com.notfound.bookstore.service.CategoryService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/categories")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CategoryController {
+
+    CategoryService categoryService;
+
+    // Lấy danh sách tất cả thể loại
+    @GetMapping
+    public ApiResponse<List<CategoryResponse>> getAllCategories() {
+        return ApiResponse.<List<CategoryResponse>>builder()
+                .code(1000)
+                .message("Lấy danh sách thể loại thành công")
+                .result(categoryService.getAllCategories())
+                .build();
+    }
+
+    // Lấy cây thể loại kèm số sách (menu điều hướng)
+    @GetMapping("/tree")
+    public ApiResponse<List<CategoryTreeResponse>> getCategoryTree() {
+        return ApiResponse.<List<CategoryTreeResponse>>builder()
+                .code(1000)
+                .message("Lấy cây thể loại thành công")
+                .result(categoryService.getCategoryTree())
+                .build();
+    }
+
+    // Lấy đường dẫn từ thể loại gốc đến thể loại (breadcrumb)
+    @GetMapping("/{id}/path")
+    public ApiResponse<List<CategoryTreeResponse>> getCategoryPath(@PathVariable String id) {
+        return ApiResponse.<List<CategoryTreeResponse>>builder()
+                .code(1000)
+                .message("Lấy đường dẫn thể loại thành công")
+                .result(categoryService.getCategoryPath(id))
+                .build();
+    }
+
+    // Lấy sách thuộc thể loại, mặc định gồm cả các thể loại con
+    @GetMapping("/{id}/books")
+    public ApiResponse<PageResponse<BookSummaryResponse>> getBooksInCategory(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "true") boolean includeSubcategories,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ApiResponse.<PageResponse<BookSummaryResponse>>builder()
+                .code(1000)
+                .message("Lấy sách theo thể loại thành công")
+                .result(categoryService.getBooksInCategory(id, includeSubcategories, page, size))
+                .build();
+    }
+}
@@ -1,12 +1,20 @@
 package com.notfound.bookstore.controller;
 
+import com.notfound.bookstore.service.HomeFeedService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @Controller
+@RequiredArgsConstructor
 public class HomeController {
+
+    private final HomeFeedService homeFeedService;
+
     @GetMapping("/")
-    public String home() {
+    public String home(Model model) {
+        model.addAttribute("feed", homeFeedService.getFeed());
         return "home/index";
     }
-}
\ No newline at end of file
+}
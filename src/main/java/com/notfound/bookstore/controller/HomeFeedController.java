@@ -0,0 +1,27 @@
+package com.notfound.bookstore.controller;
+
+import com.notfound.bookstore.model.dto.response.ApiResponse;
+import com.notfound.bookstore.model.dto.response.homeresponse.HomeFeedResponse;
+import com.notfound.bookstore.service.HomeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/home")
+@RequiredArgsConstructor
+public class HomeFeedController {
+
+    private final HomeFeedService homeFeedService;
+
+    // Lấy dữ liệu trang chủ đã tính sẵn (sách mới, giảm giá, bán chạy, khuyến mãi đang diễn ra)
+    @GetMapping("/feed")
+    public ApiResponse<HomeFeedResponse> getFeed() {
+        return ApiResponse.<HomeFeedResponse>builder()
+                .code(1000)
+                .message("Lấy dữ liệu trang chủ thành công")
+                .result(homeFeedService.getFeed())
+                .build();
+    }
+}
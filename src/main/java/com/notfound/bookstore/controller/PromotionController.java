@@ -1,11 +1,15 @@
 package com.notfound.bookstore.controller;
 
+import com.notfound.bookstore.model.dto.request.promotionrequest.CartPromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.CreatePromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.UpdatePromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.ValidatePromotionCodeRequest;
 import com.notfound.bookstore.model.dto.response.ApiResponse;
+import com.notfound.bookstore.model.dto.response.promotionresponse.CartPromotionResponse;
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionReservationResponse;
 import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionResponse;
 import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionValidationResponse;
+import com.notfound.bookstore.service.PromotionReservationService;
 import com.notfound.bookstore.service.PromotionService;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
@@ -26,6 +30,7 @@ import java.util.UUID;
 public class PromotionController {
 
     PromotionService promotionService;
+    PromotionReservationService promotionReservationService;
 
     /**
      * Tạo khuyến mãi mới (Admin only)
@@ -146,6 +151,20 @@ public class PromotionController {
                 .build();
     }
 
+    /**
+     * Tìm khuyến mãi có lợi nhất cho giỏ hàng (Public)
+     * POST /api/promotions/best
+     */
+    @PostMapping("/best")
+    public ApiResponse<CartPromotionResponse> findBestPromotion(
+            @Valid @RequestBody CartPromotionRequest request) {
+        return ApiResponse.<CartPromotionResponse>builder()
+                .code(1000)
+                .message("Tìm khuyến mãi tốt nhất thành công")
+                .result(promotionService.findBestPromotion(request))
+                .build();
+    }
+
     /**
      * Cập nhật trạng thái khuyến mãi (Admin only)
      * PATCH /api/promotions/{id}/status?status=ACTIVE
@@ -161,4 +180,32 @@ public class PromotionController {
                 .result(promotion)
                 .build();
     }
+
+    /**
+     * Giữ một lượt dùng mã khuyến mãi cho người dùng hiện tại (đăng nhập), tối đa một lượt cho mỗi khuyến mãi.
+     * Lượt giữ được xác nhận khi đơn hàng dùng khuyến mãi được thanh toán
+     * POST /api/promotions/reservations
+     */
+    @PostMapping("/reservations")
+    public ApiResponse<PromotionReservationResponse> reservePromotion(
+            @Valid @RequestBody ValidatePromotionCodeRequest request) {
+        return ApiResponse.<PromotionReservationResponse>builder()
+                .code(1000)
+                .message("Giữ mã khuyến mãi thành công")
+                .result(promotionReservationService.reserve(request))
+                .build();
+    }
+
+    /**
+     * Hủy lượt đang giữ
+     * DELETE /api/promotions/reservations/{id}
+     */
+    @DeleteMapping("/reservations/{id}")
+    public ApiResponse<PromotionReservationResponse> releaseReservation(@PathVariable UUID id) {
+        return ApiResponse.<PromotionReservationResponse>builder()
+                .code(1000)
+                .message("Hủy giữ mã khuyến mãi thành công")
+                .result(promotionReservationService.release(id))
+                .build();
+    }
 }
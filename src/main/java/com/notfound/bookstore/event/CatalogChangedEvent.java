@@ -0,0 +1,25 @@
+package com.notfound.bookstore.event;
+
+import java.util.UUID;
+
+/**
+ * Sự kiện phát ra sau khi dữ liệu danh mục sách thay đổi (sách, tác giả, thể loại, đánh giá, ảnh, khuyến mãi).
+ * Với REVIEW và BOOK_IMAGE, entityId là ID của sách chứa đánh giá/ảnh đó.
+ * entityId = null nghĩa là thay đổi hàng loạt không liệt kê từng bản ghi (ví dụ nhập danh mục bằng JDBC):
+ * bên nhận phải coi mọi bản ghi loại đó có thể đã thay đổi.
+ * remote = true nghĩa là thay đổi xảy ra trên node khác và được nhận qua CacheInvalidationBus.
+ */
+public record CatalogChangedEvent(EntityType entityType, UUID entityId, Action action, boolean remote) {
+
+    public CatalogChangedEvent(EntityType entityType, UUID entityId, Action action) {
+        this(entityType, entityId, action, false);
+    }
+
+    public enum EntityType {
+        BOOK, AUTHOR, CATEGORY, REVIEW, BOOK_IMAGE, PROMOTION
+    }
+
+    public enum Action {
+        SAVED, DELETED
+    }
+}
@@ -0,0 +1,52 @@
+package com.notfound.bookstore.event;
+
+import com.notfound.bookstore.model.entity.Author;
+import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.model.entity.BookImage;
+import com.notfound.bookstore.model.entity.Category;
+import com.notfound.bookstore.model.entity.Promotion;
+import com.notfound.bookstore.model.entity.Review;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener chuyển các thay đổi của entity danh mục thành CatalogChangedEvent.
+ * Hibernate lấy bean này từ Spring nên có thể inject ApplicationEventPublisher.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Object entity) {
+        publish(entity, CatalogChangedEvent.Action.SAVED);
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        publish(entity, CatalogChangedEvent.Action.DELETED);
+    }
+
+    private void publish(Object entity, CatalogChangedEvent.Action action) {
+        CatalogChangedEvent event = switch (entity) {
+            case Book book -> new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, book.getId(), action);
+            case Author author -> new CatalogChangedEvent(CatalogChangedEvent.EntityType.AUTHOR, author.getId(), action);
+            case Category category -> new CatalogChangedEvent(CatalogChangedEvent.EntityType.CATEGORY, category.getId(), action);
+            case Review review -> new CatalogChangedEvent(CatalogChangedEvent.EntityType.REVIEW, review.getBook().getId(), action);
+            case BookImage image when image.getBook() != null ->
+                    new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK_IMAGE, image.getBook().getId(), action);
+            case Promotion promotion -> new CatalogChangedEvent(CatalogChangedEvent.EntityType.PROMOTION, promotion.getPromotionID(), action);
+            default -> null;
+        };
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
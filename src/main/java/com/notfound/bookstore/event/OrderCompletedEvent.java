@@ -0,0 +1,10 @@
+package com.notfound.bookstore.event;
+
+import java.util.UUID;
+
+/**
+ * Sự kiện phát ra khi một đơn hàng chuyển sang trạng thái COMPLETED.
+ * Chỉ phát một lần cho mỗi đơn (khi trạng thái trước đó chưa phải COMPLETED).
+ */
+public record OrderCompletedEvent(UUID orderId) {
+}
@@ -58,6 +58,7 @@ public enum ErrorCode {
     INVALID_KEY(HttpStatus.BAD_REQUEST, 2005, "Invalid API key."),
     INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED, 1002, "Username or password fail"),
     ORDER_NOT_FOUND(HttpStatus.NOT_FOUND, 3001, "Order not found."),
+    CATEGORY_NOT_FOUND(HttpStatus.NOT_FOUND, 3006, "Category not found."),
 
     // ==== Lỗi khuyến mãi ====
     PROMOTION_NOT_FOUND(HttpStatus.NOT_FOUND, 4001, "Khuyến mãi không tồn tại."),
@@ -67,6 +68,9 @@ public enum ErrorCode {
     PROMOTION_CODE_NOT_APPLICABLE(HttpStatus.BAD_REQUEST, 4005, "Mã khuyến mãi không áp dụng cho sản phẩm này."),
     PROMOTION_CODE_ALREADY_EXISTS(HttpStatus.CONFLICT, 4006, "Mã khuyến mãi đã tồn tại."),
     PROMOTION_INACTIVE(HttpStatus.BAD_REQUEST, 4007, "Khuyến mãi đang không hoạt động."),
+    PROMOTION_RESERVATION_NOT_FOUND(HttpStatus.NOT_FOUND, 4008, "Lượt giữ mã khuyến mãi không tồn tại."),
+    PROMOTION_RESERVATION_EXPIRED(HttpStatus.GONE, 4009, "Lượt giữ mã khuyến mãi đã hết hạn hoặc đã bị hủy."),
+    PROMOTION_ALREADY_USED(HttpStatus.CONFLICT, 4011, "Bạn đã sử dụng mã khuyến mãi này."),
 
     // ==== Lỗi hệ thống không phân loại ====
     UNCATEGORIZED_EXCEPTION(HttpStatus.INTERNAL_SERVER_ERROR, 9999, "Uncategorized error");
@@ -0,0 +1,167 @@
+package com.notfound.bookstore.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.notfound.bookstore.model.projection.BookExportRow;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Ghi danh mục sách ra luồng theo từng sách, không giữ lại sách đã ghi.
+ * Nhận các dòng của cursor (đã sắp theo id), gộp các dòng liên tiếp của cùng một sách thành một bản ghi
+ * với danh sách tác giả và thể loại (phân biệt theo ID, không theo tên); bộ nhớ chỉ phụ thuộc số tác giả/thể loại
+ * của một sách.
+ */
+public final class CatalogExportWriter implements Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String[] CSV_HEADER = {"id", "title", "isbn", "price", "discountPrice", "stockQuantity",
+            "publishDate", "status", "averageRating", "ratingCount", "authors", "categories"};
+    // Ngăn cách nhiều tác giả/thể loại trong một ô CSV (dùng chung khi nhập)
+    public static final String CSV_LIST_SEPARATOR = "|";
+
+    private final ExportFormat format;
+    private final JsonGenerator json;
+    private final Writer csv;
+
+    private BookExportRow current;
+    // Phép join tác giả x thể loại lặp lại cùng một tác giả/thể loại trên nhiều dòng: giữ theo ID, đúng thứ tự gặp
+    private final Map<UUID, String> authors = new LinkedHashMap<>();
+    private final Map<UUID, String> categories = new LinkedHashMap<>();
+    private long written;
+
+    public CatalogExportWriter(ExportFormat format, OutputStream out) throws IOException {
+        this.format = format;
+        if (format == ExportFormat.NDJSON) {
+            this.json = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.json.setRootValueSeparator(null);
+            this.csv = null;
+        } else {
+            this.json = null;
+            this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writeCsvRow(CSV_HEADER);
+        }
+    }
+
+    // Số sách đã ghi
+    public long getWritten() {
+        return written;
+    }
+
+    public void accept(BookExportRow row) throws IOException {
+        if (current != null && !current.id().equals(row.id())) {
+            flushCurrent();
+        }
+        if (current == null) {
+            current = row;
+        }
+        if (row.authorId() != null) {
+            authors.putIfAbsent(row.authorId(), row.authorName());
+        }
+        if (row.categoryId() != null) {
+            categories.putIfAbsent(row.categoryId(), row.categoryName());
+        }
+    }
+
+    // Ghi sách cuối cùng và đẩy dữ liệu còn trong bộ đệm ra luồng (không đóng luồng gốc)
+    @Override
+    public void close() throws IOException {
+        flushCurrent();
+        if (json != null) {
+            json.close();
+        } else {
+            csv.flush();
+        }
+    }
+
+    private void flushCurrent() throws IOException {
+        if (current == null) {
+            return;
+        }
+        if (format == ExportFormat.NDJSON) {
+            writeJson(current);
+        } else {
+            writeCsv(current);
+        }
+        written++;
+        current = null;
+        authors.clear();
+        categories.clear();
+    }
+
+    private void writeJson(BookExportRow book) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("id", toString(book.id()));
+        json.writeStringField("title", book.title());
+        json.writeStringField("isbn", book.isbn());
+        writeNumberField("price", book.price());
+        writeNumberField("discountPrice", book.discountPrice());
+        writeNumberField("stockQuantity", book.stockQuantity());
+        json.writeStringField("publishDate", book.publishDate() != null ? book.publishDate().toString() : null);
+        json.writeStringField("status", book.status());
+        writeNumberField("averageRating", book.averageRating());
+        writeNumberField("ratingCount", book.ratingCount());
+        writeArrayField("authors", authors.values());
+        writeArrayField("categories", categories.values());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void writeNumberField(String name, Number value) throws IOException {
+        json.writeFieldName(name);
+        if (value == null) {
+            json.writeNull();
+        } else if (value instanceof Integer intValue) {
+            json.writeNumber(intValue);
+        } else {
+            json.writeNumber(value.doubleValue());
+        }
+    }
+
+    private void writeArrayField(String name, Collection<String> values) throws IOException {
+        json.writeArrayFieldStart(name);
+        for (String value : values) {
+            json.writeString(value);
+        }
+        json.writeEndArray();
+    }
+
+    private void writeCsv(BookExportRow book) throws IOException {
+        writeCsvRow(new String[]{toString(book.id()), book.title(), book.isbn(), toString(book.price()),
+                toString(book.discountPrice()), toString(book.stockQuantity()), toString(book.publishDate()),
+                book.status(), toString(book.averageRating()), toString(book.ratingCount()),
+                String.join(CSV_LIST_SEPARATOR, authors.values()), String.join(CSV_LIST_SEPARATOR, categories.values())});
+    }
+
+    // Theo RFC 4180: ô chứa dấu phẩy, nháy kép hoặc xuống dòng được bọc trong nháy kép
+    private void writeCsvRow(String[] cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                csv.write(',');
+            }
+            String cell = cells[i];
+            if (cell == null) {
+                continue;
+            }
+            if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0 || cell.indexOf('\r') >= 0) {
+                csv.write('"');
+                csv.write(cell.replace("\"", "\"\""));
+                csv.write('"');
+            } else {
+                csv.write(cell);
+            }
+        }
+        csv.write("\r\n");
+    }
+
+    private static String toString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.notfound.bookstore.export;
+
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+
+// Định dạng xuất/nhập danh mục sách
+public enum ExportFormat {
+    NDJSON("ndjson", "application/x-ndjson"),
+    CSV("csv", "text/csv;charset=UTF-8");
+
+    private final String code;
+    private final String contentType;
+
+    ExportFormat(String code, String contentType) {
+        this.code = code;
+        this.contentType = contentType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static ExportFormat fromCode(String code) {
+        for (ExportFormat format : values()) {
+            if (format.code.equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+        throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+    }
+}
@@ -0,0 +1,135 @@
+package com.notfound.bookstore.importer;
+
+import com.notfound.bookstore.model.entity.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.type.descriptor.ValueBinder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Ghi danh mục nhập vào CSDL bằng JDBC batch, bỏ qua persistence context và entity listener.
+ * ID (UUID v7) được sinh sẵn trong Java nên mọi bảng đều ghi được theo lô (chỉ khóa IDENTITY như book_images.id
+ * mới buộc Hibernate ghi từng dòng, và bảng đó không cần đọc lại ID).
+ * UUID được bind qua chính kiểu JDBC mà Hibernate dùng cho Book.id (BINARY(16) trên MySQL, UUID trên H2...).
+ * Phải chạy trong transaction do người gọi mở; với MySQL cần rewriteBatchedStatements=true trên URL
+ * để driver gộp cả lô thành một câu INSERT nhiều dòng.
+ */
+@Component
+public class CatalogBulkWriter {
+
+    private static final String INSERT_AUTHOR = "INSERT INTO authors (id, name) VALUES (?, ?)";
+    private static final String INSERT_CATEGORY = "INSERT INTO categories (id, name) VALUES (?, ?)";
+    private static final String INSERT_BOOK = "INSERT INTO books (id, title, isbn, price, discount_price, stock_quantity,"
+            + " publish_date, description, status, rating_sum, rating_count, average_rating, rating_1_count,"
+            + " rating_2_count, rating_3_count, rating_4_count, rating_5_count, created_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0, ?, ?)";
+    private static final String INSERT_BOOK_AUTHOR = "INSERT INTO book_authors (book_id, author_id) VALUES (?, ?)";
+    private static final String INSERT_BOOK_CATEGORY = "INSERT INTO book_categories (book_id, category_id) VALUES (?, ?)";
+    private static final String INSERT_BOOK_IMAGE = "INSERT INTO book_images (url, priority, uploaded_at, book_id) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionFactoryImplementor sessionFactory;
+    private final ValueBinder<UUID> uuidBinder;
+
+    // Một dòng của bảng liên kết (book_authors, book_categories)
+    public record Link(UUID bookId, UUID targetId) {
+    }
+
+    // Ảnh của sách, priority theo thứ tự trong tệp (bắt đầu từ 1)
+    public record Image(UUID bookId, String url, int priority) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public CatalogBulkWriter(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.uuidBinder = (ValueBinder<UUID>) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(Book.class)
+                .getIdentifierMapping()
+                .getSingleJdbcMapping()
+                .getJdbcValueBinder();
+    }
+
+    public void insertAuthors(Map<UUID, String> namesById) {
+        insertNames(INSERT_AUTHOR, namesById);
+    }
+
+    public void insertCategories(Map<UUID, String> namesById) {
+        insertNames(INSERT_CATEGORY, namesById);
+    }
+
+    public void insertBooks(List<ImportedBook> books, LocalDateTime now) {
+        if (books.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOK, books, books.size(), (ps, book) -> {
+            bindUuid(ps, 1, book.id());
+            ps.setString(2, book.title());
+            ps.setString(3, book.isbn());
+            ps.setDouble(4, book.price());
+            if (book.discountPrice() != null) {
+                ps.setDouble(5, book.discountPrice());
+            } else {
+                ps.setNull(5, Types.DOUBLE);
+            }
+            ps.setInt(6, book.stockQuantity());
+            ps.setObject(7, book.publishDate(), Types.DATE);
+            ps.setString(8, book.description());
+            ps.setString(9, book.status().name());
+            ps.setObject(10, now);
+            ps.setObject(11, now);
+        });
+    }
+
+    public void insertBookAuthors(List<Link> links) {
+        insertLinks(INSERT_BOOK_AUTHOR, links);
+    }
+
+    public void insertBookCategories(List<Link> links) {
+        insertLinks(INSERT_BOOK_CATEGORY, links);
+    }
+
+    public void insertImages(List<Image> images, LocalDateTime now) {
+        if (images.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOK_IMAGE, images, images.size(), (ps, image) -> {
+            ps.setString(1, image.url());
+            ps.setInt(2, image.priority());
+            ps.setObject(3, now);
+            bindUuid(ps, 4, image.bookId());
+        });
+    }
+
+    private void insertNames(String sql, Map<UUID, String> namesById) {
+        if (namesById.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, String>> entries = new ArrayList<>(namesById.entrySet());
+        jdbcTemplate.batchUpdate(sql, entries, entries.size(), (ps, entry) -> {
+            bindUuid(ps, 1, entry.getKey());
+            ps.setString(2, entry.getValue());
+        });
+    }
+
+    private void insertLinks(String sql, List<Link> links) {
+        if (links.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql, links, links.size(), (ps, link) -> {
+            bindUuid(ps, 1, link.bookId());
+            bindUuid(ps, 2, link.targetId());
+        });
+    }
+
+    private void bindUuid(PreparedStatement ps, int index, UUID id) throws SQLException {
+        uuidBinder.bind(ps, id, index, sessionFactory.getWrapperOptions());
+    }
+}
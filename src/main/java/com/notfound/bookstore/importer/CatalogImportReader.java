@@ -0,0 +1,220 @@
+package com.notfound.bookstore.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.export.CatalogExportWriter;
+import com.notfound.bookstore.export.ExportFormat;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Đọc tệp nhập danh mục theo từng sách, không nạp cả tệp vào bộ nhớ.
+ * Dùng cùng định dạng với CatalogExportWriter (tên cột/trường giống nhau, nhiều giá trị trong một ô CSV ngăn cách bằng "|")
+ * để tệp xuất có thể nhập lại; cột không dùng đến (id, averageRating, ...) được bỏ qua.
+ * Ngoài các cột của tệp xuất còn nhận description và imageUrls.
+ */
+public final class CatalogImportReader implements Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern LIST_SEPARATOR = Pattern.compile(Pattern.quote(CatalogExportWriter.CSV_LIST_SEPARATOR));
+    private static final char BOM = '\uFEFF';
+
+    private final ExportFormat format;
+    private final BufferedReader reader;
+    // Vị trí cột CSV theo tên (không phân biệt hoa thường)
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long lineNumber;
+
+    /**
+     * Bản ghi không đọc được (JSON sai cú pháp, CSV thiếu nháy đóng); các bản ghi sau vẫn đọc tiếp được.
+     */
+    public static final class MalformedRecordException extends RuntimeException {
+        private final long line;
+
+        MalformedRecordException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+
+        public long getLine() {
+            return line;
+        }
+    }
+
+    public CatalogImportReader(ExportFormat format, InputStream in) throws IOException {
+        this.format = format;
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.CSV) {
+            List<String> header = readCsvRow();
+            if (header != null) {
+                for (int i = 0; i < header.size(); i++) {
+                    String name = i == 0 ? stripBom(header.get(i)) : header.get(i);
+                    columns.putIfAbsent(name.trim().toLowerCase(Locale.ROOT), i);
+                }
+            }
+            if (!columns.containsKey("title")) {
+                throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+            }
+        }
+    }
+
+    // Bản ghi tiếp theo, null khi hết tệp
+    public ImportRecord next() throws IOException {
+        return format == ExportFormat.NDJSON ? nextJson() : nextCsv();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private ImportRecord nextJson() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        JsonNode node;
+        try {
+            node = MAPPER.readTree(lineNumber == 1 ? stripBom(line) : line);
+        } catch (JsonProcessingException e) {
+            throw new MalformedRecordException(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            throw new MalformedRecordException(lineNumber, "Expected a JSON object");
+        }
+        return new ImportRecord(lineNumber, text(node, "title"), text(node, "isbn"), text(node, "price"),
+                text(node, "discountPrice"), text(node, "stockQuantity"), text(node, "publishDate"),
+                text(node, "status"), text(node, "description"),
+                list(node, "authors"), list(node, "categories"), list(node, "imageUrls"));
+    }
+
+    private ImportRecord nextCsv() throws IOException {
+        List<String> cells;
+        long line;
+        do {
+            line = lineNumber + 1;
+            cells = readCsvRow();
+            if (cells == null) {
+                return null;
+            }
+        } while (cells.size() == 1 && cells.get(0).isBlank());
+
+        return new ImportRecord(line, cell(cells, "title"), cell(cells, "isbn"), cell(cells, "price"),
+                cell(cells, "discountPrice"), cell(cells, "stockQuantity"), cell(cells, "publishDate"),
+                cell(cells, "status"), cell(cells, "description"),
+                split(cell(cells, "authors")), split(cell(cells, "categories")), split(cell(cells, "imageUrls")));
+    }
+
+    // Theo RFC 4180; ô trong nháy kép có thể chứa dấu phẩy và xuống dòng (xuống dòng trong ô được chuẩn hóa thành \n)
+    private List<String> readCsvRow() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        long start = ++lineNumber;
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    cells.add(cell.toString());
+                    return cells;
+                }
+                line = reader.readLine();
+                if (line == null) {
+                    throw new MalformedRecordException(start, "Unterminated quoted field");
+                }
+                lineNumber++;
+                cell.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    cell.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+    }
+
+    private String cell(List<String> cells, String column) {
+        Integer index = columns.get(column.toLowerCase(Locale.ROOT));
+        if (index == null || index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.isValueNode() ? value.asText().trim() : value.toString();
+        return text.isEmpty() ? null : text;
+    }
+
+    // Nhận mảng chuỗi hoặc một chuỗi ngăn cách bằng "|" như trong CSV
+    private static List<String> list(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return List.of();
+        }
+        if (!value.isArray()) {
+            return split(value.asText());
+        }
+        List<String> values = new ArrayList<>(value.size());
+        for (JsonNode element : value) {
+            String text = element.isNull() ? "" : element.asText().trim();
+            if (!text.isEmpty()) {
+                values.add(text);
+            }
+        }
+        return values;
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        List<String> values = new ArrayList<>();
+        for (String part : LIST_SEPARATOR.split(value)) {
+            String text = part.trim();
+            if (!text.isEmpty()) {
+                values.add(text);
+            }
+        }
+        return values;
+    }
+
+    private static String stripBom(String value) {
+        return !value.isEmpty() && value.charAt(0) == BOM ? value.substring(1) : value;
+    }
+}
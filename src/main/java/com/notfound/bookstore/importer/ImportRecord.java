@@ -0,0 +1,12 @@
+package com.notfound.bookstore.importer;
+
+import java.util.List;
+
+/**
+ * Một sách đọc từ tệp nhập, giữ nguyên dạng chuỗi; kiểm tra và chuyển kiểu do CatalogImportService thực hiện.
+ * line là số dòng bắt đầu của bản ghi trong tệp (tính cả dòng tiêu đề CSV), dùng cho báo cáo lỗi.
+ */
+public record ImportRecord(long line, String title, String isbn, String price, String discountPrice,
+                           String stockQuantity, String publishDate, String status, String description,
+                           List<String> authors, List<String> categories, List<String> imageUrls) {
+}
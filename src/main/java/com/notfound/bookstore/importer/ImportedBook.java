@@ -0,0 +1,16 @@
+package com.notfound.bookstore.importer;
+
+import com.notfound.bookstore.model.entity.Book;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sách đã kiểm tra hợp lệ, sẵn sàng ghi; ID được sinh trước để ghi theo lô cùng các bảng liên kết.
+ * authors/categories là tên, được CatalogImportService đổi sang ID qua từ điển tên khi ghi từng lô.
+ */
+public record ImportedBook(long line, UUID id, String title, String isbn, double price, Double discountPrice,
+                           int stockQuantity, LocalDate publishDate, String description, Book.Status status,
+                           List<String> authors, List<String> categories, List<String> imageUrls) {
+}
@@ -0,0 +1,62 @@
+package com.notfound.bookstore.lock;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Khóa dùng chung giữa các node trên Redis (SET NX PX), dùng cho tác vụ định kỳ chỉ được chạy trên một node.
+ * Mỗi lần giữ khóa có token riêng; khóa chỉ bị xóa khi token còn khớp, nên node chạy quá TTL
+ * không xóa nhầm khóa mà node khác vừa giành được. TTL phải dài hơn thời gian chạy của tác vụ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DistributedLock {
+
+    private static final String KEY_PREFIX = "lock:";
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    // UNAVAILABLE: không kết nối được Redis nên không biết node khác có đang chạy hay không; người gọi tự quyết định
+    public enum Result {
+        RAN, HELD_ELSEWHERE, UNAVAILABLE
+    }
+
+    // Chạy task nếu giành được khóa
+    public Result runExclusively(String name, Duration ttl, Runnable task) {
+        String key = KEY_PREFIX + name;
+        String token = UUID.randomUUID().toString();
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(key, token, ttl);
+        } catch (Exception e) {
+            log.warn("Failed to acquire lock {}: {}", name, e.getMessage());
+            return Result.UNAVAILABLE;
+        }
+        if (!Boolean.TRUE.equals(acquired)) {
+            log.debug("Lock {} is held by another node, skipping", name);
+            return Result.HELD_ELSEWHERE;
+        }
+        try {
+            task.run();
+            return Result.RAN;
+        } finally {
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+            } catch (Exception e) {
+                log.warn("Failed to release lock {} (expires in {}): {}", name, ttl, e.getMessage());
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.*;
 import lombok.experimental.FieldDefaults;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
 
 @Data
 @Builder
@@ -26,6 +28,11 @@ public class BookFilterRequest {
 
     LocalDate publishedAfter;
 
+    // Lọc theo nhiều thể loại / tác giả (OR trong cùng nhóm, AND giữa các nhóm)
+    List<UUID> categoryIds;
+
+    List<UUID> authorIds;
+
     // Custom validation method
     @AssertTrue(message = "Giá tối đa phải lớn hơn giá tối thiểu")
     public boolean isValidPriceRange() {
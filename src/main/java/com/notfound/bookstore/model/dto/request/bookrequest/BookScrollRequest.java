@@ -0,0 +1,47 @@
+package com.notfound.bookstore.model.dto.request.bookrequest;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookScrollRequest {
+    // Bỏ trống: "relevance" khi có từ khóa, ngược lại "date_desc"
+    @Pattern(regexp = "relevance|price_asc|price_desc|title_asc|title_desc|date_asc|date_desc|rating_asc|rating_desc",
+            message = "Invalid sort type")
+    String sortType;
+
+    // Con trỏ nextCursor của trang trước, bỏ trống để lấy trang đầu
+    String cursor;
+
+    String keyword;
+
+    @DecimalMin(value = "0.0", message = "Giá tối thiểu phải lớn hơn hoặc bằng 0")
+    Double minPrice;
+
+    @DecimalMin(value = "0.0", message = "Giá tối đa phải lớn hơn hoặc bằng 0")
+    Double maxPrice;
+
+    @DecimalMin(value = "0.0", message = "Rating tối thiểu là 0")
+    @DecimalMax(value = "5.0", message = "Rating tối đa là 5")
+    Double minRating;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    LocalDate publishedAfter;
+
+    @Min(1)
+    @Max(100)
+    @Builder.Default
+    Integer size = 20;
+
+    public boolean hasFilters() {
+        return minPrice != null || maxPrice != null || minRating != null || publishedAfter != null;
+    }
+}
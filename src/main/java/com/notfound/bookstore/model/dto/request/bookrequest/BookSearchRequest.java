@@ -2,6 +2,7 @@ package com.notfound.bookstore.model.dto.request.bookrequest;
 
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -21,6 +22,13 @@ public class BookSearchRequest {
     String sortBy;
     String sortOrder;
 
+    // true: luôn tìm gần đúng; false: chỉ tìm chính xác; bỏ trống: tìm gần đúng khi không có kết quả chính xác
+    Boolean fuzzy;
+
+    // exact | none | approximate, xem PageCountMode
+    @Pattern(regexp = "(?i)exact|none|approximate", message = "Invalid count mode")
+    String count;
+
     @Min(0)
     Integer page;
 
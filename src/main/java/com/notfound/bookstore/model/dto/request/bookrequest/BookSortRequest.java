@@ -17,6 +17,10 @@ public class BookSortRequest {
     @Builder.Default
     String sortType = "date_desc";
 
+    // exact | none | approximate, xem PageCountMode
+    @Pattern(regexp = "(?i)exact|none|approximate", message = "Invalid count mode")
+    String count;
+
     @Min(0)
     @Builder.Default
     Integer page = 0;
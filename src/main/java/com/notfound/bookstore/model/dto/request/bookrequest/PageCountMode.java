@@ -0,0 +1,29 @@
+package com.notfound.bookstore.model.dto.request.bookrequest;
+
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+
+import java.util.Locale;
+
+/**
+ * Cách tính tổng số phần tử của một trang (tham số count):
+ * exact - đếm chính xác bằng truy vấn COUNT (mặc định);
+ * none - không đếm, chỉ đọc thêm một dòng để biết còn trang sau (hasNext);
+ * approximate - như none, kèm tổng đã đếm trước đó cho cùng bộ lọc nếu có (đếm ở nền khi chưa có).
+ */
+public enum PageCountMode {
+    EXACT,
+    NONE,
+    APPROXIMATE;
+
+    public static PageCountMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+    }
+}
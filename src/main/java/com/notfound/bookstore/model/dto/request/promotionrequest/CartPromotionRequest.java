@@ -0,0 +1,22 @@
+package com.notfound.bookstore.model.dto.request.promotionrequest;
+
+import com.notfound.bookstore.model.dto.request.cartrequest.AddToCartRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CartPromotionRequest {
+    @NotEmpty(message = "Giỏ hàng không được trống")
+    @Size(max = 200, message = "Giỏ hàng có tối đa 200 sản phẩm")
+    @Valid
+    List<AddToCartRequest> items; // Sách và số lượng trong giỏ hàng
+}
@@ -0,0 +1,16 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookBatchResponse {
+    List<BookResponse> books; // Theo thứ tự ID trong yêu cầu
+    List<String> missingIds; // ID không hợp lệ hoặc không tồn tại
+}
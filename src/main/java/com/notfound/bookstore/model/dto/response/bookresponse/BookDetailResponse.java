@@ -1,20 +1,23 @@
 package com.notfound.bookstore.model.dto.response.bookresponse;
 
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionResponse;
 import com.notfound.bookstore.model.dto.response.reviewresponse.ReviewResponse;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
-import java.time.LocalDate;
 import java.util.List;
 
 @Data
+@Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class BookDetailResponse {
-    String isbn;
-    String publisher;
-    LocalDate publishDate;
-    List<ReviewResponse> reviews;
-    List<BookResponse> relatedBooks;
-}
\ No newline at end of file
+    BookResponse book;
+    PageResponse<ReviewResponse> reviews;
+    RatingHistogramResponse ratingHistogram;
+    List<PromotionResponse> promotions;
+    List<BookSummaryResponse> relatedBooks;
+    // Các phần không lấy được (lỗi hoặc quá thời gian); các phần này có giá trị null
+    List<String> unavailableSections;
+}
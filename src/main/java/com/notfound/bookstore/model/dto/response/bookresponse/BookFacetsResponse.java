@@ -0,0 +1,19 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookFacetsResponse {
+    long total;
+    List<FacetCountResponse> categories;
+    List<FacetCountResponse> authors;
+    List<FacetCountResponse> priceRanges;
+    List<FacetCountResponse> ratings;
+}
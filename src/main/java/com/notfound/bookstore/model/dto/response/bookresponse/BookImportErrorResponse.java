@@ -0,0 +1,15 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookImportErrorResponse {
+    long line; // Dòng bắt đầu của bản ghi trong tệp
+    String isbn;
+    String message;
+}
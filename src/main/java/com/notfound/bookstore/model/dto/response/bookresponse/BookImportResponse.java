@@ -0,0 +1,22 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookImportResponse {
+    long totalRecords; // Số bản ghi đọc được từ tệp
+    long imported;
+    long failed;
+    long authorsCreated;
+    long categoriesCreated;
+    long durationMs;
+    List<BookImportErrorResponse> errors; // Chỉ giữ các lỗi đầu tiên
+    boolean errorsTruncated;
+}
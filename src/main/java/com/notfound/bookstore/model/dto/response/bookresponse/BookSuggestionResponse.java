@@ -0,0 +1,17 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookSuggestionResponse {
+    String type; // BOOK, AUTHOR hoặc CATEGORY
+    UUID id;
+    String text;
+}
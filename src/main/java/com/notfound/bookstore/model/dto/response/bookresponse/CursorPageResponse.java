@@ -0,0 +1,19 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+// Trang kết quả phân trang theo con trỏ: không có tổng số phần tử
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> {
+    List<T> content;
+    int size;
+    boolean hasNext;
+    String nextCursor;
+}
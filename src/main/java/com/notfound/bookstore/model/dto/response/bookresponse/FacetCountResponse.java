@@ -0,0 +1,15 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FacetCountResponse {
+    String value; // ID thể loại/tác giả, khoảng giá "from-to" hoặc mức đánh giá tối thiểu
+    String label;
+    long count;
+}
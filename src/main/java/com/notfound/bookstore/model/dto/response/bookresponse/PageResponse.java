@@ -1,5 +1,6 @@
 package com.notfound.bookstore.model.dto.response.bookresponse;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -10,9 +11,12 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PageResponse<T> {
     List<T> content;
     int currentPage;
-    int totalPages;
-    long totalElements;
-}
\ No newline at end of file
+    Integer totalPages; // Không có khi không đếm tổng (count=none, hoặc count=approximate khi chưa đếm xong)
+    Long totalElements;
+    boolean hasNext;
+    Boolean approximateTotal; // true: tổng lấy từ lần đếm trước, có thể đã cũ
+}
@@ -0,0 +1,19 @@
+package com.notfound.bookstore.model.dto.response.bookresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RatingHistogramResponse {
+    Double averageRating;
+    Integer ratingCount;
+    Integer rating1Count;
+    Integer rating2Count;
+    Integer rating3Count;
+    Integer rating4Count;
+    Integer rating5Count;
+}
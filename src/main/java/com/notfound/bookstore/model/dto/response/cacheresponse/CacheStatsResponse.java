@@ -0,0 +1,24 @@
+package com.notfound.bookstore.model.dto.response.cacheresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CacheStatsResponse {
+    String name;
+    int localSize;
+    int localMaxSize;
+    long localHits;
+    long localMisses;
+    long redisHits;
+    long redisMisses;
+    long redisErrors;
+    long evictions;
+    long expirations;
+    long staleWrites;
+    double hitRatio;
+}
@@ -0,0 +1,23 @@
+package com.notfound.bookstore.model.dto.response.categoryresponse;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CategoryTreeResponse {
+    UUID id;
+    String name;
+    UUID parentId;
+    long bookCount; // Số sách của thể loại và mọi thể loại con (mỗi sách tính một lần)
+    long directBookCount; // Số sách gắn trực tiếp với thể loại
+    List<CategoryTreeResponse> children; // Không có khi trả về đường dẫn (breadcrumb)
+}
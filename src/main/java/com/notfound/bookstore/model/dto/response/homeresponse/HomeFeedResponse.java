@@ -0,0 +1,22 @@
+package com.notfound.bookstore.model.dto.response.homeresponse;
+
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionResponse;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Bất biến: cùng một đối tượng được trả cho mọi request cho đến lần tính lại tiếp theo
+@Getter
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class HomeFeedResponse {
+    List<BookSummaryResponse> newestBooks;
+    List<BookSummaryResponse> discountedBooks;
+    List<BookSummaryResponse> bestSellingBooks;
+    List<PromotionResponse> activePromotions;
+    LocalDateTime generatedAt;
+}
@@ -0,0 +1,20 @@
+package com.notfound.bookstore.model.dto.response.promotionresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CartPromotionLineResponse {
+    UUID bookId;
+    Integer quantity;
+    Double unitPrice; // Giá niêm yết
+    Double finalUnitPrice; // Giá sau giảm
+    Double lineTotal;
+    String appliedDiscount; // PROMOTION, SALE_PRICE (giá giảm của sách) hoặc NONE
+}
@@ -0,0 +1,22 @@
+package com.notfound.bookstore.model.dto.response.promotionresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CartPromotionResponse {
+    UUID promotionID; // null nếu không mã nào rẻ hơn giá giảm sẵn có của sách
+    String code;
+    Double discountPercent;
+    Double subtotal; // Tổng theo giá niêm yết
+    Double discountTotal;
+    Double total;
+    List<CartPromotionLineResponse> items;
+}
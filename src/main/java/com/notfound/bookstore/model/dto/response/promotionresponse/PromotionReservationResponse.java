@@ -0,0 +1,21 @@
+package com.notfound.bookstore.model.dto.response.promotionresponse;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PromotionReservationResponse {
+    UUID reservationID;
+    UUID promotionID;
+    String code;
+    Double discountPercent;
+    String status;
+    LocalDateTime expiresAt; // Phải xác nhận trước thời điểm này, sau đó lượt dùng được trả lại
+}
@@ -1,5 +1,6 @@
 package com.notfound.bookstore.model.dto.response.promotionresponse;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
@@ -23,6 +24,8 @@ public class PromotionResponse {
     Integer usageCount;
     Integer usageLimit;
     String status;
-    List<UUID> applicableBookIds;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    List<UUID> applicableBookIds; // Chỉ có khi xem một khuyến mãi; danh sách chỉ trả applicableBookCount
+    Integer applicableBookCount; // 0 = áp dụng cho mọi sách
     Boolean isValid; // Trạng thái hiện tại có hợp lệ không
 }
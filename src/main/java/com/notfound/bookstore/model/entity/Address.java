@@ -1,5 +1,6 @@
 package com.notfound.bookstore.model.entity;
 
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -19,7 +20,7 @@ import java.util.UUID;
 public class Address {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID id;
 
     @Column(nullable = false)
@@ -1,5 +1,7 @@
 package com.notfound.bookstore.model.entity;
 
+import com.notfound.bookstore.event.CatalogEntityListener;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -10,6 +12,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "authors")
 @Getter
 @Setter
@@ -20,7 +23,7 @@ import java.util.UUID;
 public class Author {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID id;
 
     @Column(nullable = false)
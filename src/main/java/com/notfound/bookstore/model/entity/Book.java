@@ -1,6 +1,8 @@
 package com.notfound.bookstore.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.notfound.bookstore.event.CatalogEntityListener;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -14,7 +16,8 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "books")
+@EntityListeners(CatalogEntityListener.class)
+@Table(name = "books", indexes = @Index(name = "idx_books_average_rating", columnList = "average_rating"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,7 +27,7 @@ import java.util.UUID;
 public class Book {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID id;
 
     @Column(nullable = false)
@@ -52,6 +55,32 @@ public class Book {
     @Column(nullable = false)
     Status status;
 
+    // Tổng hợp đánh giá được lưu sẵn, cập nhật mỗi khi có đánh giá mới
+    @Column(name = "rating_sum", nullable = false)
+    Long ratingSum = 0L;
+
+    @Column(name = "rating_count", nullable = false)
+    Integer ratingCount = 0;
+
+    @Column(name = "average_rating", nullable = false)
+    Double averageRating = 0.0;
+
+    // Số lượt đánh giá theo từng mức sao
+    @Column(name = "rating_1_count", nullable = false)
+    Integer rating1Count = 0;
+
+    @Column(name = "rating_2_count", nullable = false)
+    Integer rating2Count = 0;
+
+    @Column(name = "rating_3_count", nullable = false)
+    Integer rating3Count = 0;
+
+    @Column(name = "rating_4_count", nullable = false)
+    Integer rating4Count = 0;
+
+    @Column(name = "rating_5_count", nullable = false)
+    Integer rating5Count = 0;
+
     @CreationTimestamp
     @Column(name = "created_at")
     LocalDateTime createdAt;
@@ -1,11 +1,13 @@
 package com.notfound.bookstore.model.entity;
 
+import com.notfound.bookstore.event.CatalogEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "book_images")
 @Data
 @NoArgsConstructor
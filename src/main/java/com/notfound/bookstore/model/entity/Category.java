@@ -1,5 +1,7 @@
 package com.notfound.bookstore.model.entity;
 
+import com.notfound.bookstore.event.CatalogEntityListener;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -9,6 +11,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "categories")
 @Getter
 @Setter
@@ -19,7 +22,7 @@ import java.util.UUID;
 public class Category {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID id;
 
     @Column(nullable = false, unique = true)
@@ -1,6 +1,7 @@
 package com.notfound.bookstore.model.entity;
 
 import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -12,7 +13,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status_date", columnList = "status, order_date"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -22,7 +23,7 @@ import java.util.UUID;
 public class Order {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID orderID;
 
     @CreationTimestamp
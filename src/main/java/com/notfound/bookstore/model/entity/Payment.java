@@ -1,6 +1,7 @@
 package com.notfound.bookstore.model.entity;
 
 import com.notfound.bookstore.model.enums.PaymentStatus;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -22,7 +23,7 @@ import java.util.UUID;
 public class Payment {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID paymentID;
 
     @Column(name = "payment_method", nullable = false)
@@ -1,5 +1,7 @@
 package com.notfound.bookstore.model.entity;
 
+import com.notfound.bookstore.event.CatalogEntityListener;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -10,7 +12,8 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "promotions")
+@EntityListeners(CatalogEntityListener.class)
+@Table(name = "promotions", indexes = @Index(name = "idx_promotions_status_end_date", columnList = "status, end_date"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +23,7 @@ import java.util.UUID;
 public class Promotion {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID promotionID;
 
     @Column(nullable = false)
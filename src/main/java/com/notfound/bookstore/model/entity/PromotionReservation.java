@@ -0,0 +1,58 @@
+package com.notfound.bookstore.model.entity;
+
+import com.notfound.bookstore.model.enums.PromotionReservationStatus;
+import com.notfound.bookstore.util.UuidV7Generator;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Một lượt dùng mã khuyến mãi đang được giữ cho người dùng cho đến khi xác nhận, hủy hoặc hết hạn.
+// Mỗi người dùng chỉ có tối đa một lượt RESERVED/CONFIRMED cho mỗi khuyến mãi: active_hold = TRUE với hai trạng thái đó,
+// NULL khi đã hủy/hết hạn (ràng buộc UNIQUE bỏ qua NULL nên các lượt cũ không chặn lượt giữ mới)
+@Entity
+@Table(name = "promotion_reservations",
+        indexes = @Index(name = "idx_promotion_reservations_status_expires", columnList = "status, expires_at"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_promotion_reservations_active_hold",
+                columnNames = {"promotion_id", "username", "active_hold"}))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = "promotion")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PromotionReservation {
+
+    @Id
+    @UuidGenerator(algorithm = UuidV7Generator.class)
+    UUID reservationID;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "promotion_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    Promotion promotion;
+
+    @Column(nullable = false)
+    String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    PromotionReservationStatus status;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    LocalDateTime expiresAt;
+
+    @Column(name = "active_hold")
+    Boolean activeHold;
+}
@@ -1,6 +1,8 @@
 package com.notfound.bookstore.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.notfound.bookstore.event.CatalogEntityListener;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -11,6 +13,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "reviews")
 @Getter
 @Setter
@@ -21,7 +24,7 @@ import java.util.UUID;
 public class Review {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "review_id")
     UUID reviewID;
 
@@ -2,6 +2,7 @@ package com.notfound.bookstore.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.notfound.bookstore.model.enums.Role;
+import com.notfound.bookstore.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -23,7 +24,7 @@ import java.util.UUID;
 public class User {
 
     @Id
-    @UuidGenerator
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     UUID id;
 
     @Column(unique = true, nullable = false)
@@ -0,0 +1,6 @@
+package com.notfound.bookstore.model.enums;
+
+// RESERVED đang giữ một lượt dùng; CONFIRMED đã dùng; RELEASED (hủy) và EXPIRED (quá hạn) đã trả lượt lại
+public enum PromotionReservationStatus {
+    RESERVED, CONFIRMED, RELEASED, EXPIRED
+}
@@ -11,6 +11,7 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,13 +22,11 @@ public interface BookMapper {
     @Mapping(target = "authorNames", source = "authors", qualifiedByName = "authorsToNames")
     @Mapping(target = "categoryNames", source = "categories", qualifiedByName = "categoriesToNames")
     @Mapping(target = "imageUrls", source = "images", qualifiedByName = "imagesToUrls")
-    @Mapping(target = "averageRating", source = "reviews", qualifiedByName = "calculateAverageRating")
-    @Mapping(target = "reviewCount", source = "reviews", qualifiedByName = "countReviews")
+    @Mapping(target = "reviewCount", source = "ratingCount")
     BookResponse toBookResponse(Book book);
 
     @Mapping(target = "mainImageUrl", source = "images", qualifiedByName = "getMainImageUrl")
-    @Mapping(target = "averageRating", source = "reviews", qualifiedByName = "calculateAverageRating")
-    @Mapping(target = "reviewCount", source = "reviews", qualifiedByName = "countReviews")
+    @Mapping(target = "reviewCount", source = "ratingCount")
     BookSummaryResponse toBookSummaryResponse(Book book);
 
     List<BookResponse> toBookResponseList(List<Book> books);
@@ -40,6 +39,16 @@ public interface BookMapper {
                 .currentPage(page.getNumber())
                 .totalPages(page.getTotalPages())
                 .totalElements(page.getTotalElements())
+                .hasNext(page.hasNext())
+                .build();
+    }
+
+    // Trang không kèm tổng: Slice chỉ đọc thêm một dòng để biết còn trang sau
+    default <T> PageResponse<T> toSliceResponse(Slice<T> slice) {
+        return PageResponse.<T>builder()
+                .content(slice.getContent())
+                .currentPage(slice.getNumber())
+                .hasNext(slice.hasNext())
                 .build();
     }
 
@@ -72,18 +81,4 @@ public interface BookMapper {
         if (images == null || images.isEmpty()) return null;
         return images.getFirst().getUrl();
     }
-
-    @Named("calculateAverageRating")
-    default Double calculateAverageRating(List<?> reviews) {
-        if (reviews == null || reviews.isEmpty()) return 0.0;
-        return reviews.stream()
-                .mapToDouble(r -> ((com.notfound.bookstore.model.entity.Review) r).getRating())
-                .average()
-                .orElse(0.0);
-    }
-
-    @Named("countReviews")
-    default Integer countReviews(List<?> reviews) {
-        return reviews == null ? 0 : reviews.size();
-    }
 }
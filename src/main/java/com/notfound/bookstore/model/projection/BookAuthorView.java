@@ -0,0 +1,9 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+public interface BookAuthorView {
+    UUID getBookId();
+    UUID getAuthorId();
+    String getAuthorName();
+}
@@ -0,0 +1,9 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+public interface BookCategoryView {
+    UUID getBookId();
+    UUID getCategoryId();
+    String getCategoryName();
+}
@@ -0,0 +1,12 @@
+package com.notfound.bookstore.model.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Một dòng của cursor xuất danh mục: cột của sách kèm một cặp (tác giả, thể loại); sách có nhiều tác giả/thể loại
+// xuất hiện trên nhiều dòng liên tiếp. Kèm ID để hai tác giả/thể loại trùng tên không bị gộp làm một
+public record BookExportRow(UUID id, String title, String isbn, Double price, Double discountPrice,
+                            Integer stockQuantity, LocalDate publishDate, String status,
+                            Double averageRating, Integer ratingCount, UUID authorId, String authorName,
+                            UUID categoryId, String categoryName) {
+}
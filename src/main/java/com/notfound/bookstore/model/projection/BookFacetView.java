@@ -0,0 +1,11 @@
+package com.notfound.bookstore.model.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface BookFacetView {
+    UUID getId();
+    Double getPrice();
+    Double getAverageRating();
+    LocalDate getPublishDate();
+}
@@ -0,0 +1,10 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// Giá niêm yết và giá giảm của sách (tính tiền giỏ hàng)
+public interface BookPriceView {
+    UUID getId();
+    Double getPrice();
+    Double getDiscountPrice();
+}
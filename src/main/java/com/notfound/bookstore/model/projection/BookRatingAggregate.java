@@ -0,0 +1,14 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+public interface BookRatingAggregate {
+    UUID getBookId();
+    Long getRatingCount();
+    Long getRatingSum();
+    Long getRating1Count();
+    Long getRating2Count();
+    Long getRating3Count();
+    Long getRating4Count();
+    Long getRating5Count();
+}
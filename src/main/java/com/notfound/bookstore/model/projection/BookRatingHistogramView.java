@@ -0,0 +1,11 @@
+package com.notfound.bookstore.model.projection;
+
+public interface BookRatingHistogramView {
+    Double getAverageRating();
+    Integer getRatingCount();
+    Integer getRating1Count();
+    Integer getRating2Count();
+    Integer getRating3Count();
+    Integer getRating4Count();
+    Integer getRating5Count();
+}
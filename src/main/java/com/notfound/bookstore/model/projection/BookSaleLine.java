@@ -0,0 +1,10 @@
+package com.notfound.bookstore.model.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface BookSaleLine {
+    UUID getBookId();
+    LocalDateTime getOrderDate();
+    Integer getQuantity();
+}
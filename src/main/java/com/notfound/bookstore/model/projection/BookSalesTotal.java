@@ -0,0 +1,8 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+public interface BookSalesTotal {
+    UUID getBookId();
+    Long getQuantity();
+}
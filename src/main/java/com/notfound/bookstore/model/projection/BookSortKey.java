@@ -0,0 +1,7 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// ID sách kèm giá trị cột đang dùng để sắp xếp (dùng cho phân trang keyset)
+public record BookSortKey(UUID id, Object sortKey) {
+}
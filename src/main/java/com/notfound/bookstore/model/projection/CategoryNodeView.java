@@ -0,0 +1,10 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// Một nút của cây thể loại (dựng CategoryTree)
+public interface CategoryNodeView {
+    UUID getId();
+    String getName();
+    UUID getParentId();
+}
@@ -0,0 +1,9 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// ID và tên của tác giả/thể loại (dựng từ điển tên khi nhập danh mục)
+public interface NamedEntityView {
+    UUID getId();
+    String getName();
+}
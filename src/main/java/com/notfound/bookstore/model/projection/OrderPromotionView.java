@@ -0,0 +1,9 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// Người đặt và khuyến mãi của một đơn hàng (xác nhận lượt giữ mã khi đơn được thanh toán)
+public interface OrderPromotionView {
+    String getUsername();
+    UUID getPromotionId();
+}
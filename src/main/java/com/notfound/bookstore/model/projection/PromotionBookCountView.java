@@ -0,0 +1,9 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// Số sách áp dụng của một khuyến mãi (danh sách khuyến mãi chỉ trả số lượng, không trả ID sách)
+public interface PromotionBookCountView {
+    UUID getPromotionId();
+    long getBookCount();
+}
@@ -0,0 +1,9 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// Một dòng của bảng promotion_books (dựng tập sách áp dụng của khuyến mãi)
+public interface PromotionBookView {
+    UUID getPromotionId();
+    UUID getBookId();
+}
@@ -0,0 +1,9 @@
+package com.notfound.bookstore.model.projection;
+
+import java.util.UUID;
+
+// Lượt giữ mã khuyến mãi kèm ID khuyến mãi (trả lượt cho khuyến mãi khi hết hạn)
+public interface PromotionReservationView {
+    UUID getReservationId();
+    UUID getPromotionId();
+}
@@ -0,0 +1,156 @@
+package com.notfound.bookstore.promotion;
+
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.model.dto.request.cartrequest.AddToCartRequest;
+import com.notfound.bookstore.model.dto.response.promotionresponse.CartPromotionLineResponse;
+import com.notfound.bookstore.model.dto.response.promotionresponse.CartPromotionResponse;
+import com.notfound.bookstore.model.projection.BookPriceView;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.PromotionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Chọn khuyến mãi có lợi nhất cho cả giỏ hàng. Mỗi đơn chỉ dùng một mã và mã không cộng dồn với giá giảm của sách:
+ * mỗi dòng lấy giá thấp hơn giữa giá giảm (discountPrice, nếu có) và giá niêm yết sau khi trừ phần trăm của mã.
+ * Danh sách khuyến mãi lấy từ ảnh chụp của PromotionEngine; giá sách đọc một lần cho cả giỏ vào các mảng,
+ * nên mỗi khuyến mãi chỉ tốn một vòng lặp trên mảng. Số lượt đã dùng chỉ được đọc từ CSDL cho mã đang đứng đầu.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartPromotionOptimizer {
+
+    public static final String PROMOTION = "PROMOTION";
+    public static final String SALE_PRICE = "SALE_PRICE";
+    public static final String NONE = "NONE";
+
+    private final PromotionEngine promotionEngine;
+    private final PromotionRepository promotionRepository;
+    private final BookRepository bookRepository;
+
+    public CartPromotionResponse optimize(List<AddToCartRequest> items) {
+        // Gộp các dòng trùng sách, giữ thứ tự trong giỏ
+        Map<UUID, Integer> quantities = new LinkedHashMap<>();
+        for (AddToCartRequest item : items) {
+            quantities.merge(item.getBookId(), item.getQuantity(), Integer::sum);
+        }
+        Map<UUID, BookPriceView> prices = new HashMap<>();
+        bookRepository.findPricesByIdIn(quantities.keySet()).forEach(view -> prices.put(view.getId(), view));
+        if (prices.size() != quantities.size()) {
+            throw new AppException(ErrorCode.BOOK_NOT_FOUND);
+        }
+
+        int size = quantities.size();
+        UUID[] bookIds = new UUID[size];
+        int[] quantity = new int[size];
+        double[] listPrice = new double[size];
+        double[] salePrice = new double[size];
+        int index = 0;
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            BookPriceView view = prices.get(entry.getKey());
+            bookIds[index] = entry.getKey();
+            quantity[index] = entry.getValue();
+            listPrice[index] = view.getPrice() != null ? view.getPrice() : 0;
+            salePrice[index] = view.getDiscountPrice() != null && view.getDiscountPrice() < listPrice[index]
+                    ? view.getDiscountPrice() : listPrice[index];
+            index++;
+        }
+
+        List<PromotionEngine.CompiledPromotion> candidates = promotionEngine.usablePromotions();
+        double[] savings = new double[candidates.size()];
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < savings.length; i++) {
+            PromotionEngine.CompiledPromotion promotion = candidates.get(i);
+            if (promotion.isStarted(today) && !promotion.isExpired(today)) {
+                savings[i] = savings(promotion, bookIds, quantity, listPrice, salePrice);
+            }
+        }
+
+        // Lấy mã tiết kiệm nhiều nhất còn lượt dùng; mã hết lượt thì bỏ và xét mã kế tiếp
+        PromotionEngine.CompiledPromotion best = null;
+        for (int top = indexOfMax(savings); top >= 0; top = indexOfMax(savings)) {
+            PromotionEngine.CompiledPromotion promotion = candidates.get(top);
+            int usageCount = promotionRepository.findUsageCountById(promotion.id()).orElse(promotion.usageLimit());
+            if (usageCount < promotion.usageLimit()) {
+                best = promotion;
+                break;
+            }
+            savings[top] = 0;
+        }
+        return toResponse(best, bookIds, quantity, listPrice, salePrice);
+    }
+
+    // Số tiền tiết kiệm thêm so với giá giảm sẵn có của sách
+    private static double savings(PromotionEngine.CompiledPromotion promotion, UUID[] bookIds, int[] quantity,
+                                  double[] listPrice, double[] salePrice) {
+        double factor = 1 - promotion.discountPercent() / 100;
+        Set<UUID> applicable = promotion.applicableBookIds();
+        double saved = 0;
+        for (int i = 0; i < bookIds.length; i++) {
+            if (applicable.isEmpty() || applicable.contains(bookIds[i])) {
+                double promoted = listPrice[i] * factor;
+                if (promoted < salePrice[i]) {
+                    saved += (salePrice[i] - promoted) * quantity[i];
+                }
+            }
+        }
+        return saved;
+    }
+
+    private static int indexOfMax(double[] values) {
+        int best = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] > 0 && (best < 0 || values[i] > values[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static CartPromotionResponse toResponse(PromotionEngine.CompiledPromotion promotion, UUID[] bookIds,
+                                                    int[] quantity, double[] listPrice, double[] salePrice) {
+        double factor = promotion != null ? 1 - promotion.discountPercent() / 100 : 1;
+        Set<UUID> applicable = promotion != null ? promotion.applicableBookIds() : Set.of();
+        List<CartPromotionLineResponse> lines = new ArrayList<>(bookIds.length);
+        double subtotal = 0;
+        double total = 0;
+        for (int i = 0; i < bookIds.length; i++) {
+            double unitPrice = salePrice[i];
+            String appliedDiscount = salePrice[i] < listPrice[i] ? SALE_PRICE : NONE;
+            if (promotion != null && (applicable.isEmpty() || applicable.contains(bookIds[i]))
+                    && listPrice[i] * factor < salePrice[i]) {
+                unitPrice = listPrice[i] * factor;
+                appliedDiscount = PROMOTION;
+            }
+            double lineTotal = unitPrice * quantity[i];
+            subtotal += listPrice[i] * quantity[i];
+            total += lineTotal;
+            lines.add(CartPromotionLineResponse.builder()
+                    .bookId(bookIds[i])
+                    .quantity(quantity[i])
+                    .unitPrice(money(listPrice[i]))
+                    .finalUnitPrice(money(unitPrice))
+                    .lineTotal(money(lineTotal))
+                    .appliedDiscount(appliedDiscount)
+                    .build());
+        }
+        return CartPromotionResponse.builder()
+                .promotionID(promotion != null ? promotion.id() : null)
+                .code(promotion != null ? promotion.code() : null)
+                .discountPercent(promotion != null ? promotion.discountPercent() : null)
+                .subtotal(money(subtotal))
+                .discountTotal(money(subtotal - total))
+                .total(money(total))
+                .items(lines)
+                .build();
+    }
+
+    // Làm tròn 2 chữ số thập phân khi trả về, tính toán bên trong giữ nguyên độ chính xác
+    private static double money(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,205 @@
+package com.notfound.bookstore.promotion;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.entity.Promotion;
+import com.notfound.bookstore.repository.PromotionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ảnh chụp bất biến của các khuyến mãi, tra cứu theo mã mà không cần khóa hay truy vấn CSDL.
+ * Mỗi khuyến mãi được biên dịch thành trạng thái, khoảng ngày hiệu lực, giới hạn lượt dùng và tập ID sách áp dụng
+ * (tập rỗng = áp dụng cho mọi sách). Tập sách chỉ được nạp cho khuyến mãi còn dùng được (ACTIVE, chưa hết hạn);
+ * khuyến mãi khác vẫn có trong ảnh chụp để trả lời đúng lý do không hợp lệ.
+ * Số lượt đã dùng thay đổi liên tục nên không nằm trong ảnh chụp mà được đọc từ CSDL khi kiểm tra.
+ * Thay đổi một khuyến mãi chỉ nạp lại khuyến mãi đó; toàn bộ ảnh chụp được dựng lại lúc khởi động và đầu mỗi ngày
+ * (bỏ các khuyến mãi vừa hết hạn khỏi danh sách đang áp dụng).
+ * Khi ảnh chụp chưa dựng được, mỗi lần tra cứu đọc riêng phần cần thiết từ CSDL và để luồng nền dựng lại.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromotionEngine {
+
+    private final PromotionRepository promotionRepository;
+
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), List.of());
+    private volatile boolean ready;
+
+    public record CompiledPromotion(UUID id, String code, double discountPercent, LocalDate startDate, LocalDate endDate,
+                                    int usageLimit, Promotion.Status status, Set<UUID> applicableBookIds) {
+
+        // Khoảng ngày tính cả hai đầu
+        public boolean isStarted(LocalDate day) {
+            return !day.isBefore(startDate);
+        }
+
+        public boolean isExpired(LocalDate day) {
+            return day.isAfter(endDate);
+        }
+
+        // Áp dụng nếu không giới hạn sách, hoặc có ít nhất một sách thuộc danh sách áp dụng
+        public boolean appliesToAny(Collection<UUID> bookIds) {
+            if (applicableBookIds.isEmpty() || bookIds == null || bookIds.isEmpty()) {
+                return true;
+            }
+            for (UUID bookId : bookIds) {
+                if (applicableBookIds.contains(bookId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // usable: các khuyến mãi ACTIVE chưa hết hạn (có thể chưa bắt đầu), duyệt khi tìm khuyến mãi tốt nhất cho giỏ hàng
+    private record Snapshot(Map<String, CompiledPromotion> byCode, List<CompiledPromotion> usable) {
+
+        static Snapshot of(Map<String, CompiledPromotion> byCode, LocalDate today) {
+            List<CompiledPromotion> usable = byCode.values().stream()
+                    .filter(promotion -> promotion.status() == Promotion.Status.ACTIVE && !promotion.isExpired(today))
+                    .toList();
+            return new Snapshot(Map.copyOf(byCode), usable);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Mã khuyến mãi được lưu dạng chữ hoa
+    public Optional<CompiledPromotion> findByCode(String code) {
+        String normalized = code.toUpperCase(Locale.ROOT);
+        if (!ready) {
+            rebuildRequested.set(true);
+            return promotionRepository.findByCode(normalized).map(this::load);
+        }
+        return Optional.ofNullable(snapshot.byCode().get(normalized));
+    }
+
+    // Khuyến mãi ACTIVE chưa hết hạn lúc dựng ảnh chụp (danh sách bất biến, không sao chép);
+    // người gọi vẫn kiểm tra ngày bắt đầu/kết thúc và số lượt đã dùng
+    public List<CompiledPromotion> usablePromotions() {
+        if (!ready) {
+            rebuildRequested.set(true);
+            return loadActive(LocalDate.now());
+        }
+        return snapshot.usable();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.error("Failed to build promotion snapshot: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.entityType() != CatalogChangedEvent.EntityType.PROMOTION) {
+            return;
+        }
+        if (event.entityId() == null) {
+            rebuildRequested.set(true);
+            return;
+        }
+        try {
+            refresh(event.entityId());
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.warn("Failed to refresh promotion {}: {}", event.entityId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.promotions.rebuild-delay-ms:5000}")
+    public void rebuildIfRequested() {
+        if (rebuildRequested.getAndSet(false)) {
+            scheduledRebuild();
+        }
+    }
+
+    // Đầu ngày: bỏ tập sách của khuyến mãi vừa hết hạn
+    @Scheduled(cron = "${app.promotions.rebuild-cron:0 0 0 * * *}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.warn("Failed to rebuild promotion snapshot: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        Map<UUID, Set<UUID>> booksByPromotion = new HashMap<>();
+        promotionRepository.findUsableBookLinks(today).forEach(link ->
+                booksByPromotion.computeIfAbsent(link.getPromotionId(), key -> new HashSet<>()).add(link.getBookId()));
+
+        Map<String, CompiledPromotion> compiled = new HashMap<>();
+        for (Promotion promotion : promotionRepository.findAll()) {
+            compiled.put(promotion.getCode(), compile(promotion,
+                    booksByPromotion.getOrDefault(promotion.getPromotionID(), Set.of())));
+        }
+        snapshot = Snapshot.of(compiled, today);
+        ready = true;
+        log.info("Promotion snapshot built: {} promotions in {} ms", compiled.size(), System.currentTimeMillis() - start);
+    }
+
+    // Nạp lại một khuyến mãi (mã có thể đã đổi) và thay vào bản sao của ảnh chụp
+    private synchronized void refresh(UUID promotionId) {
+        if (!ready) {
+            rebuildRequested.set(true);
+            return;
+        }
+        Map<String, CompiledPromotion> next = new HashMap<>(snapshot.byCode());
+        next.values().removeIf(promotion -> promotion.id().equals(promotionId));
+        promotionRepository.findById(promotionId).ifPresent(promotion -> next.put(promotion.getCode(), load(promotion)));
+        snapshot = Snapshot.of(next, LocalDate.now());
+    }
+
+    private CompiledPromotion load(Promotion promotion) {
+        Set<UUID> bookIds = isUsable(promotion, LocalDate.now())
+                ? new HashSet<>(promotionRepository.findApplicableBookIds(promotion.getPromotionID()))
+                : Set.of();
+        return compile(promotion, bookIds);
+    }
+
+    // Chỉ các khuyến mãi đang chạy (đã bắt đầu, chưa hết hạn) cùng sách áp dụng: hai truy vấn, không đọc cả bảng
+    private List<CompiledPromotion> loadActive(LocalDate today) {
+        List<Promotion> active = promotionRepository.findActivePromotions(today);
+        if (active.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Set<UUID>> booksByPromotion = new HashMap<>();
+        promotionRepository.findBookLinksByPromotionIds(active.stream().map(Promotion::getPromotionID).toList())
+                .forEach(link -> booksByPromotion.computeIfAbsent(link.getPromotionId(), key -> new HashSet<>())
+                        .add(link.getBookId()));
+        return active.stream()
+                .map(promotion -> compile(promotion, booksByPromotion.getOrDefault(promotion.getPromotionID(), Set.of())))
+                .toList();
+    }
+
+    private static boolean isUsable(Promotion promotion, LocalDate today) {
+        return promotion.getStatus() == Promotion.Status.ACTIVE && !today.isAfter(promotion.getEndDate());
+    }
+
+    private static CompiledPromotion compile(Promotion promotion, Set<UUID> applicableBookIds) {
+        return new CompiledPromotion(promotion.getPromotionID(), promotion.getCode(), promotion.getDiscountPercent(),
+                promotion.getStartDate(), promotion.getEndDate(), promotion.getUsageLimit(), promotion.getStatus(),
+                Set.copyOf(applicableBookIds));
+    }
+}
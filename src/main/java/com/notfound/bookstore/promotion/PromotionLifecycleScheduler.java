@@ -0,0 +1,135 @@
+package com.notfound.bookstore.promotion;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.lock.DistributedLock;
+import com.notfound.bookstore.repository.PromotionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Xử lý mốc bắt đầu/kết thúc của khuyến mãi theo lô, đầu mỗi ngày và lúc khởi động, chỉ trên một node (khóa Redis).
+ * Khuyến mãi ACTIVE đã qua ngày kết thúc được chuyển sang EXPIRED bằng UPDATE theo nhóm, nên các truy vấn lọc
+ * theo status không còn phải đi qua chúng. Khuyến mãi được tạo sẵn ở trạng thái ACTIVE nên mốc bắt đầu không cần
+ * sửa dòng nào, chỉ phát sự kiện để cache hiển thị giá được làm mới đúng ngày bắt đầu.
+ * Ngày đã xử lý gần nhất lưu trên Redis: node khác chạy lại trong cùng ngày không phát lặp sự kiện,
+ * và ngày bị bỏ lỡ (mọi node tắt lúc nửa đêm) được xử lý bù ở lần chạy sau.
+ * Không kết nối được Redis thì mỗi node tự chạy mà không có khóa: UPDATE chỉ chạm dòng ACTIVE đã hết hạn nên chạy
+ * lặp vô hại, còn sự kiện phát lặp chỉ làm mới cache thêm một lần (và khi đó cache của node nào node nấy xóa).
+ */
+@Slf4j
+@Component
+public class PromotionLifecycleScheduler {
+
+    private static final String LOCK_NAME = "promotions:lifecycle";
+    private static final String LAST_PROCESSED_KEY = "promotions:lifecycle:last-date";
+    private static final int UPDATE_BATCH_SIZE = 1_000;
+    // Nhiều thay đổi hơn thì phát một sự kiện hàng loạt thay vì từng khuyến mãi
+    private static final int MAX_SINGLE_EVENTS = 50;
+
+    private final PromotionRepository promotionRepository;
+    private final DistributedLock distributedLock;
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+
+    @Value("${app.promotions.lifecycle-lock-ttl-seconds:300}")
+    private long lockTtlSeconds;
+
+    public PromotionLifecycleScheduler(PromotionRepository promotionRepository,
+                                       DistributedLock distributedLock,
+                                       StringRedisTemplate redisTemplate,
+                                       ApplicationEventPublisher eventPublisher,
+                                       PlatformTransactionManager transactionManager) {
+        this.promotionRepository = promotionRepository;
+        this.distributedLock = distributedLock;
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        processBoundaries();
+    }
+
+    @Scheduled(cron = "${app.promotions.lifecycle-cron:0 0 0 * * *}")
+    public void processBoundaries() {
+        try {
+            DistributedLock.Result result = distributedLock.runExclusively(LOCK_NAME,
+                    Duration.ofSeconds(lockTtlSeconds), () -> process(LocalDate.now()));
+            if (result == DistributedLock.Result.UNAVAILABLE) {
+                log.error("Redis unavailable, processing promotion boundaries on this node without the lock");
+                process(LocalDate.now());
+            }
+        } catch (Exception e) {
+            log.error("Failed to process promotion boundaries: {}", e.getMessage());
+        }
+    }
+
+    private void process(LocalDate today) {
+        LocalDate since = lastProcessedDate(today);
+        long start = System.currentTimeMillis();
+        int[] counts = transaction.execute(status -> {
+            List<UUID> changed = new ArrayList<>();
+            List<UUID> ended = promotionRepository.findEndedIds(today);
+            int expired = 0;
+            for (int from = 0; from < ended.size(); from += UPDATE_BATCH_SIZE) {
+                List<UUID> batch = ended.subList(from, Math.min(from + UPDATE_BATCH_SIZE, ended.size()));
+                expired += promotionRepository.expireEnded(batch, today);
+            }
+            changed.addAll(ended);
+            List<UUID> started = since.isBefore(today) ? promotionRepository.findStartedIds(since, today) : List.of();
+            changed.addAll(started);
+            publishChanges(changed);
+            return new int[]{started.size(), expired};
+        });
+        try {
+            redisTemplate.opsForValue().set(LAST_PROCESSED_KEY, today.toString());
+        } catch (Exception e) {
+            log.warn("Failed to record processed promotion date {}: {}", today, e.getMessage());
+        }
+        if (counts != null && (counts[0] > 0 || counts[1] > 0)) {
+            log.info("Promotion boundaries for {}: {} started, {} expired in {} ms",
+                    today, counts[0], counts[1], System.currentTimeMillis() - start);
+        }
+    }
+
+    // Sự kiện được xử lý sau khi transaction commit (PromotionEngine nạp lại, cache bị xóa trên mọi node)
+    private void publishChanges(List<UUID> promotionIds) {
+        if (promotionIds.size() > MAX_SINGLE_EVENTS) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(
+                    CatalogChangedEvent.EntityType.PROMOTION, null, CatalogChangedEvent.Action.SAVED));
+            return;
+        }
+        for (UUID promotionId : promotionIds) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(
+                    CatalogChangedEvent.EntityType.PROMOTION, promotionId, CatalogChangedEvent.Action.SAVED));
+        }
+    }
+
+    // Lần chạy đầu tiên (hoặc khi không đọc được Redis) chỉ xét các khuyến mãi bắt đầu hôm nay
+    private LocalDate lastProcessedDate(LocalDate today) {
+        String value;
+        try {
+            value = redisTemplate.opsForValue().get(LAST_PROCESSED_KEY);
+        } catch (Exception e) {
+            log.warn("Failed to read last processed promotion date: {}", e.getMessage());
+            value = null;
+        }
+        return value != null ? LocalDate.parse(value) : today.minusDays(1);
+    }
+}
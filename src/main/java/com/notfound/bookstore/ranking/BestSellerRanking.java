@@ -0,0 +1,326 @@
+package com.notfound.bookstore.ranking;
+
+import com.notfound.bookstore.event.OrderCompletedEvent;
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.lock.DistributedLock;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.BookSaleLine;
+import com.notfound.bookstore.model.projection.BookSalesTotal;
+import com.notfound.bookstore.repository.OrderItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bảng xếp hạng sách bán chạy trong bộ nhớ theo số lượng đã bán (không phải số dòng đơn hàng),
+ * gồm các cửa sổ toàn thời gian, 7 ngày và 30 ngày.
+ * Số lượng được cộng dồn khi đơn hàng hoàn tất và được dựng lại định kỳ từ order_items để phục hồi;
+ * các node khác chỉ thấy đơn mới sau lần dựng lại kế tiếp của chính chúng.
+ * Cửa sổ theo ngày tính theo ngày đặt hàng (orderDate) để khớp với dữ liệu khi dựng lại.
+ * Khi chưa dựng được (ví dụ CSDL chưa sẵn sàng lúc khởi động), top N được tính bằng một truy vấn GROUP BY có giới hạn
+ * và việc dựng lại được giao cho luồng nền.
+ * Lần dựng lại định kỳ giữ khóa Redis để các node lần lượt dựng thay vì cùng quét order_items một lúc; node thấy khóa
+ * đang bị giữ sẽ thử lại sau app.best-sellers.retry-delay-ms. Đơn hoàn tất trong lúc dựng lại được ghi lại và cộng
+ * vào bản mới khi thay thế, nên không bị mất.
+ */
+@Slf4j
+@Component
+public class BestSellerRanking {
+
+    private static final int MAX_WINDOW_DAYS = 30;
+    private static final String LOCK_NAME = "best-sellers:rebuild";
+
+    private final OrderItemRepository orderItemRepository;
+    private final DistributedLock distributedLock;
+    private final TransactionTemplate snapshotTransaction;
+
+    @Value("${app.best-sellers.rebuild-lock-ttl-seconds:300}")
+    private long lockTtlSeconds;
+
+    // Dữ liệu gốc; chỉ được đọc/ghi trong khối synchronized
+    private Map<UUID, Long> allTime = new HashMap<>();
+    private NavigableMap<LocalDate, Map<UUID, Long>> daily = new TreeMap<>();
+    private LocalDate today = LocalDate.now();
+    private long version;
+    // Dòng bán của các đơn hoàn tất trong lúc đang dựng lại; null khi không dựng lại
+    private List<BookSaleLine> linesDuringRebuild;
+
+    // Bảng xếp hạng đã sắp xếp sẵn, tính lại khi dữ liệu gốc thay đổi
+    private volatile Snapshot snapshot;
+    private volatile boolean ready;
+    private volatile boolean rebuilding;
+    private final Object rebuildLock = new Object();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public BestSellerRanking(OrderItemRepository orderItemRepository, DistributedLock distributedLock,
+                             PlatformTransactionManager transactionManager) {
+        this.orderItemRepository = orderItemRepository;
+        this.distributedLock = distributedLock;
+        // Hai truy vấn của một lần dựng lại đọc cùng một ảnh dữ liệu để đơn mới không bị tính vào cửa sổ ngày mà thiếu ở toàn thời gian
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public enum Window {
+        ALL_TIME("all", 0), LAST_7_DAYS("7d", 7), LAST_30_DAYS("30d", MAX_WINDOW_DAYS);
+
+        private final String code;
+        private final int days;
+
+        Window(String code, int days) {
+            this.code = code;
+            this.days = days;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public static Window fromCode(String code) {
+            for (Window window : values()) {
+                if (window.code.equalsIgnoreCase(code)) {
+                    return window;
+                }
+            }
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+    }
+
+    public record RankedBook(UUID bookId, long quantity) {
+        // Số lượng bán giảm dần, bằng nhau thì theo ID để thứ tự ổn định
+        static final Comparator<RankedBook> RANK_ORDER =
+                Comparator.comparingLong(RankedBook::quantity).reversed().thenComparing(RankedBook::bookId);
+    }
+
+    private record Snapshot(long version, Map<Window, List<RankedBook>> rankings) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Phiên bản hiện tại của bảng xếp hạng; tăng mỗi khi số liệu thay đổi hoặc sang ngày mới.
+     * Dùng làm một phần khóa cache để danh sách sách bán chạy không cần xóa cache thủ công.
+     */
+    public synchronized long version() {
+        rollDay();
+        return version;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuildExclusively();
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.error("Failed to build best-seller ranking: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.best-sellers.retry-delay-ms:5000}")
+    public void rebuildIfRequested() {
+        if (rebuildRequested.getAndSet(false)) {
+            scheduledRebuild();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.best-sellers.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.best-sellers.rebuild-interval-ms:600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuildExclusively();
+        } catch (Exception e) {
+            if (!ready) {
+                rebuildRequested.set(true);
+            }
+            log.warn("Failed to rebuild best-seller ranking: {}", e.getMessage());
+        }
+    }
+
+    // Node khác đang dựng thì thử lại sau; không kết nối được Redis thì tự dựng vì bảng xếp hạng nằm trong bộ nhớ của từng node
+    private void rebuildExclusively() {
+        DistributedLock.Result result = distributedLock.runExclusively(LOCK_NAME, Duration.ofSeconds(lockTtlSeconds),
+                this::rebuild);
+        if (result == DistributedLock.Result.HELD_ELSEWHERE) {
+            rebuildRequested.set(true);
+        } else if (result == DistributedLock.Result.UNAVAILABLE) {
+            rebuild();
+        }
+    }
+
+    // Dựng lại toàn bộ số liệu từ các đơn hàng đã hoàn tất rồi thay thế bản cũ
+    public int rebuild() {
+        // Lần dựng lại từ API admin và từ lịch chạy không chạy chồng lên nhau trên cùng node
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            LocalDate rebuildDay = LocalDate.now();
+            synchronized (this) {
+                linesDuringRebuild = new ArrayList<>();
+                rebuilding = true;
+            }
+            try {
+                Map<UUID, Long> freshAllTime = new HashMap<>();
+                NavigableMap<LocalDate, Map<UUID, Long>> freshDaily = new TreeMap<>();
+                LocalDate since = rebuildDay.minusDays(MAX_WINDOW_DAYS - 1);
+                snapshotTransaction.executeWithoutResult(status -> {
+                    orderItemRepository.sumQuantityByBook(OrderStatus.COMPLETED)
+                            .forEach(total -> freshAllTime.put(total.getBookId(), total.getQuantity()));
+                    orderItemRepository.findSaleLinesSince(OrderStatus.COMPLETED, since.atStartOfDay())
+                            .forEach(line -> addTo(freshDaily, line));
+                });
+
+                int recorded;
+                synchronized (this) {
+                    // Đơn hoàn tất trong lúc truy vấn chưa có trong kết quả nên được cộng lại vào bản mới trước khi thay
+                    // (đơn hoàn tất đúng lúc bắt đầu có thể bị tính hai lần, lần dựng lại sau sẽ sửa)
+                    recorded = linesDuringRebuild.size();
+                    for (BookSaleLine line : linesDuringRebuild) {
+                        freshAllTime.merge(line.getBookId(), (long) line.getQuantity(), Long::sum);
+                        addTo(freshDaily, line);
+                    }
+                    allTime = freshAllTime;
+                    daily = freshDaily;
+                    today = rebuildDay;
+                    rollDay();
+                    pruneDaily();
+                    version++;
+                    snapshot = null;
+                    ready = true;
+                }
+                log.info("Best-seller ranking built: {} books ({} sale lines replayed) in {} ms",
+                        freshAllTime.size(), recorded, System.currentTimeMillis() - start);
+                return freshAllTime.size();
+            } finally {
+                synchronized (this) {
+                    rebuilding = false;
+                    linesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    // Cộng số lượng của đơn vừa hoàn tất vào bảng xếp hạng (và vào lần dựng lại đang chạy nếu có)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCompleted(OrderCompletedEvent event) {
+        if (!ready && !rebuilding) {
+            return;
+        }
+        try {
+            List<BookSaleLine> lines = orderItemRepository.findSaleLinesByOrderId(event.orderId());
+            synchronized (this) {
+                if (linesDuringRebuild != null) {
+                    linesDuringRebuild.addAll(lines);
+                }
+                if (!ready) {
+                    return;
+                }
+                rollDay();
+                for (BookSaleLine line : lines) {
+                    allTime.merge(line.getBookId(), (long) line.getQuantity(), Long::sum);
+                    addTo(daily, line);
+                }
+                pruneDaily();
+                version++;
+                snapshot = null;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update best-seller ranking for order {}: {}", event.orderId(), e.getMessage());
+        }
+    }
+
+    // Lấy top N sách bán chạy trong cửa sổ thời gian cho trước
+    public List<RankedBook> top(Window window, int limit) {
+        if (!ready) {
+            rebuildRequested.set(true);
+            return topFromDatabase(window, limit);
+        }
+        List<RankedBook> ranking = currentSnapshot().rankings().get(window);
+        return ranking.subList(0, Math.min(Math.max(limit, 0), ranking.size()));
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.version() == version()) {
+            return current;
+        }
+        synchronized (this) {
+            rollDay();
+            if (snapshot == null || snapshot.version() != version) {
+                Map<Window, List<RankedBook>> rankings = new EnumMap<>(Window.class);
+                rankings.put(Window.ALL_TIME, sorted(allTime));
+                rankings.put(Window.LAST_7_DAYS, sorted(sumDays(Window.LAST_7_DAYS.days)));
+                rankings.put(Window.LAST_30_DAYS, sorted(sumDays(Window.LAST_30_DAYS.days)));
+                snapshot = new Snapshot(version, rankings);
+            }
+            return snapshot;
+        }
+    }
+
+    private List<RankedBook> topFromDatabase(Window window, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PageRequest page = PageRequest.of(0, limit);
+        List<BookSalesTotal> totals = window == Window.ALL_TIME
+                ? orderItemRepository.findTopSellers(OrderStatus.COMPLETED, page)
+                : orderItemRepository.findTopSellersSince(OrderStatus.COMPLETED,
+                        LocalDate.now().minusDays(window.days - 1).atStartOfDay(), page);
+        return totals.stream()
+                .map(total -> new RankedBook(total.getBookId(), total.getQuantity()))
+                .toList();
+    }
+
+    private Map<UUID, Long> sumDays(int days) {
+        Map<UUID, Long> totals = new HashMap<>();
+        daily.tailMap(today.minusDays(days - 1), true)
+                .values()
+                .forEach(bucket -> bucket.forEach((bookId, quantity) -> totals.merge(bookId, quantity, Long::sum)));
+        return totals;
+    }
+
+    // Sang ngày mới thì bỏ các ngày nằm ngoài cửa sổ lớn nhất và đổi phiên bản
+    private void rollDay() {
+        LocalDate now = LocalDate.now();
+        if (!now.equals(today)) {
+            today = now;
+            pruneDaily();
+            version++;
+        }
+    }
+
+    private void pruneDaily() {
+        daily.headMap(today.minusDays(MAX_WINDOW_DAYS - 1), false).clear();
+    }
+
+    private static void addTo(NavigableMap<LocalDate, Map<UUID, Long>> buckets, BookSaleLine line) {
+        buckets.computeIfAbsent(line.getOrderDate().toLocalDate(), day -> new HashMap<>())
+                .merge(line.getBookId(), (long) line.getQuantity(), Long::sum);
+    }
+
+    private static List<RankedBook> sorted(Map<UUID, Long> totals) {
+        List<RankedBook> ranking = new ArrayList<>(totals.size());
+        totals.forEach((bookId, quantity) -> {
+            if (quantity > 0) {
+                ranking.add(new RankedBook(bookId, quantity));
+            }
+        });
+        ranking.sort(RankedBook.RANK_ORDER);
+        return List.copyOf(ranking);
+    }
+}
@@ -0,0 +1,241 @@
+package com.notfound.bookstore.recommendation;
+
+import com.notfound.bookstore.event.OrderCompletedEvent;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.BookSaleLine;
+import com.notfound.bookstore.model.projection.OrderBookView;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.OrderItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Danh sách sách liên quan được tính trước cho từng sách (tối đa top-K).
+ * Điểm dựa trên số đơn mua cùng nhau, số tác giả chung và số thể loại chung; bằng điểm thì ưu tiên sách bán chạy hơn.
+ * Toàn bộ danh sách được tính lại định kỳ bằng fork/join; đơn mới hoàn tất chỉ tính lại các sách trong đơn đó.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RelatedBooksEngine {
+
+    private static final int CO_PURCHASE_WEIGHT = 5;
+    private static final int AUTHOR_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 1;
+    // Đơn có quá nhiều đầu sách (mua sỉ) không phản ánh sở thích nên bỏ qua khi đếm mua cùng
+    private static final int MAX_BASKET_SIZE = 50;
+    // Chỉ xét các sách bán chạy nhất trong mỗi thể loại để tránh O(n^2) với thể loại lớn
+    private static final int MAX_CATEGORY_CANDIDATES = 200;
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private final BookRepository bookRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${app.recommendations.top-k:12}")
+    private int topK;
+
+    private volatile Model model;
+
+    public boolean isReady() {
+        return model != null;
+    }
+
+    // Lấy ID các sách liên quan đã xếp hạng sẵn; rỗng nếu chưa có dữ liệu cho sách này
+    public List<UUID> relatedTo(UUID bookId, int limit) {
+        Model current = model;
+        if (current == null) {
+            return List.of();
+        }
+        List<UUID> related = current.neighbours.getOrDefault(bookId, List.of());
+        return related.subList(0, Math.min(Math.max(limit, 0), related.size()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to build related books: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.recommendations.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.recommendations.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Failed to rebuild related books: {}", e.getMessage());
+        }
+    }
+
+    // Tính lại toàn bộ danh sách liên quan rồi thay thế bản cũ
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        Model fresh = new Model();
+        orderItemRepository.sumQuantityByBook(OrderStatus.COMPLETED)
+                .forEach(total -> fresh.popularity.put(total.getBookId(), total.getQuantity()));
+        bookRepository.findAllAuthorLinks().forEach(link ->
+                fresh.link(fresh.authorsByBook, fresh.booksByAuthor, link.getBookId(), link.getAuthorId()));
+        bookRepository.findAllCategoryLinks().forEach(link ->
+                fresh.link(fresh.categoriesByBook, fresh.booksByCategory, link.getBookId(), link.getCategoryId()));
+        fresh.trimCategories();
+        countCoPurchases(fresh, orderItemRepository.findOrderBooks(OrderStatus.COMPLETED));
+
+        List<UUID> bookIds = bookRepository.findAllIds();
+        ForkJoinPool.commonPool().invoke(new NeighbourTask(fresh, bookIds, 0, bookIds.size()));
+        model = fresh;
+        log.info("Related books built: {} books in {} ms", bookIds.size(), System.currentTimeMillis() - start);
+        return bookIds.size();
+    }
+
+    // Đơn mới hoàn tất: cộng số lần mua cùng rồi tính lại danh sách của các sách trong đơn
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCompleted(OrderCompletedEvent event) {
+        Model current = model;
+        if (current == null) {
+            return;
+        }
+        try {
+            List<UUID> basket = orderItemRepository.findSaleLinesByOrderId(event.orderId()).stream()
+                    .map(BookSaleLine::getBookId)
+                    .distinct()
+                    .toList();
+            if (basket.size() < 2 || basket.size() > MAX_BASKET_SIZE) {
+                return;
+            }
+            synchronized (current) {
+                addBasket(current, basket);
+                basket.forEach(bookId -> current.neighbours.put(bookId, computeNeighbours(current, bookId)));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update related books for order {}: {}", event.orderId(), e.getMessage());
+        }
+    }
+
+    private void countCoPurchases(Model target, List<OrderBookView> orderBooks) {
+        List<UUID> basket = new ArrayList<>();
+        UUID currentOrder = null;
+        for (OrderBookView row : orderBooks) {
+            if (!row.getOrderId().equals(currentOrder)) {
+                addBasket(target, basket);
+                basket.clear();
+                currentOrder = row.getOrderId();
+            }
+            basket.add(row.getBookId());
+        }
+        addBasket(target, basket);
+    }
+
+    private void addBasket(Model target, List<UUID> basket) {
+        if (basket.size() < 2 || basket.size() > MAX_BASKET_SIZE) {
+            return;
+        }
+        for (UUID bookId : basket) {
+            Map<UUID, Integer> counts = target.coPurchases.computeIfAbsent(bookId, id -> new HashMap<>());
+            for (UUID other : basket) {
+                if (!other.equals(bookId)) {
+                    counts.merge(other, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    private List<UUID> computeNeighbours(Model source, UUID bookId) {
+        Map<UUID, Integer> scores = new HashMap<>();
+        source.coPurchases.getOrDefault(bookId, Map.of())
+                .forEach((other, count) -> scores.merge(other, count * CO_PURCHASE_WEIGHT, Integer::sum));
+        addOverlap(scores, bookId, source.authorsByBook, source.booksByAuthor, AUTHOR_WEIGHT);
+        addOverlap(scores, bookId, source.categoriesByBook, source.booksByCategory, CATEGORY_WEIGHT);
+        scores.remove(bookId);
+
+        // Min-heap giữ top-K: phần tử yếu nhất nằm ở đầu
+        Comparator<Map.Entry<UUID, Integer>> rank = Comparator.<Map.Entry<UUID, Integer>>comparingInt(Map.Entry::getValue)
+                .thenComparingLong(entry -> source.popularity.getOrDefault(entry.getKey(), 0L))
+                .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+        PriorityQueue<Map.Entry<UUID, Integer>> heap = new PriorityQueue<>(topK + 1, rank);
+        for (Map.Entry<UUID, Integer> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > topK) {
+                heap.poll();
+            }
+        }
+        UUID[] ranked = new UUID[heap.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap.poll().getKey();
+        }
+        return List.of(ranked);
+    }
+
+    private static void addOverlap(Map<UUID, Integer> scores, UUID bookId, Map<UUID, Set<UUID>> ownersByBook,
+                                   Map<UUID, List<UUID>> booksByOwner, int weight) {
+        for (UUID ownerId : ownersByBook.getOrDefault(bookId, Set.of())) {
+            for (UUID other : booksByOwner.getOrDefault(ownerId, List.of())) {
+                scores.merge(other, weight, Integer::sum);
+            }
+        }
+    }
+
+    // Dữ liệu của một lần tính; coPurchases chỉ bị sửa trong khối synchronized trên chính model
+    private static final class Model {
+        final Map<UUID, Long> popularity = new HashMap<>();
+        final Map<UUID, Set<UUID>> authorsByBook = new HashMap<>();
+        final Map<UUID, List<UUID>> booksByAuthor = new HashMap<>();
+        final Map<UUID, Set<UUID>> categoriesByBook = new HashMap<>();
+        final Map<UUID, List<UUID>> booksByCategory = new HashMap<>();
+        final Map<UUID, Map<UUID, Integer>> coPurchases = new HashMap<>();
+        final Map<UUID, List<UUID>> neighbours = new ConcurrentHashMap<>();
+
+        void link(Map<UUID, Set<UUID>> ownersByBook, Map<UUID, List<UUID>> booksByOwner, UUID bookId, UUID ownerId) {
+            ownersByBook.computeIfAbsent(bookId, id -> new HashSet<>()).add(ownerId);
+            booksByOwner.computeIfAbsent(ownerId, id -> new ArrayList<>()).add(bookId);
+        }
+
+        void trimCategories() {
+            Comparator<UUID> byPopularity = Comparator.<UUID>comparingLong(id -> popularity.getOrDefault(id, 0L))
+                    .reversed()
+                    .thenComparing(Comparator.naturalOrder());
+            booksByCategory.replaceAll((categoryId, bookIds) -> bookIds.size() <= MAX_CATEGORY_CANDIDATES ? bookIds
+                    : bookIds.stream().sorted(byPopularity).limit(MAX_CATEGORY_CANDIDATES).toList());
+        }
+    }
+
+    // Chia danh sách sách thành các đoạn nhỏ và tính danh sách liên quan song song
+    private final class NeighbourTask extends RecursiveAction {
+        private final Model target;
+        private final List<UUID> bookIds;
+        private final int from;
+        private final int to;
+
+        NeighbourTask(Model target, List<UUID> bookIds, int from, int to) {
+            this.target = target;
+            this.bookIds = bookIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    UUID bookId = bookIds.get(i);
+                    target.neighbours.put(bookId, computeNeighbours(target, bookId));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new NeighbourTask(target, bookIds, from, mid), new NeighbourTask(target, bookIds, mid, to));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.notfound.bookstore.repository;
 
 import com.notfound.bookstore.model.entity.Author;
 import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.model.projection.NamedEntityView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,8 +10,12 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, UUID> {
 
+    // Từ điển tên tác giả khi nhập danh mục
+    @Query("SELECT a.id AS id, a.name AS name FROM Author a")
+    List<NamedEntityView> findAllNames();
 }
@@ -1,19 +1,47 @@
 package com.notfound.bookstore.repository;
 
-import com.notfound.bookstore.model.dto.request.bookrequest.BookWithRating;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
 import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.model.projection.BookAuthorView;
+import com.notfound.bookstore.model.projection.BookRatingAggregate;
+import com.notfound.bookstore.model.projection.BookRatingHistogramView;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.BookFacetView;
+import com.notfound.bookstore.model.projection.BookPriceView;
+import com.notfound.bookstore.model.projection.BookTitleView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 @Repository
-public interface BookRepository extends JpaRepository<Book, UUID> {
+public interface BookRepository extends JpaRepository<Book, UUID>, BookRepositoryCustom {
+
+    // Chỉ chọn các cột của BookSummaryResponse: không nạp description và các collection lazy.
+    // Ảnh chính là ảnh có priority nhỏ nhất (cùng priority thì lấy ảnh có id nhỏ nhất)
+    String BOOK_SUMMARY_SELECT = "SELECT new com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse(" +
+            "b.id, b.title, b.price, b.discountPrice, " +
+            "(SELECT i.url FROM BookImage i WHERE i.id = (" +
+            "SELECT MIN(i2.id) FROM BookImage i2 WHERE i2.book = b AND COALESCE(i2.priority, 1) = (" +
+            "SELECT MIN(COALESCE(i3.priority, 1)) FROM BookImage i3 WHERE i3.book = b))), " +
+            "b.averageRating, b.ratingCount) " +
+            "FROM Book b ";
+
+    // Khớp từ khóa với tên sách, tên tác giả hoặc tên thể loại; dùng EXISTS để không nhân bản dòng
+    String BOOK_KEYWORD_MATCH = "(LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+            "OR EXISTS (SELECT 1 FROM Book ba JOIN ba.authors a WHERE ba = b AND LOWER(a.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+            "OR EXISTS (SELECT 1 FROM Book bc JOIN bc.categories c WHERE bc = b AND LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%'))))";
 
     // Tìm kiếm theo tên sách
     Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
@@ -53,36 +81,67 @@ public interface BookRepository extends JpaRepository<Book, UUID> {
     Page<Book> findByPriceBetween(Double minPrice, Double maxPrice, Pageable pageable);
 
     // Lọc theo đánh giá trung bình
-    @Query("SELECT b FROM Book b LEFT JOIN b.reviews r " +
-            "GROUP BY b.id HAVING AVG(r.rating) >= :minRating")
-    Page<Book> findByAverageRatingGreaterThanEqual(@Param("minRating") Double minRating, Pageable pageable);
+    Page<Book> findByAverageRatingGreaterThanEqual(Double minRating, Pageable pageable);
     
     //Lọc sách có ngày phát hành trong khoảng từ ngày A đến ngày B
     Page<Book> findByPublishDateBetween(LocalDate startDate, LocalDate endDate, Pageable pageable);
 
-    // Lọc sách theo keyword, giá, đánh giá trung bình và ngày phát hành
-    @Query("SELECT b as book, COALESCE(AVG(r.rating), 0) as averageRating, COUNT(r) as reviewCount " +
-            "FROM Book b " +
-            "LEFT JOIN b.reviews r " +
-            "LEFT JOIN b.authors a " +
-            "LEFT JOIN b.categories c " +
-            "WHERE (:keyword IS NULL OR " +
-            "LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(a.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(c.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
-            "AND (:minPrice IS NULL OR b.price >= :minPrice) " +
-            "AND (:maxPrice IS NULL OR b.price <= :maxPrice) " +
-            "AND (:publishedAfter IS NULL OR b.publishDate >= :publishedAfter) " +
-            "GROUP BY b.id " +
-            "HAVING (:minRating IS NULL OR COALESCE(AVG(r.rating), 0) >= :minRating)")
-    Page<BookWithRating> findByFiltersWithRating(
-            @Param("keyword") String keyword,
-            @Param("minPrice") Double minPrice,
-            @Param("maxPrice") Double maxPrice,
-            @Param("minRating") Double minRating,
-            @Param("publishedAfter") LocalDate publishedAfter,
-            Pageable pageable
-    );
+    // Danh sách sách dạng tóm tắt, sắp xếp theo Sort của pageable
+    @Query(value = BOOK_SUMMARY_SELECT, countQuery = "SELECT COUNT(b) FROM Book b")
+    Page<BookSummaryResponse> findAllSummaries(Pageable pageable);
+
+    @Query("SELECT b.id AS id, b.price AS price, b.discountPrice AS discountPrice FROM Book b WHERE b.id IN :ids")
+    List<BookPriceView> findPricesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Như findAllSummaries nhưng không chạy truy vấn COUNT (đọc size + 1 dòng để biết còn trang sau)
+    @Query(BOOK_SUMMARY_SELECT)
+    Slice<BookSummaryResponse> findAllSummariesSlice(Pageable pageable);
+
+    // Sách thuộc một trong các thể loại (ví dụ một thể loại và mọi thể loại con), dùng EXISTS để không nhân bản dòng
+    @Query(value = BOOK_SUMMARY_SELECT + "WHERE EXISTS (SELECT 1 FROM Book bc JOIN bc.categories c WHERE bc = b AND c.id IN :categoryIds)",
+            countQuery = "SELECT COUNT(DISTINCT b) FROM Book b JOIN b.categories c WHERE c.id IN :categoryIds")
+    Page<BookSummaryResponse> findSummariesByCategoryIds(@Param("categoryIds") Collection<UUID> categoryIds, Pageable pageable);
+
+    // Sách áp dụng của một khuyến mãi, phân trang (khuyến mãi có thể áp dụng cho hàng nghìn sách)
+    @Query(value = BOOK_SUMMARY_SELECT + "WHERE EXISTS (SELECT 1 FROM Promotion p JOIN p.applicableBooks pb " +
+            "WHERE p.promotionID = :promotionId AND pb = b)",
+            countQuery = "SELECT COUNT(b) FROM Promotion p JOIN p.applicableBooks b WHERE p.promotionID = :promotionId")
+    Page<BookSummaryResponse> findSummariesByPromotionId(@Param("promotionId") UUID promotionId, Pageable pageable);
+
+    // Nạp nhiều sách kèm tác giả, thể loại và ảnh. Ba collection đều là List (bag) nên không thể fetch join cùng lúc:
+    // mỗi truy vấn nạp một collection, persistence context gộp kết quả vào cùng các entity Book.
+    @EntityGraph(attributePaths = "authors")
+    List<Book> findWithAuthorsByIdIn(Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = "categories")
+    List<Book> findWithCategoriesByIdIn(Collection<UUID> ids);
+
+    @EntityGraph(attributePaths = "images")
+    List<Book> findWithImagesByIdIn(Collection<UUID> ids);
+
+    // Sách đang giảm giá dạng tóm tắt, giảm nhiều nhất (theo phần trăm) trước
+    @Query(BOOK_SUMMARY_SELECT + "WHERE b.discountPrice IS NOT NULL AND b.discountPrice < b.price " +
+            "ORDER BY (b.price - b.discountPrice) / b.price DESC, b.createdAt DESC")
+    List<BookSummaryResponse> findDiscountedSummaries(Pageable pageable);
+
+    // Sách dạng tóm tắt theo danh sách ID (thứ tự không xác định)
+    @Query(BOOK_SUMMARY_SELECT + "WHERE b.id IN :ids")
+    List<BookSummaryResponse> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Tìm kiếm tổng hợp theo tên sách, tác giả hoặc thể loại (dạng tóm tắt)
+    @Query(value = BOOK_SUMMARY_SELECT + "WHERE " + BOOK_KEYWORD_MATCH,
+            countQuery = "SELECT COUNT(b) FROM Book b WHERE " + BOOK_KEYWORD_MATCH)
+    Page<BookSummaryResponse> searchBookSummaries(@Param("keyword") String keyword, Pageable pageable);
+
+    @Query(BOOK_SUMMARY_SELECT + "WHERE " + BOOK_KEYWORD_MATCH)
+    Slice<BookSummaryResponse> searchBookSummariesSlice(@Param("keyword") String keyword, Pageable pageable);
+
+    @Query("SELECT COUNT(b) FROM Book b WHERE " + BOOK_KEYWORD_MATCH)
+    long countByKeyword(@Param("keyword") String keyword);
+
+    // ID sách khớp từ khóa bằng LIKE (khi chỉ mục tìm kiếm trong bộ nhớ chưa dựng được)
+    @Query("SELECT b.id FROM Book b WHERE " + BOOK_KEYWORD_MATCH)
+    List<UUID> findIdsByKeyword(@Param("keyword") String keyword);
 
     //Tìm theo nhiều categories
     @Query("SELECT DISTINCT b FROM Book b JOIN b.categories c WHERE c.id IN :categoryIds")
@@ -120,11 +179,93 @@ public interface BookRepository extends JpaRepository<Book, UUID> {
     Page<Book> findAllByOrderByTitleDesc(Pageable pageable);
 
     // Sắp xếp theo đánh giá trung bình giảm dần (cao → thấp)
-    @Query("SELECT b FROM Book b LEFT JOIN b.reviews r GROUP BY b.id ORDER BY AVG(r.rating) DESC")
+    @Query("SELECT b FROM Book b ORDER BY b.averageRating DESC, b.ratingCount DESC")
     Page<Book> findAllOrderByAverageRatingDesc(Pageable pageable);
 
     // Sắp xếp theo đánh giá trung bình tăng dần (thấp → cao)
-    @Query("SELECT b FROM Book b LEFT JOIN b.reviews r GROUP BY b.id ORDER BY AVG(r.rating) ASC")
+    @Query("SELECT b FROM Book b ORDER BY b.averageRating ASC, b.ratingCount ASC")
     Page<Book> findAllOrderByAverageRatingAsc(Pageable pageable);
 
+    // Dữ liệu dựng chỉ mục tìm kiếm: chỉ lấy các cột cần thiết, không nạp entity
+    @Query("SELECT b.id AS id, b.title AS title FROM Book b")
+    List<BookTitleView> findAllTitles();
+
+    @Query("SELECT b.id FROM Book b")
+    List<UUID> findAllIds();
+
+    // ISBN đã có, dùng để loại sách trùng khi nhập danh mục
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IS NOT NULL")
+    List<String> findAllIsbns();
+
+    // Phân bố số sao của một sách (đọc từ các cột tổng hợp, không quét bảng reviews)
+    @Query("SELECT b.averageRating AS averageRating, b.ratingCount AS ratingCount, b.rating1Count AS rating1Count, " +
+            "b.rating2Count AS rating2Count, b.rating3Count AS rating3Count, b.rating4Count AS rating4Count, " +
+            "b.rating5Count AS rating5Count FROM Book b WHERE b.id = :bookId")
+    Optional<BookRatingHistogramView> findRatingHistogramById(@Param("bookId") UUID bookId);
+
+    // Dữ liệu dựng bộ lọc theo facet, sắp theo thời điểm tạo
+    @Query("SELECT b.id AS id, b.price AS price, b.averageRating AS averageRating, b.publishDate AS publishDate " +
+            "FROM Book b ORDER BY b.createdAt, b.id")
+    List<BookFacetView> findAllFacetRows();
+
+    @Query("SELECT b.id AS id, b.price AS price, b.averageRating AS averageRating, b.publishDate AS publishDate " +
+            "FROM Book b WHERE b.id = :bookId")
+    Optional<BookFacetView> findFacetRowById(@Param("bookId") UUID bookId);
+
+    @Query("SELECT b.id AS bookId, a.id AS authorId, a.name AS authorName FROM Book b JOIN b.authors a")
+    List<BookAuthorView> findAllAuthorLinks();
+
+    @Query("SELECT b.id AS bookId, c.id AS categoryId, c.name AS categoryName FROM Book b JOIN b.categories c")
+    List<BookCategoryView> findAllCategoryLinks();
+
+    // Liên kết sách - thể loại gom theo sách (đếm số sách của từng nhánh trong CategoryTree)
+    @Query("SELECT b.id AS bookId, c.id AS categoryId, c.name AS categoryName FROM Book b JOIN b.categories c ORDER BY b.id")
+    List<BookCategoryView> findAllCategoryLinksOrderByBook();
+
+    @Query("SELECT b.id AS id, b.title AS title FROM Book b WHERE b.id = :bookId")
+    Optional<BookTitleView> findTitleById(@Param("bookId") UUID bookId);
+
+    @Query("SELECT b.id AS bookId, a.id AS authorId, a.name AS authorName FROM Book b JOIN b.authors a WHERE b.id = :bookId")
+    List<BookAuthorView> findAuthorLinksByBookId(@Param("bookId") UUID bookId);
+
+    @Query("SELECT b.id AS bookId, c.id AS categoryId, c.name AS categoryName FROM Book b JOIN b.categories c WHERE b.id = :bookId")
+    List<BookCategoryView> findCategoryLinksByBookId(@Param("bookId") UUID bookId);
+
+    // Cộng một đánh giá mới vào tổng hợp của sách trong một câu UPDATE (không mất cập nhật khi ghi đồng thời).
+    // averageRating được gán trước để dùng giá trị cũ của ratingSum/ratingCount trên mọi CSDL
+    @Modifying
+    @Query("UPDATE Book b SET " +
+            "b.averageRating = (b.ratingSum + :rating) * 1.0 / (b.ratingCount + 1), " +
+            "b.ratingSum = b.ratingSum + :rating, " +
+            "b.ratingCount = b.ratingCount + 1, " +
+            "b.rating1Count = b.rating1Count + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+            "b.rating2Count = b.rating2Count + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+            "b.rating3Count = b.rating3Count + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+            "b.rating4Count = b.rating4Count + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+            "b.rating5Count = b.rating5Count + CASE WHEN :rating = 5 THEN 1 ELSE 0 END, " +
+            "b.updatedAt = :now " +
+            "WHERE b.id = :bookId")
+    int addRating(@Param("bookId") UUID bookId, @Param("rating") int rating, @Param("now") LocalDateTime now);
+
+    // Tính lại tổng hợp đánh giá của một sách trực tiếp từ bảng reviews
+    @Modifying
+    @Query("UPDATE Book b SET " +
+            "b.averageRating = COALESCE((SELECT AVG(r.rating * 1.0) FROM Review r WHERE r.book.id = b.id), 0), " +
+            "b.ratingSum = COALESCE((SELECT SUM(r.rating) FROM Review r WHERE r.book.id = b.id), 0), " +
+            "b.ratingCount = (SELECT COUNT(r) FROM Review r WHERE r.book.id = b.id), " +
+            "b.rating1Count = (SELECT COUNT(r) FROM Review r WHERE r.book.id = b.id AND r.rating = 1), " +
+            "b.rating2Count = (SELECT COUNT(r) FROM Review r WHERE r.book.id = b.id AND r.rating = 2), " +
+            "b.rating3Count = (SELECT COUNT(r) FROM Review r WHERE r.book.id = b.id AND r.rating = 3), " +
+            "b.rating4Count = (SELECT COUNT(r) FROM Review r WHERE r.book.id = b.id AND r.rating = 4), " +
+            "b.rating5Count = (SELECT COUNT(r) FROM Review r WHERE r.book.id = b.id AND r.rating = 5) " +
+            "WHERE b.id = :bookId")
+    int recalculateRating(@Param("bookId") UUID bookId);
+
+    // Tổng hợp đánh giá đang lưu trên các sách đã có đánh giá
+    @Query("SELECT b.id AS bookId, b.ratingCount AS ratingCount, b.ratingSum AS ratingSum, " +
+            "b.rating1Count AS rating1Count, b.rating2Count AS rating2Count, b.rating3Count AS rating3Count, " +
+            "b.rating4Count AS rating4Count, b.rating5Count AS rating5Count " +
+            "FROM Book b WHERE b.ratingCount > 0 OR b.ratingSum <> 0")
+    List<BookRatingAggregate> findStoredRatingAggregates();
+
 }
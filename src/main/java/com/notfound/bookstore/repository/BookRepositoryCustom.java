@@ -0,0 +1,23 @@
+package com.notfound.bookstore.repository;
+
+import com.notfound.bookstore.model.projection.BookExportRow;
+import com.notfound.bookstore.model.projection.BookSortKey;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface BookRepositoryCustom {
+
+    // Lấy tối đa limit sách nằm sau vị trí con trỏ (khóa sắp xếp, id) theo thứ tự sắp xếp, không dùng OFFSET và COUNT
+    List<BookSortKey> findSortKeysAfter(BookScrollCriteria criteria, int limit);
+
+    // Một trang ID sách thỏa điều kiện lọc (mới tạo trước) kèm tổng số, dùng khi chỉ mục facet chưa sẵn sàng
+    Page<UUID> findIdsByCriteria(BookScrollCriteria criteria, Pageable pageable);
+
+    // Duyệt toàn bộ sách theo id bằng cursor chỉ đi tiến, mỗi lần lấy fetchSize dòng; trả về số dòng đã đọc
+    long streamExportRows(int fetchSize, Consumer<BookExportRow> consumer);
+}
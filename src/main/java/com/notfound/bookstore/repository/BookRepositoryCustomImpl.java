@@ -0,0 +1,197 @@
+package com.notfound.bookstore.repository;
+
+import com.notfound.bookstore.model.entity.Author;
+import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.model.entity.Category;
+import com.notfound.bookstore.model.projection.BookExportRow;
+import com.notfound.bookstore.model.projection.BookSortKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    // Cột sắp xếp có thể null; các giá trị null luôn được xếp cuối
+    private static final String NULLABLE_SORT_PROPERTY = "publishDate";
+
+    // Chỉ chọn cột (không chọn entity) nên không có gì bị giữ lại trong persistence context khi duyệt
+    private static final String EXPORT_QUERY = "SELECT b.id, b.title, b.isbn, b.price, b.discountPrice, b.stockQuantity, " +
+            "b.publishDate, b.status, b.averageRating, b.ratingCount, a.id, a.name, c.id, c.name " +
+            "FROM Book b LEFT JOIN b.authors a LEFT JOIN b.categories c ORDER BY b.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public long streamExportRows(int fetchSize, Consumer<BookExportRow> consumer) {
+        long count = 0;
+        try (ScrollableResults<Object[]> rows = entityManager.unwrap(Session.class)
+                .createSelectionQuery(EXPORT_QUERY, Object[].class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Object[] row = rows.get();
+                consumer.accept(new BookExportRow((UUID) row[0], (String) row[1], (String) row[2], (Double) row[3],
+                        (Double) row[4], (Integer) row[5], (LocalDate) row[6], row[7] != null ? row[7].toString() : null,
+                        (Double) row[8], (Integer) row[9], (UUID) row[10], (String) row[11], (UUID) row[12],
+                        (String) row[13]));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public List<BookSortKey> findSortKeysAfter(BookScrollCriteria criteria, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+        Path<Comparable<Object>> key = book.get(criteria.sortProperty());
+        Path<UUID> id = book.get("id");
+        boolean nullableKey = NULLABLE_SORT_PROPERTY.equals(criteria.sortProperty());
+
+        List<Predicate> predicates = filterPredicates(cb, query, book, criteria);
+        if (criteria.afterId() != null) {
+            predicates.add(afterCursor(cb, key, id, criteria, nullableKey));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        if (nullableKey) {
+            orders.add(cb.asc(cb.selectCase().when(cb.isNull(key), 1).otherwise(0)));
+        }
+        orders.add(criteria.ascending() ? cb.asc(key) : cb.desc(key));
+        orders.add(cb.asc(id));
+
+        query.multiselect(id, key)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> new BookSortKey(tuple.get(0, UUID.class), tuple.get(1)))
+                .toList();
+    }
+
+    @Override
+    public Page<UUID> findIdsByCriteria(BookScrollCriteria criteria, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<Book> book = query.from(Book.class);
+        // Cùng thứ tự với BookFacetIndex.filter để kết quả không đổi khi chỉ mục sẵn sàng trở lại
+        query.select(book.get("id"))
+                .where(filterPredicates(cb, query, book, criteria).toArray(Predicate[]::new))
+                .orderBy(cb.desc(book.get("createdAt")), cb.desc(book.get("id")));
+        List<UUID> ids = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Book> countBook = countQuery.from(Book.class);
+        countQuery.select(cb.count(countBook))
+                .where(filterPredicates(cb, countQuery, countBook, criteria).toArray(Predicate[]::new));
+        return PageableExecutionUtils.getPage(ids, pageable, () -> entityManager.createQuery(countQuery).getSingleResult());
+    }
+
+    // (key, id) nằm sau con trỏ: khóa lớn hơn/nhỏ hơn, hoặc bằng khóa và id lớn hơn
+    private Predicate afterCursor(CriteriaBuilder cb, Path<Comparable<Object>> key, Path<UUID> id,
+                                  BookScrollCriteria criteria, boolean nullableKey) {
+        Predicate sameKeyAfterId = cb.greaterThan(id, criteria.afterId());
+        if (criteria.afterKey() == null) {
+            // Con trỏ đã ở vùng giá trị null (cuối danh sách)
+            return cb.and(cb.isNull(key), sameKeyAfterId);
+        }
+
+        @SuppressWarnings("unchecked")
+        Comparable<Object> afterKey = (Comparable<Object>) criteria.afterKey();
+        Predicate beyondKey = criteria.ascending()
+                ? cb.greaterThan(key, afterKey)
+                : cb.lessThan(key, afterKey);
+        Predicate afterInSameKey = cb.and(cb.equal(key, afterKey), sameKeyAfterId);
+        Predicate result = cb.or(beyondKey, afterInSameKey);
+        return nullableKey ? cb.or(result, cb.isNull(key)) : result;
+    }
+
+    private List<Predicate> filterPredicates(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Book> book,
+                                             BookScrollCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.bookIds() != null) {
+            predicates.add(book.get("id").in(criteria.bookIds()));
+        }
+        if (StringUtils.hasText(criteria.keyword())) {
+            predicates.add(keywordPredicate(cb, query, book, criteria.keyword().trim().toLowerCase()));
+        }
+        if (criteria.minPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(book.get("price"), criteria.minPrice()));
+        }
+        if (criteria.maxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(book.get("price"), criteria.maxPrice()));
+        }
+        if (criteria.minRating() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(book.get("averageRating"), criteria.minRating()));
+        }
+        if (criteria.publishedAfter() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(book.get("publishDate"), criteria.publishedAfter()));
+        }
+        if (!CollectionUtils.isEmpty(criteria.categoryIds())) {
+            predicates.add(cb.exists(linkedTo(cb, query, book, "categories", criteria.categoryIds())));
+        }
+        if (!CollectionUtils.isEmpty(criteria.authorIds())) {
+            predicates.add(cb.exists(linkedTo(cb, query, book, "authors", criteria.authorIds())));
+        }
+        return predicates;
+    }
+
+    // Sách thuộc ít nhất một trong các thể loại/tác giả đã chọn; EXISTS để không nhân bản dòng khi join
+    private Subquery<Integer> linkedTo(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Book> book,
+                                       String association, Collection<UUID> ownerIds) {
+        Subquery<Integer> match = query.subquery(Integer.class);
+        Root<Book> linkedBook = match.from(Book.class);
+        Join<Book, ?> owner = linkedBook.join(association);
+        match.select(cb.literal(1))
+                .where(cb.equal(linkedBook, book), owner.get("id").in(ownerIds));
+        return match;
+    }
+
+    // Giống BookRepository.searchBooks nhưng dùng EXISTS để không nhân bản dòng khi join
+    private Predicate keywordPredicate(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Book> book, String keyword) {
+        String pattern = "%" + keyword + "%";
+
+        Subquery<Integer> authorMatch = query.subquery(Integer.class);
+        Root<Book> authorBook = authorMatch.from(Book.class);
+        Join<Book, Author> author = authorBook.join("authors");
+        authorMatch.select(cb.literal(1))
+                .where(cb.equal(authorBook, book), cb.like(cb.lower(author.get("name")), pattern));
+
+        Subquery<Integer> categoryMatch = query.subquery(Integer.class);
+        Root<Book> categoryBook = categoryMatch.from(Book.class);
+        Join<Book, Category> category = categoryBook.join("categories");
+        categoryMatch.select(cb.literal(1))
+                .where(cb.equal(categoryBook, book), cb.like(cb.lower(category.get("name")), pattern));
+
+        return cb.or(
+                cb.like(cb.lower(book.get("title")), pattern),
+                cb.exists(authorMatch),
+                cb.exists(categoryMatch)
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package com.notfound.bookstore.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Điều kiện cho truy vấn phân trang keyset trên bảng books.
+ * afterId == null nghĩa là trang đầu tiên; bookIds == null nghĩa là không giới hạn theo danh sách ID.
+ * categoryIds/authorIds rỗng hoặc null nghĩa là không lọc; có giá trị thì sách chỉ cần thuộc một trong số đó.
+ */
+public record BookScrollCriteria(
+        String sortProperty,
+        boolean ascending,
+        Object afterKey,
+        UUID afterId,
+        Collection<UUID> bookIds,
+        String keyword,
+        Double minPrice,
+        Double maxPrice,
+        Double minRating,
+        LocalDate publishedAfter,
+        Collection<UUID> categoryIds,
+        Collection<UUID> authorIds
+) {
+}
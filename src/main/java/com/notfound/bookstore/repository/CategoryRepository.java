@@ -2,11 +2,14 @@ package com.notfound.bookstore.repository;
 
 import com.notfound.bookstore.model.entity.Book;
 import com.notfound.bookstore.model.entity.Category;
+import com.notfound.bookstore.model.projection.CategoryNodeView;
+import com.notfound.bookstore.model.projection.NamedEntityView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 @Repository
@@ -15,6 +18,14 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     boolean existsByName(String name);
     Optional<Category> findByName(String name);
 
+    // Từ điển tên thể loại khi nhập danh mục
+    @Query("SELECT c.id AS id, c.name AS name FROM Category c")
+    List<NamedEntityView> findAllNames();
+
+    // Toàn bộ cây thể loại, không nạp entity
+    @Query("SELECT c.id AS id, c.name AS name, p.id AS parentId FROM Category c LEFT JOIN c.parentCategory p")
+    List<CategoryNodeView> findAllNodes();
+
     // Kiểm tra category có sách không (để xóa)
     @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Book b JOIN b.categories c WHERE c.id = :categoryId")
     boolean hasBooks(@Param("categoryId") UUID categoryId);
@@ -3,11 +3,17 @@ package com.notfound.bookstore.repository;
 import com.notfound.bookstore.model.entity.CartItem;
 import com.notfound.bookstore.model.entity.Order;
 import com.notfound.bookstore.model.entity.OrderItem;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.BookSaleLine;
+import com.notfound.bookstore.model.projection.BookSalesTotal;
+import com.notfound.bookstore.model.projection.OrderBookView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -34,4 +40,35 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, UUID> {
     // Tổng revenue của một book
     @Query("SELECT COALESCE(SUM(oi.subtotal), 0) FROM OrderItem oi WHERE oi.book.id = :bookId")
     Double getTotalRevenueByBook(@Param("bookId") UUID bookId);
+
+    // Tổng số lượng đã bán theo từng sách (chỉ tính đơn có trạng thái cho trước)
+    @Query("SELECT oi.book.id AS bookId, SUM(oi.quantity) AS quantity FROM OrderItem oi " +
+            "WHERE oi.order.status = :status GROUP BY oi.book.id")
+    List<BookSalesTotal> sumQuantityByBook(@Param("status") OrderStatus status);
+
+    // Top sách bán chạy tính thẳng trong CSDL, dùng khi bảng xếp hạng trong bộ nhớ chưa dựng được
+    @Query("SELECT oi.book.id AS bookId, SUM(oi.quantity) AS quantity FROM OrderItem oi " +
+            "WHERE oi.order.status = :status GROUP BY oi.book.id ORDER BY SUM(oi.quantity) DESC, oi.book.id")
+    List<BookSalesTotal> findTopSellers(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query("SELECT oi.book.id AS bookId, SUM(oi.quantity) AS quantity FROM OrderItem oi JOIN oi.order o " +
+            "WHERE o.status = :status AND o.orderDate >= :since GROUP BY oi.book.id " +
+            "ORDER BY SUM(oi.quantity) DESC, oi.book.id")
+    List<BookSalesTotal> findTopSellersSince(@Param("status") OrderStatus status, @Param("since") LocalDateTime since,
+                                             Pageable pageable);
+
+    // Các dòng bán hàng kể từ một thời điểm, dùng để dựng bảng xếp hạng theo ngày
+    @Query("SELECT oi.book.id AS bookId, o.orderDate AS orderDate, oi.quantity AS quantity " +
+            "FROM OrderItem oi JOIN oi.order o WHERE o.status = :status AND o.orderDate >= :since")
+    List<BookSaleLine> findSaleLinesSince(@Param("status") OrderStatus status, @Param("since") LocalDateTime since);
+
+    // Các dòng bán hàng của một đơn
+    @Query("SELECT oi.book.id AS bookId, o.orderDate AS orderDate, oi.quantity AS quantity " +
+            "FROM OrderItem oi JOIN oi.order o WHERE o.orderID = :orderId")
+    List<BookSaleLine> findSaleLinesByOrderId(@Param("orderId") UUID orderId);
+
+    // Các cặp (đơn hàng, sách) đã sắp theo đơn, dùng để đếm sách thường được mua cùng nhau
+    @Query("SELECT DISTINCT o.orderID AS orderId, oi.book.id AS bookId FROM OrderItem oi JOIN oi.order o " +
+            "WHERE o.status = :status ORDER BY o.orderID")
+    List<OrderBookView> findOrderBooks(@Param("status") OrderStatus status);
 }
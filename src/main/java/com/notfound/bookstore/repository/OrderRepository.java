@@ -3,6 +3,7 @@ package com.notfound.bookstore.repository;
 import com.notfound.bookstore.model.entity.CartItem;
 import com.notfound.bookstore.model.entity.Order;
 import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.OrderPromotionView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -29,4 +30,9 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 
     // Đếm số orders theo customer
     Long countByCustomerId(UUID customerId);
+
+    // Người đặt và khuyến mãi của đơn (rỗng nếu đơn không dùng khuyến mãi)
+    @Query("SELECT c.username AS username, p.promotionID AS promotionId FROM Order o JOIN o.customer c JOIN o.promotion p " +
+            "WHERE o.orderID = :orderId")
+    Optional<OrderPromotionView> findPromotionUsage(@Param("orderId") UUID orderId);
 }
@@ -2,13 +2,17 @@ package com.notfound.bookstore.repository;
 
 import com.notfound.bookstore.model.entity.Book;
 import com.notfound.bookstore.model.entity.Promotion;
+import com.notfound.bookstore.model.projection.PromotionBookCountView;
+import com.notfound.bookstore.model.projection.PromotionBookView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,4 +41,52 @@ public interface PromotionRepository extends JpaRepository<Promotion, UUID> {
     List<Promotion> findActivePromotionsByBook(@Param("bookId") UUID bookId,
                                                @Param("today") LocalDate today);
 
+    // Sách áp dụng của các khuyến mãi còn có thể dùng (ACTIVE, chưa hết hạn)
+    @Query("SELECT p.promotionID AS promotionId, b.id AS bookId FROM Promotion p JOIN p.applicableBooks b " +
+            "WHERE p.status = 'ACTIVE' AND p.endDate >= :today")
+    List<PromotionBookView> findUsableBookLinks(@Param("today") LocalDate today);
+
+    // Sách áp dụng của cả một trang khuyến mãi trong một truy vấn, không nạp entity Book
+    @Query("SELECT p.promotionID AS promotionId, b.id AS bookId FROM Promotion p JOIN p.applicableBooks b " +
+            "WHERE p.promotionID IN :promotionIds")
+    List<PromotionBookView> findBookLinksByPromotionIds(@Param("promotionIds") Collection<UUID> promotionIds);
+
+    // Số sách áp dụng của cả một trang khuyến mãi; khuyến mãi không có sách nào thì không có dòng
+    @Query("SELECT p.promotionID AS promotionId, COUNT(b) AS bookCount FROM Promotion p JOIN p.applicableBooks b " +
+            "WHERE p.promotionID IN :promotionIds GROUP BY p.promotionID")
+    List<PromotionBookCountView> countBooksByPromotionIds(@Param("promotionIds") Collection<UUID> promotionIds);
+
+    @Query("SELECT b.id FROM Promotion p JOIN p.applicableBooks b WHERE p.promotionID = :promotionId")
+    List<UUID> findApplicableBookIds(@Param("promotionId") UUID promotionId);
+
+    @Query("SELECT p.usageCount FROM Promotion p WHERE p.promotionID = :promotionId")
+    Optional<Integer> findUsageCountById(@Param("promotionId") UUID promotionId);
+
+    // Giữ một lượt dùng: chỉ tăng khi khuyến mãi còn hiệu lực và còn lượt, không cần đọc trước hay khóa dòng
+    @Modifying
+    @Query("UPDATE Promotion p SET p.usageCount = p.usageCount + 1 " +
+            "WHERE p.promotionID = :promotionId AND p.status = 'ACTIVE' AND " +
+            "p.startDate <= :today AND p.endDate >= :today AND p.usageCount < p.usageLimit")
+    int claimUsage(@Param("promotionId") UUID promotionId, @Param("today") LocalDate today);
+
+    // Trả lại lượt dùng (không để số lượt âm)
+    @Modifying
+    @Query("UPDATE Promotion p SET p.usageCount = CASE WHEN p.usageCount > :count THEN p.usageCount - :count ELSE 0 END " +
+            "WHERE p.promotionID = :promotionId")
+    int releaseUsage(@Param("promotionId") UUID promotionId, @Param("count") int count);
+
+    // Khuyến mãi ACTIVE đã qua ngày kết thúc, chờ chuyển sang EXPIRED
+    @Query("SELECT p.promotionID FROM Promotion p WHERE p.status = 'ACTIVE' AND p.endDate < :today")
+    List<UUID> findEndedIds(@Param("today") LocalDate today);
+
+    // Chuyển cả nhóm sang EXPIRED trong một câu UPDATE; điều kiện được kiểm tra lại phòng khi vừa bị sửa
+    @Modifying
+    @Query("UPDATE Promotion p SET p.status = 'EXPIRED' " +
+            "WHERE p.promotionID IN :ids AND p.status = 'ACTIVE' AND p.endDate < :today")
+    int expireEnded(@Param("ids") Collection<UUID> ids, @Param("today") LocalDate today);
+
+    // Khuyến mãi ACTIVE có ngày bắt đầu trong (since, today] và chưa hết hạn
+    @Query("SELECT p.promotionID FROM Promotion p WHERE p.status = 'ACTIVE' AND " +
+            "p.startDate > :since AND p.startDate <= :today AND p.endDate >= :today")
+    List<UUID> findStartedIds(@Param("since") LocalDate since, @Param("today") LocalDate today);
 }
@@ -0,0 +1,47 @@
+package com.notfound.bookstore.repository;
+
+import com.notfound.bookstore.model.entity.PromotionReservation;
+import com.notfound.bookstore.model.projection.PromotionReservationView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Mọi chuyển trạng thái đều là UPDATE có điều kiện trên trạng thái hiện tại:
+ * khi xác nhận, hủy và hết hạn chạy đồng thời, chỉ một thao tác đổi được dòng (trả về 1).
+ */
+@Repository
+public interface PromotionReservationRepository extends JpaRepository<PromotionReservation, UUID> {
+
+    @Modifying
+    @Query("UPDATE PromotionReservation r SET r.status = 'CONFIRMED' " +
+            "WHERE r.reservationID = :reservationId AND r.status = 'RESERVED' AND r.expiresAt >= :now")
+    int confirm(@Param("reservationId") UUID reservationId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PromotionReservation r SET r.status = 'RELEASED', r.activeHold = NULL " +
+            "WHERE r.reservationID = :reservationId AND r.status = 'RESERVED'")
+    int release(@Param("reservationId") UUID reservationId);
+
+    @Modifying
+    @Query("UPDATE PromotionReservation r SET r.status = 'EXPIRED', r.activeHold = NULL " +
+            "WHERE r.reservationID = :reservationId AND r.status = 'RESERVED' AND r.expiresAt < :now")
+    int expire(@Param("reservationId") UUID reservationId, @Param("now") LocalDateTime now);
+
+    // Lượt RESERVED hoặc CONFIRMED (duy nhất nhờ ràng buộc uk_promotion_reservations_active_hold)
+    @Query("SELECT r FROM PromotionReservation r " +
+            "WHERE r.username = :username AND r.promotion.promotionID = :promotionId AND r.activeHold = true")
+    Optional<PromotionReservation> findActiveHold(@Param("username") String username, @Param("promotionId") UUID promotionId);
+
+    @Query("SELECT r.reservationID AS reservationId, r.promotion.promotionID AS promotionId FROM PromotionReservation r " +
+            "WHERE r.status = 'RESERVED' AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<PromotionReservationView> findExpired(@Param("now") LocalDateTime now, Pageable pageable);
+}
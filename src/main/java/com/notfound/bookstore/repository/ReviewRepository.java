@@ -2,6 +2,7 @@ package com.notfound.bookstore.repository;
 
 import com.notfound.bookstore.model.entity.Book;
 import com.notfound.bookstore.model.entity.Review;
+import com.notfound.bookstore.model.projection.BookRatingAggregate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 @Repository
@@ -30,4 +32,14 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
 
     // Đánh giá theo số sao
     Long countByBookIdAndRating(UUID bookId, Integer rating);
+
+    // Tổng hợp đánh giá thực tế theo từng sách (dùng cho backfill và kiểm tra lệch dữ liệu)
+    @Query("SELECT r.book.id AS bookId, COUNT(r) AS ratingCount, SUM(r.rating) AS ratingSum, " +
+            "SUM(CASE WHEN r.rating = 1 THEN 1 ELSE 0 END) AS rating1Count, " +
+            "SUM(CASE WHEN r.rating = 2 THEN 1 ELSE 0 END) AS rating2Count, " +
+            "SUM(CASE WHEN r.rating = 3 THEN 1 ELSE 0 END) AS rating3Count, " +
+            "SUM(CASE WHEN r.rating = 4 THEN 1 ELSE 0 END) AS rating4Count, " +
+            "SUM(CASE WHEN r.rating = 5 THEN 1 ELSE 0 END) AS rating5Count " +
+            "FROM Review r GROUP BY r.book.id")
+    List<BookRatingAggregate> aggregateRatingsByBook();
 }
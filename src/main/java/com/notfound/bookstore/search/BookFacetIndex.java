@@ -0,0 +1,446 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.entity.Author;
+import com.notfound.bookstore.model.entity.Category;
+import com.notfound.bookstore.model.projection.BookAuthorView;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.BookFacetView;
+import com.notfound.bookstore.repository.AuthorRepository;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bộ lọc sách theo facet trong bộ nhớ: mỗi sách có một số thứ tự (ordinal) liên tục,
+ * mỗi thể loại, tác giả, khoảng giá và khoảng đánh giá là một BitSet trên các ordinal đó.
+ * Lọc = AND giữa các facet, OR giữa các giá trị trong cùng facet; số lượng của mỗi facet
+ * được đếm trên tập kết quả khi bỏ chính facet đó (để người dùng thấy các lựa chọn khác còn bao nhiêu sách).
+ * Kết quả trả về theo thứ tự sách mới tạo trước.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookFacetIndex {
+
+    // Ranh giới khoảng giá (VND) và khoảng đánh giá; khoảng i là [bounds[i-1], bounds[i])
+    private static final double[] PRICE_BOUNDS = {50_000, 100_000, 200_000, 500_000};
+    private static final double[] RATING_BOUNDS = {1, 2, 3, 4};
+    private static final int MAX_FACET_VALUES = 20;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookSearchIndex bookSearchIndex;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private FacetData data = new FacetData();
+    private volatile boolean ready;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public record Query(String keyword, Collection<UUID> categoryIds, Collection<UUID> authorIds,
+                        Double minPrice, Double maxPrice, Double minRating, LocalDate publishedAfter) {
+    }
+
+    public record Result(List<UUID> bookIds, long total) {
+    }
+
+    public record FacetValue(String value, String label, long count) {
+    }
+
+    public record Facets(long total, List<FacetValue> categories, List<FacetValue> authors,
+                         List<FacetValue> priceRanges, List<FacetValue> ratings) {
+    }
+
+    private enum Facet {
+        NONE, CATEGORY, AUTHOR, PRICE, RATING
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.error("Failed to build book facet index: {}", e.getMessage());
+        }
+    }
+
+    // Đánh dấu để luồng nền dựng lại chỉ mục; request hiện tại tự trả lời từ CSDL
+    public void requestRebuild() {
+        rebuildRequested.set(true);
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        FacetData fresh = new FacetData();
+        bookRepository.findAllFacetRows().forEach(row -> fresh.putBook(row, List.of(), List.of()));
+        bookRepository.findAllAuthorLinks().forEach(fresh::linkAuthor);
+        bookRepository.findAllCategoryLinks().forEach(fresh::linkCategory);
+
+        lock.writeLock().lock();
+        try {
+            data = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book facet index built: {} books in {} ms", fresh.alive.cardinality(), System.currentTimeMillis() - start);
+    }
+
+    // Gom các thay đổi hàng loạt (ví dụ nhập danh mục) thành một lần dựng lại, không chặn request gây ra thay đổi
+    @Scheduled(fixedDelayString = "${app.facets.rebuild-delay-ms:2000}")
+    public void rebuildIfRequested() {
+        if (!rebuildRequested.getAndSet(false)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.warn("Failed to rebuild facet index: {}", e.getMessage());
+        }
+    }
+
+    // Cập nhật từng phần khi sách, đánh giá, tác giả hoặc thể loại thay đổi
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        try {
+            // Thay đổi hàng loạt: dựng lại toàn bộ ở luồng nền thay vì cập nhật từng phần
+            if (event.entityId() == null) {
+                rebuildRequested.set(true);
+                return;
+            }
+            switch (event.entityType()) {
+                case BOOK, REVIEW -> reindexBook(event.entityId());
+                case AUTHOR -> {
+                    String name = event.action() == CatalogChangedEvent.Action.DELETED ? null
+                            : authorRepository.findById(event.entityId()).map(Author::getName).orElse(null);
+                    withWriteLock(() -> data.renameOwner(data.byAuthor, data.authorNames, event.entityId(), name));
+                }
+                case CATEGORY -> {
+                    String name = event.action() == CatalogChangedEvent.Action.DELETED ? null
+                            : categoryRepository.findById(event.entityId()).map(Category::getName).orElse(null);
+                    withWriteLock(() -> data.renameOwner(data.byCategory, data.categoryNames, event.entityId(), name));
+                }
+                default -> {
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update facet index for {} {}: {}", event.entityType(), event.entityId(), e.getMessage());
+        }
+    }
+
+    private void reindexBook(UUID bookId) {
+        Optional<BookFacetView> row = bookRepository.findFacetRowById(bookId);
+        List<BookAuthorView> authors = row.isPresent() ? bookRepository.findAuthorLinksByBookId(bookId) : List.of();
+        List<BookCategoryView> categories = row.isPresent() ? bookRepository.findCategoryLinksByBookId(bookId) : List.of();
+        withWriteLock(() -> {
+            data.removeBook(bookId);
+            row.ifPresent(view -> data.putBook(view, authors, categories));
+        });
+    }
+
+    // Lấy một trang ID sách thỏa bộ lọc (mới tạo trước) cùng tổng số kết quả
+    public Result filter(Query query, int page, int size) {
+        BitSet keywordBooks = keywordBooks(query.keyword());
+        lock.readLock().lock();
+        try {
+            BitSet matches = data.match(query, keywordBooks, Facet.NONE);
+            List<UUID> bookIds = new ArrayList<>(size);
+            long skip = (long) page * size;
+            for (int ord = matches.length() - 1; ord >= 0 && bookIds.size() < size; ord = matches.previousSetBit(ord - 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    bookIds.add(data.ids.get(ord));
+                }
+            }
+            return new Result(bookIds, matches.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Đếm số sách theo từng thể loại, tác giả, khoảng giá và mức đánh giá cho bộ lọc hiện tại
+    public Facets facets(Query query) {
+        BitSet keywordBooks = keywordBooks(query.keyword());
+        lock.readLock().lock();
+        try {
+            long total = data.match(query, keywordBooks, Facet.NONE).cardinality();
+            List<FacetValue> categories = data.ownerCounts(data.byCategory, data.categoryNames,
+                    data.match(query, keywordBooks, Facet.CATEGORY));
+            List<FacetValue> authors = data.ownerCounts(data.byAuthor, data.authorNames,
+                    data.match(query, keywordBooks, Facet.AUTHOR));
+
+            long[] priceCounts = bucketCounts(data.priceBuckets, data.match(query, keywordBooks, Facet.PRICE));
+            List<FacetValue> priceRanges = new ArrayList<>();
+            for (int i = 0; i < priceCounts.length; i++) {
+                String from = i == 0 ? "0" : String.valueOf((long) PRICE_BOUNDS[i - 1]);
+                String to = i == PRICE_BOUNDS.length ? "" : String.valueOf((long) PRICE_BOUNDS[i]);
+                priceRanges.add(new FacetValue(from + "-" + to, from + " - " + to, priceCounts[i]));
+            }
+
+            // Mức đánh giá dạng "từ N sao trở lên": cộng dồn từ khoảng cao nhất xuống
+            long[] ratingCounts = bucketCounts(data.ratingBuckets, data.match(query, keywordBooks, Facet.RATING));
+            List<FacetValue> ratings = new ArrayList<>();
+            long atLeast = 0;
+            for (int i = ratingCounts.length - 1; i >= 1; i--) {
+                atLeast += ratingCounts[i];
+                String threshold = String.valueOf((int) RATING_BOUNDS[i - 1]);
+                ratings.add(new FacetValue(threshold, threshold + "+", atLeast));
+            }
+            return new Facets(total, categories, authors, priceRanges, ratings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // null nghĩa là không lọc theo từ khóa
+    private BitSet keywordBooks(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return null;
+        }
+        List<UUID> bookIds = keywordBookIds(keyword);
+        lock.readLock().lock();
+        try {
+            BitSet bits = new BitSet();
+            for (UUID bookId : bookIds) {
+                Integer ord = data.ordinals.get(bookId);
+                if (ord != null) {
+                    bits.set(ord);
+                }
+            }
+            return bits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Chỉ mục tìm kiếm chưa sẵn sàng thì tìm bằng LIKE trong CSDL và để luồng nền dựng lại, không dựng trong request
+    private List<UUID> keywordBookIds(String keyword) {
+        if (!bookSearchIndex.isReady()) {
+            bookSearchIndex.requestRebuild();
+            return bookRepository.findIdsByKeyword(keyword.trim());
+        }
+        return bookSearchIndex.search(keyword).stream()
+                .map(BookSearchIndex.SearchHit::bookId)
+                .toList();
+    }
+
+    private static long[] bucketCounts(BitSet[] buckets, BitSet matches) {
+        long[] counts = new long[buckets.length];
+        BitSet scratch = new BitSet();
+        for (int i = 0; i < buckets.length; i++) {
+            scratch.clear();
+            scratch.or(buckets[i]);
+            scratch.and(matches);
+            counts[i] = scratch.cardinality();
+        }
+        return counts;
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Toàn bộ dữ liệu facet; được truy cập dưới khóa của BookFacetIndex
+    private static final class FacetData {
+        final Map<UUID, Integer> ordinals = new HashMap<>();
+        final List<UUID> ids = new ArrayList<>();
+        final BitSet alive = new BitSet();
+        double[] prices = new double[64];
+        double[] ratings = new double[64];
+        long[] publishDays = new long[64];
+        final Map<UUID, BitSet> byCategory = new HashMap<>();
+        final Map<UUID, BitSet> byAuthor = new HashMap<>();
+        final Map<UUID, String> categoryNames = new HashMap<>();
+        final Map<UUID, String> authorNames = new HashMap<>();
+        final BitSet[] priceBuckets = newBuckets(PRICE_BOUNDS);
+        final BitSet[] ratingBuckets = newBuckets(RATING_BOUNDS);
+
+        // Sách đã xóa rồi thêm lại vẫn dùng ordinal cũ; sách mới nhận ordinal lớn nhất
+        void putBook(BookFacetView row, List<BookAuthorView> authors, List<BookCategoryView> categories) {
+            int ord = ordinals.computeIfAbsent(row.getId(), id -> {
+                ids.add(id);
+                return ids.size() - 1;
+            });
+            if (ord >= prices.length) {
+                int capacity = Math.max(prices.length * 2, ord + 1);
+                prices = Arrays.copyOf(prices, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+                publishDays = Arrays.copyOf(publishDays, capacity);
+            }
+            prices[ord] = row.getPrice() != null ? row.getPrice() : 0;
+            ratings[ord] = row.getAverageRating() != null ? row.getAverageRating() : 0;
+            publishDays[ord] = row.getPublishDate() != null ? row.getPublishDate().toEpochDay() : NO_DATE;
+            priceBuckets[bucketOf(PRICE_BOUNDS, prices[ord])].set(ord);
+            ratingBuckets[bucketOf(RATING_BOUNDS, ratings[ord])].set(ord);
+            alive.set(ord);
+            authors.forEach(this::linkAuthor);
+            categories.forEach(this::linkCategory);
+        }
+
+        void linkAuthor(BookAuthorView view) {
+            link(byAuthor, authorNames, view.getBookId(), view.getAuthorId(), view.getAuthorName());
+        }
+
+        void linkCategory(BookCategoryView view) {
+            link(byCategory, categoryNames, view.getBookId(), view.getCategoryId(), view.getCategoryName());
+        }
+
+        void removeBook(UUID bookId) {
+            Integer ord = ordinals.get(bookId);
+            if (ord == null || !alive.get(ord)) {
+                return;
+            }
+            alive.clear(ord);
+            for (BitSet bucket : priceBuckets) {
+                bucket.clear(ord);
+            }
+            for (BitSet bucket : ratingBuckets) {
+                bucket.clear(ord);
+            }
+            byAuthor.values().forEach(bits -> bits.clear(ord));
+            byCategory.values().forEach(bits -> bits.clear(ord));
+        }
+
+        // name == null nghĩa là tác giả/thể loại đã bị xóa
+        void renameOwner(Map<UUID, BitSet> byOwner, Map<UUID, String> names, UUID ownerId, String name) {
+            if (name == null) {
+                byOwner.remove(ownerId);
+                names.remove(ownerId);
+            } else if (names.containsKey(ownerId)) {
+                names.put(ownerId, name);
+            }
+        }
+
+        BitSet match(Query query, BitSet keywordBooks, Facet exclude) {
+            BitSet bits = (BitSet) alive.clone();
+            if (keywordBooks != null) {
+                bits.and(keywordBooks);
+            }
+            if (exclude != Facet.CATEGORY && query.categoryIds() != null && !query.categoryIds().isEmpty()) {
+                bits.and(union(byCategory, query.categoryIds()));
+            }
+            if (exclude != Facet.AUTHOR && query.authorIds() != null && !query.authorIds().isEmpty()) {
+                bits.and(union(byAuthor, query.authorIds()));
+            }
+            if (exclude != Facet.PRICE && (query.minPrice() != null || query.maxPrice() != null)) {
+                bits.and(range(priceBuckets, PRICE_BOUNDS, prices, query.minPrice(), query.maxPrice()));
+            }
+            if (exclude != Facet.RATING && query.minRating() != null) {
+                bits.and(range(ratingBuckets, RATING_BOUNDS, ratings, query.minRating(), null));
+            }
+            if (query.publishedAfter() != null) {
+                long minDay = query.publishedAfter().toEpochDay();
+                for (int ord = bits.nextSetBit(0); ord >= 0; ord = bits.nextSetBit(ord + 1)) {
+                    if (publishDays[ord] == NO_DATE || publishDays[ord] < minDay) {
+                        bits.clear(ord);
+                    }
+                }
+            }
+            return bits;
+        }
+
+        List<FacetValue> ownerCounts(Map<UUID, BitSet> byOwner, Map<UUID, String> names, BitSet matches) {
+            List<FacetValue> counts = new ArrayList<>();
+            BitSet scratch = new BitSet();
+            byOwner.forEach((ownerId, bits) -> {
+                scratch.clear();
+                scratch.or(bits);
+                scratch.and(matches);
+                int count = scratch.cardinality();
+                if (count > 0) {
+                    counts.add(new FacetValue(ownerId.toString(), names.get(ownerId), count));
+                }
+            });
+            counts.sort(Comparator.comparingLong(FacetValue::count).reversed()
+                    .thenComparing(FacetValue::label, Comparator.nullsLast(Comparator.naturalOrder())));
+            return counts.size() > MAX_FACET_VALUES ? List.copyOf(counts.subList(0, MAX_FACET_VALUES)) : counts;
+        }
+
+        private void link(Map<UUID, BitSet> byOwner, Map<UUID, String> names, UUID bookId, UUID ownerId, String name) {
+            Integer ord = ordinals.get(bookId);
+            if (ord == null || !alive.get(ord)) {
+                return;
+            }
+            byOwner.computeIfAbsent(ownerId, id -> new BitSet()).set(ord);
+            names.putIfAbsent(ownerId, name);
+        }
+
+        private static BitSet union(Map<UUID, BitSet> byOwner, Collection<UUID> ownerIds) {
+            BitSet bits = new BitSet();
+            for (UUID ownerId : ownerIds) {
+                BitSet owned = byOwner.get(ownerId);
+                if (owned != null) {
+                    bits.or(owned);
+                }
+            }
+            return bits;
+        }
+
+        // Khoảng nằm trọn trong [min, max] được OR nguyên bitmap; khoảng chỉ giao một phần mới kiểm tra từng sách
+        private static BitSet range(BitSet[] buckets, double[] bounds, double[] values, Double min, Double max) {
+            BitSet bits = new BitSet();
+            for (int i = 0; i < buckets.length; i++) {
+                double low = i == 0 ? Double.NEGATIVE_INFINITY : bounds[i - 1];
+                double high = i == bounds.length ? Double.POSITIVE_INFINITY : bounds[i];
+                if ((max != null && low > max) || (min != null && high <= min)) {
+                    continue;
+                }
+                if ((min == null || low >= min) && (max == null || high <= max)) {
+                    bits.or(buckets[i]);
+                    continue;
+                }
+                BitSet bucket = buckets[i];
+                for (int ord = bucket.nextSetBit(0); ord >= 0; ord = bucket.nextSetBit(ord + 1)) {
+                    if ((min == null || values[ord] >= min) && (max == null || values[ord] <= max)) {
+                        bits.set(ord);
+                    }
+                }
+            }
+            return bits;
+        }
+
+        private static int bucketOf(double[] bounds, double value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value >= bounds[bucket]) {
+                bucket++;
+            }
+            return bucket;
+        }
+
+        private static BitSet[] newBuckets(double[] bounds) {
+            BitSet[] buckets = new BitSet[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new BitSet();
+            }
+            return buckets;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.entity.Author;
+import com.notfound.bookstore.model.entity.Category;
+import com.notfound.bookstore.model.projection.BookAuthorView;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.BookTitleView;
+import com.notfound.bookstore.repository.AuthorRepository;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import com.notfound.bookstore.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Chỉ mục đảo (inverted index) trong bộ nhớ cho tìm kiếm sách theo tên sách, tác giả và thể loại.
+ * Các từ được bỏ dấu tiếng Việt nên "sach" khớp với "sách"; mỗi từ khóa được so khớp theo tiền tố.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    // Trọng số điểm theo trường khớp (khớp trọn từ được cộng thêm 1)
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 1;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+
+    @Value("${app.search.fuzzy-budget-ms:30}")
+    private long fuzzyBudgetMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile IndexData data = new IndexData();
+    private volatile boolean ready;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public record SearchHit(UUID bookId, int score) {
+        // Thứ tự xếp hạng: điểm giảm dần, cùng điểm thì theo ID
+        public static final Comparator<SearchHit> RANK_ORDER =
+                Comparator.comparingInt(SearchHit::score).reversed().thenComparing(SearchHit::bookId);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.error("Failed to build book search index, falling back to database search: {}", e.getMessage());
+        }
+    }
+
+    // Đánh dấu để luồng nền dựng lại chỉ mục; request hiện tại tự tìm trong CSDL
+    public void requestRebuild() {
+        rebuildRequested.set(true);
+    }
+
+    // Dựng lại toàn bộ chỉ mục rồi thay thế bản cũ
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        IndexData fresh = new IndexData();
+        bookRepository.findAllTitles().forEach(view -> fresh.putTitle(view.getId(), view.getTitle()));
+        bookRepository.findAllAuthorLinks().forEach(fresh::linkAuthor);
+        bookRepository.findAllCategoryLinks().forEach(fresh::linkCategory);
+
+        lock.writeLock().lock();
+        try {
+            data = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Book search index built: {} books in {} ms", fresh.books.size(), System.currentTimeMillis() - start);
+    }
+
+    // Gom các thay đổi hàng loạt (ví dụ nhập danh mục) thành một lần dựng lại, không chặn request gây ra thay đổi
+    @Scheduled(fixedDelayString = "${app.search.rebuild-delay-ms:2000}")
+    public void rebuildIfRequested() {
+        if (!rebuildRequested.getAndSet(false)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            rebuildRequested.set(true);
+            log.warn("Failed to rebuild search index: {}", e.getMessage());
+        }
+    }
+
+    // Cập nhật chỉ mục từng phần khi sách, tác giả hoặc thể loại thay đổi
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        try {
+            // Thay đổi hàng loạt: dựng lại toàn bộ ở luồng nền thay vì cập nhật từng phần
+            if (event.entityId() == null) {
+                rebuildRequested.set(true);
+                return;
+            }
+            switch (event.entityType()) {
+                case BOOK -> reindexBook(event.entityId(), event.action());
+                case AUTHOR -> reindexAuthor(event.entityId(), event.action());
+                case CATEGORY -> reindexCategory(event.entityId(), event.action());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to update search index for {} {}: {}", event.entityType(), event.entityId(), e.getMessage());
+        }
+    }
+
+    private void reindexBook(UUID bookId, CatalogChangedEvent.Action action) {
+        if (action == CatalogChangedEvent.Action.DELETED) {
+            withWriteLock(() -> data.removeBook(bookId));
+            return;
+        }
+        String title = bookRepository.findTitleById(bookId).map(BookTitleView::getTitle).orElse(null);
+        List<BookAuthorView> authors = bookRepository.findAuthorLinksByBookId(bookId);
+        List<BookCategoryView> categories = bookRepository.findCategoryLinksByBookId(bookId);
+        withWriteLock(() -> {
+            data.removeBook(bookId);
+            if (title != null) {
+                data.putTitle(bookId, title);
+                authors.forEach(data::linkAuthor);
+                categories.forEach(data::linkCategory);
+            }
+        });
+    }
+
+    private void reindexAuthor(UUID authorId, CatalogChangedEvent.Action action) {
+        String name = action == CatalogChangedEvent.Action.DELETED ? null
+                : authorRepository.findById(authorId).map(Author::getName).orElse(null);
+        withWriteLock(() -> data.renameAuthor(authorId, name));
+    }
+
+    private void reindexCategory(UUID categoryId, CatalogChangedEvent.Action action) {
+        String name = action == CatalogChangedEvent.Action.DELETED ? null
+                : categoryRepository.findById(categoryId).map(Category::getName).orElse(null);
+        withWriteLock(() -> data.renameCategory(categoryId, name));
+    }
+
+    /**
+     * Tìm sách theo từ khóa, trả về danh sách ID đã xếp hạng (điểm cao trước).
+     * Mọi từ trong từ khóa đều phải khớp với tên sách, tên tác giả hoặc tên thể loại.
+     */
+    public List<SearchHit> search(String keyword) {
+        return search(keyword, false);
+    }
+
+    /**
+     * Tìm kiếm chấp nhận lỗi chính tả: mỗi từ khóa dài từ 3 ký tự được khớp thêm với các từ
+     * cách nó 1 lỗi (3-5 ký tự) hoặc 2 lỗi (từ 6 ký tự), điểm giảm theo số lỗi.
+     * Mỗi truy vấn bị giới hạn thời gian (app.search.fuzzy-budget-ms); hết giờ thì dùng các ứng viên đã tìm được.
+     */
+    public List<SearchHit> searchFuzzy(String keyword) {
+        return search(keyword, true);
+    }
+
+    private List<SearchHit> search(String keyword, boolean fuzzy) {
+        List<String> tokens = TextNormalizer.tokenize(keyword);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(fuzzyBudgetMs);
+        Map<UUID, Integer> scores;
+        lock.readLock().lock();
+        try {
+            scores = fuzzy ? data.scoreTokenFuzzy(tokens.get(0), deadline) : data.scoreToken(tokens.get(0));
+            for (int i = 1; i < tokens.size() && !scores.isEmpty(); i++) {
+                Map<UUID, Integer> tokenScores = fuzzy ? data.scoreTokenFuzzy(tokens.get(i), deadline) : data.scoreToken(tokens.get(i));
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((bookId, score) -> score + tokenScores.get(bookId));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<SearchHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((bookId, score) -> hits.add(new SearchHit(bookId, score)));
+        hits.sort(SearchHit.RANK_ORDER);
+        return hits;
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Toàn bộ dữ liệu chỉ mục; được truy cập dưới khóa của BookSearchIndex
+    private static final class IndexData {
+        final Map<UUID, BookDoc> books = new HashMap<>();
+        final Map<UUID, List<String>> authorTerms = new HashMap<>();
+        final Map<UUID, List<String>> categoryTerms = new HashMap<>();
+        final Map<UUID, Set<UUID>> booksByAuthor = new HashMap<>();
+        final Map<UUID, Set<UUID>> booksByCategory = new HashMap<>();
+        // Tất cả các từ của ba trường dưới đây, dùng cho tìm kiếm gần đúng
+        final TermDictionary dictionary = new TermDictionary();
+        // từ -> ID sách / ID tác giả / ID thể loại
+        final TermPostings titlePostings = new TermPostings(dictionary);
+        final TermPostings authorPostings = new TermPostings(dictionary);
+        final TermPostings categoryPostings = new TermPostings(dictionary);
+
+        void putTitle(UUID bookId, String title) {
+            List<String> terms = TextNormalizer.tokenize(title);
+            books.put(bookId, new BookDoc(terms, new HashSet<>(), new HashSet<>()));
+            terms.forEach(term -> titlePostings.add(term, bookId));
+        }
+
+        void linkAuthor(BookAuthorView view) {
+            BookDoc doc = books.get(view.getBookId());
+            if (doc == null) {
+                return;
+            }
+            doc.authorIds().add(view.getAuthorId());
+            booksByAuthor.computeIfAbsent(view.getAuthorId(), id -> new HashSet<>()).add(view.getBookId());
+            if (!authorTerms.containsKey(view.getAuthorId())) {
+                renameAuthor(view.getAuthorId(), view.getAuthorName());
+            }
+        }
+
+        void linkCategory(BookCategoryView view) {
+            BookDoc doc = books.get(view.getBookId());
+            if (doc == null) {
+                return;
+            }
+            doc.categoryIds().add(view.getCategoryId());
+            booksByCategory.computeIfAbsent(view.getCategoryId(), id -> new HashSet<>()).add(view.getBookId());
+            if (!categoryTerms.containsKey(view.getCategoryId())) {
+                renameCategory(view.getCategoryId(), view.getCategoryName());
+            }
+        }
+
+        void removeBook(UUID bookId) {
+            BookDoc doc = books.remove(bookId);
+            if (doc == null) {
+                return;
+            }
+            doc.titleTerms().forEach(term -> titlePostings.remove(term, bookId));
+            doc.authorIds().forEach(authorId -> unlink(booksByAuthor, authorId, bookId));
+            doc.categoryIds().forEach(categoryId -> unlink(booksByCategory, categoryId, bookId));
+        }
+
+        // name == null nghĩa là tác giả đã bị xóa
+        void renameAuthor(UUID authorId, String name) {
+            rename(authorTerms, authorPostings, authorId, name);
+        }
+
+        void renameCategory(UUID categoryId, String name) {
+            rename(categoryTerms, categoryPostings, categoryId, name);
+        }
+
+        Map<UUID, Integer> scoreToken(String token) {
+            Map<UUID, Integer> result = new HashMap<>();
+            titlePostings.forPrefix(token, (term, bookIds) -> {
+                int weight = term.equals(token) ? TITLE_WEIGHT + 1 : TITLE_WEIGHT;
+                bookIds.forEach(bookId -> result.merge(bookId, weight, Math::max));
+            });
+            authorPostings.forPrefix(token, (term, authorIds) -> {
+                int weight = term.equals(token) ? AUTHOR_WEIGHT + 1 : AUTHOR_WEIGHT;
+                authorIds.forEach(authorId -> booksByAuthor.getOrDefault(authorId, Set.of())
+                        .forEach(bookId -> result.merge(bookId, weight, Math::max)));
+            });
+            categoryPostings.forPrefix(token, (term, categoryIds) -> {
+                int weight = term.equals(token) ? CATEGORY_WEIGHT + 1 : CATEGORY_WEIGHT;
+                categoryIds.forEach(categoryId -> booksByCategory.getOrDefault(categoryId, Set.of())
+                        .forEach(bookId -> result.merge(bookId, weight, Math::max)));
+            });
+            return result;
+        }
+
+        Map<UUID, Integer> scoreTokenFuzzy(String token, long deadlineNanos) {
+            Map<UUID, Integer> result = scoreToken(token);
+            int maxDistance = token.length() < 3 ? 0 : token.length() < 6 ? 1 : 2;
+            if (maxDistance == 0) {
+                return result;
+            }
+            for (TermDictionary.Match match : dictionary.similar(token, maxDistance, deadlineNanos)) {
+                if (match.distance() == 0) {
+                    continue;
+                }
+                int penalty = match.distance();
+                titlePostings.forTerm(match.term(), bookIds ->
+                        bookIds.forEach(bookId -> result.merge(bookId, Math.max(1, TITLE_WEIGHT - penalty), Math::max)));
+                authorPostings.forTerm(match.term(), authorIds -> authorIds.forEach(authorId ->
+                        booksByAuthor.getOrDefault(authorId, Set.of())
+                                .forEach(bookId -> result.merge(bookId, Math.max(1, AUTHOR_WEIGHT - penalty), Math::max))));
+                categoryPostings.forTerm(match.term(), categoryIds -> categoryIds.forEach(categoryId ->
+                        booksByCategory.getOrDefault(categoryId, Set.of())
+                                .forEach(bookId -> result.merge(bookId, Math.max(1, CATEGORY_WEIGHT - penalty), Math::max))));
+            }
+            return result;
+        }
+
+        private static void rename(Map<UUID, List<String>> termsById, TermPostings postings, UUID id, String name) {
+            List<String> oldTerms = termsById.remove(id);
+            if (oldTerms != null) {
+                oldTerms.forEach(term -> postings.remove(term, id));
+            }
+            if (name != null) {
+                List<String> terms = TextNormalizer.tokenize(name);
+                termsById.put(id, terms);
+                terms.forEach(term -> postings.add(term, id));
+            }
+        }
+
+        private static void unlink(Map<UUID, Set<UUID>> booksByOwner, UUID ownerId, UUID bookId) {
+            Set<UUID> bookIds = booksByOwner.get(ownerId);
+            if (bookIds != null) {
+                bookIds.remove(bookId);
+                if (bookIds.isEmpty()) {
+                    booksByOwner.remove(ownerId);
+                }
+            }
+        }
+    }
+
+    private record BookDoc(List<String> titleTerms, Set<UUID> authorIds, Set<UUID> categoryIds) {
+    }
+
+    // Danh sách từ đã sắp xếp để tra cứu theo tiền tố
+    private static final class TermPostings {
+        private final NavigableMap<String, Set<UUID>> postings = new TreeMap<>();
+        private final TermDictionary dictionary;
+
+        TermPostings(TermDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        void add(String term, UUID id) {
+            postings.computeIfAbsent(term, t -> {
+                dictionary.add(t);
+                return new HashSet<>();
+            }).add(id);
+        }
+
+        void remove(String term, UUID id) {
+            Set<UUID> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                    dictionary.remove(term);
+                }
+            }
+        }
+
+        void forTerm(String term, Consumer<Set<UUID>> consumer) {
+            Set<UUID> ids = postings.get(term);
+            if (ids != null) {
+                consumer.accept(ids);
+            }
+        }
+
+        void forPrefix(String prefix, BiConsumer<String, Set<UUID>> consumer) {
+            postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).forEach(consumer);
+        }
+    }
+}
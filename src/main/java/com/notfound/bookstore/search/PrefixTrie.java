@@ -0,0 +1,190 @@
+package com.notfound.bookstore.search;
+
+import java.util.*;
+
+/**
+ * Cây tiền tố nén (radix trie) chỉ đọc, lưu hoàn toàn bằng mảng nguyên thủy.
+ * Mỗi nút giữ sẵn top-K chỉ số mục tốt nhất (chỉ số nhỏ hơn = xếp hạng cao hơn) trong cây con của nó,
+ * nên truy vấn chỉ tốn O(độ dài tiền tố) và không phải duyệt cây con.
+ */
+final class PrefixTrie {
+
+    static final PrefixTrie EMPTY = build(List.of(), new int[0], 1);
+
+    // Nhãn cạnh đi vào mỗi nút: labels[labelStart[n] .. labelStart[n] + labelLength[n])
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    // Các nút con nằm liên tiếp và được sắp theo ký tự đầu của nhãn
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] tops;
+
+    private PrefixTrie(char[] labels, int[] labelStart, int[] labelLength, int[] childStart, int[] childCount,
+                       int[] topStart, int[] topCount, int[] tops) {
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.childStart = childStart;
+        this.childCount = childCount;
+        this.topStart = topStart;
+        this.topCount = topCount;
+        this.tops = tops;
+    }
+
+    int nodeCount() {
+        return labelStart.length;
+    }
+
+    /**
+     * Trả về tối đa K chỉ số mục (tăng dần) có khóa bắt đầu bằng prefix; mảng rỗng nếu không khớp.
+     */
+    int[] top(String prefix) {
+        int node = 0;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            node = findChild(node, prefix.charAt(pos));
+            if (node < 0) {
+                return new int[0];
+            }
+            int length = Math.min(labelLength[node], prefix.length() - pos);
+            int start = labelStart[node];
+            for (int i = 1; i < length; i++) {
+                if (labels[start + i] != prefix.charAt(pos + i)) {
+                    return new int[0];
+                }
+            }
+            pos += length;
+        }
+        return Arrays.copyOfRange(tops, topStart[node], topStart[node] + topCount[node]);
+    }
+
+    private int findChild(int node, char c) {
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = labels[labelStart[mid]];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Dựng cây từ danh sách khóa; entryOfKey[i] là chỉ số mục của khóa thứ i.
+     * Khóa được sắp xếp trước, mỗi nút ứng với một đoạn liên tiếp các khóa có chung tiền tố nên không cần tạo
+     * đối tượng cho từng ký tự (cây nén có tối đa 2n + 1 nút với n khóa).
+     */
+    static PrefixTrie build(List<String> keys, int[] entryOfKey, int topK) {
+        Key[] sorted = new Key[keys.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = new Key(keys.get(i), entryOfKey[i]);
+        }
+        Arrays.sort(sorted, Comparator.comparing(Key::text));
+
+        int maxNodes = 2 * sorted.length + 1;
+        StringBuilder labelPool = new StringBuilder();
+        int[] labelStart = new int[maxNodes];
+        int[] labelLength = new int[maxNodes];
+        int[] childStart = new int[maxNodes];
+        int[] childCount = new int[maxNodes];
+        int[] topStart = new int[maxNodes];
+        int[] topCount = new int[maxNodes];
+        // Đoạn khóa [rangeFrom, rangeTo) của mỗi nút và độ dài tiền tố chung (độ sâu) của đoạn đó
+        int[] rangeFrom = new int[maxNodes];
+        int[] rangeTo = new int[maxNodes];
+        int[] depth = new int[maxNodes];
+        int[] tops = new int[Math.max(16, sorted.length)];
+        int topSize = 0;
+        int[] top = new int[topK];
+
+        rangeTo[0] = sorted.length;
+        int next = 1;
+        // Các nút được cấp chỉ số theo chiều rộng nên con của một nút luôn liên tiếp và đã sắp theo ký tự
+        for (int node = 0; node < next; node++) {
+            int from = rangeFrom[node];
+            int to = rangeTo[node];
+            int d = depth[node];
+
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                size = offer(top, size, sorted[i].entry());
+            }
+            if (topSize + size > tops.length) {
+                tops = Arrays.copyOf(tops, Math.max(tops.length * 2, topSize + size));
+            }
+            System.arraycopy(top, 0, tops, topSize, size);
+            topStart[node] = topSize;
+            topCount[node] = size;
+            topSize += size;
+
+            // Khóa kết thúc đúng tại nút này đứng đầu đoạn; phần còn lại chia nhóm theo ký tự tiếp theo
+            int groupFrom = from;
+            while (groupFrom < to && sorted[groupFrom].text().length() == d) {
+                groupFrom++;
+            }
+            childStart[node] = next;
+            while (groupFrom < to) {
+                char c = sorted[groupFrom].text().charAt(d);
+                int groupTo = groupFrom + 1;
+                while (groupTo < to && sorted[groupTo].text().charAt(d) == c) {
+                    groupTo++;
+                }
+                String first = sorted[groupFrom].text();
+                int end = commonPrefixLength(first, sorted[groupTo - 1].text());
+                labelStart[next] = labelPool.length();
+                labelLength[next] = end - d;
+                labelPool.append(first, d, end);
+                rangeFrom[next] = groupFrom;
+                rangeTo[next] = groupTo;
+                depth[next] = end;
+                next++;
+                groupFrom = groupTo;
+            }
+            childCount[node] = next - childStart[node];
+        }
+
+        char[] labels = new char[labelPool.length()];
+        labelPool.getChars(0, labels.length, labels, 0);
+        return new PrefixTrie(labels, Arrays.copyOf(labelStart, next), Arrays.copyOf(labelLength, next),
+                Arrays.copyOf(childStart, next), Arrays.copyOf(childCount, next),
+                Arrays.copyOf(topStart, next), Arrays.copyOf(topCount, next), Arrays.copyOf(tops, topSize));
+    }
+
+    // Giữ tối đa top.length chỉ số nhỏ nhất, không trùng, theo thứ tự tăng dần; trả về số phần tử sau khi thêm
+    private static int offer(int[] top, int size, int entry) {
+        int pos = Arrays.binarySearch(top, 0, size, entry);
+        if (pos >= 0) {
+            return size;
+        }
+        int insertAt = -pos - 1;
+        if (insertAt >= top.length) {
+            return size;
+        }
+        int moved = Math.min(size, top.length - 1) - insertAt;
+        System.arraycopy(top, insertAt, top, insertAt + 1, moved);
+        top[insertAt] = entry;
+        return Math.min(size + 1, top.length);
+    }
+
+    // Khóa đã sắp xếp nên tiền tố chung của khóa đầu và cuối đoạn cũng là tiền tố chung của cả đoạn
+    private static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private record Key(String text, int entry) {
+    }
+}
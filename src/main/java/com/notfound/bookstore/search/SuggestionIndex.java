@@ -0,0 +1,152 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.OrderItemRepository;
+import com.notfound.bookstore.util.TextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gợi ý từ khóa khi gõ (typeahead) theo tên sách, tên tác giả và tên thể loại, không phân biệt dấu.
+ * Mỗi từ trong tên đều có thể là điểm bắt đầu khớp ("potter" gợi ý "Harry Potter").
+ * Gợi ý xếp theo số lượng đã bán (tác giả/thể loại: tổng của các sách thuộc về nó).
+ * Dữ liệu là ảnh chụp bất biến, được dựng lại khi danh mục thay đổi (gom trong vài giây) và định kỳ để cập nhật độ phổ biến.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SuggestionIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    // Chỉ lập chỉ mục phần đầu của mỗi khóa; gợi ý khi gõ hiếm khi dài hơn
+    private static final int MAX_KEY_LENGTH = 40;
+    private static final long POPULARITY_REFRESH_MS = 10 * 60 * 1000L;
+
+    private final BookRepository bookRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(PrefixTrie.EMPTY, List.of(), 0);
+    private volatile boolean ready;
+
+    public enum Type {
+        BOOK, AUTHOR, CATEGORY
+    }
+
+    public record Suggestion(Type type, UUID id, String text) {
+    }
+
+    private record Snapshot(PrefixTrie trie, List<Suggestion> entries, long builtAt) {
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Lấy tối đa limit gợi ý cho tiền tố đã gõ
+    public List<Suggestion> suggest(String query, int limit) {
+        String key = toKey(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        int[] matches = current.trie().top(key);
+        int count = Math.min(matches.length, limit);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(current.entries().get(matches[i]));
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to build suggestion index: {}", e.getMessage());
+        }
+    }
+
+    // Chỉ đánh dấu cần dựng lại để gom nhiều thay đổi liên tiếp (ví dụ nhập hàng loạt) vào một lần
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.entityType()) {
+            case BOOK, AUTHOR, CATEGORY -> dirty.set(true);
+            default -> {
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.suggest.refresh-delay-ms:5000}")
+    public void refreshIfNeeded() {
+        boolean stale = System.currentTimeMillis() - snapshot.builtAt() > POPULARITY_REFRESH_MS;
+        if (!dirty.getAndSet(false) && !stale) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            dirty.set(true);
+            log.warn("Failed to rebuild suggestion index: {}", e.getMessage());
+        }
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<UUID, Long> bookSales = new HashMap<>();
+        orderItemRepository.sumQuantityByBook(OrderStatus.COMPLETED)
+                .forEach(total -> bookSales.put(total.getBookId(), total.getQuantity()));
+
+        Map<Suggestion, Long> scores = new HashMap<>();
+        bookRepository.findAllTitles().forEach(view ->
+                scores.put(new Suggestion(Type.BOOK, view.getId(), view.getTitle()), bookSales.getOrDefault(view.getId(), 0L)));
+        bookRepository.findAllAuthorLinks().forEach(link ->
+                scores.merge(new Suggestion(Type.AUTHOR, link.getAuthorId(), link.getAuthorName()),
+                        bookSales.getOrDefault(link.getBookId(), 0L), Long::sum));
+        bookRepository.findAllCategoryLinks().forEach(link ->
+                scores.merge(new Suggestion(Type.CATEGORY, link.getCategoryId(), link.getCategoryName()),
+                        bookSales.getOrDefault(link.getBookId(), 0L), Long::sum));
+
+        // Chỉ số mục chính là thứ hạng: phổ biến hơn trước, bằng nhau thì theo tên
+        List<Suggestion> entries = new ArrayList<>(scores.keySet());
+        entries.removeIf(entry -> entry.text() == null || entry.text().isBlank());
+        entries.sort(Comparator.<Suggestion>comparingLong(scores::get).reversed()
+                .thenComparing(Suggestion::text)
+                .thenComparing(Suggestion::id));
+
+        List<String> keys = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            List<String> tokens = TextNormalizer.tokenize(entries.get(i).text());
+            for (int from = 0; from < tokens.size(); from++) {
+                keys.add(truncate(String.join(" ", tokens.subList(from, tokens.size()))));
+                owners.add(i);
+            }
+        }
+        PrefixTrie trie = PrefixTrie.build(keys, owners.stream().mapToInt(Integer::intValue).toArray(), MAX_SUGGESTIONS);
+
+        snapshot = new Snapshot(trie, List.copyOf(entries), System.currentTimeMillis());
+        ready = true;
+        log.info("Suggestion index built: {} entries, {} keys, {} nodes in {} ms",
+                entries.size(), keys.size(), trie.nodeCount(), System.currentTimeMillis() - start);
+    }
+
+    private static String toKey(String text) {
+        return truncate(String.join(" ", TextNormalizer.tokenize(text)));
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+}
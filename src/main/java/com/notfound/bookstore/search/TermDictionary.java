@@ -0,0 +1,247 @@
+package com.notfound.bookstore.search;
+
+import java.util.*;
+
+/**
+ * Từ điển các từ (đã bỏ dấu) dùng cho tìm kiếm gần đúng.
+ * Ứng viên được sinh từ chỉ mục trigram rồi xác minh bằng khoảng cách chỉnh sửa có giới hạn
+ * (Levenshtein, tính cả đảo hai ký tự liền kề là một lỗi).
+ * Mỗi từ có bộ đếm tham chiếu vì cùng một từ có thể xuất hiện ở tên sách, tác giả và thể loại.
+ * Không an toàn luồng khi ghi; BookSearchIndex bảo vệ bằng khóa đọc/ghi.
+ */
+final class TermDictionary {
+
+    private static final char PAD = '$';
+    // Mỗi lỗi chỉnh sửa làm mất tối đa 3 trigram, đảo hai ký tự làm mất tối đa 4
+    private static final int GRAMS_PER_EDIT = 4;
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+    // Danh sách trigram được chia theo độ dài từ để chỉ quét các từ có độ dài gần với từ khóa
+    private static final int MAX_LENGTH_BUCKET = 31;
+
+    private final Map<String, Integer> idsByTerm = new HashMap<>();
+    private final Map<String, IntList[]> postings = new HashMap<>();
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private String[] terms = new String[1024];
+    private int[] refCounts = new int[1024];
+    private int nextId;
+
+    // Bộ đếm trigram dùng chung trong một luồng để không cấp phát mảng lớn cho mỗi truy vấn
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    record Match(String term, int distance) {
+    }
+
+    int size() {
+        return idsByTerm.size();
+    }
+
+    void add(String term) {
+        Integer existing = idsByTerm.get(term);
+        if (existing != null) {
+            refCounts[existing]++;
+            return;
+        }
+        int id = freeIds.isEmpty() ? nextId++ : freeIds.pop();
+        if (id >= terms.length) {
+            terms = Arrays.copyOf(terms, terms.length * 2);
+            refCounts = Arrays.copyOf(refCounts, refCounts.length * 2);
+        }
+        terms[id] = term;
+        refCounts[id] = 1;
+        idsByTerm.put(term, id);
+        int bucket = lengthBucket(term.length());
+        for (String gram : grams(term)) {
+            IntList[] byLength = postings.computeIfAbsent(gram, g -> new IntList[MAX_LENGTH_BUCKET + 1]);
+            if (byLength[bucket] == null) {
+                byLength[bucket] = new IntList();
+            }
+            byLength[bucket].add(id);
+        }
+    }
+
+    void remove(String term) {
+        Integer id = idsByTerm.get(term);
+        if (id == null || --refCounts[id] > 0) {
+            return;
+        }
+        idsByTerm.remove(term);
+        int bucket = lengthBucket(term.length());
+        for (String gram : grams(term)) {
+            IntList[] byLength = postings.get(gram);
+            if (byLength != null && byLength[bucket] != null && byLength[bucket].remove(id) && byLength[bucket].size == 0) {
+                byLength[bucket] = null;
+            }
+        }
+        terms[id] = null;
+        freeIds.push(id);
+    }
+
+    /**
+     * Tìm các từ cách token không quá maxDistance lỗi, sắp theo khoảng cách tăng dần.
+     * Hết thời gian (deadlineNanos theo System.nanoTime) thì trả về những gì đã xác minh được.
+     */
+    List<Match> similar(String token, int maxDistance, long deadlineNanos) {
+        Set<String> queryGrams = grams(token);
+        int minShared = Math.max(1, queryGrams.size() - GRAMS_PER_EDIT * maxDistance);
+        Scratch scratch = SCRATCH.get().begin(terms.length);
+        IntList touched = new IntList();
+        List<Match> matches = new ArrayList<>();
+        int minBucket = lengthBucket(Math.max(0, token.length() - maxDistance));
+        int maxBucket = lengthBucket(token.length() + maxDistance);
+        int steps = 0;
+        counting:
+        for (String gram : queryGrams) {
+            IntList[] byLength = postings.get(gram);
+            if (byLength == null) {
+                continue;
+            }
+            for (int bucket = minBucket; bucket <= maxBucket; bucket++) {
+                IntList posting = byLength[bucket];
+                if (posting == null) {
+                    continue;
+                }
+                for (int i = 0; i < posting.size; i++) {
+                    int id = posting.values[i];
+                    if (scratch.increment(id) == 1) {
+                        touched.add(id);
+                    }
+                    if (++steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadlineNanos) {
+                        break counting;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < touched.size; i++) {
+            if (i % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadlineNanos) {
+                break;
+            }
+            int id = touched.values[i];
+            if (scratch.count(id) < minShared || Math.abs(terms[id].length() - token.length()) > maxDistance) {
+                continue;
+            }
+            int distance = boundedDistance(token, terms[id], maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new Match(terms[id], distance));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::term));
+        return matches;
+    }
+
+    /**
+     * Khoảng cách chỉnh sửa giữa a và b (có tính đảo hai ký tự liền kề);
+     * trả về maxDistance + 1 ngay khi chắc chắn vượt quá giới hạn.
+     */
+    static int boundedDistance(String a, String b, int maxDistance) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            // Chỉ cần tính trong dải |i - j| <= maxDistance
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(m, i + maxDistance);
+            if (from > 1) {
+                current[from - 1] = maxDistance + 1;
+            }
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (to < m) {
+                current[to + 1] = maxDistance + 1;
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], maxDistance + 1);
+    }
+
+    // Trigram của từ đã thêm ký tự đệm hai đầu ("sach" -> "$$s", "$sa", "sac", "ach", "ch$", "h$$")
+    private static Set<String> grams(String term) {
+        String padded = "" + PAD + PAD + term + PAD + PAD;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static int lengthBucket(int length) {
+        return Math.min(length, MAX_LENGTH_BUCKET);
+    }
+
+    // Bộ đếm theo ID từ; mỗi truy vấn dùng một "thế hệ" mới nên không cần xóa bộ đếm sau khi dùng
+    private static final class Scratch {
+        int[] counts = new int[0];
+        int[] generations = new int[0];
+        int generation;
+
+        Scratch begin(int capacity) {
+            if (counts.length < capacity) {
+                counts = new int[capacity];
+                generations = new int[capacity];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(generations, 0);
+                generation = 1;
+            }
+            return this;
+        }
+
+        int increment(int id) {
+            if (generations[id] != generation) {
+                generations[id] = generation;
+                counts[id] = 0;
+            }
+            return ++counts[id];
+        }
+
+        int count(int id) {
+            return generations[id] == generation ? counts[id] : 0;
+        }
+    }
+
+    // Danh sách int tự giãn, tránh boxing trong danh sách trigram
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
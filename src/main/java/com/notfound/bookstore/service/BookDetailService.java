@@ -0,0 +1,12 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.model.dto.response.bookresponse.BookDetailResponse;
+
+public interface BookDetailService {
+    /**
+     * Lấy toàn bộ dữ liệu trang chi tiết sách (thông tin sách, trang đánh giá đầu tiên, phân bố số sao,
+     * khuyến mãi đang áp dụng, sách liên quan) trong một lần gọi. Các phần được lấy song song;
+     * phần nào lỗi hoặc quá thời gian thì trả về null và được liệt kê trong unavailableSections.
+     */
+    BookDetailResponse getBookDetail(String id);
+}
@@ -0,0 +1,17 @@
+package com.notfound.bookstore.service;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface BookRatingService {
+    /**
+     * Tính lại tổng hợp đánh giá (tổng, số lượt, số lượt theo sao) cho các sách bị lệch so với bảng reviews.
+     * Trả về số sách đã được sửa
+     */
+    int backfillRatingAggregates();
+
+    /**
+     * Liệt kê các sách có tổng hợp đánh giá lưu trên bảng books khác với bảng reviews
+     */
+    List<UUID> findInconsistentBooks();
+}
@@ -1,28 +1,55 @@
 package com.notfound.bookstore.service;
 
 import com.notfound.bookstore.model.dto.request.bookrequest.BookFilterRequest;
+import com.notfound.bookstore.model.dto.request.bookrequest.BookScrollRequest;
 import com.notfound.bookstore.model.dto.request.bookrequest.BookSearchRequest;
 import com.notfound.bookstore.model.dto.request.bookrequest.BookSortRequest;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookBatchResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookFacetsResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.BookResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSuggestionResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.CursorPageResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
 import com.notfound.bookstore.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public interface BookService {
 
     //Tìm kiếm sách theo từ khóa (tên sách, tác giả, hoặc thể loại)
     PageResponse<BookSummaryResponse> searchBooks(BookSearchRequest request);
 
-    //Lọc sách theo các tiêu chí: giá, đánh giá trung bình và ngày phát hành
+    //Lọc sách theo các tiêu chí: giá, đánh giá trung bình, ngày phát hành, thể loại và tác giả
     PageResponse<BookSummaryResponse> findByFilters(BookFilterRequest request);
 
+    //Đếm số sách theo từng facet (thể loại, tác giả, khoảng giá, mức đánh giá) cho bộ lọc hiện tại
+    BookFacetsResponse getFilterFacets(BookFilterRequest request);
+
     //Lấy danh sách sách được sắp xếp theo loại sắp xếp được chỉ định
     PageResponse<BookSummaryResponse> getSortedBooks(BookSortRequest request);
 
+    //Cuộn danh sách sách theo con trỏ (keyset): hỗ trợ từ khóa, bộ lọc và các kiểu sắp xếp
+    CursorPageResponse<BookSummaryResponse> scrollBooks(BookScrollRequest request);
+
+    //Lấy danh sách sách mới nhất, count: exact | none | approximate (xem PageCountMode)
+    PageResponse<BookSummaryResponse> getNewestBooks(int page, int size, String count);
+
+    //Lấy danh sách sách bán chạy nhất theo cửa sổ thời gian (all, 7d, 30d)
+    List<BookSummaryResponse> getBestSellingBooks(String window, int size);
+
+    //Gợi ý sách, tác giả, thể loại theo tiền tố đang gõ
+    List<BookSuggestionResponse> suggest(String query, int size);
+
+    //Lấy danh sách sách liên quan (mua cùng, cùng tác giả, cùng thể loại)
+    List<BookSummaryResponse> getRelatedBooks(String id, int size);
+
+    //Lấy thông tin chi tiết của nhiều cuốn sách theo danh sách ID (giữ thứ tự yêu cầu, báo các ID không tồn tại)
+    BookBatchResponse getBooksByIds(List<String> ids);
+
     //Lấy thông tin chi tiết của một cuốn sách dựa trên ID
     BookResponse getBookById(String id);
 }
@@ -0,0 +1,14 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.export.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CatalogExportService {
+    /**
+     * Ghi toàn bộ danh mục sách ra luồng theo định dạng đã chọn, đọc bằng cursor nên bộ nhớ không tăng theo số sách.
+     * Trả về số sách đã ghi.
+     */
+    long exportCatalog(ExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,15 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.export.ExportFormat;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface CatalogImportService {
+    /**
+     * Nhập danh mục sách từ luồng (cùng định dạng với tệp xuất), ghi theo lô trong các transaction riêng.
+     * Bản ghi lỗi không làm dừng quá trình nhập mà được liệt kê trong báo cáo.
+     */
+    BookImportResponse importCatalog(ExportFormat format, InputStream in) throws IOException;
+}
@@ -0,0 +1,23 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.categoryresponse.CategoryResponse;
+import com.notfound.bookstore.model.dto.response.categoryresponse.CategoryTreeResponse;
+
+import java.util.List;
+
+public interface CategoryService {
+
+    //Lấy danh sách tất cả thể loại
+    List<CategoryResponse> getAllCategories();
+
+    //Lấy cây thể loại kèm số sách của từng nút (dùng cho menu điều hướng)
+    List<CategoryTreeResponse> getCategoryTree();
+
+    //Lấy đường dẫn từ thể loại gốc đến thể loại (breadcrumb)
+    List<CategoryTreeResponse> getCategoryPath(String categoryId);
+
+    //Lấy sách thuộc thể loại, có thể gồm cả các thể loại con
+    PageResponse<BookSummaryResponse> getBooksInCategory(String categoryId, boolean includeSubcategories, int page, int size);
+}
@@ -0,0 +1,16 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.model.dto.response.homeresponse.HomeFeedResponse;
+
+public interface HomeFeedService {
+    /**
+     * Lấy dữ liệu trang chủ (sách mới, sách giảm giá, sách bán chạy, khuyến mãi đang diễn ra) đã được tính sẵn.
+     * Không truy vấn database trừ khi chưa tính được lần nào.
+     */
+    HomeFeedResponse getFeed();
+
+    /**
+     * Tính lại toàn bộ dữ liệu trang chủ và thay thế bản cũ.
+     */
+    HomeFeedResponse refresh();
+}
@@ -0,0 +1,30 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.model.dto.request.promotionrequest.ValidatePromotionCodeRequest;
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionReservationResponse;
+
+import java.util.UUID;
+
+public interface PromotionReservationService {
+    /**
+     * Giữ một lượt dùng mã khuyến mãi cho người dùng hiện tại (hết hạn sau app.promotions.reservation-ttl-seconds)
+     */
+    PromotionReservationResponse reserve(ValidatePromotionCodeRequest request);
+
+    /**
+     * Xác nhận lượt dùng khuyến mãi của một đơn hàng vừa được thanh toán (chỉ gọi từ phía server, trong transaction
+     * hoàn tất đơn). Dùng lượt người đặt đang giữ; không còn lượt giữ hợp lệ thì lấy lượt mới nếu khuyến mãi còn lượt.
+     * Trả về false nếu khuyến mãi đã hết lượt; đơn không dùng khuyến mãi trả về true
+     */
+    boolean confirmForOrder(UUID orderId);
+
+    /**
+     * Hủy lượt đang giữ và trả lượt dùng cho khuyến mãi (gọi lại với lượt đã hủy hoặc hết hạn không có tác dụng)
+     */
+    PromotionReservationResponse release(UUID reservationId);
+
+    /**
+     * Trả lượt dùng của các lượt giữ đã quá hạn, trả về số lượt đã trả
+     */
+    int expireReservations();
+}
@@ -1,8 +1,12 @@
 package com.notfound.bookstore.service;
 
+import com.notfound.bookstore.model.dto.request.promotionrequest.CartPromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.CreatePromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.UpdatePromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.ValidatePromotionCodeRequest;
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.promotionresponse.CartPromotionResponse;
 import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionResponse;
 import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionValidationResponse;
 import org.springframework.data.domain.Page;
@@ -47,11 +51,21 @@ public interface PromotionService {
      */
     List<PromotionResponse> getPromotionsByBookId(UUID bookId);
 
+    /**
+     * Lấy sách áp dụng của khuyến mãi (có phân trang)
+     */
+    PageResponse<BookSummaryResponse> getApplicableBooks(UUID promotionId, int page, int size);
+
     /**
      * Validate mã khuyến mãi
      */
     PromotionValidationResponse validatePromotionCode(ValidatePromotionCodeRequest request);
 
+    /**
+     * Tìm khuyến mãi có lợi nhất cho cả giỏ hàng (không tăng usage count)
+     */
+    CartPromotionResponse findBestPromotion(CartPromotionRequest request);
+
     /**
      * Áp dụng mã khuyến mãi (tăng usage count)
      */
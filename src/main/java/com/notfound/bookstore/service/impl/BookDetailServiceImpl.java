@@ -0,0 +1,225 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.config.CacheConfig;
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookDetailResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.RatingHistogramResponse;
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionResponse;
+import com.notfound.bookstore.model.dto.response.reviewresponse.ReviewResponse;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.service.BookDetailService;
+import com.notfound.bookstore.service.BookService;
+import com.notfound.bookstore.service.PromotionService;
+import com.notfound.bookstore.service.ReviewService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class BookDetailServiceImpl implements BookDetailService {
+
+    private static final int REVIEW_PAGE_SIZE = 5;
+    private static final int RELATED_BOOK_COUNT = 8;
+    // Dùng khi không đọc được kích thước pool (DataSource không phải Hikari)
+    private static final int DEFAULT_CONCURRENT_QUERIES = 4;
+
+    private final BookService bookService;
+    private final ReviewService reviewService;
+    private final PromotionService promotionService;
+    private final BookRepository bookRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long branchTimeoutMs;
+    // Giới hạn số phần đang giữ kết nối CSDL của mọi request trang chi tiết, luôn chừa lại kết nối cho các API khác
+    private final Semaphore queryPermits;
+    // Mỗi phần chạy trên một virtual thread riêng nên chờ I/O không chiếm thread của Tomcat
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BookDetailServiceImpl(BookService bookService, ReviewService reviewService, PromotionService promotionService,
+                                 BookRepository bookRepository, CacheManager cacheManager,
+                                 PlatformTransactionManager transactionManager, DataSource dataSource,
+                                 @Value("${app.book-detail.branch-timeout-ms:800}") long branchTimeoutMs,
+                                 @Value("${app.book-detail.max-concurrent-queries:0}") int maxConcurrentQueries,
+                                 @Value("${app.book-detail.pool-headroom:4}") int poolHeadroom) {
+        this.bookService = bookService;
+        this.reviewService = reviewService;
+        this.promotionService = promotionService;
+        this.bookRepository = bookRepository;
+        this.cacheManager = cacheManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Timeout của transaction được Hibernate áp cho từng câu lệnh JDBC nên truy vấn treo sẽ bị hủy và trả kết nối
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(branchTimeoutMs + 999)));
+        this.branchTimeoutMs = branchTimeoutMs;
+        int permits = maxConcurrentQueries > 0 ? maxConcurrentQueries : permitsFromPool(dataSource, poolHeadroom);
+        log.info("Book detail page may hold up to {} database connections at once", permits);
+        this.queryPermits = new Semaphore(permits, true);
+    }
+
+    // Không cấu hình max-concurrent-queries thì lấy kích thước pool Hikari trừ đi phần chừa lại, tối thiểu 1
+    static int permitsFromPool(DataSource dataSource, int poolHeadroom) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                return Math.max(1, poolSize - poolHeadroom);
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to read the connection pool size: {}", e.getMessage());
+        }
+        return DEFAULT_CONCURRENT_QUERIES;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public BookDetailResponse getBookDetail(String id) {
+        UUID bookId = parseId(id);
+
+        // Sách đã có trong cache thì không cần kết nối CSDL
+        CompletableFuture<BookResponse> book = fork(() -> {
+            BookResponse cached = cachedBook(bookId);
+            return cached != null ? cached : query(() -> bookService.getBookById(bookId.toString()));
+        });
+        CompletableFuture<PageResponse<ReviewResponse>> reviews = fork(() -> query(() -> toPageResponse(
+                reviewService.getReviewsByBookId(bookId, 0, REVIEW_PAGE_SIZE))));
+        CompletableFuture<RatingHistogramResponse> histogram = fork(() -> query(() -> bookRepository.findRatingHistogramById(bookId)
+                .map(view -> RatingHistogramResponse.builder()
+                        .averageRating(view.getAverageRating())
+                        .ratingCount(view.getRatingCount())
+                        .rating1Count(view.getRating1Count())
+                        .rating2Count(view.getRating2Count())
+                        .rating3Count(view.getRating3Count())
+                        .rating4Count(view.getRating4Count())
+                        .rating5Count(view.getRating5Count())
+                        .build())
+                .orElse(null)));
+        CompletableFuture<List<PromotionResponse>> promotions = fork(() -> query(() ->
+                promotionService.getPromotionsByBookId(bookId)));
+        CompletableFuture<List<BookSummaryResponse>> related = fork(() -> query(() ->
+                bookService.getRelatedBooks(bookId.toString(), RELATED_BOOK_COUNT)));
+
+        // Thông tin sách là bắt buộc: sách không tồn tại thì trả lỗi thay vì trả về trang rỗng
+        List<String> unavailable = new ArrayList<>();
+        BookResponse bookResponse = join("book", book, unavailable);
+        if (bookResponse == null) {
+            throw book.isCompletedExceptionally() && unwrap(book) instanceof AppException appException
+                    ? appException
+                    : new AppException(ErrorCode.SERVICE_UNAVAILABLE);
+        }
+
+        return BookDetailResponse.builder()
+                .book(bookResponse)
+                .reviews(join("reviews", reviews, unavailable))
+                .ratingHistogram(join("ratingHistogram", histogram, unavailable))
+                .promotions(join("promotions", promotions, unavailable))
+                .relatedBooks(join("relatedBooks", related, unavailable))
+                .unavailableSections(unavailable)
+                .build();
+    }
+
+    // Chạy một phần trên virtual thread; quá thời gian thì ngắt thread để phần đó dừng chờ và trả kết nối
+    private <T> CompletableFuture<T> fork(Supplier<T> branch) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(branch.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.orTimeout(branchTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Phần cần CSDL: chờ suất truy vấn chung (tối đa bằng thời gian của phần) rồi chạy trong transaction chỉ đọc riêng
+    private <T> T query(Supplier<T> work) {
+        try {
+            if (!queryPermits.tryAcquire(branchTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new CompletionException(new TimeoutException("no database permit within " + branchTimeoutMs + " ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a database permit");
+        }
+        try {
+            return readOnlyTransaction.execute(status -> work.get());
+        } finally {
+            queryPermits.release();
+        }
+    }
+
+    private BookResponse cachedBook(UUID bookId) {
+        Cache cache = cacheManager.getCache(CacheConfig.BOOK_DETAIL);
+        return cache != null ? cache.get(bookId.toString(), BookResponse.class) : null;
+    }
+
+    private <T> T join(String section, CompletableFuture<T> branch, List<String> unavailable) {
+        try {
+            return branch.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = unwrap(branch);
+            if (!(cause instanceof AppException)) {
+                log.warn("Book detail section '{}' unavailable: {}", section,
+                        cause instanceof TimeoutException ? "timed out after " + branchTimeoutMs + " ms" : cause.toString());
+            }
+            unavailable.add(section);
+            return null;
+        }
+    }
+
+    private static Throwable unwrap(CompletableFuture<?> branch) {
+        try {
+            branch.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (CancellationException e) {
+            return e;
+        }
+    }
+
+    private static UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+    }
+
+    private static <T> PageResponse<T> toPageResponse(Page<T> page) {
+        return PageResponse.<T>builder()
+                .content(page.getContent())
+                .currentPage(page.getNumber())
+                .totalPages(page.getTotalPages())
+                .totalElements(page.getTotalElements())
+                .hasNext(page.hasNext())
+                .build();
+    }
+}
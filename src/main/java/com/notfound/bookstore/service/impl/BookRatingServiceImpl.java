@@ -0,0 +1,73 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.projection.BookRatingAggregate;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.ReviewRepository;
+import com.notfound.bookstore.service.BookRatingService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BookRatingServiceImpl implements BookRatingService {
+
+    BookRepository bookRepository;
+    ReviewRepository reviewRepository;
+    ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public int backfillRatingAggregates() {
+        List<UUID> inconsistentBooks = findInconsistentBooks();
+        // Mỗi sách được tính lại bằng một câu UPDATE đọc trực tiếp bảng reviews
+        inconsistentBooks.forEach(bookRepository::recalculateRating);
+        // UPDATE trực tiếp không qua entity listener: một sự kiện cho cả lần chạy để cache và chỉ mục đọc lại điểm
+        if (!inconsistentBooks.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(
+                    CatalogChangedEvent.EntityType.BOOK, null, CatalogChangedEvent.Action.SAVED));
+        }
+        log.info("Rating aggregates backfilled for {} books", inconsistentBooks.size());
+        return inconsistentBooks.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UUID> findInconsistentBooks() {
+        Map<UUID, BookRatingAggregate> expected = reviewRepository.aggregateRatingsByBook().stream()
+                .collect(Collectors.toMap(BookRatingAggregate::getBookId, Function.identity()));
+        Map<UUID, BookRatingAggregate> stored = bookRepository.findStoredRatingAggregates().stream()
+                .collect(Collectors.toMap(BookRatingAggregate::getBookId, Function.identity()));
+
+        Set<UUID> bookIds = new HashSet<>(expected.keySet());
+        bookIds.addAll(stored.keySet());
+
+        return bookIds.stream()
+                .filter(bookId -> !sameAggregate(expected.get(bookId), stored.get(bookId)))
+                .collect(Collectors.toList());
+    }
+
+    private boolean sameAggregate(BookRatingAggregate expected, BookRatingAggregate stored) {
+        if (expected == null || stored == null) {
+            return false;
+        }
+        return Objects.equals(expected.getRatingCount(), stored.getRatingCount())
+                && Objects.equals(expected.getRatingSum(), stored.getRatingSum())
+                && Objects.equals(expected.getRating1Count(), stored.getRating1Count())
+                && Objects.equals(expected.getRating2Count(), stored.getRating2Count())
+                && Objects.equals(expected.getRating3Count(), stored.getRating3Count())
+                && Objects.equals(expected.getRating4Count(), stored.getRating4Count())
+                && Objects.equals(expected.getRating5Count(), stored.getRating5Count());
+    }
+}
@@ -1,107 +1,551 @@
 package com.notfound.bookstore.service.impl;
 
 import com.notfound.bookstore.model.dto.request.bookrequest.BookFilterRequest;
+import com.notfound.bookstore.model.dto.request.bookrequest.BookScrollRequest;
 import com.notfound.bookstore.model.dto.request.bookrequest.BookSearchRequest;
 import com.notfound.bookstore.model.dto.request.bookrequest.BookSortRequest;
-import com.notfound.bookstore.model.dto.request.bookrequest.BookWithRating;
+import com.notfound.bookstore.model.dto.request.bookrequest.PageCountMode;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookBatchResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookFacetsResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.BookResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSuggestionResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.CursorPageResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.FacetCountResponse;
 import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.cache.BookCountEstimator;
+import com.notfound.bookstore.cache.TwoLevelCacheManager;
+import com.notfound.bookstore.config.CacheConfig;
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
 import com.notfound.bookstore.model.entity.Book;
 import com.notfound.bookstore.model.mapper.BookMapper;
+import com.notfound.bookstore.model.projection.BookSortKey;
 import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.BookScrollCriteria;
+import com.notfound.bookstore.ranking.BestSellerRanking;
+import com.notfound.bookstore.recommendation.RelatedBooksEngine;
+import com.notfound.bookstore.search.BookFacetIndex;
+import com.notfound.bookstore.search.BookSearchIndex;
+import com.notfound.bookstore.search.SuggestionIndex;
 import com.notfound.bookstore.service.BookService;
+import com.notfound.bookstore.util.BookCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookServiceImpl implements BookService {
 
+    private static final String RELEVANCE_SORT = "relevance";
+    private static final String DEFAULT_SCROLL_SORT = "date_desc";
+    private static final int MAX_BATCH_SIZE = 100;
+    // Số ID tối đa đưa vào một mệnh đề IN; tập kết quả từ khóa lớn hơn thì duyệt theo thứ tự sắp xếp và lọc trong bộ nhớ
+    private static final int MAX_MATCHED_IDS_IN_QUERY = 1_000;
+    private static final String CATALOG_COUNT_KEY = "all";
+
     private final BookRepository bookRepository;
     private final BookMapper bookMapper;
+    private final BookSearchIndex bookSearchIndex;
+    private final BestSellerRanking bestSellerRanking;
+    private final RelatedBooksEngine relatedBooksEngine;
+    private final SuggestionIndex suggestionIndex;
+    private final BookFacetIndex bookFacetIndex;
+    private final TwoLevelCacheManager cacheManager;
+    private final BookCountEstimator bookCountEstimator;
 
     //Tìm kiếm sách theo từ khóa (tên sách, tác giả, hoặc thể loại)
     @Override
     public PageResponse<BookSummaryResponse> searchBooks(BookSearchRequest request) {
+        PageCountMode countMode = PageCountMode.from(request.getCount());
         Pageable pageable = PageRequest.of(
                 request.getPage() != null ? request.getPage() : 0,
                 request.getSize() != null ? request.getSize() : 10
         );
 
-        Page<Book> bookPage;
         if (!StringUtils.hasText(request.getKeyword())) {
-            bookPage = bookRepository.findAll(pageable);
+            if (countMode != PageCountMode.EXACT) {
+                return toSliceResponse(bookRepository.findAllSummariesSlice(pageable), countMode,
+                        CATALOG_COUNT_KEY, bookRepository::count);
+            }
+            return bookMapper.toPageResponse(bookRepository.findAllSummaries(pageable));
+        }
+
+        String keyword = request.getKeyword().trim();
+        log.info("Searching with keyword: {}", keyword);
+        Page<BookSummaryResponse> bookPage;
+        if (bookSearchIndex.isReady()) {
+            // Chỉ mục trong bộ nhớ đã có sẵn toàn bộ kết quả nên tổng luôn chính xác, không tốn thêm truy vấn
+            List<BookSearchIndex.SearchHit> hits = Boolean.TRUE.equals(request.getFuzzy())
+                    ? bookSearchIndex.searchFuzzy(keyword)
+                    : bookSearchIndex.search(keyword);
+            if (hits.isEmpty() && request.getFuzzy() == null) {
+                hits = bookSearchIndex.searchFuzzy(keyword);
+            }
+            List<UUID> rankedIds = hits.stream()
+                    .map(BookSearchIndex.SearchHit::bookId)
+                    .toList();
+            bookPage = findPageByIds(rankedIds, pageable);
+        } else if (countMode != PageCountMode.EXACT) {
+            // Truy vấn COUNT lặp lại toàn bộ điều kiện LIKE nên tốn ngang truy vấn tìm kiếm
+            return toSliceResponse(bookRepository.searchBookSummariesSlice(keyword, pageable), countMode,
+                    "search:" + keyword.toLowerCase(Locale.ROOT), () -> bookRepository.countByKeyword(keyword));
         } else {
-            String keyword = request.getKeyword().trim();
-            log.info("Searching with keyword: {}", keyword);
-            bookPage = bookRepository.searchBooks(keyword, pageable);
-            log.info("Found {} books", bookPage.getTotalElements());
+            bookPage = bookRepository.searchBookSummaries(keyword, pageable);
         }
+        log.info("Found {} books", bookPage.getTotalElements());
 
-        Page<BookSummaryResponse> responsePage = bookPage.map(bookMapper::toBookSummaryResponse);
-        return bookMapper.toPageResponse(responsePage);
+        return bookMapper.toPageResponse(bookPage);
     }
 
-    // Lọc sách theo các tiêu chí: giá, đánh giá trung bình, ngày phát hành và từ khóa
+    // Lọc sách theo các tiêu chí: giá, đánh giá trung bình, ngày phát hành, thể loại, tác giả và từ khóa
     @Override
     public PageResponse<BookSummaryResponse> findByFilters(BookFilterRequest request) {
         Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+        if (!facetIndexReady()) {
+            Page<UUID> idPage = bookRepository.findIdsByCriteria(toFilterCriteria(request), pageable);
+            return bookMapper.toPageResponse(
+                    new PageImpl<>(findSummariesInOrder(idPage.getContent()), pageable, idPage.getTotalElements()));
+        }
+        BookFacetIndex.Result result = bookFacetIndex.filter(toFacetQuery(request), request.getPage(), request.getSize());
+        Page<BookSummaryResponse> responsePage =
+                new PageImpl<>(findSummariesInOrder(result.bookIds()), pageable, result.total());
+        return bookMapper.toPageResponse(responsePage);
+    }
+
+    // Đếm số sách theo từng facet cho bộ lọc hiện tại
+    @Override
+    public BookFacetsResponse getFilterFacets(BookFilterRequest request) {
+        if (!facetIndexReady()) {
+            // Đếm từng facet trong CSDL tốn ngang việc dựng chỉ mục; tạm chỉ trả tổng số cho đến khi chỉ mục sẵn sàng
+            long total = bookRepository.findIdsByCriteria(toFilterCriteria(request), PageRequest.of(0, 1))
+                    .getTotalElements();
+            return BookFacetsResponse.builder()
+                    .total(total)
+                    .categories(List.of())
+                    .authors(List.of())
+                    .priceRanges(List.of())
+                    .ratings(List.of())
+                    .build();
+        }
+        BookFacetIndex.Facets facets = bookFacetIndex.facets(toFacetQuery(request));
+        return BookFacetsResponse.builder()
+                .total(facets.total())
+                .categories(toFacetCounts(facets.categories()))
+                .authors(toFacetCounts(facets.authors()))
+                .priceRanges(toFacetCounts(facets.priceRanges()))
+                .ratings(toFacetCounts(facets.ratings()))
+                .build();
+    }
+
+    // Lấy danh sách sách được sắp xếp theo loại sắp xếp được chỉ định
+    @Override
+    @Cacheable(cacheNames = CacheConfig.BOOK_PAGES,
+            key = "'sorted:' + #request.sortType + ':' + #request.page + ':' + #request.size + ':'"
+                    + " + T(com.notfound.bookstore.model.dto.request.bookrequest.PageCountMode).from(#request.count)",
+            unless = "#result.approximateTotal == true and #result.totalElements == null")
+    public PageResponse<BookSummaryResponse> getSortedBooks(BookSortRequest request) {
+        PageCountMode countMode = PageCountMode.from(request.getCount());
+        Sort sort = switch (request.getSortType()) {
+            case "price_asc" -> Sort.by(Sort.Direction.ASC, "price");
+            case "price_desc" -> Sort.by(Sort.Direction.DESC, "price");
+            case "title_asc" -> Sort.by(Sort.Direction.ASC, "title");
+            case "title_desc" -> Sort.by(Sort.Direction.DESC, "title");
+            case "date_asc" -> Sort.by(Sort.Direction.ASC, "publishDate");
+            case "rating_asc" -> Sort.by(Sort.Direction.ASC, "averageRating", "ratingCount");
+            case "rating_desc" -> Sort.by(Sort.Direction.DESC, "averageRating", "ratingCount");
+            default -> Sort.by(Sort.Direction.DESC, "publishDate");
+        };
+        // Thêm id để thứ tự giữa các trang ổn định khi khóa sắp xếp trùng nhau
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort.and(Sort.by("id")));
+
+        if (countMode != PageCountMode.EXACT) {
+            return toSliceResponse(bookRepository.findAllSummariesSlice(pageable), countMode,
+                    CATALOG_COUNT_KEY, bookRepository::count);
+        }
+        return bookMapper.toPageResponse(bookRepository.findAllSummaries(pageable));
+    }
+
+    // Cuộn danh sách sách theo con trỏ: không dùng OFFSET và không đếm tổng số phần tử
+    @Override
+    public CursorPageResponse<BookSummaryResponse> scrollBooks(BookScrollRequest request) {
+        int size = request.getSize() != null ? request.getSize() : 20;
+        BookCursor cursor = StringUtils.hasText(request.getCursor()) ? BookCursor.decode(request.getCursor()) : null;
+        String keyword = StringUtils.hasText(request.getKeyword()) ? request.getKeyword().trim() : null;
+        String sortType = cursor != null ? cursor.sortType() : resolveScrollSortType(request, keyword);
+
+        if (RELEVANCE_SORT.equals(sortType)) {
+            return scrollByRelevance(keyword, cursor, size);
+        }
+
+        SortSpec sort = SortSpec.of(sortType);
+        Set<UUID> matchedIds = null;
+        String likeKeyword = null;
+        if (keyword != null) {
+            if (bookSearchIndex.isReady()) {
+                matchedIds = bookSearchIndex.search(keyword).stream()
+                        .map(BookSearchIndex.SearchHit::bookId)
+                        .collect(Collectors.toSet());
+                if (matchedIds.isEmpty()) {
+                    return toCursorPage(List.of(), size, null);
+                }
+            } else {
+                likeKeyword = keyword;
+            }
+        }
 
-        Page<BookWithRating> resultPage = bookRepository.findByFiltersWithRating(
-                request.getKeyword(),
+        BookScrollCriteria criteria = new BookScrollCriteria(
+                sort.property(),
+                sort.ascending(),
+                cursor != null ? sort.parseKey(cursor.key()) : null,
+                cursor != null ? cursor.id() : null,
+                null,
+                likeKeyword,
                 request.getMinPrice(),
                 request.getMaxPrice(),
                 request.getMinRating(),
                 request.getPublishedAfter(),
-                pageable
+                null,
+                null
         );
 
-        Page<BookSummaryResponse> responsePage = resultPage.map(result -> {
-            BookSummaryResponse response = bookMapper.toBookSummaryResponse(result.getBook());
-            response.setAverageRating(result.getAverageRating());
-            response.setReviewCount(result.getReviewCount().intValue());
-            return response;
-        });
+        // Lấy thêm 1 phần tử để biết còn trang sau hay không
+        List<BookSortKey> keys = matchedIds != null
+                ? findMatchedSortKeysAfter(criteria, matchedIds, size + 1)
+                : bookRepository.findSortKeysAfter(criteria, size + 1);
+        boolean hasNext = keys.size() > size;
+        List<BookSortKey> pageKeys = hasNext ? keys.subList(0, size) : keys;
 
-        return bookMapper.toPageResponse(responsePage);
+        String nextCursor = null;
+        if (hasNext) {
+            BookSortKey last = pageKeys.getLast();
+            nextCursor = new BookCursor(sortType, last.id(), SortSpec.formatKey(last.sortKey())).encode();
+        }
+        List<BookSummaryResponse> books = findSummariesInOrder(pageKeys.stream().map(BookSortKey::id).toList());
+        return toCursorPage(books, size, nextCursor);
     }
 
-    // Lấy danh sách sách được sắp xếp theo loại sắp xếp được chỉ định
+    // Lấy danh sách sách mới nhất
     @Override
-    public PageResponse<BookSummaryResponse> getSortedBooks(BookSortRequest request) {
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+    @Cacheable(cacheNames = CacheConfig.BOOK_PAGES,
+            key = "'newest:' + #page + ':' + #size + ':'"
+                    + " + T(com.notfound.bookstore.model.dto.request.bookrequest.PageCountMode).from(#count)",
+            unless = "#result.approximateTotal == true and #result.totalElements == null")
+    public PageResponse<BookSummaryResponse> getNewestBooks(int page, int size, String count) {
+        PageCountMode countMode = PageCountMode.from(count);
+        Pageable pageable = PageRequest.of(page, Math.clamp(size, 1, 100), Sort.by(Sort.Direction.DESC, "createdAt"));
+        if (countMode != PageCountMode.EXACT) {
+            return toSliceResponse(bookRepository.findAllSummariesSlice(pageable), countMode,
+                    CATALOG_COUNT_KEY, bookRepository::count);
+        }
+        return bookMapper.toPageResponse(bookRepository.findAllSummaries(pageable));
+    }
 
-        Page<Book> bookPage = switch (request.getSortType()) {
-            case "price_asc" -> bookRepository.findAllByOrderByPriceAsc(pageable);
-            case "price_desc" -> bookRepository.findAllByOrderByPriceDesc(pageable);
-            case "title_asc" -> bookRepository.findAllByOrderByTitleAsc(pageable);
-            case "title_desc" -> bookRepository.findAllByOrderByTitleDesc(pageable);
-            case "date_asc" -> bookRepository.findAllByOrderByPublishDateAsc(pageable);
-            case "date_desc" -> bookRepository.findAllByOrderByPublishDateDesc(pageable);
-            case "rating_asc" -> bookRepository.findAllOrderByAverageRatingAsc(pageable);
-            case "rating_desc" -> bookRepository.findAllOrderByAverageRatingDesc(pageable);
-            default -> bookRepository.findAllByOrderByPublishDateDesc(pageable);
-        };
+    // Lấy danh sách sách bán chạy nhất
+    @Override
+    @Cacheable(cacheNames = CacheConfig.BEST_SELLING_BOOKS,
+            key = "#window + ':' + #size + ':' + @bestSellerRanking.version()")
+    public List<BookSummaryResponse> getBestSellingBooks(String window, int size) {
+        BestSellerRanking.Window rankingWindow = BestSellerRanking.Window.fromCode(window);
+        List<UUID> bookIds = bestSellerRanking.top(rankingWindow, Math.clamp(size, 1, 100)).stream()
+                .map(BestSellerRanking.RankedBook::bookId)
+                .toList();
+        return findSummariesInOrder(bookIds);
+    }
 
-        Page<BookSummaryResponse> responsePage = bookPage.map(bookMapper::toBookSummaryResponse);
-        return bookMapper.toPageResponse(responsePage);
+    // Gợi ý khi gõ từ chỉ mục tiền tố trong bộ nhớ (không truy vấn database)
+    @Override
+    public List<BookSuggestionResponse> suggest(String query, int size) {
+        return suggestionIndex.suggest(query, Math.clamp(size, 1, SuggestionIndex.MAX_SUGGESTIONS)).stream()
+                .map(suggestion -> BookSuggestionResponse.builder()
+                        .type(suggestion.type().name())
+                        .id(suggestion.id())
+                        .text(suggestion.text())
+                        .build())
+                .toList();
+    }
+
+    // Lấy danh sách sách liên quan đã được tính sẵn
+    @Override
+    public List<BookSummaryResponse> getRelatedBooks(String id, int size) {
+        return findSummariesInOrder(relatedBooksEngine.relatedTo(UUID.fromString(id), Math.clamp(size, 1, 50)));
+    }
+
+    // Lấy nhiều sách một lần: sách đã có trong cache bookDetail không bị truy vấn lại,
+    // phần còn lại nạp bằng một lượt truy vấn cố định (không phụ thuộc số sách) rồi ghi vào cache
+    @Override
+    @Transactional(readOnly = true)
+    public BookBatchResponse getBooksByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return BookBatchResponse.builder().books(List.of()).missingIds(List.of()).build();
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+
+        // Khóa cache giống getBookById: UUID ở dạng chuẩn; ID không hợp lệ được báo là không tồn tại
+        List<String> keys = ids.stream().map(BookServiceImpl::toBookKey).toList();
+        Set<String> validKeys = new LinkedHashSet<>(keys);
+        validKeys.remove(null);
+
+        Map<Object, Object> found = cacheManager.getCache(CacheConfig.BOOK_DETAIL).getAll(validKeys, missing -> {
+            List<UUID> bookIds = missing.stream().map(key -> UUID.fromString((String) key)).toList();
+            List<Book> books = bookRepository.findWithAuthorsByIdIn(bookIds);
+            if (!books.isEmpty()) {
+                bookRepository.findWithCategoriesByIdIn(bookIds);
+                bookRepository.findWithImagesByIdIn(bookIds);
+            }
+            return books.stream().collect(Collectors.toMap(book -> book.getId().toString(), bookMapper::toBookResponse));
+        });
+
+        // Giữ thứ tự yêu cầu, ID lặp lại chỉ trả một lần
+        List<BookResponse> books = new ArrayList<>(validKeys.size());
+        List<String> missingIds = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String key = keys.get(i);
+            if (key != null && !seen.add(key)) {
+                continue;
+            }
+            BookResponse book = key != null ? (BookResponse) found.get(key) : null;
+            if (book != null) {
+                books.add(book);
+            } else {
+                missingIds.add(ids.get(i));
+            }
+        }
+        return BookBatchResponse.builder().books(books).missingIds(missingIds).build();
     }
 
     // Lấy thông tin chi tiết của một cuốn sách dựa trên ID
     @Override
+    @Cacheable(cacheNames = CacheConfig.BOOK_DETAIL, key = "T(java.util.UUID).fromString(#id).toString()")
     public BookResponse getBookById(String id) {
         Book book = bookRepository.findById(UUID.fromString(id))
-                .orElseThrow(() -> new RuntimeException("Book not found"));
+                .orElseThrow(() -> new AppException(ErrorCode.BOOK_NOT_FOUND));
         return bookMapper.toBookResponse(book);
     }
+
+    private static String toBookKey(String id) {
+        try {
+            return UUID.fromString(id.trim()).toString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Trang không kèm tổng; với count=approximate gắn thêm tổng đã đếm trước đó cho cùng bộ lọc nếu có
+    private PageResponse<BookSummaryResponse> toSliceResponse(Slice<BookSummaryResponse> slice, PageCountMode countMode,
+                                                              String countKey, Supplier<Long> counter) {
+        PageResponse<BookSummaryResponse> response = bookMapper.toSliceResponse(slice);
+        if (countMode == PageCountMode.APPROXIMATE) {
+            response.setApproximateTotal(true);
+            Long total = bookCountEstimator.estimate(countKey, counter);
+            if (total != null) {
+                response.setTotalElements(total);
+                response.setTotalPages((int) Math.ceil((double) total / slice.getSize()));
+            }
+        }
+        return response;
+    }
+
+    // Lấy một trang sách theo danh sách ID đã xếp hạng, giữ nguyên thứ tự xếp hạng
+    private Page<BookSummaryResponse> findPageByIds(List<UUID> rankedIds, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        List<BookSummaryResponse> content = findSummariesInOrder(rankedIds.subList(from, to));
+        return new PageImpl<>(content, pageable, rankedIds.size());
+    }
+
+    // Chỉ mục chưa dựng được lúc khởi động (ví dụ database chưa sẵn sàng) thì để luồng nền dựng lại,
+    // request hiện tại trả lời từ CSDL thay vì tự dựng lại toàn bộ danh mục
+    private boolean facetIndexReady() {
+        if (bookFacetIndex.isReady()) {
+            return true;
+        }
+        bookFacetIndex.requestRebuild();
+        return false;
+    }
+
+    private static BookScrollCriteria toFilterCriteria(BookFilterRequest request) {
+        String keyword = StringUtils.hasText(request.getKeyword()) ? request.getKeyword().trim() : null;
+        return new BookScrollCriteria(null, false, null, null, null, keyword,
+                request.getMinPrice(), request.getMaxPrice(), request.getMinRating(), request.getPublishedAfter(),
+                request.getCategoryIds(), request.getAuthorIds());
+    }
+
+    private static BookFacetIndex.Query toFacetQuery(BookFilterRequest request) {
+        String keyword = StringUtils.hasText(request.getKeyword()) ? request.getKeyword().trim() : null;
+        return new BookFacetIndex.Query(keyword, request.getCategoryIds(), request.getAuthorIds(),
+                request.getMinPrice(), request.getMaxPrice(), request.getMinRating(), request.getPublishedAfter());
+    }
+
+    private static List<FacetCountResponse> toFacetCounts(List<BookFacetIndex.FacetValue> values) {
+        return values.stream()
+                .map(value -> FacetCountResponse.builder()
+                        .value(value.value())
+                        .label(value.label())
+                        .count(value.count())
+                        .build())
+                .toList();
+    }
+
+    // Lấy sách dạng tóm tắt theo ID bằng một truy vấn, giữ nguyên thứ tự của danh sách ID
+    private List<BookSummaryResponse> findSummariesInOrder(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, BookSummaryResponse> booksById = bookRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookSummaryResponse::getId, Function.identity()));
+        return ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Có từ khóa và không có bộ lọc thì mặc định sắp xếp theo độ liên quan
+    private String resolveScrollSortType(BookScrollRequest request, String keyword) {
+        String sortType = request.getSortType();
+        boolean relevanceAvailable = keyword != null && !request.hasFilters() && bookSearchIndex.isReady();
+        if (sortType == null) {
+            return relevanceAvailable ? RELEVANCE_SORT : DEFAULT_SCROLL_SORT;
+        }
+        if (RELEVANCE_SORT.equals(sortType) && !relevanceAvailable) {
+            return DEFAULT_SCROLL_SORT;
+        }
+        return sortType;
+    }
+
+    // Cuộn kết quả tìm kiếm theo (điểm, id): tìm vị trí con trỏ bằng tìm kiếm nhị phân trên danh sách đã xếp hạng
+    private CursorPageResponse<BookSummaryResponse> scrollByRelevance(String keyword, BookCursor cursor, int size) {
+        if (keyword == null) {
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+        List<BookSearchIndex.SearchHit> hits = bookSearchIndex.search(keyword);
+        int from = 0;
+        if (cursor != null) {
+            BookSearchIndex.SearchHit last = new BookSearchIndex.SearchHit(cursor.id(), parseScore(cursor.key()));
+            int position = Collections.binarySearch(hits, last, BookSearchIndex.SearchHit.RANK_ORDER);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        int to = Math.min(from + size, hits.size());
+        List<BookSearchIndex.SearchHit> pageHits = hits.subList(from, to);
+
+        String nextCursor = null;
+        if (to < hits.size()) {
+            BookSearchIndex.SearchHit last = pageHits.getLast();
+            nextCursor = new BookCursor(RELEVANCE_SORT, last.bookId(), String.valueOf(last.score())).encode();
+        }
+        List<BookSummaryResponse> books = findSummariesInOrder(pageHits.stream().map(BookSearchIndex.SearchHit::bookId).toList());
+        return toCursorPage(books, size, nextCursor);
+    }
+
+    // Sách khớp từ khóa nằm sau con trỏ. Tập khớp lớn được chia thành các phần tối đa 1000 ID; mỗi phần chỉ giữ
+    // limit sách đứng đầu sau con trỏ (top limit chung chắc chắn nằm trong hợp các top limit đó), lặp lại tới khi
+    // còn vừa một truy vấn IN. Số truy vấn tỉ lệ với số sách khớp chứ không với cả danh mục, và thứ tự vẫn do CSDL
+    // quyết định nên con trỏ không lệch collation. limit <= 101 (size tối đa 100) nên mỗi vòng thu nhỏ tập ít nhất 9 lần
+    private List<BookSortKey> findMatchedSortKeysAfter(BookScrollCriteria criteria, Set<UUID> matchedIds, int limit) {
+        List<UUID> candidates = new ArrayList<>(matchedIds);
+        while (candidates.size() > MAX_MATCHED_IDS_IN_QUERY) {
+            List<UUID> narrowed = new ArrayList<>();
+            for (int from = 0; from < candidates.size(); from += MAX_MATCHED_IDS_IN_QUERY) {
+                List<UUID> chunk = candidates.subList(from, Math.min(from + MAX_MATCHED_IDS_IN_QUERY, candidates.size()));
+                bookRepository.findSortKeysAfter(withBookIds(criteria, chunk), limit)
+                        .forEach(key -> narrowed.add(key.id()));
+            }
+            candidates = narrowed;
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        return bookRepository.findSortKeysAfter(withBookIds(criteria, candidates), limit);
+    }
+
+    private static BookScrollCriteria withBookIds(BookScrollCriteria criteria, Collection<UUID> bookIds) {
+        return new BookScrollCriteria(criteria.sortProperty(), criteria.ascending(), criteria.afterKey(),
+                criteria.afterId(), bookIds,
+                criteria.keyword(), criteria.minPrice(), criteria.maxPrice(), criteria.minRating(),
+                criteria.publishedAfter(), criteria.categoryIds(), criteria.authorIds());
+    }
+
+    private CursorPageResponse<BookSummaryResponse> toCursorPage(List<BookSummaryResponse> books, int size, String nextCursor) {
+        return CursorPageResponse.<BookSummaryResponse>builder()
+                .content(books)
+                .size(size)
+                .hasNext(nextCursor != null)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static int parseScore(String key) {
+        try {
+            return Integer.parseInt(key);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+    }
+
+    // Cột sắp xếp tương ứng với từng kiểu sắp xếp của getSortedBooks
+    private record SortSpec(String property, boolean ascending) {
+
+        static SortSpec of(String sortType) {
+            return switch (sortType) {
+                case "price_asc" -> new SortSpec("price", true);
+                case "price_desc" -> new SortSpec("price", false);
+                case "title_asc" -> new SortSpec("title", true);
+                case "title_desc" -> new SortSpec("title", false);
+                case "date_asc" -> new SortSpec("publishDate", true);
+                case "rating_asc" -> new SortSpec("averageRating", true);
+                case "rating_desc" -> new SortSpec("averageRating", false);
+                case "date_desc" -> new SortSpec("publishDate", false);
+                default -> throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+            };
+        }
+
+        Object parseKey(String key) {
+            if (key == null) {
+                return null;
+            }
+            try {
+                return switch (property) {
+                    case "price", "averageRating" -> Double.valueOf(key);
+                    case "publishDate" -> LocalDate.parse(key);
+                    default -> key;
+                };
+            } catch (RuntimeException e) {
+                throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+            }
+        }
+
+        static String formatKey(Object sortKey) {
+            return sortKey == null ? null : sortKey.toString();
+        }
+    }
 }
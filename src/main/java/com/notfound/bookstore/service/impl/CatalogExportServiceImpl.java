@@ -0,0 +1,52 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.export.CatalogExportWriter;
+import com.notfound.bookstore.export.ExportFormat;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.service.CatalogExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogExportServiceImpl implements CatalogExportService {
+
+    private final BookRepository bookRepository;
+
+    // Mặc định Integer.MIN_VALUE: MySQL Connector/J bỏ qua fetch size dương (trừ khi URL có useCursorFetch=true)
+    // và nạp toàn bộ kết quả vào heap; giá trị này bật chế độ streaming, driver đọc từng dòng từ socket.
+    // Với CSDL khác (hoặc MySQL có useCursorFetch=true) thì đặt app.export.fetch-size dương, ví dụ 1000
+    @Value("${app.export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    // Transaction chỉ đọc giữ kết nối và cursor mở trong suốt quá trình ghi
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCatalog(ExportFormat format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        try (CatalogExportWriter writer = new CatalogExportWriter(format, out)) {
+            long rows = bookRepository.streamExportRows(fetchSize, row -> {
+                try {
+                    writer.accept(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.close();
+            log.info("Exported {} books ({} rows) as {} in {} ms",
+                    writer.getWritten(), rows, format, System.currentTimeMillis() - start);
+            return writer.getWritten();
+        } catch (UncheckedIOException e) {
+            // Client ngắt kết nối giữa chừng
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.export.ExportFormat;
+import com.notfound.bookstore.importer.CatalogBulkWriter;
+import com.notfound.bookstore.importer.CatalogImportReader;
+import com.notfound.bookstore.importer.ImportRecord;
+import com.notfound.bookstore.importer.ImportedBook;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookImportErrorResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookImportResponse;
+import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.repository.AuthorRepository;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import com.notfound.bookstore.service.CatalogImportService;
+import com.notfound.bookstore.util.UuidV7Generator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Nhập danh mục hàng loạt: đọc tệp theo luồng, kiểm tra từng bản ghi, gom thành lô rồi ghi mỗi lô
+ * trong một transaction bằng JDBC batch (CatalogBulkWriter).
+ * Tên tác giả/thể loại được đổi sang ID qua từ điển nạp sẵn trong bộ nhớ (không phân biệt hoa thường);
+ * tên chưa có được tạo mới trong cùng lô. Lô lỗi được rollback rồi ghi lại từng sách để chỉ loại đúng bản ghi lỗi.
+ * Ghi bằng JDBC không qua entity listener nên sau khi nhập phát một sự kiện thay đổi hàng loạt (entityId = null)
+ * để xóa cache và dựng lại các chỉ mục.
+ */
+@Slf4j
+@Service
+public class CatalogImportServiceImpl implements CatalogImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_MESSAGE_LENGTH = 300;
+    private static final long PROGRESS_LOG_INTERVAL = 10_000;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogBulkWriter bulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public CatalogImportServiceImpl(BookRepository bookRepository, AuthorRepository authorRepository,
+                                    CategoryRepository categoryRepository, CatalogBulkWriter bulkWriter,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.bulkWriter = bulkWriter;
+        this.eventPublisher = eventPublisher;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Trạng thái của một lần nhập: từ điển tên, ISBN đã dùng và số liệu báo cáo
+    private static final class ImportRun {
+        final Map<String, UUID> authorIds = new HashMap<>();
+        final Map<String, UUID> categoryIds = new HashMap<>();
+        final Set<String> isbns = new HashSet<>();
+        final List<BookImportErrorResponse> errors = new ArrayList<>();
+        long totalRecords;
+        long imported;
+        long failed;
+        long authorsCreated;
+        long categoriesCreated;
+        long lastLogged;
+
+        void fail(long line, String isbn, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(BookImportErrorResponse.builder().line(line).isbn(isbn).message(message).build());
+            }
+        }
+    }
+
+    // Hai lần nhập cùng lúc trên một node có thể cùng tạo một thể loại mới (trùng tên) nên chạy tuần tự
+    @Override
+    public synchronized BookImportResponse importCatalog(ExportFormat format, InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun();
+        authorRepository.findAllNames().forEach(author -> run.authorIds.putIfAbsent(toKey(author.getName()), author.getId()));
+        categoryRepository.findAllNames().forEach(category -> run.categoryIds.putIfAbsent(toKey(category.getName()), category.getId()));
+        run.isbns.addAll(bookRepository.findAllIsbns());
+
+        List<ImportedBook> chunk = new ArrayList<>(chunkSize);
+        try (CatalogImportReader reader = new CatalogImportReader(format, in)) {
+            while (true) {
+                ImportRecord record;
+                try {
+                    record = reader.next();
+                } catch (CatalogImportReader.MalformedRecordException e) {
+                    run.totalRecords++;
+                    run.fail(e.getLine(), null, e.getMessage());
+                    continue;
+                }
+                if (record == null) {
+                    break;
+                }
+                run.totalRecords++;
+                try {
+                    chunk.add(validate(record, run));
+                } catch (IllegalArgumentException e) {
+                    run.fail(record.line(), record.isbn(), e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, run);
+                    chunk.clear();
+                    logProgress(run);
+                }
+            }
+        }
+        writeChunk(chunk, run);
+
+        // Một sự kiện cho cả lần nhập; thể loại mới cần thêm sự kiện riêng để xóa cache danh sách thể loại
+        if (run.imported > 0) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(
+                    CatalogChangedEvent.EntityType.BOOK, null, CatalogChangedEvent.Action.SAVED));
+        }
+        if (run.categoriesCreated > 0) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(
+                    CatalogChangedEvent.EntityType.CATEGORY, null, CatalogChangedEvent.Action.SAVED));
+        }
+
+        long durationMs = System.currentTimeMillis() - start;
+        log.info("Catalog import finished: {} records, {} imported, {} failed, {} authors and {} categories created in {} ms",
+                run.totalRecords, run.imported, run.failed, run.authorsCreated, run.categoriesCreated, durationMs);
+        return BookImportResponse.builder()
+                .totalRecords(run.totalRecords)
+                .imported(run.imported)
+                .failed(run.failed)
+                .authorsCreated(run.authorsCreated)
+                .categoriesCreated(run.categoriesCreated)
+                .durationMs(durationMs)
+                .errors(run.errors)
+                .errorsTruncated(run.failed > run.errors.size())
+                .build();
+    }
+
+    private void writeChunk(List<ImportedBook> books, ImportRun run) {
+        if (books.isEmpty()) {
+            return;
+        }
+        // Tên chưa có trong từ điển: chỉ đưa vào từ điển sau khi lô commit thành công
+        Map<String, UUID> newAuthorIds = new HashMap<>();
+        Map<UUID, String> newAuthors = new LinkedHashMap<>();
+        Map<String, UUID> newCategoryIds = new HashMap<>();
+        Map<UUID, String> newCategories = new LinkedHashMap<>();
+        List<CatalogBulkWriter.Link> authorLinks = new ArrayList<>();
+        List<CatalogBulkWriter.Link> categoryLinks = new ArrayList<>();
+        List<CatalogBulkWriter.Image> images = new ArrayList<>();
+        for (ImportedBook book : books) {
+            for (String name : book.authors()) {
+                UUID authorId = resolve(name, run.authorIds, newAuthorIds, newAuthors);
+                authorLinks.add(new CatalogBulkWriter.Link(book.id(), authorId));
+            }
+            for (String name : book.categories()) {
+                UUID categoryId = resolve(name, run.categoryIds, newCategoryIds, newCategories);
+                categoryLinks.add(new CatalogBulkWriter.Link(book.id(), categoryId));
+            }
+            for (int i = 0; i < book.imageUrls().size(); i++) {
+                images.add(new CatalogBulkWriter.Image(book.id(), book.imageUrls().get(i), i + 1));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transaction.executeWithoutResult(status -> {
+                bulkWriter.insertAuthors(newAuthors);
+                bulkWriter.insertCategories(newCategories);
+                bulkWriter.insertBooks(books, now);
+                bulkWriter.insertBookAuthors(authorLinks);
+                bulkWriter.insertBookCategories(categoryLinks);
+                bulkWriter.insertImages(images, now);
+            });
+        } catch (RuntimeException e) {
+            if (books.size() == 1) {
+                ImportedBook book = books.get(0);
+                run.fail(book.line(), book.isbn(), rootMessage(e));
+                return;
+            }
+            log.warn("Import chunk of {} books failed, retrying one by one: {}", books.size(), rootMessage(e));
+            for (ImportedBook book : books) {
+                writeChunk(List.of(book), run);
+            }
+            return;
+        }
+        run.authorIds.putAll(newAuthorIds);
+        run.categoryIds.putAll(newCategoryIds);
+        run.authorsCreated += newAuthors.size();
+        run.categoriesCreated += newCategories.size();
+        run.imported += books.size();
+    }
+
+    private static UUID resolve(String name, Map<String, UUID> dictionary,
+                                Map<String, UUID> createdIds, Map<UUID, String> createdNames) {
+        String key = toKey(name);
+        UUID id = dictionary.get(key);
+        if (id != null) {
+            return id;
+        }
+        return createdIds.computeIfAbsent(key, k -> {
+            UUID newId = UuidV7Generator.next();
+            createdNames.put(newId, name);
+            return newId;
+        });
+    }
+
+    private ImportedBook validate(ImportRecord record, ImportRun run) {
+        String title = requireLength("title", record.title());
+        if (title == null) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        String isbn = requireLength("isbn", record.isbn());
+        Double price = parseDouble("price", record.price());
+        if (price == null) {
+            throw new IllegalArgumentException("Price is required");
+        }
+        Double discountPrice = parseDouble("discountPrice", record.discountPrice());
+        if (discountPrice != null && discountPrice > price) {
+            throw new IllegalArgumentException("Discount price must not exceed price");
+        }
+        int stockQuantity = parseStock(record.stockQuantity());
+        LocalDate publishDate = parseDate(record.publishDate());
+        Book.Status status = parseStatus(record.status(), stockQuantity);
+        List<String> authors = distinctNames("authors", record.authors());
+        List<String> categories = distinctNames("categories", record.categories());
+        List<String> imageUrls = distinctNames("imageUrls", record.imageUrls());
+        // Kiểm tra trùng sau cùng để bản ghi lỗi không giữ chỗ ISBN của bản ghi hợp lệ phía sau
+        if (isbn != null && !run.isbns.add(isbn)) {
+            throw new IllegalArgumentException("Duplicate ISBN " + isbn);
+        }
+        return new ImportedBook(record.line(), UuidV7Generator.next(), title, isbn, price, discountPrice, stockQuantity,
+                publishDate, record.description(), status, authors, categories, imageUrls);
+    }
+
+    private static String requireLength(String field, String value) {
+        if (value != null && value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(field + " must be at most " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static Double parseDouble(String field, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            double number = Double.parseDouble(value);
+            if (!Double.isFinite(number) || number < 0) {
+                throw new IllegalArgumentException(field + " must be a non-negative number");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static int parseStock(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            int stock = Integer.parseInt(value);
+            if (stock < 0) {
+                throw new IllegalArgumentException("stockQuantity must not be negative");
+            }
+            return stock;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid stockQuantity: " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid publishDate (expected yyyy-MM-dd): " + value);
+        }
+    }
+
+    // Không ghi trạng thái thì suy ra từ tồn kho
+    private static Book.Status parseStatus(String value, int stockQuantity) {
+        if (value == null) {
+            return stockQuantity > 0 ? Book.Status.AVAILABLE : Book.Status.OUT_OF_STOCK;
+        }
+        try {
+            return Book.Status.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid status: " + value);
+        }
+    }
+
+    // Bỏ tên trùng trong cùng một sách (không phân biệt hoa thường), giữ cách viết đầu tiên
+    private static List<String> distinctNames(String field, List<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        Map<String, String> distinct = new LinkedHashMap<>();
+        for (String name : names) {
+            distinct.putIfAbsent(toKey(requireLength(field, name)), name);
+        }
+        return List.copyOf(distinct.values());
+    }
+
+    private static String toKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Exception e) {
+        String message = String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        return message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+
+    private static void logProgress(ImportRun run) {
+        if (run.totalRecords - run.lastLogged >= PROGRESS_LOG_INTERVAL) {
+            run.lastLogged = run.totalRecords;
+            log.info("Catalog import progress: {} records read, {} imported, {} failed",
+                    run.totalRecords, run.imported, run.failed);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.category.CategoryTree;
+import com.notfound.bookstore.config.CacheConfig;
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.categoryresponse.CategoryResponse;
+import com.notfound.bookstore.model.dto.response.categoryresponse.CategoryTreeResponse;
+import com.notfound.bookstore.model.entity.Category;
+import com.notfound.bookstore.model.mapper.BookMapper;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import com.notfound.bookstore.service.CategoryService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CategoryServiceImpl implements CategoryService {
+
+    CategoryRepository categoryRepository;
+    BookRepository bookRepository;
+    BookMapper bookMapper;
+    CategoryTree categoryTree;
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "'all'")
+    public List<CategoryResponse> getAllCategories() {
+        return categoryRepository.findAll(Sort.by("name")).stream()
+                .map(this::toCategoryResponse)
+                .toList();
+    }
+
+    // Dựng từ ảnh chụp cây trong bộ nhớ, không truy vấn CSDL
+    @Override
+    public List<CategoryTreeResponse> getCategoryTree() {
+        return categoryTree.roots().stream()
+                .map(this::toTreeResponse)
+                .toList();
+    }
+
+    @Override
+    public List<CategoryTreeResponse> getCategoryPath(String categoryId) {
+        List<CategoryTree.Node> path = categoryTree.path(parseId(categoryId));
+        if (path.isEmpty()) {
+            throw new AppException(ErrorCode.CATEGORY_NOT_FOUND);
+        }
+        return path.stream()
+                .map(node -> toNodeResponse(node).build())
+                .toList();
+    }
+
+    // Tập thể loại con lấy từ cây trong bộ nhớ, sách được lọc bằng một truy vấn IN duy nhất
+    @Override
+    @Transactional(readOnly = true)
+    public PageResponse<BookSummaryResponse> getBooksInCategory(String categoryId, boolean includeSubcategories, int page, int size) {
+        UUID id = parseId(categoryId);
+        CategoryTree.Node node = categoryTree.find(id)
+                .orElseThrow(() -> new AppException(ErrorCode.CATEGORY_NOT_FOUND));
+        Set<UUID> categoryIds = includeSubcategories ? node.subtree() : Set.of(id);
+
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.clamp(size, 1, 100),
+                Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by("id")));
+        return bookMapper.toPageResponse(bookRepository.findSummariesByCategoryIds(categoryIds, pageable));
+    }
+
+    private CategoryTreeResponse toTreeResponse(CategoryTree.Node node) {
+        return toNodeResponse(node)
+                .children(categoryTree.children(node).stream()
+                        .map(this::toTreeResponse)
+                        .toList())
+                .build();
+    }
+
+    private CategoryTreeResponse.CategoryTreeResponseBuilder toNodeResponse(CategoryTree.Node node) {
+        return CategoryTreeResponse.builder()
+                .id(node.id())
+                .name(node.name())
+                .parentId(node.parentId())
+                .bookCount(node.bookCount())
+                .directBookCount(node.directBookCount());
+    }
+
+    private CategoryResponse toCategoryResponse(Category category) {
+        return CategoryResponse.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .description(category.getDescription())
+                .parentId(category.getParentCategory() != null ? category.getParentCategory().getId() : null)
+                .build();
+    }
+
+    private static UUID parseId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+    }
+}
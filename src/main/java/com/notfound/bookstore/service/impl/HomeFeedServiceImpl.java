@@ -0,0 +1,144 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.event.OrderCompletedEvent;
+import com.notfound.bookstore.model.dto.response.homeresponse.HomeFeedResponse;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.service.BookService;
+import com.notfound.bookstore.service.HomeFeedService;
+import com.notfound.bookstore.service.PromotionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dữ liệu trang chủ được tính sẵn thành một ảnh chụp bất biến và thay thế nguyên khối khi tính lại.
+ * Thay đổi danh mục hoặc đơn hàng hoàn tất chỉ đánh dấu cần tính lại; việc tính lại được gom trong vài giây.
+ * Ảnh chụp cũng được làm mới định kỳ và khi sang ngày mới để khuyến mãi hết hạn/bắt đầu được cập nhật.
+ */
+@Slf4j
+@Service
+public class HomeFeedServiceImpl implements HomeFeedService {
+
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final PromotionService promotionService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${app.home-feed.section-size:12}")
+    private int sectionSize;
+
+    @Value("${app.home-feed.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(HomeFeedResponse feed, long builtAt, LocalDate day) {
+    }
+
+    public HomeFeedServiceImpl(BookRepository bookRepository, BookService bookService, PromotionService promotionService,
+                               PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.promotionService = promotionService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public HomeFeedResponse getFeed() {
+        Snapshot current = snapshot;
+        return current != null ? current.feed() : buildFirst();
+    }
+
+    // Chưa tính được lúc khởi động (ví dụ database chưa sẵn sàng): chỉ request đầu tiên tính, các request đang chờ
+    // dùng lại kết quả. Tính lỗi thì trả trang chủ rỗng cho tới lần làm mới định kỳ kế tiếp thay vì lỗi 500
+    private synchronized HomeFeedResponse buildFirst() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current.feed();
+        }
+        try {
+            return refresh();
+        } catch (Exception e) {
+            log.error("Failed to build home feed, serving an empty feed until the next refresh: {}", e.getMessage());
+            HomeFeedResponse empty = HomeFeedResponse.builder()
+                    .newestBooks(List.of())
+                    .discountedBooks(List.of())
+                    .bestSellingBooks(List.of())
+                    .activePromotions(List.of())
+                    .generatedAt(LocalDateTime.now())
+                    .build();
+            snapshot = new Snapshot(empty, System.currentTimeMillis(), LocalDate.now());
+            dirty.set(true);
+            return empty;
+        }
+    }
+
+    @Override
+    public synchronized HomeFeedResponse refresh() {
+        long start = System.currentTimeMillis();
+        HomeFeedResponse feed = readOnlyTransaction.execute(status -> HomeFeedResponse.builder()
+                .newestBooks(List.copyOf(bookRepository.findAllSummaries(
+                        PageRequest.of(0, sectionSize, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent()))
+                .discountedBooks(List.copyOf(bookRepository.findDiscountedSummaries(PageRequest.of(0, sectionSize))))
+                .bestSellingBooks(List.copyOf(bookService.getBestSellingBooks("all", sectionSize)))
+                .activePromotions(List.copyOf(promotionService.getActivePromotions()))
+                .generatedAt(LocalDateTime.now())
+                .build());
+        snapshot = new Snapshot(feed, System.currentTimeMillis(), LocalDate.now());
+        log.info("Home feed built in {} ms", System.currentTimeMillis() - start);
+        return feed;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Failed to build home feed: {}", e.getMessage());
+        }
+    }
+
+    // Mọi thay đổi danh mục đều có thể ảnh hưởng trang chủ (giá, ảnh, điểm đánh giá, khuyến mãi)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCompleted(OrderCompletedEvent event) {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.home-feed.refresh-delay-ms:5000}")
+    public void refreshIfNeeded() {
+        Snapshot current = snapshot;
+        boolean stale = current == null
+                || System.currentTimeMillis() - current.builtAt() > maxAgeMs
+                || !current.day().equals(LocalDate.now());
+        if (!dirty.getAndSet(false) && !stale) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            dirty.set(true);
+            log.warn("Failed to refresh home feed: {}", e.getMessage());
+        }
+    }
+}
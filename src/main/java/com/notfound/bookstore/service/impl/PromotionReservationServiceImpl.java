@@ -0,0 +1,272 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.model.dto.request.promotionrequest.ValidatePromotionCodeRequest;
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionReservationResponse;
+import com.notfound.bookstore.model.entity.Promotion;
+import com.notfound.bookstore.model.entity.PromotionReservation;
+import com.notfound.bookstore.model.enums.PromotionReservationStatus;
+import com.notfound.bookstore.model.projection.PromotionReservationView;
+import com.notfound.bookstore.promotion.PromotionEngine;
+import com.notfound.bookstore.repository.OrderRepository;
+import com.notfound.bookstore.repository.PromotionRepository;
+import com.notfound.bookstore.repository.PromotionReservationRepository;
+import com.notfound.bookstore.service.PromotionReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Giữ lượt dùng mã khuyến mãi bằng UPDATE có điều kiện thay vì đọc - tăng - ghi trên entity:
+ * usage_count chỉ tăng khi còn nhỏ hơn usage_limit nên không thể vượt giới hạn hay mất lượt cập nhật,
+ * và dòng promotions chỉ bị khóa trong thời gian của một câu UPDATE cho đến khi commit.
+ * usage_count tính cả lượt đang giữ và lượt đã xác nhận; lượt bị hủy hoặc quá hạn được trả lại
+ * (lượt quá hạn do tác vụ định kỳ expireReservations trả).
+ * Mỗi người dùng chỉ giữ được một lượt cho mỗi khuyến mãi; lượt giữ chỉ được xác nhận phía server khi đơn hàng được thanh toán.
+ */
+@Slf4j
+@Service
+public class PromotionReservationServiceImpl implements PromotionReservationService {
+
+    private static final int EXPIRE_BATCH_SIZE = 500;
+
+    private final PromotionRepository promotionRepository;
+    private final PromotionReservationRepository reservationRepository;
+    private final OrderRepository orderRepository;
+    private final PromotionEngine promotionEngine;
+    private final TransactionTemplate transaction;
+
+    @Value("${app.promotions.reservation-ttl-seconds:900}")
+    private long reservationTtlSeconds;
+
+    public PromotionReservationServiceImpl(PromotionRepository promotionRepository,
+                                           PromotionReservationRepository reservationRepository,
+                                           OrderRepository orderRepository,
+                                           PromotionEngine promotionEngine,
+                                           PlatformTransactionManager transactionManager) {
+        this.promotionRepository = promotionRepository;
+        this.reservationRepository = reservationRepository;
+        this.orderRepository = orderRepository;
+        this.promotionEngine = promotionEngine;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public PromotionReservationResponse reserve(ValidatePromotionCodeRequest request) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        // Loại sớm mã không dùng được bằng ảnh chụp trong bộ nhớ; UPDATE bên dưới vẫn kiểm tra lại trạng thái và thời gian
+        PromotionEngine.CompiledPromotion promotion = checkUsable(request);
+
+        // Gọi lại khi đang giữ lượt thì trả về lượt đó (không gia hạn)
+        Optional<PromotionReservation> current = currentHold(username, promotion.id());
+        if (current.isPresent()) {
+            return toResponse(current.get(), promotion);
+        }
+
+        PromotionReservation reservation;
+        try {
+            reservation = transaction.execute(status -> {
+                // Ghi lượt giữ trước, tăng usage_count sau cùng để khóa dòng promotions được giữ ngắn nhất
+                PromotionReservation saved = reservationRepository.saveAndFlush(PromotionReservation.builder()
+                        .promotion(promotionRepository.getReferenceById(promotion.id()))
+                        .username(username)
+                        .status(PromotionReservationStatus.RESERVED)
+                        .expiresAt(LocalDateTime.now().plusSeconds(reservationTtlSeconds))
+                        .activeHold(true)
+                        .build());
+                if (promotionRepository.claimUsage(promotion.id(), LocalDate.now()) == 0) {
+                    throw new AppException(ErrorCode.PROMOTION_CODE_USED_UP);
+                }
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Request khác của cùng người dùng vừa giữ lượt (ràng buộc uk_promotion_reservations_active_hold)
+            reservation = currentHold(username, promotion.id())
+                    .orElseThrow(() -> new AppException(ErrorCode.CONFLICT));
+        }
+        return toResponse(reservation, promotion);
+    }
+
+    @Override
+    public boolean confirmForOrder(UUID orderId) {
+        return Boolean.TRUE.equals(transaction.execute(status -> orderRepository.findPromotionUsage(orderId)
+                .map(usage -> confirmUsage(usage.getUsername(), usage.getPromotionId()))
+                .orElse(true)));
+    }
+
+    @Override
+    public PromotionReservationResponse release(UUID reservationId) {
+        PromotionReservation reservation = findOwned(reservationId);
+        if (reservation.getStatus() == PromotionReservationStatus.CONFIRMED) {
+            throw new AppException(ErrorCode.CONFLICT);
+        }
+        UUID promotionId = reservation.getPromotion().getPromotionID();
+        boolean released = Boolean.TRUE.equals(transaction.execute(status -> {
+            if (reservationRepository.release(reservationId) == 0) {
+                return false;
+            }
+            promotionRepository.releaseUsage(promotionId, 1);
+            return true;
+        }));
+        if (released) {
+            reservation.setStatus(PromotionReservationStatus.RELEASED);
+        } else {
+            // Đã hủy, đã quá hạn hoặc vừa được xác nhận: đọc lại trạng thái hiện tại
+            reservation = reservationRepository.findById(reservationId).orElse(reservation);
+            if (reservation.getStatus() == PromotionReservationStatus.CONFIRMED) {
+                throw new AppException(ErrorCode.CONFLICT);
+            }
+        }
+        return toResponse(reservation);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.promotions.reservation-sweep-ms:30000}")
+    public int expireReservations() {
+        int expired = 0;
+        try {
+            int fetched;
+            do {
+                int[] batch = transaction.execute(status -> expireBatch(LocalDateTime.now()));
+                fetched = batch[0];
+                expired += batch[1];
+            } while (fetched == EXPIRE_BATCH_SIZE);
+        } catch (Exception e) {
+            log.warn("Failed to expire promotion reservations: {}", e.getMessage());
+        }
+        if (expired > 0) {
+            log.info("Returned {} expired promotion reservations", expired);
+        }
+        return expired;
+    }
+
+    // Trả về {số lượt giữ quá hạn đã đọc, số lượt thực sự chuyển sang EXPIRED}; lượt vừa được xác nhận thì bỏ qua
+    private int[] expireBatch(LocalDateTime now) {
+        List<PromotionReservationView> candidates = reservationRepository.findExpired(now, PageRequest.of(0, EXPIRE_BATCH_SIZE));
+        Map<UUID, Integer> returnedByPromotion = new HashMap<>();
+        int expired = 0;
+        for (PromotionReservationView candidate : candidates) {
+            if (reservationRepository.expire(candidate.getReservationId(), now) == 1) {
+                returnedByPromotion.merge(candidate.getPromotionId(), 1, Integer::sum);
+                expired++;
+            }
+        }
+        returnedByPromotion.forEach(promotionRepository::releaseUsage);
+        return new int[]{candidates.size(), expired};
+    }
+
+    // Lượt RESERVED còn hạn của người dùng; đã có lượt CONFIRMED thì không giữ thêm, lượt quá hạn chưa được trả thì trả ngay
+    private Optional<PromotionReservation> currentHold(String username, UUID promotionId) {
+        Optional<PromotionReservation> hold = reservationRepository.findActiveHold(username, promotionId);
+        if (hold.isEmpty()) {
+            return hold;
+        }
+        PromotionReservation reservation = hold.get();
+        if (reservation.getStatus() == PromotionReservationStatus.CONFIRMED) {
+            throw new AppException(ErrorCode.PROMOTION_ALREADY_USED);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!reservation.getExpiresAt().isBefore(now)) {
+            return hold;
+        }
+        transaction.executeWithoutResult(status -> expireHold(reservation.getReservationID(), promotionId, now));
+        return Optional.empty();
+    }
+
+    // Chạy trong transaction hoàn tất đơn: lượt giữ quá hạn trong lúc thanh toán được trả rồi lấy lượt mới
+    private boolean confirmUsage(String username, UUID promotionId) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<PromotionReservation> hold = reservationRepository.findActiveHold(username, promotionId);
+        if (hold.isPresent()) {
+            UUID reservationId = hold.get().getReservationID();
+            if (hold.get().getStatus() == PromotionReservationStatus.CONFIRMED
+                    || reservationRepository.confirm(reservationId, now) == 1) {
+                return true;
+            }
+            expireHold(reservationId, promotionId, now);
+        }
+        if (promotionRepository.claimUsage(promotionId, LocalDate.now()) == 0) {
+            log.warn("Promotion {} has no usage left for the paid order of {}", promotionId, username);
+            return false;
+        }
+        reservationRepository.saveAndFlush(PromotionReservation.builder()
+                .promotion(promotionRepository.getReferenceById(promotionId))
+                .username(username)
+                .status(PromotionReservationStatus.CONFIRMED)
+                .expiresAt(now)
+                .activeHold(true)
+                .build());
+        return true;
+    }
+
+    private void expireHold(UUID reservationId, UUID promotionId, LocalDateTime now) {
+        if (reservationRepository.expire(reservationId, now) == 1) {
+            promotionRepository.releaseUsage(promotionId, 1);
+        }
+    }
+
+    private PromotionEngine.CompiledPromotion checkUsable(ValidatePromotionCodeRequest request) {
+        PromotionEngine.CompiledPromotion promotion = promotionEngine.findByCode(request.getCode())
+                .orElseThrow(() -> new AppException(ErrorCode.PROMOTION_NOT_FOUND));
+        LocalDate today = LocalDate.now();
+        if (promotion.status() == Promotion.Status.EXPIRED || promotion.isExpired(today)) {
+            throw new AppException(ErrorCode.PROMOTION_CODE_EXPIRED);
+        }
+        if (promotion.status() != Promotion.Status.ACTIVE) {
+            throw new AppException(ErrorCode.PROMOTION_INACTIVE);
+        }
+        if (!promotion.isStarted(today)) {
+            throw new AppException(ErrorCode.PROMOTION_CODE_INVALID);
+        }
+        if (!promotion.appliesToAny(request.getBookIds())) {
+            throw new AppException(ErrorCode.PROMOTION_CODE_NOT_APPLICABLE);
+        }
+        return promotion;
+    }
+
+    private PromotionReservation findOwned(UUID reservationId) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        PromotionReservation reservation = reservationRepository.findById(reservationId)
+                .orElseThrow(() -> new AppException(ErrorCode.PROMOTION_RESERVATION_NOT_FOUND));
+        if (!reservation.getUsername().equals(username)) {
+            throw new AppException(ErrorCode.FORBIDDEN);
+        }
+        return reservation;
+    }
+
+    private PromotionReservationResponse toResponse(PromotionReservation reservation, PromotionEngine.CompiledPromotion promotion) {
+        return PromotionReservationResponse.builder()
+                .reservationID(reservation.getReservationID())
+                .promotionID(promotion.id())
+                .code(promotion.code())
+                .discountPercent(promotion.discountPercent())
+                .status(reservation.getStatus().name())
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+
+    private PromotionReservationResponse toResponse(PromotionReservation reservation) {
+        UUID promotionId = reservation.getPromotion().getPromotionID();
+        return PromotionReservationResponse.builder()
+                .reservationID(reservation.getReservationID())
+                .promotionID(promotionId)
+                .status(reservation.getStatus().name())
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+}
@@ -1,28 +1,41 @@
 package com.notfound.bookstore.service.impl;
 
+import com.notfound.bookstore.event.CatalogChangedEvent;
 import com.notfound.bookstore.exception.AppException;
 import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.model.dto.request.promotionrequest.CartPromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.CreatePromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.UpdatePromotionRequest;
 import com.notfound.bookstore.model.dto.request.promotionrequest.ValidatePromotionCodeRequest;
+import com.notfound.bookstore.model.dto.response.bookresponse.PageResponse;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.dto.response.promotionresponse.CartPromotionResponse;
 import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionResponse;
 import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionValidationResponse;
 import com.notfound.bookstore.model.entity.Book;
 import com.notfound.bookstore.model.entity.Promotion;
+import com.notfound.bookstore.model.mapper.BookMapper;
+import com.notfound.bookstore.promotion.CartPromotionOptimizer;
+import com.notfound.bookstore.promotion.PromotionEngine;
 import com.notfound.bookstore.repository.BookRepository;
 import com.notfound.bookstore.repository.PromotionRepository;
 import com.notfound.bookstore.service.PromotionService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -34,6 +47,10 @@ public class PromotionServiceImpl implements PromotionService {
 
     PromotionRepository promotionRepository;
     BookRepository bookRepository;
+    BookMapper bookMapper;
+    PromotionEngine promotionEngine;
+    CartPromotionOptimizer cartPromotionOptimizer;
+    ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -66,6 +83,7 @@ public class PromotionServiceImpl implements PromotionService {
         }
 
         Promotion saved = promotionRepository.save(promotion);
+        publishChanged(saved.getPromotionID());
         return mapToResponse(saved);
     }
 
@@ -97,6 +115,10 @@ public class PromotionServiceImpl implements PromotionService {
         }
         if (request.getEndDate() != null) {
             promotion.setEndDate(request.getEndDate());
+            // Gia hạn khuyến mãi đã bị chuyển sang EXPIRED thì mở lại (trạng thái trong request, nếu có, được áp dụng sau)
+            if (promotion.getStatus() == Promotion.Status.EXPIRED && !request.getEndDate().isBefore(LocalDate.now())) {
+                promotion.setStatus(Promotion.Status.ACTIVE);
+            }
         }
         if (request.getUsageLimit() != null) {
             promotion.setUsageLimit(request.getUsageLimit());
@@ -124,6 +146,7 @@ public class PromotionServiceImpl implements PromotionService {
         }
 
         Promotion updated = promotionRepository.save(promotion);
+        publishChanged(promotionId);
         return mapToResponse(updated);
     }
 
@@ -144,32 +167,39 @@ public class PromotionServiceImpl implements PromotionService {
 
     @Override
     public Page<PromotionResponse> getAllPromotions(Pageable pageable) {
-        return promotionRepository.findAll(pageable)
-                .map(this::mapToResponse);
+        Page<Promotion> promotions = promotionRepository.findAll(pageable);
+        Map<UUID, Long> bookCounts = countApplicableBooks(promotions.getContent());
+        return promotions.map(promotion ->
+                mapToResponse(promotion, null, bookCounts.getOrDefault(promotion.getPromotionID(), 0L).intValue()));
     }
 
     @Override
     public List<PromotionResponse> getActivePromotions() {
         LocalDate today = LocalDate.now();
-        return promotionRepository.findActivePromotions(today)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(promotionRepository.findActivePromotions(today));
     }
 
     @Override
     public List<PromotionResponse> getPromotionsByBookId(UUID bookId) {
         LocalDate today = LocalDate.now();
-        return promotionRepository.findActivePromotionsByBook(bookId, today)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(promotionRepository.findActivePromotionsByBook(bookId, today));
+    }
+
+    @Override
+    public PageResponse<BookSummaryResponse> getApplicableBooks(UUID promotionId, int page, int size) {
+        if (!promotionRepository.existsById(promotionId)) {
+            throw new AppException(ErrorCode.PROMOTION_NOT_FOUND);
+        }
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.clamp(size, 1, 100),
+                Sort.by("title").and(Sort.by("id")));
+        return bookMapper.toPageResponse(bookRepository.findSummariesByPromotionId(promotionId, pageable));
     }
 
+    // Kiểm tra trên ảnh chụp trong bộ nhớ; CSDL chỉ được đọc để lấy số lượt đã dùng
     @Override
     public PromotionValidationResponse validatePromotionCode(ValidatePromotionCodeRequest request) {
         LocalDate today = LocalDate.now();
-        Optional<Promotion> promotionOpt = promotionRepository.findByCode(request.getCode().toUpperCase());
+        Optional<PromotionEngine.CompiledPromotion> promotionOpt = promotionEngine.findByCode(request.getCode());
 
         if (promotionOpt.isEmpty()) {
             return PromotionValidationResponse.builder()
@@ -179,89 +209,70 @@ public class PromotionServiceImpl implements PromotionService {
                     .build();
         }
 
-        Promotion promotion = promotionOpt.get();
+        PromotionEngine.CompiledPromotion promotion = promotionOpt.get();
 
-        // Kiểm tra trạng thái
-        if (promotion.getStatus() != Promotion.Status.ACTIVE) {
-            return PromotionValidationResponse.builder()
-                    .isValid(false)
-                    .message("Mã khuyến mãi không hoạt động")
-                    .reason("Khuyến mãi đang không hoạt động")
-                    .promotionID(promotion.getPromotionID())
-                    .code(promotion.getCode())
-                    .build();
+        // Kiểm tra trạng thái (EXPIRED do tác vụ định kỳ đặt khi qua ngày kết thúc)
+        if (promotion.status() == Promotion.Status.EXPIRED) {
+            return invalid(promotion, "Mã khuyến mãi đã hết hạn", "Khuyến mãi đã hết hạn");
+        }
+        if (promotion.status() != Promotion.Status.ACTIVE) {
+            return invalid(promotion, "Mã khuyến mãi không hoạt động", "Khuyến mãi đang không hoạt động");
         }
 
         // Kiểm tra thời gian
-        if (today.isBefore(promotion.getStartDate())) {
-            return PromotionValidationResponse.builder()
-                    .isValid(false)
-                    .message("Mã khuyến mãi chưa có hiệu lực")
-                    .reason("Khuyến mãi chưa bắt đầu")
-                    .promotionID(promotion.getPromotionID())
-                    .code(promotion.getCode())
-                    .build();
+        if (!promotion.isStarted(today)) {
+            return invalid(promotion, "Mã khuyến mãi chưa có hiệu lực", "Khuyến mãi chưa bắt đầu");
         }
 
-        if (today.isAfter(promotion.getEndDate())) {
-            return PromotionValidationResponse.builder()
-                    .isValid(false)
-                    .message("Mã khuyến mãi đã hết hạn")
-                    .reason("Khuyến mãi đã hết hạn")
-                    .promotionID(promotion.getPromotionID())
-                    .code(promotion.getCode())
-                    .build();
+        if (promotion.isExpired(today)) {
+            return invalid(promotion, "Mã khuyến mãi đã hết hạn", "Khuyến mãi đã hết hạn");
         }
 
-        // Kiểm tra số lượt sử dụng
-        if (promotion.getUsageCount() >= promotion.getUsageLimit()) {
-            return PromotionValidationResponse.builder()
-                    .isValid(false)
-                    .message("Mã khuyến mãi đã hết lượt sử dụng")
-                    .reason("Đã đạt giới hạn sử dụng")
-                    .promotionID(promotion.getPromotionID())
-                    .code(promotion.getCode())
-                    .build();
+        // Kiểm tra áp dụng cho sách (danh sách áp dụng rỗng = mọi sách)
+        if (!promotion.appliesToAny(request.getBookIds())) {
+            return invalid(promotion, "Mã khuyến mãi không áp dụng cho sản phẩm này", "Sản phẩm không nằm trong danh sách áp dụng");
         }
 
-        // Kiểm tra áp dụng cho sách (nếu có danh sách sách)
-        if (request.getBookIds() != null && !request.getBookIds().isEmpty()) {
-            List<Book> applicableBooks = promotion.getApplicableBooks();
-            // Nếu có danh sách sách áp dụng (không rỗng), kiểm tra xem sách có trong danh
-            // sách không
-            if (applicableBooks != null && !applicableBooks.isEmpty()) {
-                boolean isApplicable = request.getBookIds().stream()
-                        .anyMatch(bookId -> applicableBooks.stream()
-                                .anyMatch(book -> book.getId().equals(bookId)));
-                if (!isApplicable) {
-                    return PromotionValidationResponse.builder()
-                            .isValid(false)
-                            .message("Mã khuyến mãi không áp dụng cho sản phẩm này")
-                            .reason("Sản phẩm không nằm trong danh sách áp dụng")
-                            .promotionID(promotion.getPromotionID())
-                            .code(promotion.getCode())
-                            .build();
-                }
-            }
+        // Kiểm tra số lượt sử dụng
+        int usageCount = promotionRepository.findUsageCountById(promotion.id()).orElse(0);
+        if (usageCount >= promotion.usageLimit()) {
+            return invalid(promotion, "Mã khuyến mãi đã hết lượt sử dụng", "Đã đạt giới hạn sử dụng");
         }
 
         // Tất cả điều kiện đều hợp lệ
         return PromotionValidationResponse.builder()
                 .isValid(true)
                 .message("Mã khuyến mãi hợp lệ")
-                .promotionID(promotion.getPromotionID())
-                .code(promotion.getCode())
-                .discountPercent(promotion.getDiscountPercent())
+                .promotionID(promotion.id())
+                .code(promotion.code())
+                .discountPercent(promotion.discountPercent())
                 .build();
     }
 
+    @Override
+    public CartPromotionResponse findBestPromotion(CartPromotionRequest request) {
+        return cartPromotionOptimizer.optimize(request.getItems());
+    }
+
+    // Tăng usage_count bằng UPDATE có điều kiện: không mất lượt cập nhật và không vượt usageLimit khi dùng đồng thời
     @Override
     @Transactional
     public void applyPromotionCode(UUID promotionId) {
-        Promotion promotion = promotionRepository.findById(promotionId)
-                .orElseThrow(() -> new AppException(ErrorCode.PROMOTION_NOT_FOUND));
-        promotion.incrementUsageCount();
-        promotionRepository.save(promotion);
+        if (promotionRepository.claimUsage(promotionId, LocalDate.now()) == 0) {
+            Promotion promotion = promotionRepository.findById(promotionId)
+                    .orElseThrow(() -> new AppException(ErrorCode.PROMOTION_NOT_FOUND));
+            LocalDate today = LocalDate.now();
+            if (promotion.getStatus() == Promotion.Status.EXPIRED || today.isAfter(promotion.getEndDate())) {
+                throw new AppException(ErrorCode.PROMOTION_CODE_EXPIRED);
+            }
+            if (promotion.getStatus() != Promotion.Status.ACTIVE) {
+                throw new AppException(ErrorCode.PROMOTION_INACTIVE);
+            }
+            if (today.isBefore(promotion.getStartDate())) {
+                throw new AppException(ErrorCode.PROMOTION_CODE_INVALID);
+            }
+            throw new AppException(ErrorCode.PROMOTION_CODE_USED_UP);
+        }
     }
 
     @Override
@@ -275,16 +286,55 @@ public class PromotionServiceImpl implements PromotionService {
             throw new AppException(ErrorCode.INVALID_ARGUMENTS);
         }
         Promotion updated = promotionRepository.save(promotion);
+        publishChanged(promotionId);
         return mapToResponse(updated);
     }
 
+    // Promotion không có @Version nên sửa riêng danh sách sách có thể không gọi @PostUpdate:
+    // báo thay đổi trực tiếp để PromotionEngine nạp lại khuyến mãi sau khi commit
+    private void publishChanged(UUID promotionId) {
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                CatalogChangedEvent.EntityType.PROMOTION, promotionId, CatalogChangedEvent.Action.SAVED));
+    }
+
+    private static PromotionValidationResponse invalid(PromotionEngine.CompiledPromotion promotion, String message, String reason) {
+        return PromotionValidationResponse.builder()
+                .isValid(false)
+                .message(message)
+                .reason(reason)
+                .promotionID(promotion.id())
+                .code(promotion.code())
+                .build();
+    }
+
+    // Một khuyến mãi: đọc ID sách áp dụng bằng một truy vấn thay vì nạp từng entity Book
     private PromotionResponse mapToResponse(Promotion promotion) {
-        List<UUID> applicableBookIds = promotion.getApplicableBooks() != null
-                ? promotion.getApplicableBooks().stream()
-                        .map(Book::getId)
-                        .collect(Collectors.toList())
-                : new ArrayList<>();
+        List<UUID> applicableBookIds = promotionRepository.findApplicableBookIds(promotion.getPromotionID());
+        return mapToResponse(promotion, applicableBookIds, applicableBookIds.size());
+    }
+
+    // Nhiều khuyến mãi: chỉ trả số sách áp dụng (đếm cho cả danh sách bằng một truy vấn GROUP BY),
+    // danh sách sách xem qua API phân trang của admin
+    private List<PromotionResponse> mapToResponses(List<Promotion> promotions) {
+        Map<UUID, Long> bookCounts = countApplicableBooks(promotions);
+        return promotions.stream()
+                .map(promotion -> mapToResponse(promotion, null,
+                        bookCounts.getOrDefault(promotion.getPromotionID(), 0L).intValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<UUID, Long> countApplicableBooks(List<Promotion> promotions) {
+        if (promotions.isEmpty()) {
+            return Map.of();
+        }
+        List<UUID> promotionIds = promotions.stream().map(Promotion::getPromotionID).toList();
+        Map<UUID, Long> bookCounts = new HashMap<>();
+        promotionRepository.countBooksByPromotionIds(promotionIds).forEach(row ->
+                bookCounts.put(row.getPromotionId(), row.getBookCount()));
+        return bookCounts;
+    }
 
+    private PromotionResponse mapToResponse(Promotion promotion, List<UUID> applicableBookIds, int applicableBookCount) {
         return PromotionResponse.builder()
                 .promotionID(promotion.getPromotionID())
                 .name(promotion.getName())
@@ -297,6 +347,7 @@ public class PromotionServiceImpl implements PromotionService {
                 .usageLimit(promotion.getUsageLimit())
                 .status(promotion.getStatus().name())
                 .applicableBookIds(applicableBookIds)
+                .applicableBookCount(applicableBookCount)
                 .isValid(promotion.isValid())
                 .build();
     }
@@ -1,5 +1,6 @@
 package com.notfound.bookstore.service.impl;
 
+import com.notfound.bookstore.event.CatalogChangedEvent;
 import com.notfound.bookstore.exception.AppException;
 import com.notfound.bookstore.exception.ErrorCode;
 import com.notfound.bookstore.model.dto.request.reviewrequest.CreateReviewRequest;
@@ -15,6 +16,7 @@ import com.notfound.bookstore.repository.UserRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +24,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Service
@@ -32,6 +35,7 @@ public class ReviewServiceImpl implements com.notfound.bookstore.service.ReviewS
     ReviewMapper reviewMapper;
     UserRepository userRepository;
     BookRepository bookRepository;
+    ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -43,6 +47,10 @@ public class ReviewServiceImpl implements com.notfound.bookstore.service.ReviewS
                 .orElseThrow(() -> new AppException(ErrorCode.BOOK_NOT_FOUND));
         Review review = reviewMapper.toEntity(request, user, book);
         Review savedReview = reviewRepository.save(review);
+        bookRepository.addRating(book.getId(), savedReview.getRating(), LocalDateTime.now());
+        // addRating là UPDATE trực tiếp nên entity listener của Book không chạy; báo cho cache sách biết điểm đã đổi
+        eventPublisher.publishEvent(new CatalogChangedEvent(
+                CatalogChangedEvent.EntityType.BOOK, book.getId(), CatalogChangedEvent.Action.SAVED));
         return reviewMapper.toResponse(savedReview);
     }
 
@@ -3,6 +3,7 @@ package com.notfound.bookstore.service.impl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.notfound.bookstore.config.ZaloPayConfig;
+import com.notfound.bookstore.event.OrderCompletedEvent;
 import com.notfound.bookstore.exception.AppException;
 import com.notfound.bookstore.exception.ErrorCode;
 import com.notfound.bookstore.model.dto.request.paymentrequest.PaymentRequest;
@@ -18,10 +19,12 @@ import com.notfound.bookstore.model.enums.PaymentStatus;
 import com.notfound.bookstore.model.mapper.PaymentMapper;
 import com.notfound.bookstore.repository.OrderRepository;
 import com.notfound.bookstore.repository.PaymentRepository;
+import com.notfound.bookstore.service.PromotionReservationService;
 import com.notfound.bookstore.util.HMACUtil;
 import com.notfound.bookstore.util.ZaloPayUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,6 +43,8 @@ public class ZaloPayServiceImpl {
     private final OrderRepository orderRepository;
     private final PaymentRepository paymentRepository;
     private final PaymentMapper paymentMapper;
+    private final PromotionReservationService promotionReservationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public CreatePaymentResponse createOrderTransaction(PaymentRequest body) {
@@ -108,6 +113,8 @@ public class ZaloPayServiceImpl {
         }
     }
 
+    // Cập nhật thanh toán, đơn hàng và lượt dùng khuyến mãi trong cùng một transaction
+    @Transactional
     public ZaloPayCallBackResponseDTO processCallback(ZaloPayCallbackRequest body) {
         String reqMac = HMACUtil.HMacHexStringEncode(HMACUtil.HMACSHA256, properties.getZap_Key2(), body.getData());
         if (reqMac != null && reqMac.equals(body.getMac())) {
@@ -131,8 +138,14 @@ public class ZaloPayServiceImpl {
                 paymentRepository.save(payment);
 
                 Order order = payment.getOrder();
+                boolean newlyCompleted = order.getStatus() != OrderStatus.COMPLETED;
                 order.setStatus(OrderStatus.COMPLETED);
                 orderRepository.save(order);
+                // ZaloPay có thể gọi callback nhiều lần, chỉ xác nhận khuyến mãi và phát sự kiện ở lần đầu
+                if (newlyCompleted) {
+                    promotionReservationService.confirmForOrder(order.getOrderID());
+                    eventPublisher.publishEvent(new OrderCompletedEvent(order.getOrderID()));
+                }
 
                 log.info("Payment updated: {} - ZP Trans: {}", appTransId, zpTransId);
 
@@ -0,0 +1,38 @@
+package com.notfound.bookstore.util;
+
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Con trỏ phân trang keyset: kiểu sắp xếp, id và giá trị khóa sắp xếp của phần tử cuối trang trước.
+ * Được mã hóa Base64 URL-safe để client chỉ coi là chuỗi mờ (opaque).
+ */
+public record BookCursor(String sortType, UUID id, String key) {
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL_KEY = "~";
+    private static final String VALUE_PREFIX = "=";
+
+    public String encode() {
+        String raw = sortType + SEPARATOR + id + SEPARATOR + (key == null ? NULL_KEY : VALUE_PREFIX + key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+            }
+            String key = parts[2].startsWith(VALUE_PREFIX) ? parts[2].substring(VALUE_PREFIX.length()) : null;
+            return new BookCursor(parts[0], UUID.fromString(parts[1]), key);
+        } catch (IllegalArgumentException e) {
+            throw new AppException(ErrorCode.INVALID_ARGUMENTS);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.notfound.bookstore.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hai CacheInvalidationBus dùng chung một kênh trong bộ nhớ, đóng vai hai node.
+ */
+class CacheInvalidationBusTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryCacheInvalidationTransport transport = new InMemoryCacheInvalidationTransport();
+    private final List<CatalogChangedEvent> receivedByA = new CopyOnWriteArrayList<>();
+    private final List<CatalogChangedEvent> receivedByB = new CopyOnWriteArrayList<>();
+    private CacheInvalidationBus nodeA;
+    private CacheInvalidationBus nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = node(receivedByA);
+        nodeB = node(receivedByB);
+    }
+
+    @Test
+    void changeIsDeliveredToOtherNodesButNotBackToOrigin() {
+        UUID bookId = UUID.randomUUID();
+        nodeA.publish(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, bookId, CatalogChangedEvent.Action.SAVED));
+
+        assertTrue(receivedByA.isEmpty());
+        assertEquals(List.of(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, bookId,
+                CatalogChangedEvent.Action.SAVED, true)), receivedByB);
+    }
+
+    @Test
+    void duplicateAndOutOfOrderMessagesAreDropped() throws Exception {
+        UUID bookId = UUID.randomUUID();
+        String latest = message("node-c", 5, bookId);
+        nodeB.receive(latest);
+        nodeB.receive(latest);
+        // Đến muộn: phiên bản cũ hơn bản đã xử lý của cùng sách
+        nodeB.receive(message("node-c", 3, bookId));
+        assertEquals(1, receivedByB.size());
+
+        // Phiên bản được theo dõi riêng theo từng entity
+        nodeB.receive(message("node-c", 4, UUID.randomUUID()));
+        nodeB.receive(message("node-c", 6, bookId));
+        assertEquals(3, receivedByB.size());
+    }
+
+    @Test
+    void messagePublishedByNodeIsNotReappliedWhenEchoedBack() {
+        UUID bookId = UUID.randomUUID();
+        nodeA.publish(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, bookId, CatalogChangedEvent.Action.SAVED));
+        nodeB.publish(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, bookId, CatalogChangedEvent.Action.DELETED));
+
+        assertEquals(1, receivedByA.size());
+        assertEquals(CatalogChangedEvent.Action.DELETED, receivedByA.getFirst().action());
+        assertEquals(1, receivedByB.size());
+        assertEquals(CatalogChangedEvent.Action.SAVED, receivedByB.getFirst().action());
+    }
+
+    @Test
+    void malformedMessageIsIgnored() {
+        nodeB.receive("{not json");
+        assertTrue(receivedByB.isEmpty());
+    }
+
+    private CacheInvalidationBus node(List<CatalogChangedEvent> received) {
+        CacheInvalidationBus bus = new CacheInvalidationBus(transport, objectMapper,
+                event -> received.add((CatalogChangedEvent) event));
+        transport.subscribe(bus::receive);
+        return bus;
+    }
+
+    private String message(String origin, long version, UUID bookId) throws Exception {
+        return objectMapper.writeValueAsString(new CacheInvalidationBus.InvalidationMessage(origin, version,
+                CatalogChangedEvent.EntityType.BOOK, bookId, CatalogChangedEvent.Action.SAVED));
+    }
+}
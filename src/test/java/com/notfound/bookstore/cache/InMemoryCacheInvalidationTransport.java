@@ -0,0 +1,31 @@
+package com.notfound.bookstore.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Kênh invalidate trong cùng tiến trình, thay cho Redis khi kiểm thử: nhiều CacheInvalidationBus dùng chung
+ * một instance đóng vai các node. Thông điệp được giao đồng bộ cho mọi bên đăng ký, kể cả node gửi
+ * (giống Redis pub/sub). Chỉ dùng trong kiểm thử; bản chạy thật là RedisCacheInvalidationTransport.
+ */
+class InMemoryCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final AtomicLong version = new AtomicLong();
+    private final List<Consumer<String>> subscribers = new CopyOnWriteArrayList<>();
+
+    public void subscribe(Consumer<String> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public long nextVersion() {
+        return version.incrementAndGet();
+    }
+
+    @Override
+    public void publish(String payload) {
+        subscribers.forEach(subscriber -> subscriber.accept(payload));
+    }
+}
@@ -0,0 +1,78 @@
+package com.notfound.bookstore.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tập key của cache trên Redis được chia theo khoảng TTL và luôn có hạn, kể cả khi cache được ghi liên tục.
+ */
+class TwoLevelCacheKeyIndexTest {
+
+    private static final Duration REDIS_TTL = Duration.ofMinutes(10);
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+    @SuppressWarnings("unchecked")
+    private final SetOperations<String, String> setOperations = mock(SetOperations.class);
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        ObjectMapper objectMapper = new ObjectMapper();
+        cache = new TwoLevelCache("test", objectMapper.constructType(String.class), 100,
+                Duration.ofMinutes(1), REDIS_TTL, redisTemplate, objectMapper);
+    }
+
+    @Test
+    void keySetOfCurrentBucketExpiresWithinTwoTtls() {
+        long bucket = System.currentTimeMillis() / REDIS_TTL.toMillis();
+
+        cache.put("book", "v1");
+
+        ArgumentCaptor<String> keySet = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Duration> expiry = ArgumentCaptor.forClass(Duration.class);
+        verify(setOperations).add(keySet.capture(), eq("cache:test::book"));
+        verify(redisTemplate).expire(eq(keySet.getValue()), expiry.capture());
+        assertTrue(keySet.getValue().equals("cache:test:keys:" + bucket)
+                || keySet.getValue().equals("cache:test:keys:" + (bucket + 1)), keySet.getValue());
+        // Key ghi muộn nhất trong khoảng còn sống thêm một TTL sau cuối khoảng
+        assertTrue(expiry.getValue().compareTo(REDIS_TTL) > 0, expiry.getValue().toString());
+        assertTrue(expiry.getValue().compareTo(REDIS_TTL.multipliedBy(2)) <= 0, expiry.getValue().toString());
+    }
+
+    @Test
+    void clearDeletesKeysOfRecentBuckets() {
+        long bucket = System.currentTimeMillis() / REDIS_TTL.toMillis();
+        when(setOperations.members(anyString())).thenReturn(Set.of());
+        when(setOperations.members("cache:test:keys:" + (bucket - 1))).thenReturn(Set.of("cache:test::old"));
+        when(setOperations.members("cache:test:keys:" + bucket)).thenReturn(Set.of("cache:test::new"));
+
+        cache.clear();
+
+        verify(redisTemplate).delete(Set.of("cache:test::old"));
+        verify(redisTemplate).delete(Set.of("cache:test::new"));
+        for (long b = bucket - 1; b <= bucket + 1; b++) {
+            verify(redisTemplate).delete("cache:test:keys:" + b);
+        }
+        assertEquals(0, cache.getStats().getRedisErrors());
+    }
+}
@@ -0,0 +1,87 @@
+package com.notfound.bookstore.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra "thế hệ" của key: giá trị nạp trước một lần evict/clear không được ghi vào cache.
+ * Redis luôn lỗi nên cache chỉ dùng tầng local.
+ */
+class TwoLevelCacheTest {
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("Redis is down"));
+        when(redisTemplate.opsForSet()).thenThrow(new RedisConnectionFailureException("Redis is down"));
+        ObjectMapper objectMapper = new ObjectMapper();
+        cache = new TwoLevelCache("test", objectMapper.constructType(String.class), 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(1), redisTemplate, objectMapper);
+    }
+
+    @Test
+    void loadedValueIsCached() {
+        // Cách @Cacheable dùng cache: get() trả về null rồi put() trên cùng thread
+        assertNull(cache.get("book"));
+        cache.put("book", "v1");
+        assertEquals("v1", cache.get("book", String.class));
+    }
+
+    @Test
+    void valueLoadedBeforeEvictIsNotWritten() {
+        assertNull(cache.get("book"));
+        cache.evict("book");
+        cache.put("book", "stale");
+
+        assertNull(cache.get("book"));
+        assertEquals(1, cache.getStats().getStaleWrites());
+    }
+
+    @Test
+    void valueLoadedBeforeClearIsNotWritten() {
+        String loaded = cache.get("book", () -> {
+            cache.clearLocal();
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertNull(cache.get("book"));
+        assertEquals(1, cache.getStats().getStaleWrites());
+    }
+
+    @Test
+    void evictOfAnotherKeyDoesNotBlockWrite() {
+        assertNull(cache.get("book"));
+        cache.evict("other");
+        cache.put("book", "v1");
+        assertEquals("v1", cache.get("book", String.class));
+    }
+
+    @Test
+    void failedLoadLeavesNoPendingGeneration() {
+        cache.evict("book");
+        assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("book", () -> {
+            throw new IllegalStateException("load failed");
+        }));
+        // @Cacheable ném exception sau get(): lần đọc sau trên cùng thread bỏ thế hệ cũ
+        assertNull(cache.get("other"));
+        cache.evict("book");
+        assertNull(cache.get("book"));
+        cache.put("book", "v2");
+
+        assertEquals("v2", cache.get("book", String.class));
+        assertEquals(0, cache.getStats().getStaleWrites());
+    }
+}
@@ -0,0 +1,154 @@
+package com.notfound.bookstore.export;
+
+import com.notfound.bookstore.model.projection.BookExportRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogExportWriterTest {
+
+    private static final int BOOK_COUNT = 1_000_000;
+    private static final int CHECKPOINT = 100_000;
+    // Cho phép dao động của heap giữa các lần đo (bộ đệm của JIT, GC...), không phụ thuộc số sách
+    private static final long MAX_HEAP_GROWTH_BYTES = 16L * 1024 * 1024;
+
+    /**
+     * Ghi 1.000.000 sách và đo heap (gọi System.gc() nên chậm). Chỉ chạy khi có tham số, ví dụ:
+     * mvn test -Dtest=CatalogExportWriterTest -Dexport.heap-test=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "export.heap-test", matches = "true")
+    void ndjsonExportKeepsHeapFlatOnOneMillionBooks() throws IOException {
+        assertFlatHeap(ExportFormat.NDJSON);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "export.heap-test", matches = "true")
+    void csvExportKeepsHeapFlatOnOneMillionBooks() throws IOException {
+        assertFlatHeap(ExportFormat.CSV);
+    }
+
+    @Test
+    void writesOneNdjsonLinePerBook() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CatalogExportWriter writer = new CatalogExportWriter(ExportFormat.NDJSON, out)) {
+            for (int i = 0; i < 1_000; i++) {
+                UUID id = new UUID(0, i);
+                writer.accept(row(id, "Sách số " + i, "Tác giả " + i, "Văn học"));
+                writer.accept(row(id, "Sách số " + i, "Đồng tác giả " + i, "Văn học"));
+            }
+            writer.close();
+            assertEquals(1_000, writer.getWritten());
+        }
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1_000, lines.length);
+        assertTrue(lines[999].contains("\"Sách số 999\""));
+        assertTrue(lines[999].contains("\"Tác giả 999\""));
+        assertTrue(lines[999].contains("\"Đồng tác giả 999\""));
+    }
+
+    @Test
+    void groupsConsecutiveRowsOfTheSameBook() throws IOException {
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CatalogExportWriter writer = new CatalogExportWriter(ExportFormat.CSV, out)) {
+            writer.accept(row(first, "Sách \"Một\", tập 1", "Tác giả A", "Văn học"));
+            writer.accept(row(first, "Sách \"Một\", tập 1", "Tác giả B", "Văn học"));
+            writer.accept(row(second, "Sách hai", null, null));
+        }
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith(first + ",\"Sách \"\"Một\"\", tập 1\","));
+        assertTrue(lines[1].endsWith(",Tác giả A|Tác giả B,Văn học"));
+        assertTrue(lines[2].endsWith(",,"));
+    }
+
+    @Test
+    void keepsDistinctAuthorsWithTheSameName() throws IOException {
+        UUID book = new UUID(0, 1);
+        UUID firstAuthor = new UUID(1, 1);
+        UUID secondAuthor = new UUID(1, 2);
+        UUID firstCategory = new UUID(2, 1);
+        UUID secondCategory = new UUID(2, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CatalogExportWriter writer = new CatalogExportWriter(ExportFormat.CSV, out)) {
+            // Join 2 tác giả x 2 thể loại cho 4 dòng; hai tác giả trùng tên nhưng khác ID
+            writer.accept(row(book, "Tuyển tập", firstAuthor, "Nguyễn Văn A", firstCategory, "Thơ"));
+            writer.accept(row(book, "Tuyển tập", firstAuthor, "Nguyễn Văn A", secondCategory, "Văn học"));
+            writer.accept(row(book, "Tuyển tập", secondAuthor, "Nguyễn Văn A", firstCategory, "Thơ"));
+            writer.accept(row(book, "Tuyển tập", secondAuthor, "Nguyễn Văn A", secondCategory, "Văn học"));
+        }
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].endsWith(",Nguyễn Văn A|Nguyễn Văn A,Thơ|Văn học"), lines[1]);
+    }
+
+    private static void assertFlatHeap(ExportFormat format) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        long heapAtCheckpoint = 0;
+        try (CatalogExportWriter writer = new CatalogExportWriter(format, out)) {
+            for (int i = 0; i < BOOK_COUNT; i++) {
+                UUID id = new UUID(0, i);
+                writer.accept(row(id, "Sách thử nghiệm số " + i, "Tác giả " + (i % 1000), "Thể loại " + (i % 50)));
+                writer.accept(row(id, "Sách thử nghiệm số " + i, "Đồng tác giả " + (i % 777), "Thể loại " + (i % 50)));
+                if (i == CHECKPOINT) {
+                    heapAtCheckpoint = usedHeap();
+                }
+            }
+            writer.close();
+            assertEquals(BOOK_COUNT, writer.getWritten());
+        }
+        long growth = usedHeap() - heapAtCheckpoint;
+        assertTrue(out.count > BOOK_COUNT * 50L, "output too small: " + out.count);
+        assertTrue(growth < MAX_HEAP_GROWTH_BYTES,
+                "heap grew by " + growth / 1024 + " KB between " + CHECKPOINT + " and " + BOOK_COUNT + " books");
+    }
+
+    // ID tác giả/thể loại suy ra từ tên: cùng tên là cùng một tác giả/thể loại
+    private static BookExportRow row(UUID id, String title, String author, String category) {
+        return row(id, title, nameId(author), author, nameId(category), category);
+    }
+
+    private static BookExportRow row(UUID id, String title, UUID authorId, String author, UUID categoryId,
+                                     String category) {
+        return new BookExportRow(id, title, "isbn-" + id, 125000.0, 99000.0, 12, LocalDate.of(2024, 1, 1),
+                "AVAILABLE", 4.5, 20, authorId, author, categoryId, category);
+    }
+
+    private static UUID nameId(String name) {
+        return name != null ? UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)) : null;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Bỏ dữ liệu ghi ra, chỉ đếm số byte
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.notfound.bookstore.ranking;
+
+import com.notfound.bookstore.event.OrderCompletedEvent;
+import com.notfound.bookstore.lock.DistributedLock;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.BookSaleLine;
+import com.notfound.bookstore.model.projection.BookSalesTotal;
+import com.notfound.bookstore.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bảng xếp hạng sách bán chạy: cửa sổ thời gian, cộng dồn đơn mới, đơn hoàn tất trong lúc dựng lại và khóa giữa các node.
+ */
+class BestSellerRankingTest {
+
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final DistributedLock distributedLock = mock(DistributedLock.class);
+    private final BestSellerRanking ranking =
+            new BestSellerRanking(orderItemRepository, distributedLock, mock(PlatformTransactionManager.class));
+
+    private final UUID oldFavourite = UUID.randomUUID();
+    private final UUID newRelease = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        // oldFavourite bán nhiều nhưng đã lâu; newRelease bán trong tuần này
+        when(orderItemRepository.sumQuantityByBook(OrderStatus.COMPLETED)).thenReturn(List.of(
+                total(oldFavourite, 50), total(newRelease, 5)));
+        when(orderItemRepository.findSaleLinesSince(eq(OrderStatus.COMPLETED), any())).thenReturn(List.of(
+                line(oldFavourite, 20, LocalDate.now().minusDays(20)),
+                line(newRelease, 5, LocalDate.now().minusDays(1))));
+        lockAcquired();
+    }
+
+    @Test
+    void windowsRankByQuantitySoldInThatPeriod() {
+        ranking.rebuild();
+
+        assertEquals(List.of(new BestSellerRanking.RankedBook(oldFavourite, 50), new BestSellerRanking.RankedBook(newRelease, 5)),
+                ranking.top(BestSellerRanking.Window.ALL_TIME, 10));
+        assertEquals(List.of(new BestSellerRanking.RankedBook(oldFavourite, 20), new BestSellerRanking.RankedBook(newRelease, 5)),
+                ranking.top(BestSellerRanking.Window.LAST_30_DAYS, 10));
+        assertEquals(List.of(new BestSellerRanking.RankedBook(newRelease, 5)),
+                ranking.top(BestSellerRanking.Window.LAST_7_DAYS, 10));
+        assertEquals(1, ranking.top(BestSellerRanking.Window.ALL_TIME, 1).size());
+    }
+
+    @Test
+    void completedOrderIsAddedAndChangesVersion() {
+        ranking.rebuild();
+        long version = ranking.version();
+        UUID orderId = UUID.randomUUID();
+        when(orderItemRepository.findSaleLinesByOrderId(orderId)).thenReturn(List.of(line(newRelease, 3, LocalDate.now())));
+
+        ranking.onOrderCompleted(new OrderCompletedEvent(orderId));
+
+        assertTrue(ranking.version() > version);
+        assertEquals(new BestSellerRanking.RankedBook(newRelease, 8), ranking.top(BestSellerRanking.Window.LAST_7_DAYS, 1).get(0));
+    }
+
+    @Test
+    void orderCompletedDuringRebuildIsNotLostAtSwap() {
+        ranking.rebuild();
+        UUID orderId = UUID.randomUUID();
+        when(orderItemRepository.findSaleLinesByOrderId(orderId)).thenReturn(List.of(line(newRelease, 100, LocalDate.now())));
+        // Đơn hoàn tất sau khi truy vấn tổng đã đọc xong, trước khi bản mới thay bản cũ
+        when(orderItemRepository.findSaleLinesSince(eq(OrderStatus.COMPLETED), any())).thenAnswer(invocation -> {
+            ranking.onOrderCompleted(new OrderCompletedEvent(orderId));
+            return List.of(line(oldFavourite, 20, LocalDate.now().minusDays(20)),
+                    line(newRelease, 5, LocalDate.now().minusDays(1)));
+        });
+
+        ranking.rebuild();
+
+        assertEquals(new BestSellerRanking.RankedBook(newRelease, 105), ranking.top(BestSellerRanking.Window.ALL_TIME, 1).get(0));
+        assertEquals(new BestSellerRanking.RankedBook(newRelease, 105), ranking.top(BestSellerRanking.Window.LAST_7_DAYS, 1).get(0));
+    }
+
+    @Test
+    void lockHeldByAnotherNodeRetriesLater() {
+        doReturn(DistributedLock.Result.HELD_ELSEWHERE).when(distributedLock).runExclusively(any(), any(), any());
+
+        ranking.scheduledRebuild();
+        assertFalse(ranking.isReady());
+        verify(orderItemRepository, never()).sumQuantityByBook(any());
+
+        lockAcquired();
+        ranking.rebuildIfRequested();
+        assertTrue(ranking.isReady());
+    }
+
+    @Test
+    void rebuildsWithoutRedis() {
+        doReturn(DistributedLock.Result.UNAVAILABLE).when(distributedLock).runExclusively(any(), any(), any());
+
+        ranking.scheduledRebuild();
+
+        assertTrue(ranking.isReady());
+    }
+
+    @Test
+    void answersFromDatabaseBeforeFirstBuild() {
+        when(orderItemRepository.findTopSellers(eq(OrderStatus.COMPLETED), any())).thenReturn(List.of(total(oldFavourite, 50)));
+
+        assertEquals(List.of(new BestSellerRanking.RankedBook(oldFavourite, 50)),
+                ranking.top(BestSellerRanking.Window.ALL_TIME, 1));
+        verify(orderItemRepository, never()).sumQuantityByBook(any());
+
+        ranking.rebuildIfRequested();
+        assertTrue(ranking.isReady());
+    }
+
+    private void lockAcquired() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return DistributedLock.Result.RAN;
+        }).when(distributedLock).runExclusively(any(), any(), any());
+    }
+
+    private static BookSalesTotal total(UUID bookId, long quantity) {
+        return new BookSalesTotal() {
+            @Override
+            public UUID getBookId() {
+                return bookId;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    private static BookSaleLine line(UUID bookId, int quantity, LocalDate orderDate) {
+        return new BookSaleLine() {
+            @Override
+            public UUID getBookId() {
+                return bookId;
+            }
+
+            @Override
+            public LocalDateTime getOrderDate() {
+                return orderDate.atTime(10, 0);
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package com.notfound.bookstore.recommendation;
+
+import com.notfound.bookstore.event.OrderCompletedEvent;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.BookAuthorView;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.BookSaleLine;
+import com.notfound.bookstore.model.projection.BookSalesTotal;
+import com.notfound.bookstore.model.projection.OrderBookView;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sách liên quan: điểm mua cùng > tác giả chung > thể loại chung, bằng điểm thì ưu tiên sách bán chạy,
+ * bỏ qua đơn mua sỉ và cập nhật theo đơn mới hoàn tất.
+ */
+class RelatedBooksEngineTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final RelatedBooksEngine engine = new RelatedBooksEngine(bookRepository, orderItemRepository);
+
+    private final UUID bookA = new UUID(0, 1);
+    private final UUID bookB = new UUID(0, 2);
+    private final UUID bookC = new UUID(0, 3);
+    private final UUID bookD = new UUID(0, 4);
+    private final UUID bookE = new UUID(0, 5);
+    private final UUID bookF = new UUID(0, 6);
+    private final UUID author = UUID.randomUUID();
+    private final UUID category = UUID.randomUUID();
+
+    private record Total(UUID getBookId, Long getQuantity) implements BookSalesTotal {
+    }
+
+    private record AuthorLink(UUID getBookId, UUID getAuthorId, String getAuthorName) implements BookAuthorView {
+    }
+
+    private record CategoryLink(UUID getBookId, UUID getCategoryId, String getCategoryName) implements BookCategoryView {
+    }
+
+    private record OrderBook(UUID getOrderId, UUID getBookId) implements OrderBookView {
+    }
+
+    private record SaleLine(UUID getBookId, LocalDateTime getOrderDate, Integer getQuantity) implements BookSaleLine {
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(engine, "topK", 12);
+        // F bán chạy hơn D nên đứng trước D khi cùng điểm thể loại
+        when(orderItemRepository.sumQuantityByBook(OrderStatus.COMPLETED)).thenReturn(List.of(
+                new Total(bookF, 20L), new Total(bookD, 1L)));
+        // A và B cùng tác giả; A, C, D, F cùng thể loại
+        when(bookRepository.findAllAuthorLinks()).thenReturn(List.of(
+                new AuthorLink(bookA, author, "Tác giả"), new AuthorLink(bookB, author, "Tác giả")));
+        when(bookRepository.findAllCategoryLinks()).thenReturn(List.of(
+                new CategoryLink(bookA, category, "Thể loại"), new CategoryLink(bookC, category, "Thể loại"),
+                new CategoryLink(bookD, category, "Thể loại"), new CategoryLink(bookF, category, "Thể loại")));
+        // A mua cùng C trong hai đơn, mua cùng E trong một đơn
+        List<OrderBookView> orderBooks = new ArrayList<>();
+        orderBooks.addAll(order(new UUID(1, 1), bookA, bookC));
+        orderBooks.addAll(order(new UUID(1, 2), bookA, bookC));
+        orderBooks.addAll(order(new UUID(1, 3), bookA, bookE));
+        when(orderItemRepository.findOrderBooks(OrderStatus.COMPLETED)).thenReturn(orderBooks);
+        when(bookRepository.findAllIds()).thenReturn(List.of(bookA, bookB, bookC, bookD, bookE, bookF));
+    }
+
+    @Test
+    void coPurchasesRankAboveSharedAuthorAndCategory() {
+        engine.rebuild();
+
+        // C: 2 đơn chung + thể loại, E: 1 đơn chung, B: tác giả chung, F và D: chỉ chung thể loại
+        assertEquals(List.of(bookC, bookE, bookB, bookF, bookD), engine.relatedTo(bookA, 10));
+        assertEquals(List.of(bookA), engine.relatedTo(bookB, 10));
+        assertFalse(engine.relatedTo(bookC, 10).contains(bookC));
+    }
+
+    @Test
+    void listIsCappedByTopKAndLimit() {
+        ReflectionTestUtils.setField(engine, "topK", 2);
+        engine.rebuild();
+
+        assertEquals(List.of(bookC, bookE), engine.relatedTo(bookA, 10));
+        assertEquals(List.of(bookC), engine.relatedTo(bookA, 1));
+        assertTrue(engine.relatedTo(bookA, -1).isEmpty());
+        assertTrue(engine.relatedTo(UUID.randomUUID(), 10).isEmpty());
+    }
+
+    @Test
+    void bulkOrdersAreNotCountedAsCoPurchases() {
+        // Đơn 51 đầu sách có cả A và B: không được cộng điểm mua cùng
+        UUID bulkOrder = new UUID(1, 4);
+        List<OrderBookView> orderBooks = new ArrayList<>(orderItemRepository.findOrderBooks(OrderStatus.COMPLETED));
+        orderBooks.addAll(order(bulkOrder, bookA, bookB));
+        for (int i = 0; i < 49; i++) {
+            orderBooks.add(new OrderBook(bulkOrder, UUID.randomUUID()));
+        }
+        when(orderItemRepository.findOrderBooks(OrderStatus.COMPLETED)).thenReturn(orderBooks);
+
+        engine.rebuild();
+
+        assertEquals(List.of(bookC, bookE, bookB, bookF, bookD), engine.relatedTo(bookA, 10));
+    }
+
+    @Test
+    void completedOrderRecomputesBooksInThatOrder() {
+        engine.rebuild();
+        UUID orderId = UUID.randomUUID();
+        when(orderItemRepository.findSaleLinesByOrderId(orderId)).thenReturn(List.of(
+                new SaleLine(bookB, LocalDateTime.now(), 1), new SaleLine(bookD, LocalDateTime.now(), 2)));
+
+        engine.onOrderCompleted(new OrderCompletedEvent(orderId));
+
+        assertEquals(List.of(bookD, bookA), engine.relatedTo(bookB, 10));
+        assertEquals(bookB, engine.relatedTo(bookD, 10).get(0));
+    }
+
+    @Test
+    void nothingIsServedBeforeFirstBuild() {
+        assertFalse(engine.isReady());
+        assertTrue(engine.relatedTo(bookA, 10).isEmpty());
+
+        engine.onOrderCompleted(new OrderCompletedEvent(UUID.randomUUID()));
+        verify(orderItemRepository, never()).findSaleLinesByOrderId(any());
+
+        engine.rebuild();
+        assertTrue(engine.isReady());
+    }
+
+    private static List<OrderBookView> order(UUID orderId, UUID... bookIds) {
+        List<OrderBookView> rows = new ArrayList<>();
+        for (UUID bookId : bookIds) {
+            rows.add(new OrderBook(orderId, bookId));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,145 @@
+package com.notfound.bookstore.repository;
+
+import com.notfound.bookstore.model.dto.response.bookresponse.BookSummaryResponse;
+import com.notfound.bookstore.model.entity.Author;
+import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.model.entity.BookImage;
+import com.notfound.bookstore.model.entity.Category;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Truy vấn danh sách dạng tóm tắt trên CSDL thật: chỉ chọn các cột của BookSummaryResponse, không nạp entity Book
+ * hay collection lazy nào, ảnh chính là ảnh có priority nhỏ nhất và sách khớp nhiều tác giả không bị lặp.
+ * Cần CSDL nên chỉ chạy khi có tham số, ví dụ:
+ * mvn test -Dtest=BookSummaryQueriesTest -Dbooks.db-test=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "books.db-test", matches = "true")
+class BookSummaryQueriesTest {
+
+    @Autowired BookRepository bookRepository;
+    @Autowired AuthorRepository authorRepository;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transaction;
+
+    private final String run = "summary-" + UUID.randomUUID().toString().substring(0, 8);
+    private Statistics statistics;
+    private UUID illustrated;
+    private UUID plain;
+    private UUID category;
+
+    @BeforeEach
+    void setUp() {
+        transaction.executeWithoutResult(status -> {
+            Author first = author(run + "-author-1");
+            Author second = author(run + "-author-2");
+            Category saved = categoryRepository.save(new Category(run + "-category", null));
+            category = saved.getId();
+
+            Book book = book(run + " có ảnh", List.of(first, second), saved);
+            book.setAverageRating(4.5);
+            book.setRatingCount(2);
+            book.setImages(new ArrayList<>(List.of(image(book, run + "/back.jpg", 2), image(book, run + "/cover.jpg", 1),
+                    image(book, run + "/cover-2.jpg", 1))));
+            illustrated = bookRepository.save(book).getId();
+            plain = bookRepository.save(book(run + " không ảnh", List.of(first), saved)).getId();
+        });
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        statistics.setStatisticsEnabled(false);
+        String titles = run + "%";
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM book_images WHERE book_id IN (SELECT id FROM books WHERE title LIKE ?)", titles);
+            jdbcTemplate.update("DELETE FROM book_authors WHERE book_id IN (SELECT id FROM books WHERE title LIKE ?)", titles);
+            jdbcTemplate.update("DELETE FROM book_categories WHERE book_id IN (SELECT id FROM books WHERE title LIKE ?)", titles);
+            jdbcTemplate.update("DELETE FROM books WHERE title LIKE ?", titles);
+            jdbcTemplate.update("DELETE FROM authors WHERE name LIKE ?", titles);
+            jdbcTemplate.update("DELETE FROM categories WHERE name LIKE ?", titles);
+        });
+    }
+
+    @Test
+    void keywordPageSelectsSummaryColumnsOnly() {
+        // Từ khóa khớp cả hai tác giả của sách có ảnh; trang 1 dòng để truy vấn đếm cũng chạy
+        Page<BookSummaryResponse> page = bookRepository.searchBookSummaries(run + "-author",
+                PageRequest.of(0, 1, Sort.by("title")));
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals(List.of(illustrated), page.getContent().stream().map(BookSummaryResponse::getId).toList());
+        BookSummaryResponse summary = page.getContent().get(0);
+        assertEquals(run + "/cover.jpg", summary.getMainImageUrl());
+        assertEquals(4.5, summary.getAverageRating());
+        assertEquals(2, summary.getReviewCount());
+
+        // Một truy vấn cho trang và một truy vấn đếm, không nạp entity hay collection nào
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+
+        Page<BookSummaryResponse> second = bookRepository.searchBookSummaries(run + "-author",
+                PageRequest.of(1, 1, Sort.by("title")));
+        assertEquals(List.of(plain), second.getContent().stream().map(BookSummaryResponse::getId).toList());
+        assertNull(second.getContent().get(0).getMainImageUrl());
+    }
+
+    @Test
+    void categoryAndIdQueriesSelectSummaryColumnsOnly() {
+        Page<BookSummaryResponse> byCategory = bookRepository.findSummariesByCategoryIds(List.of(category),
+                PageRequest.of(0, 10, Sort.by("title")));
+        List<BookSummaryResponse> byId = bookRepository.findSummariesByIdIn(List.of(illustrated));
+
+        assertEquals(2, byCategory.getTotalElements());
+        assertEquals(run + "/cover.jpg", byId.get(0).getMainImageUrl());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    private Author author(String name) {
+        Author author = new Author();
+        author.setName(name);
+        return authorRepository.save(author);
+    }
+
+    private Book book(String title, List<Author> authors, Category category) {
+        Book book = new Book(title, run + "-" + UUID.randomUUID().toString().substring(0, 8), 100_000.0, 10,
+                LocalDate.of(2020, 1, 1), "Mô tả dài không được nạp khi liệt kê", Book.Status.AVAILABLE);
+        book.setAuthors(new ArrayList<>(authors));
+        book.setCategories(new ArrayList<>(List.of(category)));
+        return book;
+    }
+
+    private static BookImage image(Book book, String url, int priority) {
+        BookImage image = new BookImage(book);
+        image.setUrl(url);
+        image.setPriority(priority);
+        return image;
+    }
+}
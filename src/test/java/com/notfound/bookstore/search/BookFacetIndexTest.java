@@ -0,0 +1,216 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.entity.Author;
+import com.notfound.bookstore.model.projection.BookAuthorView;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.BookFacetView;
+import com.notfound.bookstore.repository.AuthorRepository;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lọc và đếm facet trên bitmap trong bộ nhớ: AND giữa các facet, OR trong cùng facet, biên khoảng giá,
+ * cập nhật từng phần theo sự kiện và dựng lại ở luồng nền khi chưa sẵn sàng.
+ */
+class BookFacetIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final AuthorRepository authorRepository = mock(AuthorRepository.class);
+    private final BookSearchIndex bookSearchIndex = mock(BookSearchIndex.class);
+    private final BookFacetIndex index =
+            new BookFacetIndex(bookRepository, authorRepository, mock(CategoryRepository.class), bookSearchIndex);
+
+    // Thứ tự nạp là thứ tự tạo: cheapOld cũ nhất, bundle mới nhất
+    private final UUID cheapOld = UUID.randomUUID();
+    private final UUID midNovel = UUID.randomUUID();
+    private final UUID unrated = UUID.randomUUID();
+    private final UUID bundle = UUID.randomUUID();
+    private final UUID novel = UUID.randomUUID();
+    private final UUID science = UUID.randomUUID();
+    private final UUID authorA = UUID.randomUUID();
+    private final UUID authorB = UUID.randomUUID();
+
+    private record Row(UUID getId, Double getPrice, Double getAverageRating, LocalDate getPublishDate)
+            implements BookFacetView {
+    }
+
+    private record AuthorLink(UUID getBookId, UUID getAuthorId, String getAuthorName) implements BookAuthorView {
+    }
+
+    private record CategoryLink(UUID getBookId, UUID getCategoryId, String getCategoryName) implements BookCategoryView {
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.findAllFacetRows()).thenReturn(List.of(
+                new Row(cheapOld, 40_000.0, 4.5, LocalDate.of(2020, 1, 1)),
+                new Row(midNovel, 150_000.0, 3.2, LocalDate.of(2022, 6, 1)),
+                new Row(unrated, 300_000.0, null, LocalDate.of(2023, 1, 1)),
+                new Row(bundle, 100_000.0, 4.0, null)));
+        when(bookRepository.findAllAuthorLinks()).thenReturn(List.of(
+                new AuthorLink(cheapOld, authorA, "Tác giả A"), new AuthorLink(midNovel, authorB, "Tác giả B"),
+                new AuthorLink(unrated, authorA, "Tác giả A"), new AuthorLink(bundle, authorA, "Tác giả A"),
+                new AuthorLink(bundle, authorB, "Tác giả B")));
+        when(bookRepository.findAllCategoryLinks()).thenReturn(List.of(
+                new CategoryLink(cheapOld, novel, "Tiểu thuyết"), new CategoryLink(midNovel, novel, "Tiểu thuyết"),
+                new CategoryLink(unrated, science, "Khoa học"), new CategoryLink(bundle, science, "Khoa học")));
+        index.rebuild();
+    }
+
+    @Test
+    void newestBooksComeFirstAndPagesSkipEarlierResults() {
+        assertEquals(new BookFacetIndex.Result(List.of(bundle, unrated, midNovel, cheapOld), 4),
+                index.filter(query(null, null, null, null, null, null, null), 0, 10));
+        assertEquals(new BookFacetIndex.Result(List.of(cheapOld), 4),
+                index.filter(query(null, null, null, null, null, null, null), 1, 3));
+    }
+
+    @Test
+    void facetsAreAndedAndValuesWithinFacetAreOred() {
+        assertEquals(List.of(cheapOld), filter(query(null, List.of(novel), List.of(authorA), null, null, null, null)));
+        assertEquals(List.of(bundle, midNovel),
+                filter(query(null, List.of(novel, science), List.of(authorB), null, null, null, null)));
+        assertTrue(filter(query(null, List.of(UUID.randomUUID()), null, null, null, null, null)).isEmpty());
+    }
+
+    @Test
+    void priceRangeIncludesBothBounds() {
+        assertEquals(List.of(bundle, midNovel), filter(query(null, null, null, 100_000.0, 200_000.0, null, null)));
+        // Biên nằm giữa một khoảng: chỉ sách trong khoảng đó được kiểm tra từng giá
+        assertEquals(List.of(unrated, midNovel), filter(query(null, null, null, 120_000.0, null, null, null)));
+        assertEquals(List.of(bundle, cheapOld), filter(query(null, null, null, null, 100_000.0, null, null)));
+    }
+
+    @Test
+    void ratingAndPublishDateFilters() {
+        assertEquals(List.of(bundle, cheapOld), filter(query(null, null, null, null, null, 4.0, null)));
+        // Sách không có ngày phát hành bị loại khi lọc theo ngày
+        assertEquals(List.of(unrated, midNovel), filter(query(null, null, null, null, null, null, LocalDate.of(2021, 1, 1))));
+    }
+
+    @Test
+    void eachFacetIsCountedWithoutItsOwnFilter() {
+        BookFacetIndex.Facets facets = index.facets(query(null, List.of(novel), null, null, null, null, null));
+
+        assertEquals(2, facets.total());
+        // Thể loại đếm trên toàn bộ sách để người dùng thấy các lựa chọn khác
+        assertEquals(List.of(new BookFacetIndex.FacetValue(science.toString(), "Khoa học", 2),
+                new BookFacetIndex.FacetValue(novel.toString(), "Tiểu thuyết", 2)), facets.categories());
+        assertEquals(List.of(new BookFacetIndex.FacetValue(authorA.toString(), "Tác giả A", 1),
+                new BookFacetIndex.FacetValue(authorB.toString(), "Tác giả B", 1)), facets.authors());
+        assertEquals(List.of(1L, 0L, 1L, 0L, 0L), facets.priceRanges().stream().map(BookFacetIndex.FacetValue::count).toList());
+        assertEquals("0-50000", facets.priceRanges().get(0).value());
+        assertEquals("500000-", facets.priceRanges().get(4).value());
+        assertEquals(List.of("4", "3", "2", "1"), facets.ratings().stream().map(BookFacetIndex.FacetValue::value).toList());
+        assertEquals(List.of(1L, 2L, 2L, 2L), facets.ratings().stream().map(BookFacetIndex.FacetValue::count).toList());
+    }
+
+    @Test
+    void keywordUsesSearchIndexOrFallsBackToDatabase() {
+        when(bookSearchIndex.isReady()).thenReturn(true);
+        when(bookSearchIndex.search("mat biec")).thenReturn(List.of(new BookSearchIndex.SearchHit(midNovel, 10)));
+        assertEquals(List.of(midNovel), filter(query("mat biec", null, null, null, null, null, null)));
+
+        when(bookSearchIndex.isReady()).thenReturn(false);
+        when(bookRepository.findIdsByKeyword("mat biec")).thenReturn(List.of(cheapOld, UUID.randomUUID()));
+        assertEquals(List.of(cheapOld), filter(query(" mat biec ", null, null, null, null, null, null)));
+        verify(bookSearchIndex).requestRebuild();
+    }
+
+    @Test
+    void savedAndDeletedBooksAreUpdatedInPlace() {
+        when(bookRepository.findFacetRowById(cheapOld)).thenReturn(Optional.of(new Row(cheapOld, 600_000.0, 4.5, null)));
+        when(bookRepository.findAuthorLinksByBookId(cheapOld)).thenReturn(List.of(new AuthorLink(cheapOld, authorB, "Tác giả B")));
+        when(bookRepository.findCategoryLinksByBookId(cheapOld)).thenReturn(List.of());
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, cheapOld,
+                CatalogChangedEvent.Action.SAVED));
+        assertEquals(List.of(cheapOld), filter(query(null, null, null, 500_000.0, null, null, null)));
+        assertEquals(List.of(bundle, midNovel, cheapOld), filter(query(null, null, List.of(authorB), null, null, null, null)));
+        assertEquals(List.of(midNovel), filter(query(null, List.of(novel), null, null, null, null, null)));
+
+        when(bookRepository.findFacetRowById(midNovel)).thenReturn(Optional.empty());
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, midNovel,
+                CatalogChangedEvent.Action.DELETED));
+        assertEquals(3, index.filter(query(null, null, null, null, null, null, null), 0, 10).total());
+        assertTrue(filter(query(null, List.of(novel), null, null, null, null, null)).isEmpty());
+    }
+
+    @Test
+    void renamedAndDeletedAuthorsChangeFacetLabels() {
+        Author renamed = new Author();
+        renamed.setName("Tác giả A mới");
+        when(authorRepository.findById(authorA)).thenReturn(Optional.of(renamed));
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.AUTHOR, authorA,
+                CatalogChangedEvent.Action.SAVED));
+        assertEquals("Tác giả A mới", index.facets(query(null, null, null, null, null, null, null)).authors().get(0).label());
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.AUTHOR, authorA,
+                CatalogChangedEvent.Action.DELETED));
+        assertEquals(List.of(authorB.toString()), index.facets(query(null, null, null, null, null, null, null))
+                .authors().stream().map(BookFacetIndex.FacetValue::value).toList());
+    }
+
+    @Test
+    void bulkChangeIsRebuiltInBackground() {
+        clearInvocations(bookRepository);
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, null,
+                CatalogChangedEvent.Action.SAVED));
+        verify(bookRepository, never()).findAllFacetRows();
+        verify(bookRepository, never()).findFacetRowById(any());
+
+        index.rebuildIfRequested();
+        verify(bookRepository).findAllFacetRows();
+    }
+
+    @Test
+    void failedStartupBuildIsRetriedInBackground() {
+        BookFacetIndex fresh =
+                new BookFacetIndex(bookRepository, authorRepository, mock(CategoryRepository.class), bookSearchIndex);
+        doThrow(new IllegalStateException("db down")).when(bookRepository).findAllFacetRows();
+
+        fresh.onApplicationReady();
+        assertFalse(fresh.isReady());
+        // Chưa sẵn sàng thì bỏ qua sự kiện, lần dựng lại sau sẽ đọc dữ liệu mới nhất
+        fresh.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, cheapOld,
+                CatalogChangedEvent.Action.SAVED));
+        verify(bookRepository, never()).findFacetRowById(any());
+
+        doReturn(List.of(new Row(cheapOld, 40_000.0, 4.5, null))).when(bookRepository).findAllFacetRows();
+        fresh.rebuildIfRequested();
+        assertTrue(fresh.isReady());
+        assertEquals(1, fresh.filter(query(null, null, null, null, null, null, null), 0, 10).total());
+    }
+
+    private List<UUID> filter(BookFacetIndex.Query query) {
+        return index.filter(query, 0, 10).bookIds();
+    }
+
+    private static BookFacetIndex.Query query(String keyword, Collection<UUID> categoryIds, Collection<UUID> authorIds,
+                                              Double minPrice, Double maxPrice, Double minRating, LocalDate publishedAfter) {
+        return new BookFacetIndex.Query(keyword, categoryIds, authorIds, minPrice, maxPrice, minRating, publishedAfter);
+    }
+}
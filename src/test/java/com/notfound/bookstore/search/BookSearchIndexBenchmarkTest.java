@@ -0,0 +1,121 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.model.projection.BookTitleView;
+import com.notfound.bookstore.repository.AuthorRepository;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đo độ trễ tìm kiếm gần đúng trên chỉ mục dựng từ tên sách giả lập (mặc định 100.000 và 1.000.000 tên).
+ * Chỉ chạy khi có tham số, ví dụ:
+ * mvn test -Dtest=BookSearchIndexBenchmarkTest -Dsearch.benchmark=true -Dsearch.benchmark.titles=100000,1000000
+ *          -DargLine=-Xmx2g
+ */
+@EnabledIfSystemProperty(named = "search.benchmark", matches = "true")
+class BookSearchIndexBenchmarkTest {
+
+    private static final int WORDS_PER_TITLE = 4;
+    private static final int QUERIES = 2_000;
+    private static final int WARMUP_QUERIES = 500;
+    private static final long BUDGET_MS = 30;
+
+    private record Title(UUID getId, String getTitle) implements BookTitleView {
+    }
+
+    @Test
+    void fuzzyLookupLatency() {
+        String sizes = System.getProperty("search.benchmark.titles", "100000,1000000");
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()));
+        }
+    }
+
+    private static void run(int titleCount) {
+        Random random = new Random(42);
+        // Từ vựng tăng theo số tên sách, giống danh mục thật có nhiều tên riêng
+        String[] vocabulary = new String[Math.max(1_000, titleCount / 2)];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+        List<BookTitleView> titles = new ArrayList<>(titleCount);
+        for (int i = 0; i < titleCount; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < WORDS_PER_TITLE; w++) {
+                title.append(w == 0 ? "" : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            titles.add(new Title(new UUID(0, i), title.toString()));
+        }
+
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findAllTitles()).thenReturn(titles);
+        BookSearchIndex index = new BookSearchIndex(bookRepository, mock(AuthorRepository.class), mock(CategoryRepository.class));
+        ReflectionTestUtils.setField(index, "fuzzyBudgetMs", BUDGET_MS);
+
+        long buildStart = System.nanoTime();
+        index.rebuild();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            index.searchFuzzy(typo(vocabulary[random.nextInt(vocabulary.length)], random));
+        }
+        long[] nanos = new long[QUERIES];
+        int found = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            BookTitleView target = titles.get(random.nextInt(titleCount));
+            String word = target.getTitle().split(" ")[random.nextInt(WORDS_PER_TITLE)];
+            String query = typo(word, random);
+            long start = System.nanoTime();
+            List<BookSearchIndex.SearchHit> hits = index.searchFuzzy(query);
+            nanos[i] = System.nanoTime() - start;
+            if (hits.stream().anyMatch(hit -> hit.bookId().equals(target.getId()))) {
+                found++;
+            }
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%d titles: build %d ms, fuzzy p50 %.2f ms, p99 %.2f ms, max %.2f ms, recall %.1f%%%n",
+                titleCount, buildMillis, nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 99 / 100] / 1e6,
+                nanos[QUERIES - 1] / 1e6, found * 100.0 / QUERIES);
+        // Ngân sách thời gian cắt ngắn truy vấn chậm nên p99 không được vượt xa ngân sách
+        assertTrue(nanos[QUERIES * 99 / 100] / 1e6 < BUDGET_MS * 3, "p99 fuzzy latency should stay near the budget");
+        assertTrue(found >= QUERIES * 9 / 10, "A single typo should still find the original title");
+    }
+
+    // Từ ngẫu nhiên 6-10 chữ cái để mỗi từ được phép sai 2 lỗi
+    private static String randomWord(Random random) {
+        char[] word = new char[6 + random.nextInt(5)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+
+    // Một lỗi chính tả: thay, thêm, bớt hoặc đảo hai ký tự liền kề
+    private static String typo(String word, Random random) {
+        StringBuilder result = new StringBuilder(word);
+        int position = 1 + random.nextInt(word.length() - 2);
+        switch (random.nextInt(4)) {
+            case 0 -> result.setCharAt(position, (char) ('a' + random.nextInt(26)));
+            case 1 -> result.insert(position, (char) ('a' + random.nextInt(26)));
+            case 2 -> result.deleteCharAt(position);
+            default -> {
+                char c = result.charAt(position);
+                result.setCharAt(position, result.charAt(position + 1));
+                result.setCharAt(position + 1, c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.entity.Author;
+import com.notfound.bookstore.model.projection.BookAuthorView;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.BookTitleView;
+import com.notfound.bookstore.repository.AuthorRepository;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tìm kiếm không dấu trên chỉ mục trong bộ nhớ: khớp tên sách, tác giả, thể loại và cập nhật từng phần theo sự kiện.
+ */
+class BookSearchIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final AuthorRepository authorRepository = mock(AuthorRepository.class);
+    private final BookSearchIndex index = new BookSearchIndex(bookRepository, authorRepository, mock(CategoryRepository.class));
+
+    private final UUID matBiec = new UUID(0, 1);
+    private final UUID daoMong = new UUID(0, 2);
+    private final UUID harryPotter = new UUID(0, 3);
+    private final UUID nguyenNhatAnh = UUID.randomUUID();
+    private final UUID tieuThuyet = UUID.randomUUID();
+
+    private record Title(UUID getId, String getTitle) implements BookTitleView {
+    }
+
+    private record AuthorLink(UUID getBookId, UUID getAuthorId, String getAuthorName) implements BookAuthorView {
+    }
+
+    private record CategoryLink(UUID getBookId, UUID getCategoryId, String getCategoryName) implements BookCategoryView {
+    }
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "fuzzyBudgetMs", 1_000L);
+        when(bookRepository.findAllTitles()).thenReturn(List.of(
+                new Title(matBiec, "Mắt Biếc"),
+                new Title(daoMong, "Đảo Mộng Mơ"),
+                new Title(harryPotter, "Harry Potter và Hòn Đá Phù Thủy")));
+        when(bookRepository.findAllAuthorLinks()).thenReturn(List.of(
+                new AuthorLink(matBiec, nguyenNhatAnh, "Nguyễn Nhật Ánh"),
+                new AuthorLink(daoMong, nguyenNhatAnh, "Nguyễn Nhật Ánh")));
+        when(bookRepository.findAllCategoryLinks()).thenReturn(List.of(
+                new CategoryLink(matBiec, tieuThuyet, "Tiểu thuyết"),
+                new CategoryLink(harryPotter, tieuThuyet, "Tiểu thuyết")));
+        index.rebuild();
+    }
+
+    @Test
+    void keywordWithoutDiacriticsMatchesVietnameseTitle() {
+        assertEquals(List.of(matBiec), ids(index.search("mat biec")));
+        assertEquals(List.of(matBiec), ids(index.search("MẮT BIẾC")));
+        assertEquals(List.of(daoMong), ids(index.search("dao mong")));
+        assertEquals(List.of(harryPotter), ids(index.search("hon da phu thuy")));
+    }
+
+    @Test
+    void everyWordMustMatchSomeField() {
+        // "biec" khớp tên sách, "nguyen" khớp tác giả
+        assertEquals(List.of(matBiec), ids(index.search("biec nguyen")));
+        assertTrue(index.search("biec harry").isEmpty());
+        assertTrue(index.search("   ").isEmpty());
+    }
+
+    @Test
+    void titleMatchesRankAboveAuthorAndCategoryMatches() {
+        // Cùng điểm thì xếp theo ID
+        List<BookSearchIndex.SearchHit> byCategory = index.search("tieu");
+        assertEquals(List.of(matBiec, harryPotter), ids(byCategory));
+        assertEquals(byCategory.get(0).score(), byCategory.get(1).score());
+
+        List<BookSearchIndex.SearchHit> byAuthor = index.search("nguyen");
+        assertEquals(List.of(matBiec, daoMong), ids(byAuthor));
+        assertTrue(byAuthor.get(0).score() > byCategory.get(0).score());
+        // Khớp trọn từ trong tên sách được điểm cao nhất
+        assertTrue(index.search("mong").get(0).score() > byAuthor.get(0).score());
+    }
+
+    @Test
+    void fuzzySearchToleratesTypos() {
+        assertTrue(index.search("potetr").isEmpty());
+        assertEquals(List.of(harryPotter), ids(index.searchFuzzy("potetr")));
+        assertEquals(List.of(matBiec, daoMong), ids(index.searchFuzzy("ngyuen")));
+    }
+
+    @Test
+    void savedBookIsReindexedAndDeletedBookIsRemoved() {
+        when(bookRepository.findTitleById(matBiec)).thenReturn(Optional.of(new Title(matBiec, "Mắt Biếc (tái bản)")));
+        when(bookRepository.findAuthorLinksByBookId(matBiec)).thenReturn(List.of());
+        when(bookRepository.findCategoryLinksByBookId(matBiec)).thenReturn(List.of());
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, matBiec,
+                CatalogChangedEvent.Action.SAVED));
+        assertEquals(List.of(matBiec), ids(index.search("tai ban")));
+        assertEquals(List.of(daoMong), ids(index.search("nguyen")));
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, matBiec,
+                CatalogChangedEvent.Action.DELETED));
+        assertTrue(index.search("biec").isEmpty());
+    }
+
+    @Test
+    void renamedAuthorIsFoundByNewName() {
+        Author author = new Author();
+        author.setName("Nhật Ánh");
+        when(authorRepository.findById(nguyenNhatAnh)).thenReturn(Optional.of(author));
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.AUTHOR, nguyenNhatAnh,
+                CatalogChangedEvent.Action.SAVED));
+
+        assertTrue(index.search("nguyen").isEmpty());
+        assertEquals(List.of(matBiec, daoMong), ids(index.search("nhat anh")));
+    }
+
+    @Test
+    void bulkChangeIsRebuiltInBackground() {
+        clearInvocations(bookRepository);
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, null,
+                CatalogChangedEvent.Action.SAVED));
+        verify(bookRepository, never()).findAllTitles();
+
+        index.rebuildIfRequested();
+        verify(bookRepository).findAllTitles();
+        assertFalse(index.search("biec").isEmpty());
+    }
+
+    private static List<UUID> ids(List<BookSearchIndex.SearchHit> hits) {
+        return hits.stream().map(BookSearchIndex.SearchHit::bookId).toList();
+    }
+}
@@ -0,0 +1,50 @@
+package com.notfound.bookstore.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefixTrieTest {
+
+    // Khóa được đưa vào theo thứ tự bất kỳ; chỉ số mục nhỏ hơn là xếp hạng cao hơn
+    private final PrefixTrie trie = PrefixTrie.build(
+            List.of("zebra", "ha long", "hanoi", "harry", "potter", "harry potter"),
+            new int[]{4, 3, 2, 1, 0, 0}, 3);
+
+    @Test
+    void prefixReturnsBestEntriesOfSubtreeInRankOrder() {
+        assertArrayEquals(new int[]{0, 1, 2}, trie.top("ha"));
+        assertArrayEquals(new int[]{0, 1}, trie.top("harr"));
+        assertArrayEquals(new int[]{0}, trie.top("harry p"));
+        assertArrayEquals(new int[]{3}, trie.top("ha l"));
+        // Khóa rỗng là gốc: top-K của toàn bộ cây, mỗi mục chỉ xuất hiện một lần
+        assertArrayEquals(new int[]{0, 1, 2}, trie.top(""));
+    }
+
+    @Test
+    void prefixEndingInsideCompressedEdgeStillMatches() {
+        assertArrayEquals(new int[]{4}, trie.top("z"));
+        assertArrayEquals(new int[]{4}, trie.top("zeb"));
+        assertArrayEquals(new int[]{4}, trie.top("zebra"));
+        // Chuỗi nút một con có cùng top-K được gộp thành một cạnh
+        assertTrue(trie.nodeCount() < "zebra".length() + "ha long".length() + "potter".length());
+    }
+
+    @Test
+    void mismatchOrLongerPrefixReturnsNothing() {
+        assertEquals(0, trie.top("zex").length);
+        assertEquals(0, trie.top("zebras").length);
+        assertEquals(0, trie.top("x").length);
+        assertEquals(0, trie.top("hb").length);
+    }
+
+    @Test
+    void emptyTrieMatchesNothing() {
+        assertEquals(0, PrefixTrie.EMPTY.top("a").length);
+        assertEquals(1, PrefixTrie.EMPTY.nodeCount());
+    }
+}
@@ -0,0 +1,117 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.BookSalesTotal;
+import com.notfound.bookstore.model.projection.BookTitleView;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.OrderItemRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đo thời gian dựng và độ trễ gợi ý khi gõ trên chỉ mục dựng từ tên sách giả lập (mặc định 100.000 và 1.000.000 tên).
+ * Chỉ chạy khi có tham số, ví dụ:
+ * mvn test -Dtest=SuggestionIndexBenchmarkTest -Dsuggest.benchmark=true -Dsuggest.benchmark.titles=100000,1000000
+ *          -DargLine=-Xmx4g
+ */
+@EnabledIfSystemProperty(named = "suggest.benchmark", matches = "true")
+class SuggestionIndexBenchmarkTest {
+
+    private static final int WORDS_PER_TITLE = 4;
+    private static final int QUERIES = 100_000;
+    private static final int WARMUP_QUERIES = 20_000;
+    // Tra cứu chỉ đi theo tiền tố nên phải nhanh hơn nhiều so với một truy vấn CSDL
+    private static final double MAX_P99_MS = 1.0;
+
+    private record Title(UUID getId, String getTitle) implements BookTitleView {
+    }
+
+    private record Total(UUID getBookId, Long getQuantity) implements BookSalesTotal {
+    }
+
+    @Test
+    void prefixLookupLatency() {
+        String sizes = System.getProperty("suggest.benchmark.titles", "100000,1000000");
+        for (String size : sizes.split(",")) {
+            run(Integer.parseInt(size.trim()));
+        }
+    }
+
+    private static void run(int titleCount) {
+        Random random = new Random(42);
+        String[] vocabulary = new String[Math.max(1_000, titleCount / 2)];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+        List<BookTitleView> titles = new ArrayList<>(titleCount);
+        List<BookSalesTotal> sales = new ArrayList<>(titleCount);
+        for (int i = 0; i < titleCount; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < WORDS_PER_TITLE; w++) {
+                title.append(w == 0 ? "" : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            UUID id = new UUID(0, i);
+            titles.add(new Title(id, title.toString()));
+            sales.add(new Total(id, (long) random.nextInt(1_000)));
+        }
+
+        BookRepository bookRepository = mock(BookRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        when(bookRepository.findAllTitles()).thenReturn(titles);
+        when(orderItemRepository.sumQuantityByBook(OrderStatus.COMPLETED)).thenReturn(sales);
+        SuggestionIndex index = new SuggestionIndex(bookRepository, orderItemRepository);
+
+        long buildStart = System.nanoTime();
+        index.rebuild();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            index.suggest(prefix(titles.get(random.nextInt(titleCount)), random), SuggestionIndex.MAX_SUGGESTIONS);
+        }
+        long[] nanos = new long[QUERIES];
+        int found = 0;
+        long totalStart = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            String query = prefix(titles.get(random.nextInt(titleCount)), random);
+            long start = System.nanoTime();
+            List<SuggestionIndex.Suggestion> suggestions = index.suggest(query, SuggestionIndex.MAX_SUGGESTIONS);
+            nanos[i] = System.nanoTime() - start;
+            if (!suggestions.isEmpty()) {
+                found++;
+            }
+        }
+        double seconds = (System.nanoTime() - totalStart) / 1e9;
+        Arrays.sort(nanos);
+        System.out.printf("%d titles: build %d ms, suggest p50 %.1f us, p99 %.1f us, max %.1f us, %.0f lookups/s%n",
+                titleCount, buildMillis, nanos[QUERIES / 2] / 1e3, nanos[QUERIES * 99 / 100] / 1e3,
+                nanos[QUERIES - 1] / 1e3, QUERIES / seconds);
+        assertTrue(nanos[QUERIES * 99 / 100] / 1e6 < MAX_P99_MS, "p99 suggest latency should stay under a millisecond");
+        // Tiền tố lấy từ tên sách có thật nên luôn phải có gợi ý
+        assertTrue(found == QUERIES, "Every prefix of an indexed title should return suggestions");
+    }
+
+    // Từ ngẫu nhiên 4-10 chữ cái
+    private static String randomWord(Random random) {
+        char[] word = new char[4 + random.nextInt(7)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+
+    // Giả lập người dùng đang gõ: 1-6 ký tự đầu của một từ bất kỳ trong tên sách
+    private static String prefix(BookTitleView title, Random random) {
+        String word = title.getTitle().split(" ")[random.nextInt(WORDS_PER_TITLE)];
+        return word.substring(0, 1 + random.nextInt(Math.min(6, word.length())));
+    }
+}
@@ -0,0 +1,146 @@
+package com.notfound.bookstore.search;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.projection.BookAuthorView;
+import com.notfound.bookstore.model.projection.BookCategoryView;
+import com.notfound.bookstore.model.projection.BookSalesTotal;
+import com.notfound.bookstore.model.projection.BookTitleView;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Gợi ý khi gõ: khớp từ bất kỳ trong tên không phân biệt dấu, xếp theo số lượng đã bán và gom thay đổi danh mục.
+ */
+class SuggestionIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final SuggestionIndex index = new SuggestionIndex(bookRepository, orderItemRepository);
+
+    private final UUID stone = UUID.randomUUID();
+    private final UUID chamber = UUID.randomUUID();
+    private final UUID hanoi = UUID.randomUUID();
+    private final UUID rowling = UUID.randomUUID();
+    private final UUID thachLam = UUID.randomUUID();
+    private final UUID novel = UUID.randomUUID();
+
+    private record Title(UUID getId, String getTitle) implements BookTitleView {
+    }
+
+    private record Total(UUID getBookId, Long getQuantity) implements BookSalesTotal {
+    }
+
+    private record AuthorLink(UUID getBookId, UUID getAuthorId, String getAuthorName) implements BookAuthorView {
+    }
+
+    private record CategoryLink(UUID getBookId, UUID getCategoryId, String getCategoryName) implements BookCategoryView {
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(orderItemRepository.sumQuantityByBook(OrderStatus.COMPLETED)).thenReturn(List.of(
+                new Total(stone, 100L), new Total(chamber, 50L)));
+        when(bookRepository.findAllTitles()).thenReturn(List.of(
+                new Title(hanoi, "Hà Nội Băm Sáu Phố Phường"),
+                new Title(chamber, "Harry Potter và Phòng Chứa Bí Mật"),
+                new Title(stone, "Harry Potter và Hòn Đá Phù Thủy")));
+        when(bookRepository.findAllAuthorLinks()).thenReturn(List.of(
+                new AuthorLink(stone, rowling, "J.K. Rowling"), new AuthorLink(chamber, rowling, "J.K. Rowling"),
+                new AuthorLink(hanoi, thachLam, "Thạch Lam")));
+        when(bookRepository.findAllCategoryLinks()).thenReturn(List.of(
+                new CategoryLink(stone, novel, "Tiểu thuyết"), new CategoryLink(chamber, novel, "Tiểu thuyết"),
+                new CategoryLink(hanoi, novel, "Tiểu thuyết")));
+        index.rebuild();
+    }
+
+    @Test
+    void bestSellingBooksComeFirst() {
+        assertEquals(List.of(book(stone, "Harry Potter và Hòn Đá Phù Thủy"), book(chamber, "Harry Potter và Phòng Chứa Bí Mật")),
+                index.suggest("harry", SuggestionIndex.MAX_SUGGESTIONS));
+        assertEquals(1, index.suggest("harry", 1).size());
+        assertTrue(index.suggest("  ", SuggestionIndex.MAX_SUGGESTIONS).isEmpty());
+    }
+
+    @Test
+    void anyWordMatchesWithoutDiacritics() {
+        assertEquals(List.of(chamber, hanoi), ids(index.suggest("pho", SuggestionIndex.MAX_SUGGESTIONS)));
+        assertEquals(List.of(hanoi), ids(index.suggest("HÀ NỘI", SuggestionIndex.MAX_SUGGESTIONS)));
+        assertEquals(List.of(stone, chamber), ids(index.suggest("potter va", SuggestionIndex.MAX_SUGGESTIONS)));
+        assertTrue(index.suggest("potter x", SuggestionIndex.MAX_SUGGESTIONS).isEmpty());
+    }
+
+    @Test
+    void authorsAndCategoriesRankBySalesOfTheirBooks() {
+        assertEquals(List.of(new SuggestionIndex.Suggestion(SuggestionIndex.Type.AUTHOR, rowling, "J.K. Rowling")),
+                index.suggest("rowl", SuggestionIndex.MAX_SUGGESTIONS));
+        // Tiểu thuyết (150) > Hòn Đá Phù Thủy (100) > Thạch Lam (0)
+        assertEquals(List.of(novel, stone, thachLam), ids(index.suggest("th", SuggestionIndex.MAX_SUGGESTIONS)));
+    }
+
+    @Test
+    void catalogChangesAreCoalescedIntoOneRebuild() {
+        clearInvocations(bookRepository);
+        index.refreshIfNeeded();
+        verify(bookRepository, never()).findAllTitles();
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, stone,
+                CatalogChangedEvent.Action.SAVED));
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.AUTHOR, rowling,
+                CatalogChangedEvent.Action.SAVED));
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.REVIEW, stone,
+                CatalogChangedEvent.Action.SAVED));
+        index.refreshIfNeeded();
+        index.refreshIfNeeded();
+
+        verify(bookRepository, times(1)).findAllTitles();
+    }
+
+    @Test
+    void failedRebuildKeepsServingOldSnapshotAndRetries() {
+        doThrow(new IllegalStateException("db down")).when(bookRepository).findAllTitles();
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.EntityType.BOOK, null,
+                CatalogChangedEvent.Action.SAVED));
+        index.refreshIfNeeded();
+
+        assertTrue(index.isReady());
+        assertFalse(index.suggest("harry", SuggestionIndex.MAX_SUGGESTIONS).isEmpty());
+
+        doReturn(List.of(new Title(stone, "Harry Potter và Hòn Đá Phù Thủy"))).when(bookRepository).findAllTitles();
+        index.refreshIfNeeded();
+        assertEquals(List.of(stone), ids(index.suggest("harry", SuggestionIndex.MAX_SUGGESTIONS)));
+    }
+
+    @Test
+    void nothingIsSuggestedBeforeFirstBuild() {
+        SuggestionIndex empty = new SuggestionIndex(bookRepository, orderItemRepository);
+
+        assertFalse(empty.isReady());
+        assertTrue(empty.suggest("harry", SuggestionIndex.MAX_SUGGESTIONS).isEmpty());
+    }
+
+    private static SuggestionIndex.Suggestion book(UUID id, String title) {
+        return new SuggestionIndex.Suggestion(SuggestionIndex.Type.BOOK, id, title);
+    }
+
+    private static List<UUID> ids(List<SuggestionIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionIndex.Suggestion::id).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package com.notfound.bookstore.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TermDictionaryTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    @Test
+    void distanceCountsEachEditOnce() {
+        assertEquals(0, TermDictionary.boundedDistance("sach", "sach", 2));
+        assertEquals(1, TermDictionary.boundedDistance("sach", "sanh", 2));
+        assertEquals(1, TermDictionary.boundedDistance("sach", "sachs", 2));
+        assertEquals(1, TermDictionary.boundedDistance("sach", "sch", 2));
+        // Đảo hai ký tự liền kề là một lỗi
+        assertEquals(1, TermDictionary.boundedDistance("potter", "pottre", 2));
+        assertEquals(2, TermDictionary.boundedDistance("potter", "ptotre", 2));
+        assertEquals(3, TermDictionary.boundedDistance("", "abc", 3));
+    }
+
+    @Test
+    void distanceAtTheBoundIsExact() {
+        assertEquals(1, TermDictionary.boundedDistance("harry", "hary", 1));
+        assertEquals(1, TermDictionary.boundedDistance("nguyen", "ngyuen", 1));
+        assertEquals(3, TermDictionary.boundedDistance("kitten", "sitting", 3));
+        assertEquals(2, TermDictionary.boundedDistance("rowling", "rolwign", 2));
+    }
+
+    @Test
+    void distanceBeyondTheBoundIsCappedAtBoundPlusOne() {
+        assertEquals(2, TermDictionary.boundedDistance("kitten", "sitting", 1));
+        assertEquals(3, TermDictionary.boundedDistance("abcdef", "uvwxyz", 2));
+        // Chênh lệch độ dài lớn hơn giới hạn thì dừng ngay
+        assertEquals(2, TermDictionary.boundedDistance("sach", "sachgiaokhoa", 1));
+        assertEquals(2, TermDictionary.boundedDistance("", "ab", 1));
+    }
+
+    @Test
+    void typoFindsCandidatesSortedByDistance() {
+        TermDictionary dictionary = dictionary("harry", "hary", "parry", "potter", "rowling", "sach", "sachs", "biec");
+
+        assertEquals(List.of(new TermDictionary.Match("hary", 0), new TermDictionary.Match("harry", 1)),
+                dictionary.similar("hary", 1, NO_DEADLINE));
+        assertEquals(List.of(new TermDictionary.Match("potter", 1)), dictionary.similar("pottre", 2, NO_DEADLINE));
+        assertEquals(List.of(new TermDictionary.Match("rowling", 1)), dictionary.similar("rowlign", 2, NO_DEADLINE));
+        assertEquals(List.of(new TermDictionary.Match("sach", 1), new TermDictionary.Match("sachs", 2)),
+                dictionary.similar("sahc", 2, NO_DEADLINE));
+    }
+
+    @Test
+    void termsOutsideTheDistanceOrLengthWindowAreNotReturned() {
+        TermDictionary dictionary = dictionary("potter", "potterhead", "otter", "pot", "plotter", "putter");
+
+        List<TermDictionary.Match> matches = dictionary.similar("poter", 1, NO_DEADLINE);
+        assertEquals(List.of(new TermDictionary.Match("potter", 1)), matches);
+        assertTrue(dictionary.similar("zzzzz", 2, NO_DEADLINE).isEmpty());
+    }
+
+    @Test
+    void sharedTermStaysUntilLastReferenceIsRemoved() {
+        TermDictionary dictionary = dictionary("potter", "potter");
+
+        dictionary.remove("potter");
+        assertEquals(1, dictionary.similar("poter", 1, NO_DEADLINE).size());
+        dictionary.remove("potter");
+        assertTrue(dictionary.similar("poter", 1, NO_DEADLINE).isEmpty());
+        assertEquals(0, dictionary.size());
+
+        // ID được tái sử dụng cho từ mới
+        dictionary.add("harry");
+        assertEquals(List.of(new TermDictionary.Match("harry", 1)), dictionary.similar("hary", 1, NO_DEADLINE));
+    }
+
+    @Test
+    void expiredDeadlineReturnsWithoutVerifyingCandidates() {
+        TermDictionary dictionary = dictionary("potter", "harry");
+        assertTrue(dictionary.similar("poter", 1, System.nanoTime() - 1).isEmpty());
+    }
+
+    private static TermDictionary dictionary(String... terms) {
+        TermDictionary dictionary = new TermDictionary();
+        for (String term : terms) {
+            dictionary.add(term);
+        }
+        return dictionary;
+    }
+}
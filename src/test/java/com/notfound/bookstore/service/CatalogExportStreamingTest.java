@@ -0,0 +1,144 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.export.ExportFormat;
+import com.notfound.bookstore.importer.CatalogBulkWriter;
+import com.notfound.bookstore.importer.ImportedBook;
+import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.util.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Xuất danh mục qua đúng đường đi thật: CatalogExportService -> BookRepositoryCustomImpl.streamExportRows ->
+ * cursor JDBC với app.export.fetch-size. Heap đo trong lúc đang ghi (so với trước khi xuất) không được tăng theo
+ * số sách; nếu driver nạp toàn bộ kết quả vào bộ nhớ (ví dụ fetch size không bật streaming trên MySQL) thì
+ * heap tăng tỉ lệ với số dòng và kiểm tra thất bại.
+ * Cần CSDL thật và tạo nhiều sách nên chỉ chạy khi có tham số, ví dụ:
+ * mvn test -Dtest=CatalogExportStreamingTest -Dexport.db-heap-test=true -Dexport.db-heap-test.books=500000
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "export.db-heap-test", matches = "true")
+class CatalogExportStreamingTest {
+
+    private static final int DEFAULT_BOOK_COUNT = 200_000;
+    private static final int SEED_BATCH_SIZE = 1_000;
+    // Bộ đệm của driver/Jackson và dao động của GC; không phụ thuộc số sách
+    private static final long MAX_HEAP_GROWTH_BYTES = 32L * 1024 * 1024;
+
+    @Autowired CatalogExportService exportService;
+    @Autowired CatalogBulkWriter bulkWriter;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transaction;
+
+    @Test
+    void exportStreamsRowsWithoutBufferingTheResultSet() throws IOException {
+        int bookCount = Integer.getInteger("export.db-heap-test.books", DEFAULT_BOOK_COUNT);
+        String run = "export-" + UUID.randomUUID().toString().substring(0, 8);
+        seed(run, bookCount);
+        try {
+            long baseline = usedHeap();
+            HeapSamplingOutputStream out = new HeapSamplingOutputStream(bookCount / 10);
+            long exported = exportService.exportCatalog(ExportFormat.NDJSON, out);
+
+            assertTrue(exported >= bookCount, "exported " + exported + " of at least " + bookCount + " books");
+            assertEquals(exported, out.lines);
+            long growth = out.maxHeap - baseline;
+            assertTrue(growth < MAX_HEAP_GROWTH_BYTES,
+                    "heap grew by " + growth / 1024 + " KB while exporting " + exported + " books");
+        } finally {
+            cleanUp(run);
+        }
+    }
+
+    // Ghi bằng CatalogBulkWriter (JDBC batch, không qua entity listener) như khi nhập danh mục, nên tạo nhiều sách
+    // không phát sự kiện cập nhật chỉ mục cho từng sách. Mỗi sách có 2 tác giả và 1 thể loại để cursor đi qua phép join
+    private void seed(String run, int bookCount) {
+        Map<UUID, String> authors = new LinkedHashMap<>();
+        authors.put(UuidV7Generator.next(), run + "-author-1");
+        authors.put(UuidV7Generator.next(), run + "-author-2");
+        UUID categoryId = UuidV7Generator.next();
+        transaction.executeWithoutResult(status -> {
+            bulkWriter.insertAuthors(authors);
+            bulkWriter.insertCategories(Map.of(categoryId, run + "-category"));
+        });
+        for (int from = 0; from < bookCount; from += SEED_BATCH_SIZE) {
+            List<ImportedBook> books = new ArrayList<>();
+            List<CatalogBulkWriter.Link> authorLinks = new ArrayList<>();
+            List<CatalogBulkWriter.Link> categoryLinks = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, bookCount); i++) {
+                UUID bookId = UuidV7Generator.next();
+                books.add(new ImportedBook(i, bookId, "Sách xuất thử " + i, run + "-" + i, 100_000.0 + i % 500, null,
+                        10, LocalDate.of(2020, 1, 1).plusDays(i % 1_000), null, Book.Status.AVAILABLE,
+                        List.of(), List.of(), List.of()));
+                authors.keySet().forEach(authorId -> authorLinks.add(new CatalogBulkWriter.Link(bookId, authorId)));
+                categoryLinks.add(new CatalogBulkWriter.Link(bookId, categoryId));
+            }
+            transaction.executeWithoutResult(status -> {
+                bulkWriter.insertBooks(books, LocalDateTime.now());
+                bulkWriter.insertBookAuthors(authorLinks);
+                bulkWriter.insertBookCategories(categoryLinks);
+            });
+        }
+    }
+
+    private void cleanUp(String run) {
+        String books = run + "-%";
+        transaction.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM book_authors WHERE book_id IN (SELECT id FROM books WHERE isbn LIKE ?)", books);
+            jdbcTemplate.update("DELETE FROM book_categories WHERE book_id IN (SELECT id FROM books WHERE isbn LIKE ?)", books);
+            jdbcTemplate.update("DELETE FROM books WHERE isbn LIKE ?", books);
+            jdbcTemplate.update("DELETE FROM authors WHERE name LIKE ?", run + "-%");
+            jdbcTemplate.update("DELETE FROM categories WHERE name LIKE ?", run + "-%");
+        });
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Bỏ dữ liệu ghi ra; cứ mỗi sampleEvery dòng NDJSON thì đo heap một lần (lúc cursor vẫn đang mở)
+    private static final class HeapSamplingOutputStream extends OutputStream {
+        private final long sampleEvery;
+        long lines;
+        long maxHeap;
+
+        HeapSamplingOutputStream(long sampleEvery) {
+            this.sampleEvery = Math.max(sampleEvery, 1);
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % sampleEvery == 0) {
+                maxHeap = Math.max(maxHeap, usedHeap());
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
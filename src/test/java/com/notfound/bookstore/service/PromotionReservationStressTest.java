@@ -0,0 +1,263 @@
+package com.notfound.bookstore.service;
+
+import com.notfound.bookstore.exception.AppException;
+import com.notfound.bookstore.exception.ErrorCode;
+import com.notfound.bookstore.model.dto.request.promotionrequest.ValidatePromotionCodeRequest;
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionReservationResponse;
+import com.notfound.bookstore.model.entity.Order;
+import com.notfound.bookstore.model.entity.Promotion;
+import com.notfound.bookstore.model.entity.PromotionReservation;
+import com.notfound.bookstore.model.entity.User;
+import com.notfound.bookstore.model.enums.OrderStatus;
+import com.notfound.bookstore.model.enums.PromotionReservationStatus;
+import com.notfound.bookstore.model.enums.Role;
+import com.notfound.bookstore.promotion.PromotionEngine;
+import com.notfound.bookstore.repository.OrderRepository;
+import com.notfound.bookstore.repository.PromotionRepository;
+import com.notfound.bookstore.repository.PromotionReservationRepository;
+import com.notfound.bookstore.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra giữ lượt dùng khuyến mãi dưới tải đồng thời: hàng nghìn lượt giữ song song trên cùng một mã
+ * không được vượt usageLimit, mỗi người dùng chỉ giữ được một lượt, và thanh toán đơn/hủy/hết hạn chạy chồng nhau
+ * không được làm lệch usage_count.
+ * Cần CSDL thật nên chỉ chạy khi có tham số, ví dụ:
+ * mvn test -Dtest=PromotionReservationStressTest -Dpromotion.stress=true
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "promotion.stress", matches = "true")
+class PromotionReservationStressTest {
+
+    private static final int USAGE_LIMIT = 300;
+    private static final int ATTEMPTS = 3_000;
+    private static final int THREADS = 64;
+
+    @Autowired PromotionReservationService reservationService;
+    @Autowired PromotionService promotionService;
+    @Autowired PromotionRepository promotionRepository;
+    @Autowired PromotionReservationRepository reservationRepository;
+    @Autowired OrderRepository orderRepository;
+    @Autowired UserRepository userRepository;
+    @Autowired PromotionEngine promotionEngine;
+    @Autowired TransactionTemplate transaction;
+    @Autowired EntityManager entityManager;
+
+    @Test
+    void concurrentReservationsNeverOversellOrLoseUpdates() throws Exception {
+        UUID promotionId = createPromotion(USAGE_LIMIT);
+        String code = promotionRepository.findById(promotionId).orElseThrow().getCode();
+        String run = "stress-" + UUID.randomUUID().toString().substring(0, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<UUID> orderIds = new ArrayList<>();
+        List<UUID> userIds = new ArrayList<>();
+        try {
+            // 1. Giữ song song nhiều hơn số lượt cho phép (mỗi lần một người dùng): đúng USAGE_LIMIT lượt thành công
+            Map<String, PromotionReservationResponse> reserved = reserveConcurrently(executor, code, run + "-a", ATTEMPTS);
+            assertEquals(USAGE_LIMIT, reserved.size());
+            assertEquals(USAGE_LIMIT, usageCount(promotionId));
+            assertEquals(Map.of(PromotionReservationStatus.RESERVED, (long) USAGE_LIMIT), statusCounts(promotionId));
+
+            // 2. Một người dùng giữ lại nhiều lần song song: vẫn chỉ một lượt giữ, không tốn thêm lượt dùng
+            String repeatUser = reserved.keySet().iterator().next();
+            Set<UUID> repeatIds = ConcurrentHashMap.newKeySet();
+            List<Callable<Void>> repeats = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                repeats.add(asUser(repeatUser, () -> {
+                    repeatIds.add(reservationService.reserve(ValidatePromotionCodeRequest.builder().code(code).build())
+                            .getReservationID());
+                    return null;
+                }));
+            }
+            invokeAll(executor, repeats);
+            assertEquals(Set.of(reserved.get(repeatUser).getReservationID()), repeatIds);
+            assertEquals(USAGE_LIMIT, usageCount(promotionId));
+
+            // 3. Nửa đầu: thanh toán đơn tranh với hủy lượt giữ (mỗi thao tác gọi hai lần); nửa sau: chỉ hủy.
+            // Đơn đã thanh toán luôn có đúng một lượt CONFIRMED (lấy lượt mới nếu lượt giữ vừa bị hủy)
+            List<String> usernames = new ArrayList<>(reserved.keySet());
+            List<String> paying = usernames.subList(0, USAGE_LIMIT / 2);
+            Map<String, UUID> orders = createOrders(paying, promotionId, userIds);
+            orderIds.addAll(orders.values());
+            List<Callable<Void>> races = new ArrayList<>();
+            for (String username : usernames) {
+                UUID reservationId = reserved.get(username).getReservationID();
+                for (int i = 0; i < 2; i++) {
+                    races.add(asUser(username, () -> ignoreConflicts(() -> reservationService.release(reservationId))));
+                    if (orders.containsKey(username)) {
+                        races.add(() -> ignoreConflicts(() -> reservationService.confirmForOrder(orders.get(username))));
+                    }
+                }
+            }
+            invokeAll(executor, races);
+            long confirmed = statusCounts(promotionId).getOrDefault(PromotionReservationStatus.CONFIRMED, 0L);
+            assertEquals(paying.size(), confirmed);
+            assertEquals(confirmed, usageCount(promotionId));
+
+            // 4. Người dùng mới giữ phần lượt vừa được trả, để quá hạn rồi cho nhiều tác vụ trả lượt chạy cùng lúc
+            Map<String, PromotionReservationResponse> second = reserveConcurrently(executor, code, run + "-b", ATTEMPTS);
+            assertEquals(USAGE_LIMIT - confirmed, second.size());
+            assertEquals(USAGE_LIMIT, usageCount(promotionId));
+            transaction.executeWithoutResult(status -> entityManager.createQuery(
+                            "UPDATE PromotionReservation r SET r.expiresAt = :past WHERE r.status = 'RESERVED'")
+                    .setParameter("past", LocalDateTime.now().minusMinutes(1))
+                    .executeUpdate());
+            List<Callable<Void>> sweeps = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                sweeps.add(() -> {
+                    reservationService.expireReservations();
+                    return null;
+                });
+            }
+            invokeAll(executor, sweeps);
+            assertEquals(confirmed, usageCount(promotionId));
+            assertEquals(USAGE_LIMIT - confirmed,
+                    (long) statusCounts(promotionId).getOrDefault(PromotionReservationStatus.EXPIRED, 0L));
+
+            // 5. Áp dụng mã trực tiếp (không giữ trước) song song: không mất lượt cập nhật, dừng đúng ở giới hạn
+            List<Callable<Void>> direct = new ArrayList<>();
+            AtomicInteger applied = new AtomicInteger();
+            for (int i = 0; i < ATTEMPTS; i++) {
+                direct.add(() -> {
+                    try {
+                        promotionService.applyPromotionCode(promotionId);
+                        applied.incrementAndGet();
+                    } catch (AppException e) {
+                        assertEquals(ErrorCode.PROMOTION_CODE_USED_UP, e.getErrorCode());
+                    }
+                    return null;
+                });
+            }
+            invokeAll(executor, direct);
+            assertEquals(USAGE_LIMIT - confirmed, applied.get());
+            assertEquals(USAGE_LIMIT, usageCount(promotionId));
+        } finally {
+            executor.shutdownNow();
+            transaction.executeWithoutResult(status -> {
+                orderRepository.deleteAllById(orderIds);
+                userRepository.deleteAllById(userIds);
+                promotionRepository.deleteById(promotionId);
+            });
+        }
+    }
+
+    // Trả về lượt giữ thành công theo tên người dùng
+    private Map<String, PromotionReservationResponse> reserveConcurrently(ExecutorService executor, String code,
+                                                                          String userPrefix, int attempts) throws Exception {
+        Map<String, PromotionReservationResponse> reserved = new ConcurrentHashMap<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < attempts; i++) {
+            String username = userPrefix + "-" + i;
+            tasks.add(asUser(username, () -> {
+                try {
+                    reserved.put(username, reservationService.reserve(ValidatePromotionCodeRequest.builder().code(code).build()));
+                } catch (AppException e) {
+                    assertEquals(ErrorCode.PROMOTION_CODE_USED_UP, e.getErrorCode());
+                }
+                return null;
+            }));
+        }
+        invokeAll(executor, tasks);
+        return new LinkedHashMap<>(reserved);
+    }
+
+    // Mỗi người dùng một đơn hàng dùng khuyến mãi; trả về ID đơn theo tên người dùng
+    private Map<String, UUID> createOrders(List<String> usernames, UUID promotionId, List<UUID> userIds) {
+        return transaction.execute(status -> {
+            Map<String, UUID> orders = new LinkedHashMap<>();
+            Promotion promotion = promotionRepository.getReferenceById(promotionId);
+            for (String username : usernames) {
+                User user = userRepository.save(new User(username, "secret", username + "@stress.test", Role.CUSTOMER, null));
+                userIds.add(user.getId());
+                Order order = new Order();
+                order.setStatus(OrderStatus.PENDING);
+                order.setTotalAmount(100_000.0);
+                order.setCustomer(user);
+                order.setPromotion(promotion);
+                orders.put(username, orderRepository.save(order).getOrderID());
+            }
+            return orders;
+        });
+    }
+
+    private static void invokeAll(ExecutorService executor, List<Callable<Void>> tasks) throws Exception {
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+    }
+
+    // Thua trong cuộc đua xác nhận/hủy là kết quả hợp lệ; hai lần xác nhận cùng một đơn đồng thời thì một lần bị
+    // ràng buộc uk_promotion_reservations_active_hold chặn
+    private static Void ignoreConflicts(Callable<?> action) throws Exception {
+        try {
+            action.call();
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        } catch (AppException e) {
+            ErrorCode code = e.getErrorCode();
+            if (code != ErrorCode.CONFLICT && code != ErrorCode.PROMOTION_RESERVATION_EXPIRED) {
+                throw e;
+            }
+        }
+        return null;
+    }
+
+    private static Callable<Void> asUser(String username, Callable<Void> task) {
+        return () -> {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(username, null, List.of()));
+            try {
+                return task.call();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+    }
+
+    private UUID createPromotion(int usageLimit) {
+        UUID promotionId = transaction.execute(status -> {
+            Promotion promotion = new Promotion("Stress test", 10.0, LocalDate.now().minusDays(1),
+                    LocalDate.now().plusDays(1), "Stress test");
+            promotion.setCode("STRESS-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+            promotion.setUsageCount(0);
+            promotion.setUsageLimit(usageLimit);
+            promotion.setApplicableBooks(new ArrayList<>());
+            return promotionRepository.save(promotion).getPromotionID();
+        });
+        promotionEngine.rebuild();
+        return promotionId;
+    }
+
+    private int usageCount(UUID promotionId) {
+        return promotionRepository.findUsageCountById(promotionId).orElseThrow();
+    }
+
+    private Map<PromotionReservationStatus, Long> statusCounts(UUID promotionId) {
+        return reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getPromotion().getPromotionID().equals(promotionId))
+                .collect(Collectors.groupingBy(PromotionReservation::getStatus, Collectors.counting()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.notfound.bookstore.service.impl;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Số truy vấn đồng thời mặc định của trang chi tiết được suy ra từ pool kết nối.
+ */
+class BookDetailServiceImplTest {
+
+    @Test
+    void permitsLeaveHeadroomInTheHikariPool() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(20);
+            assertEquals(16, BookDetailServiceImpl.permitsFromPool(dataSource, 4));
+        }
+    }
+
+    @Test
+    void smallPoolStillAllowsOneQuery() {
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setMaximumPoolSize(3);
+            assertEquals(1, BookDetailServiceImpl.permitsFromPool(dataSource, 4));
+        }
+    }
+
+    @Test
+    void unknownDataSourceFallsBackToDefault() {
+        assertEquals(4, BookDetailServiceImpl.permitsFromPool(mock(DataSource.class), 4));
+    }
+}
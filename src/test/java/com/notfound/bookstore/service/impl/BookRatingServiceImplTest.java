@@ -0,0 +1,140 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.projection.BookRatingAggregate;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Đối chiếu tổng hợp đánh giá lưu trên sách với bảng reviews và tính lại các sách bị lệch.
+ */
+class BookRatingServiceImplTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final BookRatingServiceImpl ratingService =
+            new BookRatingServiceImpl(bookRepository, reviewRepository, eventPublisher);
+
+    private final UUID consistentBook = UUID.randomUUID();
+    private final UUID driftedBook = UUID.randomUUID();
+    private final UUID unsavedBook = UUID.randomUUID();
+    private final UUID orphanedBook = UUID.randomUUID();
+
+    @Test
+    void findsBooksWhoseStoredAggregateDiffersFromReviews() {
+        givenAggregates();
+
+        assertEquals(Set.of(driftedBook, unsavedBook, orphanedBook), Set.copyOf(ratingService.findInconsistentBooks()));
+    }
+
+    @Test
+    void backfillRecalculatesDriftedBooksAndPublishesOneBulkEvent() {
+        givenAggregates();
+
+        assertEquals(3, ratingService.backfillRatingAggregates());
+
+        verify(bookRepository).recalculateRating(driftedBook);
+        verify(bookRepository).recalculateRating(unsavedBook);
+        verify(bookRepository).recalculateRating(orphanedBook);
+        verify(bookRepository, never()).recalculateRating(consistentBook);
+        verify(eventPublisher).publishEvent(new CatalogChangedEvent(
+                CatalogChangedEvent.EntityType.BOOK, null, CatalogChangedEvent.Action.SAVED));
+    }
+
+    @Test
+    void backfillWithoutDriftPublishesNothing() {
+        Aggregate aggregate = new Aggregate(consistentBook, 1, 0, 0, 0, 1);
+        when(reviewRepository.aggregateRatingsByBook()).thenReturn(List.of(aggregate));
+        when(bookRepository.findStoredRatingAggregates()).thenReturn(List.of(aggregate));
+
+        assertEquals(0, ratingService.backfillRatingAggregates());
+
+        verify(bookRepository, never()).recalculateRating(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    // consistentBook khớp; driftedBook lệch một mức sao; unsavedBook có review nhưng sách chưa lưu tổng hợp;
+    // orphanedBook còn tổng hợp nhưng review đã bị xóa hết
+    private void givenAggregates() {
+        when(reviewRepository.aggregateRatingsByBook()).thenReturn(List.of(
+                new Aggregate(consistentBook, 0, 0, 1, 2, 0),
+                new Aggregate(driftedBook, 1, 0, 0, 0, 1),
+                new Aggregate(unsavedBook, 0, 0, 0, 0, 3)));
+        when(bookRepository.findStoredRatingAggregates()).thenReturn(List.of(
+                new Aggregate(consistentBook, 0, 0, 1, 2, 0),
+                new Aggregate(driftedBook, 1, 0, 0, 1, 0),
+                new Aggregate(orphanedBook, 0, 0, 0, 0, 2)));
+    }
+
+    private static final class Aggregate implements BookRatingAggregate {
+        private final UUID bookId;
+        private final long[] counts;
+
+        Aggregate(UUID bookId, long... counts) {
+            this.bookId = bookId;
+            this.counts = counts;
+        }
+
+        @Override
+        public UUID getBookId() {
+            return bookId;
+        }
+
+        @Override
+        public Long getRatingCount() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        @Override
+        public Long getRatingSum() {
+            long sum = 0;
+            for (int star = 1; star <= counts.length; star++) {
+                sum += star * counts[star - 1];
+            }
+            return sum;
+        }
+
+        @Override
+        public Long getRating1Count() {
+            return counts[0];
+        }
+
+        @Override
+        public Long getRating2Count() {
+            return counts[1];
+        }
+
+        @Override
+        public Long getRating3Count() {
+            return counts[2];
+        }
+
+        @Override
+        public Long getRating4Count() {
+            return counts[3];
+        }
+
+        @Override
+        public Long getRating5Count() {
+            return counts[4];
+        }
+    }
+}
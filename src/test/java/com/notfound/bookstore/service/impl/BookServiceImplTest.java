@@ -0,0 +1,78 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.cache.BookCountEstimator;
+import com.notfound.bookstore.cache.TwoLevelCacheManager;
+import com.notfound.bookstore.model.dto.request.bookrequest.BookFilterRequest;
+import com.notfound.bookstore.model.dto.response.bookresponse.BookFacetsResponse;
+import com.notfound.bookstore.model.mapper.BookMapper;
+import com.notfound.bookstore.ranking.BestSellerRanking;
+import com.notfound.bookstore.recommendation.RelatedBooksEngine;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.search.BookFacetIndex;
+import com.notfound.bookstore.search.BookSearchIndex;
+import com.notfound.bookstore.search.SuggestionIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lọc sách khi chỉ mục facet chưa sẵn sàng: trả lời từ CSDL và để luồng nền dựng lại, không dựng trong request.
+ */
+class BookServiceImplTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookFacetIndex bookFacetIndex = mock(BookFacetIndex.class);
+    private final BookServiceImpl bookService = new BookServiceImpl(bookRepository, mock(BookMapper.class),
+            mock(BookSearchIndex.class), mock(BestSellerRanking.class), mock(RelatedBooksEngine.class),
+            mock(SuggestionIndex.class), bookFacetIndex, mock(TwoLevelCacheManager.class), mock(BookCountEstimator.class));
+
+    @Test
+    void filterFallsBackToDatabaseUntilIndexIsReady() {
+        when(bookRepository.findIdsByCriteria(any(), any())).thenReturn(new PageImpl<>(List.of(UUID.randomUUID())));
+
+        bookService.findByFilters(BookFilterRequest.builder().keyword("mat biec").build());
+
+        verify(bookRepository).findIdsByCriteria(any(), any());
+        verify(bookFacetIndex).requestRebuild();
+        verify(bookFacetIndex, never()).rebuild();
+        verify(bookFacetIndex, never()).filter(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void facetsReturnOnlyTotalUntilIndexIsReady() {
+        when(bookRepository.findIdsByCriteria(any(), any())).thenReturn(new PageImpl<>(List.of(UUID.randomUUID()),
+                PageRequest.of(0, 1), 42));
+
+        BookFacetsResponse response = bookService.getFilterFacets(BookFilterRequest.builder().build());
+
+        assertEquals(42, response.getTotal());
+        assertTrue(response.getCategories().isEmpty());
+        verify(bookFacetIndex).requestRebuild();
+        verify(bookFacetIndex, never()).facets(any());
+    }
+
+    @Test
+    void readyIndexAnswersWithoutDatabaseFilter() {
+        when(bookFacetIndex.isReady()).thenReturn(true);
+        when(bookFacetIndex.filter(any(), eq(0), eq(10))).thenReturn(new BookFacetIndex.Result(List.of(), 0));
+
+        bookService.findByFilters(BookFilterRequest.builder().build());
+
+        verify(bookFacetIndex).filter(any(), eq(0), eq(10));
+        verify(bookRepository, never()).findIdsByCriteria(any(), any());
+        verify(bookFacetIndex, never()).requestRebuild();
+    }
+}
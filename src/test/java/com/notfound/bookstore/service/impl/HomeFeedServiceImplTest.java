@@ -0,0 +1,77 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.model.dto.response.homeresponse.HomeFeedResponse;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.service.BookService;
+import com.notfound.bookstore.service.PromotionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Trang chủ khi ảnh chụp chưa có: chỉ tính một lần dù nhiều request cùng đến, và không trả lỗi khi database lỗi.
+ */
+class HomeFeedServiceImplTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private HomeFeedServiceImpl homeFeedService;
+
+    @BeforeEach
+    void setUp() {
+        homeFeedService = new HomeFeedServiceImpl(bookRepository, mock(BookService.class), mock(PromotionService.class),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(homeFeedService, "sectionSize", 12);
+    }
+
+    @Test
+    void concurrentFirstRequestsBuildFeedOnce() throws Exception {
+        when(bookRepository.findAllSummaries(any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            return new PageImpl<>(List.of());
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<HomeFeedResponse>> feeds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            feeds.add(pool.submit(homeFeedService::getFeed));
+        }
+        HomeFeedResponse first = feeds.getFirst().get();
+        for (Future<HomeFeedResponse> feed : feeds) {
+            assertSame(first, feed.get());
+        }
+        pool.shutdown();
+        verify(bookRepository, times(1)).findAllSummaries(any());
+    }
+
+    @Test
+    void databaseFailureServesEmptyFeedUntilNextRefresh() {
+        when(bookRepository.findAllSummaries(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        HomeFeedResponse feed = homeFeedService.getFeed();
+        assertTrue(feed.getNewestBooks().isEmpty());
+        assertSame(feed, homeFeedService.getFeed());
+        verify(bookRepository, times(1)).findAllSummaries(any());
+
+        doReturn(new PageImpl<>(List.of())).when(bookRepository).findAllSummaries(any());
+        homeFeedService.refreshIfNeeded();
+        verify(bookRepository, times(2)).findAllSummaries(any());
+    }
+}
@@ -0,0 +1,170 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.dto.request.promotionrequest.UpdatePromotionRequest;
+import com.notfound.bookstore.model.dto.request.promotionrequest.ValidatePromotionCodeRequest;
+import com.notfound.bookstore.model.dto.response.promotionresponse.PromotionResponse;
+import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.model.entity.Promotion;
+import com.notfound.bookstore.model.mapper.BookMapper;
+import com.notfound.bookstore.model.projection.PromotionBookCountView;
+import com.notfound.bookstore.model.projection.PromotionBookView;
+import com.notfound.bookstore.promotion.CartPromotionOptimizer;
+import com.notfound.bookstore.promotion.PromotionEngine;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.PromotionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ảnh chụp của PromotionEngine phải thấy thay đổi ngay sau khi sửa khuyến mãi, kể cả khi chỉ sửa danh sách sách
+ * (không có Hibernate ở đây nên không có @PostUpdate, chỉ còn sự kiện do service phát ra).
+ */
+class PromotionServiceImplTest {
+
+    private final PromotionRepository promotionRepository = mock(PromotionRepository.class);
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final PromotionEngine promotionEngine = new PromotionEngine(promotionRepository);
+    private final Book firstBook = book();
+    private final Book secondBook = book();
+    private final Promotion promotion = new Promotion("Sale", 10.0, LocalDate.now().minusDays(1),
+            LocalDate.now().plusDays(3), "Giảm giá");
+    private PromotionServiceImpl promotionService;
+
+    @BeforeEach
+    void setUp() {
+        promotion.setPromotionID(UUID.randomUUID());
+        promotion.setCode("SALE10");
+        promotion.setUsageLimit(5);
+        promotion.setUsageCount(0);
+        promotion.setApplicableBooks(new ArrayList<>(List.of(firstBook)));
+
+        when(promotionRepository.findAll()).thenReturn(List.of(promotion));
+        when(promotionRepository.findById(promotion.getPromotionID())).thenReturn(Optional.of(promotion));
+        when(promotionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(promotionRepository.findUsageCountById(promotion.getPromotionID())).thenReturn(Optional.of(0));
+        when(promotionRepository.findApplicableBookIds(promotion.getPromotionID()))
+                .thenAnswer(invocation -> promotion.getApplicableBooks().stream().map(Book::getId).toList());
+        when(promotionRepository.findUsableBookLinks(any())).thenAnswer(invocation -> promotion.getApplicableBooks().stream()
+                .map(book -> link(promotion.getPromotionID(), book.getId()))
+                .toList());
+        when(bookRepository.findAllById(List.of(secondBook.getId()))).thenReturn(List.of(secondBook));
+
+        promotionService = new PromotionServiceImpl(promotionRepository, bookRepository, mock(BookMapper.class),
+                promotionEngine, mock(CartPromotionOptimizer.class),
+                event -> promotionEngine.onCatalogChanged((CatalogChangedEvent) event));
+        promotionEngine.rebuild();
+    }
+
+    @Test
+    void validationSeesEditedBookListImmediately() {
+        assertTrue(isValidFor(firstBook));
+        assertFalse(isValidFor(secondBook));
+
+        promotionService.updatePromotion(promotion.getPromotionID(),
+                UpdatePromotionRequest.builder().applicableBookIds(List.of(secondBook.getId())).build());
+
+        assertFalse(isValidFor(firstBook));
+        assertTrue(isValidFor(secondBook));
+    }
+
+    @Test
+    void validationSeesStatusChangeImmediately() {
+        promotionService.updatePromotionStatus(promotion.getPromotionID(), "inactive");
+
+        assertFalse(isValidFor(firstBook));
+    }
+
+    @Test
+    void validationBeforeSnapshotReadsOnlyThatPromotion() {
+        PromotionEngine coldEngine = new PromotionEngine(promotionRepository);
+        PromotionServiceImpl coldService = new PromotionServiceImpl(promotionRepository, bookRepository,
+                mock(BookMapper.class), coldEngine, mock(CartPromotionOptimizer.class), event -> { });
+        when(promotionRepository.findByCode("SALE10")).thenReturn(Optional.of(promotion));
+        clearInvocations(promotionRepository);
+
+        assertTrue(coldService.validatePromotionCode(ValidatePromotionCodeRequest.builder()
+                .code("sale10")
+                .bookIds(List.of(firstBook.getId()))
+                .build()).getIsValid());
+        verify(promotionRepository, never()).findAll();
+        assertFalse(coldEngine.isReady());
+
+        coldEngine.rebuildIfRequested();
+        assertTrue(coldEngine.isReady());
+    }
+
+    @Test
+    void listReturnsBookCountWithoutBookIds() {
+        when(promotionRepository.findActivePromotions(any())).thenReturn(List.of(promotion));
+        when(promotionRepository.countBooksByPromotionIds(List.of(promotion.getPromotionID())))
+                .thenReturn(List.of(count(promotion.getPromotionID(), 1)));
+
+        PromotionResponse listed = promotionService.getActivePromotions().get(0);
+        assertNull(listed.getApplicableBookIds());
+        assertEquals(1, listed.getApplicableBookCount());
+        verify(promotionRepository, never()).findBookLinksByPromotionIds(any());
+
+        PromotionResponse single = promotionService.getPromotionById(promotion.getPromotionID());
+        assertEquals(List.of(firstBook.getId()), single.getApplicableBookIds());
+        assertEquals(1, single.getApplicableBookCount());
+    }
+
+    private boolean isValidFor(Book book) {
+        return promotionService.validatePromotionCode(ValidatePromotionCodeRequest.builder()
+                .code("SALE10")
+                .bookIds(List.of(book.getId()))
+                .build()).getIsValid();
+    }
+
+    private static Book book() {
+        Book book = new Book();
+        book.setId(UUID.randomUUID());
+        return book;
+    }
+
+    private static PromotionBookView link(UUID promotionId, UUID bookId) {
+        return new PromotionBookView() {
+            @Override
+            public UUID getPromotionId() {
+                return promotionId;
+            }
+
+            @Override
+            public UUID getBookId() {
+                return bookId;
+            }
+        };
+    }
+
+    private static PromotionBookCountView count(UUID promotionId, long bookCount) {
+        return new PromotionBookCountView() {
+            @Override
+            public UUID getPromotionId() {
+                return promotionId;
+            }
+
+            @Override
+            public long getBookCount() {
+                return bookCount;
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.notfound.bookstore.service.impl;
+
+import com.notfound.bookstore.event.CatalogChangedEvent;
+import com.notfound.bookstore.model.dto.request.reviewrequest.CreateReviewRequest;
+import com.notfound.bookstore.model.entity.Book;
+import com.notfound.bookstore.model.entity.Review;
+import com.notfound.bookstore.model.entity.User;
+import com.notfound.bookstore.model.mapper.ReviewMapper;
+import com.notfound.bookstore.repository.BookRepository;
+import com.notfound.bookstore.repository.ReviewRepository;
+import com.notfound.bookstore.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Thêm đánh giá cập nhật tổng hợp trên sách bằng UPDATE trực tiếp nên phải tự phát sự kiện BOOK.
+ */
+class ReviewServiceImplTest {
+
+    private final ReviewRepository reviewRepository = mock(ReviewRepository.class);
+    private final ReviewMapper reviewMapper = mock(ReviewMapper.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ReviewServiceImpl reviewService =
+            new ReviewServiceImpl(reviewRepository, reviewMapper, userRepository, bookRepository, eventPublisher);
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void addingReviewPublishesBookEventAfterUpdatingRating() {
+        Book book = new Book();
+        book.setId(UUID.randomUUID());
+        User user = new User();
+        Review review = new Review("Hay", 4, user, book);
+        CreateReviewRequest request = CreateReviewRequest.builder().bookId(book.getId()).rating(4).comment("Hay").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+        when(userRepository.findByUsername("reader")).thenReturn(Optional.of(user));
+        when(bookRepository.findById(book.getId())).thenReturn(Optional.of(book));
+        when(reviewMapper.toEntity(request, user, book)).thenReturn(review);
+        when(reviewRepository.save(review)).thenReturn(review);
+
+        reviewService.addReviewBook(request);
+
+        InOrder order = inOrder(bookRepository, eventPublisher);
+        order.verify(bookRepository).addRating(eq(book.getId()), eq(4), any());
+        order.verify(eventPublisher).publishEvent(new CatalogChangedEvent(
+                CatalogChangedEvent.EntityType.BOOK, book.getId(), CatalogChangedEvent.Action.SAVED));
+    }
+}
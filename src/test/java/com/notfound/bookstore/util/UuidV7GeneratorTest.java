@@ -0,0 +1,105 @@
+package com.notfound.bookstore.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.ByteBuffer;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UuidV7GeneratorTest {
+
+    private static final int ID_COUNT = 200_000;
+    private static final int BENCHMARK_ROWS = 500_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Test
+    void generatesUniqueVersion7IdsInBinaryOrder() {
+        Set<UUID> seen = new HashSet<>();
+        byte[] previous = null;
+        long before = System.currentTimeMillis();
+        for (int i = 0; i < ID_COUNT; i++) {
+            UUID id = UuidV7Generator.next();
+            assertEquals(7, id.version());
+            assertEquals(2, id.variant());
+            assertTrue(seen.add(id));
+            // Thứ tự so sánh của cột BINARY(16) là thứ tự byte không dấu
+            byte[] bytes = toBytes(id);
+            if (previous != null) {
+                assertTrue(Arrays.compareUnsigned(previous, bytes) < 0, "IDs must increase in BINARY(16) order");
+            }
+            previous = bytes;
+        }
+        long embeddedMillis = UuidV7Generator.next().getMostSignificantBits() >>> 16;
+        assertTrue(embeddedMillis >= before);
+    }
+
+    /**
+     * So sánh tốc độ ghi khóa chính UUID v4 và v7 (BINARY(16)) trên CSDL tương thích MySQL chạy ở máy local.
+     * Chỉ chạy khi có tham số, ví dụ:
+     * mvn test -Dtest=UuidV7GeneratorTest -Dbenchmark.jdbc-url=jdbc:mysql://localhost:3306/bench?rewriteBatchedStatements=true
+     *          -Dbenchmark.user=root -Dbenchmark.password=secret
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark.jdbc-url", matches = ".+")
+    void insertThroughputBenchmark() throws SQLException {
+        String url = System.getProperty("benchmark.jdbc-url");
+        String user = System.getProperty("benchmark.user", "root");
+        String password = System.getProperty("benchmark.password", "");
+        int rows = Integer.getInteger("benchmark.rows", BENCHMARK_ROWS);
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            // Chạy xen kẽ hai lần để giảm ảnh hưởng của JIT và bộ đệm lúc khởi động
+            double random = 0;
+            double timeOrdered = 0;
+            for (int round = 0; round < 2; round++) {
+                random = insertRows(connection, "uuid_bench_v4", rows, UUID::randomUUID);
+                timeOrdered = insertRows(connection, "uuid_bench_v7", rows, UuidV7Generator::next);
+            }
+            System.out.printf("UUID v4: %.0f rows/s, UUID v7: %.0f rows/s (%d rows)%n", random, timeOrdered, rows);
+            assertTrue(timeOrdered > random, "Time-ordered keys should insert faster than random keys");
+        }
+    }
+
+    private static double insertRows(Connection connection, String table, int rows, Supplier<UUID> ids) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id BINARY(16) NOT NULL PRIMARY KEY, customer_id BINARY(16) NOT NULL,"
+                    + " total DOUBLE NOT NULL, created_at TIMESTAMP NOT NULL, note VARCHAR(200))");
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setBytes(1, toBytes(ids.get()));
+                insert.setBytes(2, toBytes(UUID.randomUUID()));
+                insert.setDouble(3, i);
+                insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                insert.setString(5, "order " + i);
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i == rows - 1) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + table);
+        }
+        return rows / seconds;
+    }
+
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}